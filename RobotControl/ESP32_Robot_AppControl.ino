@@ -1,6 +1,9 @@
 #include <WiFi.h>
+#include <WiFiUdp.h>
 #include <ESP32Servo.h>
 #include <ArduinoJson.h>
+#include "mbedtls/sha1.h"
+#include "mbedtls/base64.h"
 
 // ===== AP Mode Configuration =====
 const char* ap_ssid = "Robot_AP";
@@ -33,6 +36,50 @@ const int IN4 = 4;
 const uint16_t SERVER_PORT = 8888;
 WiFiServer server(SERVER_PORT);
 
+// UDP control (app transport "wifi_udp"): 8-byte datagrams
+//   [0] 0xA5  [1] opcode | 0x80 to request an ACK  [2..5] seq (big-endian)  [6] arg0  [7] arg1
+// Opcodes: 1 forward, 2 backward, 3 left, 4 right, 5 stop, 6 servo (arg0 servo, arg1 angle),
+// 7 drive (arg0/arg1 = wheel percent + 100). ACK: opcode 0x7F with the same seq.
+const uint16_t UDP_PORT = 8889;
+const uint8_t UDP_MAGIC = 0xA5;
+const uint8_t UDP_FLAG_ACK = 0x80;
+const uint8_t UDP_OP_ACK = 0x7F;
+WiFiUDP udp;
+// Datagrams may be reordered; never let an older one override a newer one.
+IPAddress udpLastSender;
+uint16_t udpLastPort = 0;
+uint32_t udpLastSeq = 0;
+bool udpHaveSeq = false;
+
+// WebSocket control (app transport "wifi_ws"): ws://192.168.4.1:81/ws. Text frames carry the
+// same paths as HTTP ("/forward", "/set?servo=2&angle=90") and are answered in order with the
+// same JSON; between commands the robot pushes {"type":"telemetry",...} once a second.
+const uint16_t WS_PORT = 81;
+const char* WS_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+const size_t WS_MAX_PAYLOAD = 256;
+const unsigned long WS_TELEMETRY_MS = 1000;
+WiFiServer wsServer(WS_PORT);
+WiFiClient wsClient;
+bool wsOpen = false;
+unsigned long wsLastTelemetry = 0;
+
+const char* UNKNOWN_COMMAND_JSON = "{\"status\":\"error\",\"message\":\"Unknown command\"}";
+
+// The app keeps one connection open and sends many commands over it. A control screen and a
+// fleet broadcast may each hold one to the same robot, so a few are served side by side; a new
+// connection only evicts the one idle the longest when every slot is taken.
+const int MAX_APP_CLIENTS = 4;
+WiFiClient appClients[MAX_APP_CLIENTS];
+unsigned long lastRequestTime[MAX_APP_CLIENTS];
+const unsigned long CLIENT_IDLE_TIMEOUT_MS = 15000;
+
+// Joystick mode: /drive setpoints arrive continuously (the app heartbeats every ~200 ms).
+// If they stop, the link or the app is gone, so stop instead of driving on.
+bool driveActive = false;
+bool pwmActive = false;
+unsigned long lastDriveTime = 0;
+const unsigned long DRIVE_FAILSAFE_MS = 500;
+
 void setup() {
   Serial.begin(115200);
   delay(3000);
@@ -68,7 +115,23 @@ void setup() {
   Serial.println("=== WAITING FOR BUTTON PRESS ===\n");
 }
 
+// Hand the motor pins back to plain GPIO after PWM drive.
+void releasePwm() {
+  if (!pwmActive) return;
+  analogWrite(IN1, 0);
+  analogWrite(IN2, 0);
+  analogWrite(IN3, 0);
+  analogWrite(IN4, 0);
+  pinMode(IN1, OUTPUT);
+  pinMode(IN2, OUTPUT);
+  pinMode(IN3, OUTPUT);
+  pinMode(IN4, OUTPUT);
+  pwmActive = false;
+}
+
 void stopMotors() {
+  releasePwm();
+  driveActive = false;
   digitalWrite(IN1, LOW);
   digitalWrite(IN2, LOW);
   digitalWrite(IN3, LOW);
@@ -76,6 +139,8 @@ void stopMotors() {
 }
 
 void forward() {
+  releasePwm();
+  driveActive = false;
   digitalWrite(IN1, LOW); 
   digitalWrite(IN2, HIGH);
   digitalWrite(IN3, HIGH); 
@@ -83,6 +148,8 @@ void forward() {
 }
 
 void backward() {
+  releasePwm();
+  driveActive = false;
   digitalWrite(IN1, HIGH); 
   digitalWrite(IN2, LOW);
   digitalWrite(IN3, LOW); 
@@ -90,6 +157,8 @@ void backward() {
 }
 
 void left() {
+  releasePwm();
+  driveActive = false;
   digitalWrite(IN1, HIGH); 
   digitalWrite(IN2, LOW);
   digitalWrite(IN3, HIGH); 
@@ -97,12 +166,27 @@ void left() {
 }
 
 void right() {
+  releasePwm();
+  driveActive = false;
   digitalWrite(IN1, LOW); 
   digitalWrite(IN2, HIGH);
   digitalWrite(IN3, LOW); 
   digitalWrite(IN4, HIGH);
 }
 
+// Wheel speeds in percent, -100..100 (left: IN1/IN2, right: IN3/IN4).
+void drive(int leftPct, int rightPct) {
+  int l = map(abs(leftPct), 0, 100, 0, 255);
+  int r = map(abs(rightPct), 0, 100, 0, 255);
+  analogWrite(IN1, leftPct < 0 ? l : 0);
+  analogWrite(IN2, leftPct > 0 ? l : 0);
+  analogWrite(IN3, rightPct > 0 ? r : 0);
+  analogWrite(IN4, rightPct < 0 ? r : 0);
+  pwmActive = true;
+  driveActive = true;
+  lastDriveTime = millis();
+}
+
 void startAP() {
   if (apStarted) return;
   
@@ -130,6 +214,13 @@ void startAP() {
     Serial.println(SERVER_PORT);
     
     server.begin();
+    udp.begin(UDP_PORT);
+    udpHaveSeq = false;
+    Serial.print("[Server] ✓ UDP control on port ");
+    Serial.println(UDP_PORT);
+    wsServer.begin();
+    Serial.print("[Server] ✓ WebSocket control on port ");
+    Serial.println(WS_PORT);
     Serial.println("=== APP CAN NOW CONNECT ===\n");
   } else {
     Serial.println("[AP] ✗ FAILED TO START!");
@@ -142,14 +233,21 @@ void stopAP() {
   
   Serial.println("\n[AP] Stopping Access Point...");
   stopMotors();
+  for (int i = 0; i < MAX_APP_CLIENTS; i++) {
+    if (appClients[i]) appClients[i].stop();
+  }
   server.stop();
+  udp.stop();
+  if (wsClient) wsClient.stop();
+  wsOpen = false;
+  wsServer.stop();
   WiFi.softAPdisconnect(true);
   WiFi.mode(WIFI_OFF);
   apStarted = false;
   Serial.println("[AP] ✓ AP stopped. System offline.\n");
 }
 
-void sendJsonResponse(WiFiClient &client, const char* command, bool success) {
+String statusJson(const char* command, bool success) {
   StaticJsonDocument<256> doc;
   doc["command"] = command;
   doc["status"] = success ? "ok" : "error";
@@ -159,15 +257,395 @@ void sendJsonResponse(WiFiClient &client, const char* command, bool success) {
   
   String json;
   serializeJson(doc, json);
+  return json;
+}
+
+void sendJsonResponse(WiFiClient &client, const char* command, bool success) {
+  String json = statusJson(command, success);
   
   client.print("HTTP/1.1 200 OK\r\n");
   client.print("Content-Type: application/json\r\n");
+  client.print("Connection: keep-alive\r\n");
   client.print("Content-Length: ");
   client.print(json.length());
   client.print("\r\n\r\n");
   client.print(json);
 }
 
+void setServoAngle(int servoNum, int angle) {
+  switch (servoNum) {
+    case 1: servo1.write(angle); servo1_pos = angle; break;
+    case 2: servo2.write(angle); servo2_pos = angle; break;
+    case 3: servo3.write(angle); servo3_pos = angle; break;
+  }
+}
+
+// Applies every waiting UDP command; ACKs the ones that ask for it, duplicates included.
+void handleUdp() {
+  int size;
+  while ((size = udp.parsePacket()) > 0) {
+    uint8_t p[8];
+    if (size != sizeof(p) || udp.read(p, sizeof(p)) != sizeof(p) || p[0] != UDP_MAGIC) {
+      udp.flush();
+      continue;
+    }
+    uint8_t opcode = p[1] & 0x7F;
+    uint32_t seq = ((uint32_t) p[2] << 24) | ((uint32_t) p[3] << 16) | ((uint32_t) p[4] << 8) | p[5];
+    IPAddress from = udp.remoteIP();
+    uint16_t fromPort = udp.remotePort();
+
+    bool sameSender = udpHaveSeq && from == udpLastSender && fromPort == udpLastPort;
+    if (!sameSender || (int32_t) (seq - udpLastSeq) > 0) {
+      udpLastSender = from;
+      udpLastPort = fromPort;
+      udpLastSeq = seq;
+      udpHaveSeq = true;
+      switch (opcode) {
+        case 1: forward(); break;
+        case 2: backward(); break;
+        case 3: left(); break;
+        case 4: right(); break;
+        case 5: stopMotors(); break;
+        case 6:
+          if (p[7] <= 180) setServoAngle(p[6], p[7]);
+          break;
+        case 7: {
+          int leftPct = constrain((int) p[6] - 100, -100, 100);
+          int rightPct = constrain((int) p[7] - 100, -100, 100);
+          if (leftPct == 0 && rightPct == 0) stopMotors(); else drive(leftPct, rightPct);
+          break;
+        }
+      }
+    }
+
+    if (p[1] & UDP_FLAG_ACK) {
+      uint8_t ack[8] = {UDP_MAGIC, UDP_OP_ACK, p[2], p[3], p[4], p[5], 0, 0};
+      udp.beginPacket(from, fromPort);
+      udp.write(ack, sizeof(ack));
+      udp.endPacket();
+    }
+  }
+}
+
+// Applies one command path ("/forward", "/set?servo=2&angle=90", ...), from HTTP or WebSocket.
+// Returns the command name for the JSON reply, or nullptr if the command is unknown or invalid.
+const char* runCommand(const String &request) {
+  // ===== MOTOR CONTROL =====
+  if (request.indexOf("/forward") != -1) {
+    forward();
+    Serial.println("[Cmd] forward");
+    return "forward";
+  }
+  else if (request.indexOf("/backward") != -1) {
+    backward();
+    Serial.println("[Cmd] backward");
+    return "backward";
+  }
+  else if (request.indexOf("/left") != -1) {
+    left();
+    Serial.println("[Cmd] left");
+    return "left";
+  }
+  else if (request.indexOf("/right") != -1) {
+    right();
+    Serial.println("[Cmd] right");
+    return "right";
+  }
+  else if (request.indexOf("/stop") != -1) {
+    stopMotors();
+    Serial.println("[Cmd] stop");
+    return "stop";
+  }
+  
+  // /drive?l=60&r=-20 (joystick mode, wheel speeds in percent)
+  else if (request.indexOf("/drive") != -1) {
+    int lIndex = request.indexOf("l=");
+    int rIndex = request.indexOf("r=", lIndex + 2);
+    if (lIndex != -1 && rIndex != -1) {
+      int leftPct = constrain(request.substring(lIndex + 2).toInt(), -100, 100);
+      int rightPct = constrain(request.substring(rIndex + 2).toInt(), -100, 100);
+      if (leftPct == 0 && rightPct == 0) {
+        stopMotors();
+      } else {
+        drive(leftPct, rightPct);
+      }
+      return "drive";
+    }
+  }
+  
+  // ===== SERVO CONTROL =====
+  else if (request.indexOf("/set") != -1) {
+    int servoIndex = request.indexOf("servo=");
+    int angleIndex = request.indexOf("angle=");
+    
+    if (servoIndex != -1 && angleIndex != -1) {
+      int servoNum = request.substring(servoIndex + 6, request.indexOf('&')).toInt();
+      int angle = request.substring(angleIndex + 6).toInt();
+      
+      if (angle >= 0 && angle <= 180) {
+        Serial.printf("[Cmd] set servo=%d angle=%d\n", servoNum, angle);
+        
+        switch (servoNum) {
+          case 1:
+            servo1.write(angle);
+            servo1_pos = angle;
+            break;
+          case 2:
+            servo2.write(angle);
+            servo2_pos = angle;
+            break;
+          case 3:
+            servo3.write(angle);
+            servo3_pos = angle;
+            break;
+        }
+        return "servo";
+      }
+    }
+  }
+  
+  // ===== MULTI-SERVO POSE =====
+  // /pose?s1=90&s2=45&s3=120 (any subset of servos, one round trip)
+  else if (request.indexOf("/pose") != -1) {
+    int targets[3] = {-1, -1, -1};
+    bool valid = true;
+    for (int i = 0; i < 3; i++) {
+      String key = "s" + String(i + 1) + "=";
+      int idx = request.indexOf(key);
+      if (idx == -1) continue;
+      int angle = request.substring(idx + key.length()).toInt();
+      if (angle < 0 || angle > 180) {
+        valid = false;
+        break;
+      }
+      targets[i] = angle;
+    }
+
+    if (valid) {
+      Serial.printf("[Cmd] pose s1=%d s2=%d s3=%d\n", targets[0], targets[1], targets[2]);
+      if (targets[0] >= 0) { servo1.write(targets[0]); servo1_pos = targets[0]; }
+      if (targets[1] >= 0) { servo2.write(targets[1]); servo2_pos = targets[1]; }
+      if (targets[2] >= 0) { servo3.write(targets[2]); servo3_pos = targets[2]; }
+      return "pose";
+    }
+  }
+
+  // ===== STATUS REQUEST =====
+  else if (request.indexOf("/status") != -1) {
+    Serial.println("[Cmd] status");
+    return "status";
+  }
+
+  return nullptr;
+}
+
+// ===== WEBSOCKET =====
+// Reads the upgrade request and answers 101, or 404 for anything but GET /ws.
+bool wsHandshake(WiFiClient &client) {
+  client.setTimeout(200);
+  String request = client.readStringUntil('\n');
+  request.trim();
+  String key = "";
+  unsigned long headerStart = millis();
+  while (client.connected() && millis() - headerStart < 200) {
+    String h = client.readStringUntil('\n');
+    h.trim();
+    if (h.length() == 0) break;
+    if (h.substring(0, 18).equalsIgnoreCase("Sec-WebSocket-Key:")) {
+      key = h.substring(18);
+      key.trim();
+    }
+  }
+  if (!request.startsWith("GET /ws ") || key.length() == 0) {
+    client.print("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\nConnection: close\r\n\r\n");
+    return false;
+  }
+
+  String source = key + WS_GUID;
+  unsigned char hash[20];
+  mbedtls_sha1((const unsigned char*) source.c_str(), source.length(), hash);
+  unsigned char accept[32];
+  size_t acceptLength = 0;
+  mbedtls_base64_encode(accept, sizeof(accept) - 1, &acceptLength, hash, sizeof(hash));
+  accept[acceptLength] = 0;
+
+  client.print("HTTP/1.1 101 Switching Protocols\r\n");
+  client.print("Upgrade: websocket\r\n");
+  client.print("Connection: Upgrade\r\n");
+  client.print("Sec-WebSocket-Accept: ");
+  client.print((const char*) accept);
+  client.print("\r\n\r\n");
+  return true;
+}
+
+// Server frames are never masked.
+void wsSend(uint8_t opcode, const uint8_t* payload, size_t length) {
+  uint8_t header[4];
+  size_t headerLength = 2;
+  header[0] = 0x80 | opcode;
+  if (length < 126) {
+    header[1] = length;
+  } else {
+    header[1] = 126;
+    header[2] = length >> 8;
+    header[3] = length & 0xFF;
+    headerLength = 4;
+  }
+  wsClient.write(header, headerLength);
+  if (length > 0) wsClient.write(payload, length);
+}
+
+void wsSendText(const String &text) {
+  wsSend(0x1, (const uint8_t*) text.c_str(), text.length());
+}
+
+void wsClose() {
+  wsClient.stop();
+  wsOpen = false;
+}
+
+// Accepts the app's session (a new one replaces the old), runs its commands and pushes telemetry.
+void handleWebSocket() {
+  WiFiClient incoming = wsServer.available();
+  if (incoming) {
+    if (wsClient) wsClient.stop();
+    wsClient = incoming;
+    wsOpen = wsHandshake(wsClient);
+    if (!wsOpen) {
+      wsClient.stop();
+      return;
+    }
+    wsLastTelemetry = millis();
+    Serial.println("[WS] Session open");
+  }
+  if (!wsOpen) return;
+  if (!wsClient.connected()) {
+    wsClose();
+    return;
+  }
+
+  uint8_t payload[WS_MAX_PAYLOAD + 1];
+  while (wsClient.available() >= 2) {
+    uint8_t h[2];
+    wsClient.readBytes(h, 2);
+    uint8_t opcode = h[0] & 0x0F;
+    size_t length = h[1] & 0x7F;
+    if (length == 126) {
+      uint8_t ext[2];
+      if (wsClient.readBytes(ext, 2) != 2) { wsClose(); return; }
+      length = ((size_t) ext[0] << 8) | ext[1];
+    }
+    // Client frames must be masked; nothing the app sends comes near the cap.
+    if (!(h[1] & 0x80) || length > WS_MAX_PAYLOAD) { wsClose(); return; }
+    uint8_t mask[4];
+    if (wsClient.readBytes(mask, 4) != 4 || wsClient.readBytes(payload, length) != length) {
+      wsClose();
+      return;
+    }
+    for (size_t i = 0; i < length; i++) payload[i] ^= mask[i & 3];
+    payload[length] = 0;
+
+    if (opcode == 0x8) {
+      wsSend(0x8, nullptr, 0);
+      wsClose();
+      Serial.println("[WS] Session closed");
+      return;
+    }
+    if (opcode == 0x9) {
+      wsSend(0xA, payload, length);
+      continue;
+    }
+    if (opcode != 0x1) continue;
+
+    String request((const char*) payload);
+    Serial.print("[WS] ");
+    Serial.println(request);
+    const char* command = runCommand(request);
+    // Every text frame gets exactly one reply: the app matches replies to commands by order.
+    wsSendText(command != nullptr ? statusJson(command, true) : String(UNKNOWN_COMMAND_JSON));
+  }
+
+  if (millis() - wsLastTelemetry >= WS_TELEMETRY_MS) {
+    wsLastTelemetry = millis();
+    StaticJsonDocument<192> doc;
+    doc["type"] = "telemetry";
+    doc["driving"] = driveActive;
+    doc["servo1"] = servo1_pos;
+    doc["servo2"] = servo2_pos;
+    doc["servo3"] = servo3_pos;
+    doc["uptime"] = millis() / 1000;
+    String json;
+    serializeJson(doc, json);
+    wsSendText(json);
+  }
+}
+
+// Takes a free slot, or the one idle the longest.
+void acceptAppClient(WiFiClient &incoming) {
+  int slot = 0;
+  for (int i = 0; i < MAX_APP_CLIENTS; i++) {
+    if (!appClients[i]) {
+      slot = i;
+      break;
+    }
+    if (millis() - lastRequestTime[i] > millis() - lastRequestTime[slot]) slot = i;
+  }
+  if (appClients[slot]) appClients[slot].stop();
+  appClients[slot] = incoming;
+  lastRequestTime[slot] = millis();
+}
+
+// Reads one request from a keep-alive client and answers it.
+void handleAppRequest(WiFiClient &client) {
+  String request = client.readStringUntil('\n');
+  request.trim();
+
+  // Read and discard remaining headers quickly (best-effort)
+  // so the next request isn't affected.
+  bool closeRequested = false;
+  unsigned long headerStart = millis();
+  while (client.connected() && millis() - headerStart < 50) {
+    String h = client.readStringUntil('\n');
+    h.trim();
+    if (h.length() == 0) break; // end of headers
+    if (h.equalsIgnoreCase("Connection: close")) closeRequested = true;
+  }
+
+  // Example: "GET /forward HTTP/1.1"
+  String path = "";
+  int sp1 = request.indexOf(' ');
+  int sp2 = (sp1 >= 0) ? request.indexOf(' ', sp1 + 1) : -1;
+  if (sp1 >= 0 && sp2 > sp1) {
+    path = request.substring(sp1 + 1, sp2);
+  }
+
+  Serial.print("[Web] From ");
+  Serial.print(client.remoteIP());
+  Serial.print(" -> ");
+  Serial.println(request);
+  Serial.print("[Web] Path: ");
+  Serial.println(path);
+
+  const char* command = runCommand(request);
+  if (command != nullptr) {
+    sendJsonResponse(client, command, true);
+  } else {
+    const char* notFound = UNKNOWN_COMMAND_JSON;
+    client.print("HTTP/1.1 404 Not Found\r\n");
+    client.print("Content-Type: application/json\r\n");
+    client.print("Connection: keep-alive\r\n");
+    client.print("Content-Length: ");
+    client.print(strlen(notFound));
+    client.print("\r\n\r\n");
+    client.print(notFound);
+  }
+
+  if (closeRequested) {
+    delay(10);
+    client.stop();
+  }
+}
+
 void loop() {
   // Button detection
   bool currentButtonState = !digitalRead(BUTTON_PIN);
@@ -196,119 +674,29 @@ void loop() {
     stopAP();
   }
   
+  // Joystick failsafe
+  if (driveActive && millis() - lastDriveTime > DRIVE_FAILSAFE_MS) {
+    Serial.println("[Failsafe] No drive setpoint, stopping");
+    stopMotors();
+  }
+
   // Handle app requests
   if (apStarted) {
-    WiFiClient client = server.available();
-    if (!client) return;
-
-    String request = client.readStringUntil('\n');
-    request.trim();
-
-    // Read and discard remaining headers quickly (best-effort)
-    // so the next request isn't affected.
-    unsigned long headerStart = millis();
-    while (client.connected() && millis() - headerStart < 50) {
-      String h = client.readStringUntil('\n');
-      h.trim();
-      if (h.length() == 0) break; // end of headers
-    }
-
-    // Example: "GET /forward HTTP/1.1"
-    String path = "";
-    int sp1 = request.indexOf(' ');
-    int sp2 = (sp1 >= 0) ? request.indexOf(' ', sp1 + 1) : -1;
-    if (sp1 >= 0 && sp2 > sp1) {
-      path = request.substring(sp1 + 1, sp2);
-    }
-
-    Serial.print("[Web] From ");
-    Serial.print(client.remoteIP());
-    Serial.print(" -> ");
-    Serial.println(request);
-    Serial.print("[Web] Path: ");
-    Serial.println(path);
-
-    bool handled = false;
+    handleUdp();
+    handleWebSocket();
 
-    // ===== MOTOR CONTROL =====
-    if (request.indexOf("/forward") != -1) {
-      forward();
-      Serial.println("[Cmd] forward");
-      sendJsonResponse(client, "forward", true);
-      handled = true;
-    }
-    else if (request.indexOf("/backward") != -1) {
-      backward();
-      Serial.println("[Cmd] backward");
-      sendJsonResponse(client, "backward", true);
-      handled = true;
-    }
-    else if (request.indexOf("/left") != -1) {
-      left();
-      Serial.println("[Cmd] left");
-      sendJsonResponse(client, "left", true);
-      handled = true;
-    }
-    else if (request.indexOf("/right") != -1) {
-      right();
-      Serial.println("[Cmd] right");
-      sendJsonResponse(client, "right", true);
-      handled = true;
-    }
-    else if (request.indexOf("/stop") != -1) {
-      stopMotors();
-      Serial.println("[Cmd] stop");
-      sendJsonResponse(client, "stop", true);
-      handled = true;
-    }
-    
-    // ===== SERVO CONTROL =====
-    else if (request.indexOf("/set") != -1) {
-      int servoIndex = request.indexOf("servo=");
-      int angleIndex = request.indexOf("angle=");
-      
-      if (servoIndex != -1 && angleIndex != -1) {
-        int servoNum = request.substring(servoIndex + 6, request.indexOf('&')).toInt();
-        int angle = request.substring(angleIndex + 6).toInt();
-        
-        if (angle >= 0 && angle <= 180) {
-          Serial.printf("[Cmd] set servo=%d angle=%d\n", servoNum, angle);
-          
-          switch (servoNum) {
-            case 1:
-              servo1.write(angle);
-              servo1_pos = angle;
-              break;
-            case 2:
-              servo2.write(angle);
-              servo2_pos = angle;
-              break;
-            case 3:
-              servo3.write(angle);
-              servo3_pos = angle;
-              break;
-          }
-          sendJsonResponse(client, "servo", true);
-          handled = true;
-        }
+    WiFiClient incoming = server.available();
+    if (incoming) acceptAppClient(incoming);
+    for (int i = 0; i < MAX_APP_CLIENTS; i++) {
+      WiFiClient &client = appClients[i];
+      if (!client) continue;
+      if (!client.connected() || millis() - lastRequestTime[i] > CLIENT_IDLE_TIMEOUT_MS) {
+        client.stop();
+        continue;
       }
+      if (!client.available()) continue;
+      lastRequestTime[i] = millis();
+      handleAppRequest(client);
     }
-    
-    // ===== STATUS REQUEST =====
-    else if (request.indexOf("/status") != -1) {
-      Serial.println("[Cmd] status");
-      sendJsonResponse(client, "status", true);
-      handled = true;
-    }
-
-    // Default response
-    if (!handled) {
-      client.print("HTTP/1.1 404 Not Found\r\n");
-      client.print("Content-Type: application/json\r\n\r\n");
-      client.print("{\"status\":\"error\",\"message\":\"Unknown command\"}");
-    }
-
-    delay(10);
-    client.stop();
   }
 }
@@ -33,6 +33,10 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        // RobotController logs every request; let android.util.Log no-op in JVM tests.
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -68,6 +72,8 @@ dependencies {
     implementation("androidx.core:core-ktx:1.12.0")
     
     testImplementation(libs.junit)
+    // Plain-JVM robot stand-in for RobotController and Bluetooth protocol tests
+    testImplementation(project(":robot-emulator"))
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
@@ -6,6 +6,10 @@ import androidx.appcompat.app.AppCompatDelegate;
 import androidx.core.os.LocaleListCompat;
 import androidx.preference.PreferenceManager;
 
+import com.example.robotcontrol.logic.RobotApMatcher;
+
+import java.io.File;
+
 public final class AppSettings {
 
     private AppSettings() {
@@ -14,6 +18,10 @@ public final class AppSettings {
     public static final String KEY_THEME_MODE = "pref_theme_mode";
     public static final String KEY_COLOR_THEME = "pref_color_theme";
     public static final String KEY_LANGUAGE = "pref_language";
+    public static final String KEY_TELEOP_RATE = "pref_teleop_rate_hz";
+    public static final String KEY_BT_BATCH_WINDOW = "pref_bt_batch_window_ms";
+    public static final String KEY_RECORD_SESSIONS = "pref_record_sessions";
+    public static final String KEY_ROBOT_AP_RULES = "pref_robot_ap_rules";
 
     // Values stored in prefs
     public static final String THEME_SYSTEM = "system";
@@ -30,6 +38,21 @@ public final class AppSettings {
     public static final String LANGUAGE_FR = "fr";
     public static final String LANGUAGE_ES = "es";
 
+    // Joystick mode send rate (Hz), stored as a string by ListPreference
+    public static final int TELEOP_RATE_DEFAULT = 25;
+    public static final int TELEOP_RATE_MIN = 20;
+    public static final int TELEOP_RATE_MAX = 50;
+
+    // Bluetooth write batching window, 0 = off
+    public static final int BT_BATCH_WINDOW_DEFAULT = 0;
+    public static final int BT_BATCH_WINDOW_MAX = 10;
+
+    // Session recordings live in app storage; only the newest few are kept
+    public static final String SESSIONS_DIR = "sessions";
+    // WiFi sessions hold HTTP paths and JSON rather than link bytes; kept apart from Bluetooth ones
+    public static final String WIFI_SESSIONS_DIR = "wifi";
+    public static final int SESSIONS_KEPT = 10;
+
     public static void applyTheme(Context context) {
         String mode = PreferenceManager.getDefaultSharedPreferences(context)
                 .getString(KEY_THEME_MODE, THEME_SYSTEM);
@@ -73,4 +96,53 @@ public final class AppSettings {
 
         AppCompatDelegate.setApplicationLocales(LocaleListCompat.forLanguageTags(tag));
     }
+
+    public static int getTeleopRateHz(Context context) {
+        String value = PreferenceManager.getDefaultSharedPreferences(context)
+                .getString(KEY_TELEOP_RATE, String.valueOf(TELEOP_RATE_DEFAULT));
+        try {
+            int hz = Integer.parseInt(value);
+            return Math.max(TELEOP_RATE_MIN, Math.min(TELEOP_RATE_MAX, hz));
+        } catch (NumberFormatException e) {
+            return TELEOP_RATE_DEFAULT;
+        }
+    }
+
+    public static int getBtBatchWindowMs(Context context) {
+        String value = PreferenceManager.getDefaultSharedPreferences(context)
+                .getString(KEY_BT_BATCH_WINDOW, String.valueOf(BT_BATCH_WINDOW_DEFAULT));
+        try {
+            int ms = Integer.parseInt(value);
+            return Math.max(0, Math.min(BT_BATCH_WINDOW_MAX, ms));
+        } catch (NumberFormatException e) {
+            return BT_BATCH_WINDOW_DEFAULT;
+        }
+    }
+
+    public static boolean isSessionRecordingEnabled(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context)
+                .getBoolean(KEY_RECORD_SESSIONS, false);
+    }
+
+    public static File getSessionsDir(Context context) {
+        return new File(context.getFilesDir(), SESSIONS_DIR);
+    }
+
+    public static File getWifiSessionsDir(Context context) {
+        return new File(getSessionsDir(context), WIFI_SESSIONS_DIR);
+    }
+
+    /** Rules from settings, or {@link RobotApMatcher#DEFAULT_RULES} if unset or invalid. */
+    public static RobotApMatcher getRobotApMatcher(Context context) {
+        String rules = PreferenceManager.getDefaultSharedPreferences(context)
+                .getString(KEY_ROBOT_AP_RULES, "");
+        if (rules == null || rules.trim().isEmpty()) {
+            return RobotApMatcher.defaults();
+        }
+        try {
+            return RobotApMatcher.parse(rules);
+        } catch (IllegalArgumentException e) {
+            return RobotApMatcher.defaults();
+        }
+    }
 }
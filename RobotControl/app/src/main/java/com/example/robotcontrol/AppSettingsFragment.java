@@ -1,12 +1,17 @@
 package com.example.robotcontrol;
 
 import android.os.Bundle;
+import android.text.InputType;
+import android.widget.Toast;
 
 import androidx.annotation.Nullable;
+import androidx.preference.EditTextPreference;
 import androidx.preference.ListPreference;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
 
+import com.example.robotcontrol.logic.RobotApMatcher;
+
 public class AppSettingsFragment extends PreferenceFragmentCompat {
 
     @Override
@@ -58,5 +63,40 @@ public class AppSettingsFragment extends PreferenceFragmentCompat {
                 }
             });
         }
+
+        ListPreference teleopRatePreference = findPreference(AppSettings.KEY_TELEOP_RATE);
+        if (teleopRatePreference != null) {
+            // Read when joystick mode starts, nothing to apply here.
+            teleopRatePreference.setSummaryProvider(ListPreference.SimpleSummaryProvider.getInstance());
+        }
+
+        ListPreference batchWindowPreference = findPreference(AppSettings.KEY_BT_BATCH_WINDOW);
+        if (batchWindowPreference != null) {
+            // Read when the Bluetooth link connects.
+            batchWindowPreference.setSummaryProvider(ListPreference.SimpleSummaryProvider.getInstance());
+        }
+
+        EditTextPreference robotApRulesPreference = findPreference(AppSettings.KEY_ROBOT_AP_RULES);
+        if (robotApRulesPreference != null) {
+            robotApRulesPreference.setOnBindEditTextListener(editText -> {
+                editText.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_MULTI_LINE
+                        | InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS);
+                if (editText.getText().length() == 0) {
+                    editText.setText(RobotApMatcher.DEFAULT_RULES);
+                }
+            });
+            // Refuse rules that don't parse rather than silently falling back to the defaults.
+            robotApRulesPreference.setOnPreferenceChangeListener((preference, newValue) -> {
+                try {
+                    RobotApMatcher.parse(String.valueOf(newValue));
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    Toast.makeText(requireContext(),
+                            getString(R.string.pref_robot_ap_rules_invalid, e.getMessage()),
+                            Toast.LENGTH_LONG).show();
+                    return false;
+                }
+            });
+        }
     }
 }
@@ -2,35 +2,56 @@ package com.example.robotcontrol;
 
 import android.Manifest;
 import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothDevice;
-import android.bluetooth.BluetoothSocket;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.View;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.SeekBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.app.ActivityCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.robotcontrol.adapters.ReceiveLogAdapter;
 import com.example.robotcontrol.database.DatabaseHelper;
+import com.example.robotcontrol.logic.PriorityCommandQueue.Lane;
+import com.example.robotcontrol.logic.ReceiveLog;
+import com.example.robotcontrol.logic.TelemetryStore;
+import com.example.robotcontrol.logic.TimeSeries;
 import com.example.robotcontrol.models.Robot;
-
+import com.example.robotcontrol.network.BluetoothLink;
+import com.example.robotcontrol.network.BtFrameCodec;
+import com.example.robotcontrol.network.LineDecoder;
+import com.example.robotcontrol.network.RfcommEngine;
+import com.example.robotcontrol.network.SessionRecorder;
+import com.example.robotcontrol.network.SessionReplayer;
+import com.example.robotcontrol.utils.FrameDispatcher;
+
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
 
 public class ControlActivity extends AppCompatActivity {
 
-    private static final UUID MY_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
-
     private TextView robotNameText, connectionStatusText;
     private TextView commandStatusText;
-    private TextView receiveLogText;
+    private RecyclerView receiveLogList;
+    private Button receiveLogPauseButton;
+    private TextView linkMetricsText;
+    private TextView telemetryText;
     private ImageView connectionStatusIcon;
     private Button forwardButton, backwardButton, leftButton, rightButton, stopButton;
     private Button testButton;
@@ -47,13 +68,104 @@ public class ControlActivity extends AppCompatActivity {
     private DatabaseHelper dbHelper;
 
     private BluetoothAdapter bluetoothAdapter;
-    private BluetoothSocket bluetoothSocket;
-    private OutputStream outputStream;
-    private InputStream inputStream;
+    private BluetoothLink link;
+    // Whether this screen holds the link (BluetoothLink#acquire); released on disconnect.
+    private boolean holdsLink;
     private boolean isConnected = false;
+    // Set on the connect thread when "Record sessions" is on; closed in onDestroy.
+    private volatile SessionRecorder recorder;
+    // Long-press the connection status to replay the last recorded session into the log.
+    private Thread replayThread;
+
+    // Writes go through the link's single writer thread, keyed by target ("drive", "servo:3", ...),
+    // so they keep their order and a slider drag does not leave a backlog of stale angles.
+    // Stop rides the emergency lane and waits for at most the one write in progress.
+    private static final String KEY_DRIVE = "drive";
+    private static final String KEY_TEST = "test";
+    private static final String KEY_SERVO_PREFIX = "servo:";
+    // Link overlay (long-press the command line): batching and framing stats, refreshed while shown.
+    private static final long METRICS_REFRESH_MS = 500;
+    private final Handler metricsHandler = new Handler(Looper.getMainLooper());
+    private final Runnable metricsRefresh = new Runnable() {
+        @Override
+        public void run() {
+            BluetoothLink l = link;
+            if (linkMetricsText == null || linkMetricsText.getVisibility() != View.VISIBLE || l == null) return;
+            linkMetricsText.setText(l.getEngine().sampleStats().format()
+                    + "\n" + (l.isFramed() ? "framed" : "ascii")
+                    + "  ack " + l.getAckCount() + "  nack " + l.getNackCount()
+                    + "  rx crc " + l.getReceiveCrcErrorCount()
+                    + "\nui frames " + uiEvents.getFrameCount() + "/" + uiEvents.getPostedCount()
+                    + "  merged " + uiEvents.getMergedCount() + "  dropped " + uiEvents.getDroppedCount());
+            metricsHandler.postDelayed(this, METRICS_REFRESH_MS);
+        }
+    };
+
+    // Telemetry readout: the reader thread fills the link's store, this only takes snapshots.
+    private static final long TELEMETRY_REFRESH_MS = 250;
+    private static final long TELEMETRY_RANGE_NANOS = 10_000_000_000L;
+    private final long[] telemetryTimes = new long[TelemetryStore.DEFAULT_CAPACITY];
+    private final double[] telemetryValues = new double[TelemetryStore.DEFAULT_CAPACITY];
+    private final long[] rangeTime = new long[1];
+    private final double[] rangeMin = new double[1];
+    private final double[] rangeMax = new double[1];
+    private final Runnable telemetryRefresh = new Runnable() {
+        @Override
+        public void run() {
+            refreshTelemetry();
+            metricsHandler.postDelayed(this, TELEMETRY_REFRESH_MS);
+        }
+    };
+
+    // Everything the reader/writer threads show goes through here: one main-thread pass per
+    // frame, however fast the robot talks.
+    private final FrameDispatcher uiEvents = new FrameDispatcher(new FrameDispatcher.Sink() {
+        @Override
+        public void onLines(List<String> lines) {
+            showReceivedLines(lines);
+        }
+
+        @Override
+        public void onStatus(String status) {
+            if (commandStatusText != null) {
+                commandStatusText.setText(status);
+            }
+        }
+    });
+
+    // Robot output, 10k lines of scrollback; rows are only bound while on screen.
+    private final ReceiveLog receiveLog = new ReceiveLog();
+
+    // Lines the link decoded, on its reader thread, or from the replay thread.
+    private final LineDecoder.Listener robotLines = (buffer, offset, length) -> {
+        // Telemetry goes to the link's store (see refreshTelemetry), not into the log.
+        if (TelemetryStore.isTelemetry(buffer, offset, length)) return;
+        appendReceiveLog(new String(buffer, offset, length, StandardCharsets.US_ASCII));
+    };
+
+    // Received text arrives through robotLines; this only follows writes and the link closing.
+    private final RfcommEngine.Listener linkListener = new RfcommEngine.Listener() {
+        @Override
+        public void onWritten(byte[] command) {
+            // The link's framing probe, not a robot command.
+            if (command.length > 0 && (command[0] & 0xFF) == BtFrameCodec.SYNC) return;
+            String sent = new String(command, StandardCharsets.US_ASCII);
+            setCommandStatus("Command: sent '" + sent + "'");
+        }
 
-    private volatile boolean readLoopRunning = false;
-    private Thread readThread;
+        @Override
+        public void onClosed(IOException error) {
+            if (error == null) return;
+            uiEvents.postEvent(() -> {
+                if (!isConnected) return;
+                isConnected = false;
+                Toast.makeText(ControlActivity.this, "Connection lost", Toast.LENGTH_SHORT).show();
+                updateConnectionStatus(false);
+                enableControls(false);
+                setCommandStatus("Command: connection lost");
+            });
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -85,7 +197,10 @@ public class ControlActivity extends AppCompatActivity {
         robotNameText = findViewById(R.id.robotNameText);
         connectionStatusText = findViewById(R.id.connectionStatusText);
         commandStatusText = findViewById(R.id.commandStatusText);
-        receiveLogText = findViewById(R.id.receiveLogText);
+        receiveLogList = findViewById(R.id.receiveLogList);
+        receiveLogPauseButton = findViewById(R.id.receiveLogPauseButton);
+        linkMetricsText = findViewById(R.id.linkMetricsText);
+        telemetryText = findViewById(R.id.telemetryText);
         connectionStatusIcon = findViewById(R.id.connectionStatusIcon);
 
         forwardButton = findViewById(R.id.forwardButton);
@@ -129,6 +244,15 @@ public class ControlActivity extends AppCompatActivity {
         if (testButton != null) {
             testButton.setOnClickListener(v -> sendCommand("t"));
         }
+        commandStatusText.setOnLongClickListener(v -> {
+            toggleLinkMetrics();
+            return true;
+        });
+        connectionStatusText.setOnLongClickListener(v -> {
+            toggleReplay();
+            return true;
+        });
+        setupReceiveLog();
 
         speedSeekBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override
@@ -214,8 +338,58 @@ public class ControlActivity extends AppCompatActivity {
         }
     }
 
+    private void refreshTelemetry() {
+        BluetoothLink l = link;
+        if (telemetryText == null || l == null) return;
+        TelemetryStore store = l.getTelemetry();
+        if (store.getLineCount() == 0) return;
+
+        StringBuilder sb = new StringBuilder();
+        TimeSeries battery = store.series(TelemetryStore.Channel.BATTERY_V);
+        if (battery.getCount() > 0) {
+            sb.append(String.format(Locale.US, "Battery %.2f V", battery.latest(0)));
+            // Range over the last 10 s: one min/max bucket over the recent snapshot.
+            int n = battery.snapshot(telemetryTimes, telemetryValues, telemetryTimes.length);
+            long since = System.nanoTime() - TELEMETRY_RANGE_NANOS;
+            int from = 0;
+            while (from < n && telemetryTimes[from] < since) from++;
+            if (n - from > 1) {
+                System.arraycopy(telemetryTimes, from, telemetryTimes, 0, n - from);
+                System.arraycopy(telemetryValues, from, telemetryValues, 0, n - from);
+                TimeSeries.downsampleMinMax(telemetryTimes, telemetryValues, n - from, 1,
+                        rangeTime, rangeMin, rangeMax);
+                sb.append(String.format(Locale.US, " (%.2f-%.2f)", rangeMin[0], rangeMax[0]));
+            }
+        }
+        TimeSeries distance = store.series(TelemetryStore.Channel.DISTANCE_CM);
+        if (distance.getCount() > 0) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format(Locale.US, "Distance %.1f cm", distance.latest(0)));
+        }
+        TimeSeries left = store.series(TelemetryStore.Channel.ENCODER_LEFT);
+        TimeSeries right = store.series(TelemetryStore.Channel.ENCODER_RIGHT);
+        if (left.getCount() > 0 || right.getCount() > 0) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format(Locale.US, "Encoders %d / %d",
+                    (long) left.latest(0), (long) right.latest(0)));
+        }
+        if (sb.length() == 0) return;
+        telemetryText.setText(sb);
+        telemetryText.setVisibility(View.VISIBLE);
+    }
+
+    private void toggleLinkMetrics() {
+        if (linkMetricsText == null) return;
+        boolean show = linkMetricsText.getVisibility() != View.VISIBLE;
+        linkMetricsText.setVisibility(show ? View.VISIBLE : View.GONE);
+        metricsHandler.removeCallbacks(metricsRefresh);
+        if (show) {
+            metricsHandler.post(metricsRefresh);
+        }
+    }
+
     private void sendServoCommand(int servoIndex, int angle) {
-        if (!isConnected || outputStream == null) {
+        if (!isConnected || link == null) {
             setCommandStatus("Servo " + servoIndex + ": not sent (not connected)");
             return;
         }
@@ -223,25 +397,17 @@ public class ControlActivity extends AppCompatActivity {
         if (angle < 0) angle = 0;
         if (angle > 180) angle = 180;
 
-        final String cmd = "p" + servoIndex + ":" + angle + ";";
+        // "p" works with every sketch; only the 8-servo sketch knows the "q" pose command.
+        String cmd = "p" + servoIndex + ":" + angle + ";";
         setCommandStatus("Servo " + servoIndex + ": sending " + angle + "°");
+        enqueueWrite(Lane.LOW, KEY_SERVO_PREFIX + servoIndex, cmd);
+    }
 
-        int finalAngle = angle;
-        new Thread(() -> {
-            try {
-                outputStream.write(cmd.getBytes());
-                outputStream.flush();
-                runOnUiThread(() -> setCommandStatus("Servo " + servoIndex + ": sent " + finalAngle + "°"));
-            } catch (IOException e) {
-                runOnUiThread(() -> {
-                    Toast.makeText(this, "Failed to send servo command", Toast.LENGTH_SHORT).show();
-                    isConnected = false;
-                    updateConnectionStatus(false);
-                    enableControls(false);
-                    setCommandStatus("Servo " + servoIndex + ": failed");
-                });
-            }
-        }).start();
+    private void enqueueWrite(Lane lane, String key, String cmd) {
+        BluetoothLink l = link;
+        if (l == null || !l.getEngine().send(lane, key, cmd.getBytes(StandardCharsets.US_ASCII))) {
+            setCommandStatus("Command: failed to send");
+        }
     }
 
     private void connect() {
@@ -263,32 +429,41 @@ public class ControlActivity extends AppCompatActivity {
         }
 
         connectionStatusText.setText(R.string.connecting);
+        // Shared with any other user of this robot's link; a session already up is reused.
+        final BluetoothLink connecting = BluetoothLink.forAddress(robot.getMacAddress());
+        connecting.getEngine().addListener(linkListener);
+        connecting.addLineListener(robotLines);
+        connecting.getEngine().setBatchWindowMs(AppSettings.getBtBatchWindowMs(this));
+        link = connecting;
+        if (!holdsLink) {
+            connecting.acquire();
+            holdsLink = true;
+        }
 
         new Thread(() -> {
             try {
                 if (ActivityCompat.checkSelfPermission(this, Manifest.permission.BLUETOOTH_CONNECT)
                         != PackageManager.PERMISSION_GRANTED) {
-                    runOnUiThread(() -> {
+                    uiEvents.postEvent(() -> {
                         Toast.makeText(this, "Bluetooth permission required", Toast.LENGTH_SHORT).show();
                         updateConnectionStatus(false);
                     });
                     return;
                 }
 
-                BluetoothDevice device = bluetoothAdapter.getRemoteDevice(robot.getMacAddress());
-                bluetoothSocket = device.createRfcommSocketToServiceRecord(MY_UUID);
-                bluetoothSocket.connect();
-                outputStream = bluetoothSocket.getOutputStream();
-                inputStream = bluetoothSocket.getInputStream();
+                if (recorder == null && AppSettings.isSessionRecordingEnabled(this)) {
+                    startRecording(connecting);
+                }
+                connecting.connect(bluetoothAdapter);
 
-                runOnUiThread(() -> {
+                uiEvents.postEvent(() -> {
                     isConnected = true;
                     updateConnectionStatus(true);
                     enableControls(true);
                     Toast.makeText(this, "Connected to " + robotName, Toast.LENGTH_SHORT).show();
 
-                    setCommandStatus("Command: connected (ready)");
-                    startReadLoop();
+                    setCommandStatus(connecting.isFramed()
+                            ? "Command: connected (framed)" : "Command: connected (ready)");
                     
                     // Update last connected time in local database
                     robot.setLastConnected(System.currentTimeMillis());
@@ -297,7 +472,7 @@ public class ControlActivity extends AppCompatActivity {
                 });
 
             } catch (IOException e) {
-                runOnUiThread(() -> {
+                uiEvents.postEvent(() -> {
                     Toast.makeText(this, "Connection failed: " + e.getMessage(), 
                             Toast.LENGTH_SHORT).show();
                     updateConnectionStatus(false);
@@ -307,86 +482,139 @@ public class ControlActivity extends AppCompatActivity {
         }).start();
     }
 
-    private void setCommandStatus(String text) {
-        runOnUiThread(() -> {
-            if (commandStatusText != null) {
-                commandStatusText.setText(text);
-            }
+    /** Connect thread: records this screen's session until it is destroyed. */
+    private void startRecording(BluetoothLink target) {
+        File dir = AppSettings.getSessionsDir(this);
+        try {
+            SessionRecorder.deleteOldSessions(dir, AppSettings.SESSIONS_KEPT - 1);
+            SessionRecorder started = SessionRecorder.start(dir);
+            target.getEngine().addListener(started);
+            recorder = started;
+        } catch (IOException e) {
+            setCommandStatus("Command: recording unavailable (" + e.getMessage() + ")");
+        }
+    }
+
+    /** Plays the newest finished session into the receive log; nothing is sent to the robot. */
+    private void toggleReplay() {
+        if (replayThread != null && replayThread.isAlive()) {
+            replayThread.interrupt();
+            replayThread = null;
+            Toast.makeText(this, "Replay stopped", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (isConnected) {
+            Toast.makeText(this, "Disconnect to replay a session", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        File dir = AppSettings.getSessionsDir(this);
+        List<String> sessions = SessionRecorder.listSessions(dir);
+        SessionRecorder r = recorder;
+        if (r != null) sessions.remove(r.getSessionId());
+        if (sessions.isEmpty()) {
+            Toast.makeText(this, "No recorded sessions", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String session = sessions.get(sessions.size() - 1);
+        SessionReplayer replayer;
+        try {
+            replayer = SessionReplayer.forSession(dir, session);
+        } catch (IOException e) {
+            Toast.makeText(this, "Replay failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            return;
+        }
+        // Decoders of its own: the replay thread never touches the live link's.
+        SessionReplayer.Sink sink = SessionReplayer.toLines(robotLines, (kind, timeNanos, payload, length) -> {
+            if (length > 0 && (payload[0] & 0xFF) == BtFrameCodec.SYNC) return;
+            setCommandStatus("Replay: sent '" + new String(payload, 0, length, StandardCharsets.US_ASCII) + "'");
         });
+        replayThread = new Thread(() -> {
+            try {
+                replayer.replay(sink, 1);
+                setCommandStatus("Command: replay of " + session + " finished");
+            } catch (IOException e) {
+                setCommandStatus("Command: replay failed (" + e.getMessage() + ")");
+            } catch (InterruptedException e) {
+                // Stopped.
+            }
+        }, "SessionReplay");
+        replayThread.start();
+        Toast.makeText(this, "Replaying " + session, Toast.LENGTH_SHORT).show();
+    }
+
+    private void setCommandStatus(String text) {
+        // Only the newest status of a frame is shown.
+        uiEvents.postStatus(text);
     }
 
     private void appendReceiveLog(String line) {
-        runOnUiThread(() -> {
-            if (receiveLogText == null) return;
-            String current = receiveLogText.getText() != null ? receiveLogText.getText().toString() : "";
-            String updated = current.isEmpty() ? line : (current + "\n" + line);
-            // Keep it short
-            String[] parts = updated.split("\n");
-            if (parts.length > 6) {
-                StringBuilder sb = new StringBuilder();
-                for (int i = parts.length - 6; i < parts.length; i++) {
-                    sb.append(parts[i]);
-                    if (i != parts.length - 1) sb.append("\n");
-                }
-                updated = sb.toString();
-            }
-            receiveLogText.setText(updated);
-        });
+        uiEvents.postLine(line);
     }
 
-    private void startReadLoop() {
-        if (inputStream == null) return;
-        if (readLoopRunning) return;
-
-        readLoopRunning = true;
-        readThread = new Thread(() -> {
-            StringBuilder lineBuffer = new StringBuilder();
-            byte[] buf = new byte[256];
-            while (readLoopRunning) {
-                try {
-                    int n = inputStream.read(buf);
-                    if (n <= 0) continue;
-                    for (int i = 0; i < n; i++) {
-                        char c = (char) (buf[i] & 0xFF);
-                        if (c == '\r') continue;
-                        if (c == '\n') {
-                            String line = lineBuffer.toString().trim();
-                            lineBuffer.setLength(0);
-                            if (!line.isEmpty()) {
-                                appendReceiveLog("[Robot] " + line);
-                            }
-                        } else {
-                            lineBuffer.append(c);
-                        }
-                    }
-                } catch (IOException e) {
-                    readLoopRunning = false;
-                }
+    private void setupReceiveLog() {
+        LinearLayoutManager layout = new LinearLayoutManager(this);
+        layout.setStackFromEnd(true);
+        receiveLogList.setLayoutManager(layout);
+        receiveLogList.setAdapter(new ReceiveLogAdapter(receiveLog));
+        // Rows only change at the ends; skip the change animations at telemetry rates.
+        receiveLogList.setItemAnimator(null);
+
+        receiveLogPauseButton.setOnClickListener(v -> {
+            receiveLog.setPaused(!receiveLog.isPaused());
+            updateReceiveLogPauseButton();
+            if (!receiveLog.isPaused()) scrollReceiveLogToEnd();
+        });
+        EditText filter = findViewById(R.id.receiveLogFilter);
+        filter.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                receiveLog.setFilterPrefix(s.toString());
+                scrollReceiveLogToEnd();
             }
         });
-        readThread.start();
+    }
+
+    private void showReceivedLines(List<String> lines) {
+        // Follow new output only if the user has not scrolled up to read something.
+        boolean atEnd = !receiveLogList.canScrollVertically(1);
+        receiveLog.appendAll(lines);
+        if (receiveLog.isPaused()) {
+            updateReceiveLogPauseButton();
+        } else if (atEnd) {
+            scrollReceiveLogToEnd();
+        }
+    }
+
+    private void scrollReceiveLogToEnd() {
+        if (receiveLog.size() > 0) {
+            receiveLogList.scrollToPosition(receiveLog.size() - 1);
+        }
+    }
+
+    private void updateReceiveLogPauseButton() {
+        if (!receiveLog.isPaused()) {
+            receiveLogPauseButton.setText(R.string.receive_log_pause);
+        } else if (receiveLog.getPendingCount() == 0) {
+            receiveLogPauseButton.setText(R.string.receive_log_resume);
+        } else {
+            receiveLogPauseButton.setText(getString(R.string.receive_log_resume_pending,
+                    (int) Math.min(Integer.MAX_VALUE, receiveLog.getPendingCount())));
+        }
     }
 
     private void disconnect() {
         try {
-            readLoopRunning = false;
-            if (readThread != null) {
-                try {
-                    readThread.interrupt();
-                } catch (Exception ignored) {
-                }
-                readThread = null;
-            }
-
-            if (outputStream != null) {
-                outputStream.close();
-            }
-            if (inputStream != null) {
-                inputStream.close();
-            }
-            if (bluetoothSocket != null) {
-                bluetoothSocket.close();
-            }
+            // Disconnect is an emergency command: get a stop out ahead of whatever is queued. If
+            // this screen was the link's last user, the socket closes right behind it.
+            releaseLink(isConnected ? "s".getBytes(StandardCharsets.US_ASCII) : null);
             isConnected = false;
             updateConnectionStatus(false);
             enableControls(false);
@@ -399,14 +627,21 @@ public class ControlActivity extends AppCompatActivity {
             }
             
             Toast.makeText(this, "Disconnected", Toast.LENGTH_SHORT).show();
-        } catch (IOException e) {
+        } catch (RuntimeException e) {
             Toast.makeText(this, "Error disconnecting: " + e.getMessage(), 
                     Toast.LENGTH_SHORT).show();
         }
     }
 
+    private void releaseLink(@Nullable byte[] lastCommand) {
+        if (link != null && holdsLink) {
+            link.release(lastCommand);
+            holdsLink = false;
+        }
+    }
+
     private void sendCommand(String command) {
-        if (!isConnected || outputStream == null) {
+        if (!isConnected || link == null) {
             Toast.makeText(this, "Not connected to robot", Toast.LENGTH_SHORT).show();
             setCommandStatus("Command: (not sent — not connected)");
             return;
@@ -416,22 +651,15 @@ public class ControlActivity extends AppCompatActivity {
         final String cmd = command.trim().toLowerCase();
         setCommandStatus("Command: sending '" + cmd + "'");
 
-        new Thread(() -> {
-            try {
-                // Match your Python serial behavior: send a single byte/character (no newline).
-                outputStream.write(cmd.getBytes());
-                outputStream.flush();
-                runOnUiThread(() -> setCommandStatus("Command: sent '" + cmd + "'"));
-            } catch (IOException e) {
-                runOnUiThread(() -> {
-                    Toast.makeText(this, "Failed to send command", Toast.LENGTH_SHORT).show();
-                    isConnected = false;
-                    updateConnectionStatus(false);
-                    enableControls(false);
-                    setCommandStatus("Command: failed to send");
-                });
-            }
-        }).start();
+        // Match your Python serial behavior: send a single byte/character (no newline).
+        if ("s".equals(cmd)) {
+            // Stop jumps the queue and drops queued motion.
+            enqueueWrite(Lane.EMERGENCY, KEY_DRIVE, cmd);
+        } else if ("t".equals(cmd)) {
+            enqueueWrite(Lane.LOW, KEY_TEST, cmd);
+        } else {
+            enqueueWrite(Lane.MOTION, KEY_DRIVE, cmd);
+        }
     }
 
     private void updateConnectionStatus(boolean connected) {
@@ -459,12 +687,40 @@ public class ControlActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        metricsHandler.post(metricsRefresh);
+        metricsHandler.post(telemetryRefresh);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        metricsHandler.removeCallbacks(metricsRefresh);
+        metricsHandler.removeCallbacks(telemetryRefresh);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (replayThread != null) {
+            replayThread.interrupt();
+        }
+        uiEvents.release();
         if (isConnected) {
             disconnect();
         }
+        releaseLink(null);
+        if (link != null) {
+            link.getEngine().removeListener(linkListener);
+            link.removeLineListener(robotLines);
+        }
+        SessionRecorder r = recorder;
+        if (r != null) {
+            if (link != null) link.getEngine().removeListener(r);
+            r.close();
+        }
     }
 
     @Override
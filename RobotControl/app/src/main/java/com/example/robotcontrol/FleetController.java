@@ -0,0 +1,219 @@
+package com.example.robotcontrol;
+
+import android.util.Log;
+
+import com.example.robotcontrol.models.Robot;
+import com.example.robotcontrol.network.KeepAliveHttpClient;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends one command to a whole fleet of WiFi robots at once.
+ *
+ * Every robot keeps its own keep-alive connection, and requests go out in parallel over a
+ * bounded shared pool, so a broadcast stop to a classroom of robots costs about one round trip
+ * instead of one per robot. {@link #broadcast} blocks until every robot answered or the deadline
+ * passed; call it off the main thread.
+ *
+ * The firmware serves a few keep-alive connections side by side and drops the one idle the
+ * longest when a new one arrives with every slot taken. A fleet and a control screen on the same
+ * robot therefore keep their connections; past that, a dropped connection is noticed on its next
+ * request and reopened once by {@link KeepAliveHttpClient}.
+ */
+public class FleetController {
+    private static final String TAG = "FleetController";
+
+    public static final int DEFAULT_PORT = 8888;
+    private static final int DEFAULT_MAX_PARALLEL = 16;
+    private static final int DEFAULT_TIMEOUT_MS = 1500;
+    // On top of a robot's connect and read timeouts, for the executor's hand-offs.
+    private static final long GRACE_MS = 250;
+
+    public enum Outcome {
+        ACKED,
+        FAILED,
+        TIMED_OUT
+    }
+
+    public static final class RobotResult {
+        public final String robotId;
+        public final String address;
+        public final Outcome outcome;
+        /** HTTP status, or -1 if no response arrived. */
+        public final int httpCode;
+        public final long latencyMs;
+        /** Failure reason, null when acked. */
+        public final String error;
+
+        RobotResult(String robotId, String address, Outcome outcome, int httpCode, long latencyMs, String error) {
+            this.robotId = robotId;
+            this.address = address;
+            this.outcome = outcome;
+            this.httpCode = httpCode;
+            this.latencyMs = latencyMs;
+            this.error = error;
+        }
+    }
+
+    public static final class FleetResult {
+        public final String endpoint;
+        public final List<RobotResult> results;
+        /** Wall time of the whole broadcast, i.e. the slowest robot. */
+        public final long totalLatencyMs;
+
+        FleetResult(String endpoint, List<RobotResult> results, long totalLatencyMs) {
+            this.endpoint = endpoint;
+            this.results = Collections.unmodifiableList(results);
+            this.totalLatencyMs = totalLatencyMs;
+        }
+
+        public int count(Outcome outcome) {
+            int n = 0;
+            for (RobotResult r : results) {
+                if (r.outcome == outcome) n++;
+            }
+            return n;
+        }
+
+        public boolean allAcked() {
+            return count(Outcome.ACKED) == results.size();
+        }
+    }
+
+    private static final class Member {
+        final String robotId;
+        final KeepAliveHttpClient client;
+
+        Member(String robotId, KeepAliveHttpClient client) {
+            this.robotId = robotId;
+            this.client = client;
+        }
+    }
+
+    private final List<Member> members = new ArrayList<>();
+    private final ExecutorService pool;
+    private final int threads;
+    private final int timeoutMs;
+
+    /**
+     * @param robots WiFi robots; entries without an IP address are skipped
+     */
+    public FleetController(Collection<Robot> robots) {
+        this(robots, DEFAULT_PORT, DEFAULT_MAX_PARALLEL, DEFAULT_TIMEOUT_MS);
+    }
+
+    public FleetController(Collection<Robot> robots, int port, int maxParallel, int timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        for (Robot robot : robots) {
+            String ip = robot.getIpAddress();
+            if (ip == null || ip.trim().isEmpty()) continue;
+            members.add(new Member(robot.getId(),
+                    new KeepAliveHttpClient(ip.trim(), port, timeoutMs, timeoutMs)));
+        }
+        threads = Math.max(1, Math.min(maxParallel, members.size()));
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "FleetController-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Sends {@code endpoint} to every robot in parallel and waits for all answers. Each robot
+     * gets its connect and read timeouts from when its request starts; robots beyond the pool
+     * size wait for a free worker first, and the overall deadline allows for those waves.
+     */
+    public FleetResult broadcast(String endpoint) throws InterruptedException {
+        List<Callable<RobotResult>> tasks = new ArrayList<>(members.size());
+        for (Member member : members) {
+            tasks.add(() -> send(member, endpoint));
+        }
+
+        long start = System.nanoTime();
+        List<Future<RobotResult>> futures = pool.invokeAll(tasks, deadlineMs(), TimeUnit.MILLISECONDS);
+        long totalMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        List<RobotResult> results = new ArrayList<>(members.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Member member = members.get(i);
+            try {
+                results.add(futures.get(i).get());
+            } catch (CancellationException e) {
+                // Still blocked on this robot: drop its connection so the next command starts clean.
+                member.client.close();
+                results.add(new RobotResult(member.robotId, member.client.getBaseUrl(), Outcome.TIMED_OUT,
+                        -1, totalMs, "No answer within " + totalMs + " ms"));
+            } catch (ExecutionException e) {
+                results.add(new RobotResult(member.robotId, member.client.getBaseUrl(), Outcome.FAILED,
+                        -1, totalMs, String.valueOf(e.getCause())));
+            }
+        }
+        Log.d(TAG, endpoint + " -> " + results.size() + " robots, " + totalMs + " ms");
+        return new FleetResult(endpoint, results, totalMs);
+    }
+
+    /**
+     * Every robot's worst case, connect plus read, for each wave of robots the pool runs
+     * one after another.
+     */
+    long deadlineMs() {
+        int waves = (members.size() + threads - 1) / threads;
+        return Math.max(1, waves) * (2L * timeoutMs + GRACE_MS);
+    }
+
+    public FleetResult stopAll() throws InterruptedException {
+        return broadcast("/stop");
+    }
+
+    /**
+     * Opens every robot's connection ahead of time (via /status), so the first real broadcast
+     * doesn't pay the TCP handshakes.
+     */
+    public FleetResult warmUp() throws InterruptedException {
+        return broadcast("/status");
+    }
+
+    private RobotResult send(Member member, String endpoint) {
+        String address = member.client.getBaseUrl();
+        long start = System.nanoTime();
+        // A robot's client serves one request at a time; robots still run in parallel.
+        synchronized (member) {
+            try {
+                KeepAliveHttpClient.Response response = member.client.get(endpoint);
+                long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                Outcome outcome = response.code == 200 ? Outcome.ACKED : Outcome.FAILED;
+                return new RobotResult(member.robotId, address, outcome, response.code, ms,
+                        outcome == Outcome.ACKED ? null : "HTTP " + response.code);
+            } catch (Exception e) {
+                long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                Outcome outcome = (e instanceof SocketTimeoutException) ? Outcome.TIMED_OUT : Outcome.FAILED;
+                return new RobotResult(member.robotId, address, outcome, -1, ms, String.valueOf(e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Stops the worker threads and closes every connection.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+        for (Member member : members) {
+            member.client.close();
+        }
+    }
+}
@@ -33,8 +33,11 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.robotcontrol.adapters.DeviceAdapter;
 import com.example.robotcontrol.adapters.WifiNetworkAdapter;
 import com.example.robotcontrol.database.DatabaseHelper;
+import com.example.robotcontrol.logic.RobotApMatcher;
 import com.example.robotcontrol.models.Robot;
 import com.example.robotcontrol.network.WiFiManager;
+import com.example.robotcontrol.network.WifiAPScanner;
+import com.example.robotcontrol.network.WifiScanService;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -60,6 +63,8 @@ public class PairingActivity extends AppCompatActivity implements WifiNetworkAda
     private BluetoothAdapter bluetoothAdapter;
     private DeviceAdapter bluetoothDeviceAdapter;
     private List<BluetoothDevice> bluetoothDeviceList;
+    private final List<BluetoothDevice> discoveredDevices = new ArrayList<>();
+    private RobotApMatcher robotApMatcher;
 
     private WifiManager platformWifiManager;
     private WiFiManager wifiConnector;
@@ -121,45 +126,16 @@ public class PairingActivity extends AppCompatActivity implements WifiNetworkAda
                 String action = intent.getAction();
                 if (BluetoothDevice.ACTION_FOUND.equals(action)) {
                     BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
-                    if (device != null && !bluetoothDeviceList.contains(device)) {
-                        bluetoothDeviceList.add(device);
-                        bluetoothDeviceAdapter.notifyDataSetChanged();
+                    if (device != null) {
+                        if (!discoveredDevices.contains(device)) discoveredDevices.add(device);
+                        bluetoothDeviceAdapter.addDevice(device);
                     }
                 } else if (BluetoothAdapter.ACTION_DISCOVERY_FINISHED.equals(action)) {
+                    // Drop devices from the previous discovery that were not seen this time.
+                    bluetoothDeviceAdapter.retainDevices(discoveredDevices);
                     progressBar.setVisibility(View.GONE);
                     scanButton.setEnabled(true);
                     statusText.setText(R.string.scan_complete);
-                } else if (WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(action)) {
-                    progressBar.setVisibility(View.GONE);
-                    scanWifiButton.setEnabled(true);
-
-                    List<ScanResult> results;
-                    try {
-                        results = platformWifiManager != null ? platformWifiManager.getScanResults() : null;
-                    } catch (SecurityException e) {
-                        results = null;
-                    }
-
-                    networkList.clear();
-                    if (results != null) {
-                        for (ScanResult r : results) {
-                            if (r == null || r.SSID == null) continue;
-                            String ssid = r.SSID.trim();
-                            if (ssid.isEmpty()) continue;
-                            // Prefer robot SSIDs; keep list minimal and relevant
-                            if (ssid.equalsIgnoreCase("Robot_AP") || ssid.startsWith("Robot") || ssid.startsWith("ROBOT_") || ssid.startsWith("ESP_")) {
-                                networkList.add(r);
-                            }
-                        }
-                    }
-
-                    networkAdapter.notifyDataSetChanged();
-
-                    if (networkList.isEmpty()) {
-                        statusText.setText("No robot WiFi found. Turn ON WiFi + Location, then scan again.");
-                    } else {
-                        statusText.setText("Found " + networkList.size() + " robot WiFi networks");
-                    }
                 }
             }
         };
@@ -167,9 +143,7 @@ public class PairingActivity extends AppCompatActivity implements WifiNetworkAda
         // Check permissions
         checkPermissions();
 
-        // Register for WiFi scan results
-        registerReceiver(receiver, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
-        // Register for Bluetooth discovery
+        // Register for Bluetooth discovery; WiFi results come from WifiScanService
         registerReceiver(receiver, new IntentFilter(BluetoothDevice.ACTION_FOUND));
         registerReceiver(receiver, new IntentFilter(BluetoothAdapter.ACTION_DISCOVERY_FINISHED));
     }
@@ -177,6 +151,8 @@ public class PairingActivity extends AppCompatActivity implements WifiNetworkAda
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        WifiScanService.get(this).cancel(wifiScanCallback);
+        wifiConnector.stopWatching();
         try {
             unregisterReceiver(receiver);
         } catch (IllegalArgumentException e) {
@@ -263,10 +239,9 @@ public class PairingActivity extends AppCompatActivity implements WifiNetworkAda
             return;
         }
 
-        // Show Bluetooth list
+        // Show Bluetooth list; rows from the last discovery stay until this one finishes
         devicesRecyclerView.setAdapter(bluetoothDeviceAdapter);
-        bluetoothDeviceList.clear();
-        bluetoothDeviceAdapter.notifyDataSetChanged();
+        discoveredDevices.clear();
 
         try {
             if (bluetoothAdapter.isDiscovering()) {
@@ -310,27 +285,53 @@ public class PairingActivity extends AppCompatActivity implements WifiNetworkAda
             }
         }
 
-        // Show WiFi list
+        // Show WiFi list; the last results stay until new ones are diffed in
         devicesRecyclerView.setAdapter(networkAdapter);
-        networkList.clear();
-        networkAdapter.notifyDataSetChanged();
 
-        try {
-            progressBar.setVisibility(View.VISIBLE);
-            statusText.setText(R.string.scanning_wifi);
-            scanWifiButton.setEnabled(false);
+        progressBar.setVisibility(View.VISIBLE);
+        statusText.setText(R.string.scanning_wifi);
+        scanWifiButton.setEnabled(false);
+        // Joins a scan already running and reuses results from the last 30 s.
+        WifiScanService.get(this).scan(wifiScanCallback);
+    }
 
-            boolean started = platformWifiManager.startScan();
-            if (!started) {
-                progressBar.setVisibility(View.GONE);
-                scanWifiButton.setEnabled(true);
-                statusText.setText("Scan throttled. Try again in a few seconds.");
-            }
-        } catch (SecurityException e) {
-            Toast.makeText(this, "WiFi permission denied", Toast.LENGTH_SHORT).show();
+    private final WifiScanService.Callback wifiScanCallback = new WifiScanService.Callback() {
+        @Override
+        public void onScanResults(@NonNull List<ScanResult> results, boolean fresh) {
+            showWifiResults(results, fresh);
+        }
+
+        @Override
+        public void onScanFailed(@NonNull String reason) {
+            progressBar.setVisibility(View.GONE);
+            scanWifiButton.setEnabled(true);
+            Toast.makeText(PairingActivity.this, reason, Toast.LENGTH_SHORT).show();
+        }
+    };
+
+    /**
+     * @param fresh false while a throttled scan is still pending: the list is shown but the
+     *              progress bar stays up
+     */
+    private void showWifiResults(List<ScanResult> results, boolean fresh) {
+        if (robotApMatcher == null) {
+            robotApMatcher = AppSettings.getRobotApMatcher(this);
+        }
+        if (fresh) {
             progressBar.setVisibility(View.GONE);
             scanWifiButton.setEnabled(true);
         }
+
+        // Robot SSIDs from the rules in settings, strongest and most recently seen first;
+        // rows that keep their place are not rebound
+        List<ScanResult> robots = WifiAPScanner.filterRobotAPs(results, robotApMatcher);
+        networkAdapter.submitList(robots);
+
+        if (networkList.isEmpty()) {
+            statusText.setText(fresh ? "No robot WiFi found. Turn ON WiFi + Location, then scan again." : "Scan throttled, waiting for the next scan...");
+        } else {
+            statusText.setText("Found " + networkList.size() + " robot WiFi networks");
+        }
     }
 
     @Override
@@ -1,43 +1,73 @@
 package com.example.robotcontrol;
 
 import android.Manifest;
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 import android.location.LocationManager;
 import android.net.wifi.ScanResult;
-import android.net.wifi.WifiManager;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.content.pm.PackageManager;
 import android.widget.ArrayAdapter;
+import android.widget.FrameLayout;
 import android.widget.Button;
 import android.widget.SeekBar;
 import android.widget.Spinner;
 import android.widget.TextView;
+import android.view.MotionEvent;
+import android.view.View;
 import android.widget.Toast;
 
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.google.android.material.switchmaterial.SwitchMaterial;
+
+import com.example.robotcontrol.logic.FixedRateScheduler;
+import com.example.robotcontrol.logic.JoystickQuantizer;
+import com.example.robotcontrol.logic.TeleopLoop;
+import com.example.robotcontrol.logic.WifiLinkStateMachine.State;
+import com.example.robotcontrol.models.Robot;
+import com.example.robotcontrol.network.NetworkAffinity;
+import com.example.robotcontrol.network.SessionRecorder;
+import com.example.robotcontrol.network.SessionReplayer;
+import com.example.robotcontrol.network.WifiConnection;
+import com.example.robotcontrol.network.WifiScanService;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
 
 public class RobotControlActivity extends AppCompatActivity {
     private RobotController robotController;
     private WiFiManagerHelper wifiManager;
-    private WifiManager platformWifiManager;
+    private NetworkAffinity networkAffinity;
     private TextView tvConnectionStatus;
     private TextView tvCommandStatus;
+    private TextView tvDebugMetrics;
     private Button btnConnectToRobot, btnDisconnect, btnScanWiFi;
     private Spinner spinnerNetworks;
     private Button btnForward, btnBackward, btnLeft, btnRight, btnStop;
     private SeekBar sliderServo1, sliderServo2, sliderServo3;
     private TextView tvServo1Value, tvServo2Value, tvServo3Value;
+    private SwitchMaterial switchJoystickMode;
+    private View motorButtonGrid;
+    private FrameLayout joystickPad;
+    private View joystickKnob;
+
+    // Joystick mode: fixed-rate loop sending quantized drive setpoints.
+    private static final float JOYSTICK_DEAD_ZONE = 0.12f;
+    private static final int JOYSTICK_STEP_PERCENT = 10;
+    private static final long TELEOP_HEARTBEAT_MS = 200;
+    private TeleopLoop teleopLoop;
+    private FixedRateScheduler teleopScheduler;
 
     private static final String DEFAULT_ROBOT_SSID = "Robot_AP";
     private static final String ROBOT_PASSWORD = "12345678";
@@ -45,18 +75,35 @@ public class RobotControlActivity extends AppCompatActivity {
     private static final int DEFAULT_ROBOT_PORT = 8888;
 
     private static final int REQ_WIFI_PERMS = 1201;
+    private static final long METRICS_REFRESH_MS = 500;
 
-    private BroadcastReceiver wifiScanReceiver;
-    private boolean scanReceiverRegistered = false;
+    // Set in onCreate when "Record sessions" is on; closed in onDestroy.
+    private SessionRecorder recorder;
+    // Long-press the connection status to replay the last recorded session.
+    private Thread replayThread;
     
     private String robotName = "Robot";
     private String robotIp = DEFAULT_ROBOT_IP;
     private int robotPort = DEFAULT_ROBOT_PORT;
+    private String connectionType = Robot.CONNECTION_WIFI;
 
     private String selectedSSID = DEFAULT_ROBOT_SSID;
     private List<String> availableNetworks = new ArrayList<>();
     private ArrayAdapter<String> networkAdapter;
 
+    // Debug overlay: refreshed from the controller's metrics snapshot only while visible.
+    private final Handler metricsHandler = new Handler(Looper.getMainLooper());
+    private final Runnable metricsRefresh = new Runnable() {
+        @Override
+        public void run() {
+            if (tvDebugMetrics == null || tvDebugMetrics.getVisibility() != View.VISIBLE) return;
+            tvDebugMetrics.setText(robotController.getMetricsSnapshot().format()
+                    + "\nsrtt " + robotController.getSmoothedRttMs() + " ms  timeout "
+                    + robotController.getCommandTimeoutMs() + " ms");
+            metricsHandler.postDelayed(this, METRICS_REFRESH_MS);
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         AppSettings.applyColorTheme(this);
@@ -82,6 +129,10 @@ public class RobotControlActivity extends AppCompatActivity {
             if (extraSsid != null && !extraSsid.trim().isEmpty()) {
                 selectedSSID = extraSsid.trim();
             }
+            String extraType = getIntent().getStringExtra("robot_connection_type");
+            if (extraType != null && !extraType.trim().isEmpty()) {
+                connectionType = extraType.trim();
+            }
         }
 
         // Backward-compat: older saved WiFi robots stored BSSID (aa:bb:cc:dd:ee:ff) in the field.
@@ -92,9 +143,16 @@ public class RobotControlActivity extends AppCompatActivity {
         }
 
         // Initialize managers
-        robotController = new RobotController(robotIp, robotPort);
+        robotController = new RobotController(robotIp, robotPort, RobotController.transportFor(connectionType));
         wifiManager = new WiFiManagerHelper(this);
-        platformWifiManager = (WifiManager) getApplicationContext().getSystemService(Context.WIFI_SERVICE);
+        WifiConnection.get(this).addListener(wifiLinkListener);
+        networkAffinity = NetworkAffinity.get(this);
+        networkAffinity.attach(robotController);
+        // Pushed by the robot over WebSocket, or played back from a recorded session.
+        robotController.setRobotStateListener(json -> setCommandStatus("Robot: " + json.trim()));
+        if (AppSettings.isSessionRecordingEnabled(this)) {
+            startRecording();
+        }
 
         ensureWifiPermissions();
 
@@ -107,20 +165,56 @@ public class RobotControlActivity extends AppCompatActivity {
         // Set up servo sliders
         setupServoSliders();
 
+        // Set up joystick mode
+        setupJoystick();
+
         updateConnectionStatus();
     }
 
     private void tryBindIfAlreadyConnected() {
-        new Thread(() -> {
-            try {
-                if (wifiManager == null) return;
-                boolean connected = wifiManager.isConnectedToNetwork(selectedSSID);
-                if (connected) {
-                    wifiManager.bindToCurrentWifiNetwork();
-                }
-            } catch (Exception ignored) {
+        try {
+            if (wifiManager != null && wifiManager.isConnectedToNetwork(selectedSSID)) {
+                // Returns at once; does nothing if already bound to it or binding.
+                networkAffinity.ensureBound(selectedSSID);
             }
-        }).start();
+        } catch (Exception ignored) {
+        }
+    }
+
+    private void startRecording() {
+        File dir = AppSettings.getWifiSessionsDir(this);
+        try {
+            SessionRecorder.deleteOldSessions(dir, AppSettings.SESSIONS_KEPT - 1);
+            recorder = SessionRecorder.start(dir);
+            robotController.setSessionRecorder(recorder);
+        } catch (IOException e) {
+            setCommandStatus("Command: recording unavailable (" + e.getMessage() + ")");
+        }
+    }
+
+    /** Plays the newest finished session into the status line; nothing is sent to the robot. */
+    private void toggleReplay() {
+        if (replayThread != null && replayThread.isAlive()) {
+            replayThread.interrupt();
+            replayThread = null;
+            Toast.makeText(this, "Replay stopped", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        File dir = AppSettings.getWifiSessionsDir(this);
+        List<String> sessions = SessionRecorder.listSessions(dir);
+        // Not the one being recorded right now.
+        if (recorder != null) sessions.remove(recorder.getSessionId());
+        if (sessions.isEmpty()) {
+            Toast.makeText(this, "No recorded sessions", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String session = sessions.get(sessions.size() - 1);
+        try {
+            replayThread = robotController.replay(SessionReplayer.forSession(dir, session), 1);
+            Toast.makeText(this, "Replaying " + session, Toast.LENGTH_SHORT).show();
+        } catch (IOException e) {
+            Toast.makeText(this, "Replay failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        }
     }
 
     private boolean hasWifiScanPermission() {
@@ -141,46 +235,53 @@ public class RobotControlActivity extends AppCompatActivity {
         }
     }
 
-    private void ensureScanReceiver() {
-        if (wifiScanReceiver != null) return;
-        wifiScanReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                if (!WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(intent.getAction())) return;
-
-                List<ScanResult> scanResults;
-                try {
-                    scanResults = (platformWifiManager != null) ? platformWifiManager.getScanResults() : wifiManager.getAvailableNetworks();
-                } catch (SecurityException se) {
-                    scanResults = null;
-                }
+    // Keeps the status line current when the link drops or comes back, whichever screen asked.
+    private final WifiConnection.Listener wifiLinkListener = (transition, network) -> {
+        updateConnectionStatus();
+        if (transition.to == State.BOUND
+                && selectedSSID.equals(WifiConnection.get(this).getBoundSsid())) {
+            // The robot may have rebooted while the link was down, so the angles sent before no
+            // longer count. The arm stays where it is until the user moves a slider.
+            robotController.forgetArmPose();
+        }
+    };
 
-                Set<String> unique = new LinkedHashSet<>();
-                if (scanResults != null) {
-                    for (ScanResult result : scanResults) {
-                        if (result == null) continue;
-                        String ssid = result.SSID;
-                        if (ssid == null) continue;
-                        ssid = ssid.trim();
-                        if (ssid.isEmpty()) continue;
-                        unique.add(ssid);
-                    }
-                }
+    private final WifiScanService.Callback wifiScanCallback = new WifiScanService.Callback() {
+        @Override
+        public void onScanResults(List<ScanResult> results, boolean fresh) {
+            Set<String> unique = new LinkedHashSet<>();
+            for (ScanResult result : results) {
+                if (result == null) continue;
+                String ssid = result.SSID;
+                if (ssid == null) continue;
+                ssid = ssid.trim();
+                if (ssid.isEmpty()) continue;
+                unique.add(ssid);
+            }
 
+            // A Spinner's ArrayAdapter has no per-row notifications; at least leave it (and
+            // the open dropdown) alone when a scan brings the same networks back.
+            List<String> ssids = new ArrayList<>(unique);
+            if (!ssids.equals(availableNetworks)) {
                 availableNetworks.clear();
-                availableNetworks.addAll(unique);
+                availableNetworks.addAll(ssids);
+                networkAdapter.notifyDataSetChanged();
+            }
 
-                runOnUiThread(() -> {
-                    networkAdapter.notifyDataSetChanged();
-                    if (availableNetworks.isEmpty()) {
-                        Toast.makeText(RobotControlActivity.this, "No networks found. Check WiFi permission + Location ON.", Toast.LENGTH_LONG).show();
-                    } else {
-                        Toast.makeText(RobotControlActivity.this, "Found " + availableNetworks.size() + " networks", Toast.LENGTH_SHORT).show();
-                    }
-                });
+            if (!fresh) {
+                Toast.makeText(RobotControlActivity.this, "Scan throttled. Showing last results (" + availableNetworks.size() + ")", Toast.LENGTH_LONG).show();
+            } else if (availableNetworks.isEmpty()) {
+                Toast.makeText(RobotControlActivity.this, "No networks found. Check WiFi permission + Location ON.", Toast.LENGTH_LONG).show();
+            } else {
+                Toast.makeText(RobotControlActivity.this, "Found " + availableNetworks.size() + " networks", Toast.LENGTH_SHORT).show();
             }
-        };
-    }
+        }
+
+        @Override
+        public void onScanFailed(String reason) {
+            Toast.makeText(RobotControlActivity.this, reason, Toast.LENGTH_LONG).show();
+        }
+    };
 
     private void ensureWifiPermissions() {
         // targetSdk=36: Android 13+ requires NEARBY_WIFI_DEVICES for scanning.
@@ -209,6 +310,7 @@ public class RobotControlActivity extends AppCompatActivity {
     private void initializeUI() {
         tvConnectionStatus = findViewById(R.id.tvConnectionStatus);
         tvCommandStatus = findViewById(R.id.tvCommandStatus);
+        tvDebugMetrics = findViewById(R.id.tvDebugMetrics);
         btnConnectToRobot = findViewById(R.id.btnConnectToRobot);
         btnDisconnect = findViewById(R.id.btnDisconnect);
         btnScanWiFi = findViewById(R.id.btnScanWiFi);
@@ -230,14 +332,40 @@ public class RobotControlActivity extends AppCompatActivity {
         tvServo1Value = findViewById(R.id.tvServo1Value);
         tvServo2Value = findViewById(R.id.tvServo2Value);
         tvServo3Value = findViewById(R.id.tvServo3Value);
+
+        // Joystick mode
+        switchJoystickMode = findViewById(R.id.switchJoystickMode);
+        motorButtonGrid = findViewById(R.id.motorButtonGrid);
+        joystickPad = findViewById(R.id.joystickPad);
+        joystickKnob = findViewById(R.id.joystickKnob);
         
         // Setup network spinner
         networkAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, availableNetworks);
         networkAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         spinnerNetworks.setAdapter(networkAdapter);
 
+        tvConnectionStatus.setOnLongClickListener(v -> {
+            toggleReplay();
+            return true;
+        });
+
         if (tvCommandStatus != null) {
             tvCommandStatus.setText("Command: (none yet)");
+            // Long-press the command line to show/hide latency and throughput metrics.
+            tvCommandStatus.setOnLongClickListener(v -> {
+                toggleDebugMetrics();
+                return true;
+            });
+        }
+    }
+
+    private void toggleDebugMetrics() {
+        if (tvDebugMetrics == null) return;
+        boolean show = tvDebugMetrics.getVisibility() != View.VISIBLE;
+        tvDebugMetrics.setVisibility(show ? View.VISIBLE : View.GONE);
+        metricsHandler.removeCallbacks(metricsRefresh);
+        if (show) {
+            metricsHandler.post(metricsRefresh);
         }
     }
 
@@ -250,25 +378,13 @@ public class RobotControlActivity extends AppCompatActivity {
     }
 
     private boolean ensureReadyToSend(String actionLabel) {
-        try {
-            boolean connected = wifiManager != null && wifiManager.isConnectedToNetwork(selectedSSID);
-            if (!connected) {
-                setCommandStatus("Command: " + actionLabel + " (NOT sent — not connected to " + selectedSSID + ")");
-                Toast.makeText(this, "Not connected to robot WiFi (" + selectedSSID + ")", Toast.LENGTH_SHORT).show();
-                return false;
-            }
-            // Best-effort bind to the Wi‑Fi transport so HTTP actually goes to ESP32.
-            new Thread(() -> {
-                try {
-                    if (wifiManager != null) wifiManager.bindToCurrentWifiNetwork();
-                } catch (Exception ignored) {
-                }
-            }).start();
+        // Runs on every motor command: a volatile read, kept current by the link callbacks.
+        if (networkAffinity.isReadyFor(selectedSSID)) {
             return true;
-        } catch (Exception e) {
-            setCommandStatus("Command: " + actionLabel + " (error: " + e.getMessage() + ")");
-            return false;
         }
+        setCommandStatus("Command: " + actionLabel + " (NOT sent — not connected to " + selectedSSID + ")");
+        Toast.makeText(this, "Not connected to robot WiFi (" + selectedSSID + ")", Toast.LENGTH_SHORT).show();
+        return false;
     }
 
     private void setupButtonListeners() {
@@ -372,9 +488,89 @@ public class RobotControlActivity extends AppCompatActivity {
                     String msg = (error != null && error.getMessage() != null) ? error.getMessage() : "Unknown error";
                     setCommandStatus("Command: " + endpoint + " (FAILED: " + msg + ")");
                 }
+
+                @Override
+                public void onRetry(String endpoint, int attempt, Exception cause) {
+                    String reason = (cause instanceof java.net.SocketTimeoutException) ? "timeout" : "error";
+                    setCommandStatus("Command: " + endpoint + " (retry " + attempt + " after " + reason + ")");
+                }
             });
     }
 
+    private void setupJoystick() {
+        switchJoystickMode.setOnCheckedChangeListener((button, checked) -> setJoystickMode(checked));
+        joystickPad.setOnTouchListener((v, event) -> {
+            handleJoystickTouch(v, event);
+            return true;
+        });
+    }
+
+    private void setJoystickMode(boolean enabled) {
+        if (enabled && !ensureReadyToSend("joystick")) {
+            switchJoystickMode.setChecked(false);
+            return;
+        }
+        motorButtonGrid.setVisibility(enabled ? View.GONE : View.VISIBLE);
+        joystickPad.setVisibility(enabled ? View.VISIBLE : View.GONE);
+        if (enabled) {
+            startTeleop();
+        } else {
+            stopTeleop();
+        }
+    }
+
+    private void startTeleop() {
+        if (teleopScheduler != null) return;
+        teleopLoop = new TeleopLoop(
+                new JoystickQuantizer(JOYSTICK_DEAD_ZONE, JOYSTICK_STEP_PERCENT),
+                TimeUnit.MILLISECONDS.toNanos(TELEOP_HEARTBEAT_MS),
+                System::nanoTime,
+                (setpoint, heartbeat) -> robotController.drive(setpoint));
+        teleopScheduler = new FixedRateScheduler(FixedRateScheduler.SYSTEM_CLOCK,
+                AppSettings.getTeleopRateHz(this), teleopLoop);
+        teleopScheduler.start("RobotControl-teleop");
+    }
+
+    private void stopTeleop() {
+        if (teleopScheduler == null) return;
+        teleopScheduler.stop();
+        teleopScheduler = null;
+        teleopLoop = null;
+        joystickKnob.setTranslationX(0f);
+        joystickKnob.setTranslationY(0f);
+        robotController.stopMotors();
+    }
+
+    private void handleJoystickTouch(View pad, MotionEvent event) {
+        TeleopLoop loop = teleopLoop;
+        if (loop == null) return;
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_MOVE: {
+                float radius = (Math.min(pad.getWidth(), pad.getHeight()) - joystickKnob.getWidth()) / 2f;
+                if (radius <= 0f) return;
+                float dx = event.getX() - pad.getWidth() / 2f;
+                float dy = event.getY() - pad.getHeight() / 2f;
+                float distance = (float) Math.hypot(dx, dy);
+                if (distance > radius) {
+                    dx *= radius / distance;
+                    dy *= radius / distance;
+                }
+                joystickKnob.setTranslationX(dx);
+                joystickKnob.setTranslationY(dy);
+                // Screen y grows downwards; pushing the stick up means forward.
+                loop.setStick(dx / radius, -dy / radius);
+                break;
+            }
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                joystickKnob.setTranslationX(0f);
+                joystickKnob.setTranslationY(0f);
+                loop.centerStick();
+                break;
+        }
+    }
+
     private void setupServoSliders() {
         sliderServo1.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             @Override
@@ -440,45 +636,8 @@ public class RobotControlActivity extends AppCompatActivity {
         wifiManager.enableWiFi();
         Toast.makeText(this, "Scanning for WiFi networks...", Toast.LENGTH_SHORT).show();
 
-        ensureScanReceiver();
-        if (!scanReceiverRegistered) {
-            registerReceiver(wifiScanReceiver, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
-            scanReceiverRegistered = true;
-        }
-
-        boolean started = false;
-        try {
-            if (platformWifiManager != null) {
-                started = platformWifiManager.startScan();
-            }
-        } catch (SecurityException ignored) {
-        }
-
-        if (!started) {
-            // Some devices throttle scans; show best-effort cached results.
-            List<ScanResult> scanResults = null;
-            try {
-                scanResults = (platformWifiManager != null) ? platformWifiManager.getScanResults() : wifiManager.getAvailableNetworks();
-            } catch (SecurityException ignored) {
-            }
-
-            Set<String> unique = new LinkedHashSet<>();
-            if (scanResults != null) {
-                for (ScanResult result : scanResults) {
-                    if (result == null) continue;
-                    String ssid = result.SSID;
-                    if (ssid == null) continue;
-                    ssid = ssid.trim();
-                    if (ssid.isEmpty()) continue;
-                    unique.add(ssid);
-                }
-            }
-
-            availableNetworks.clear();
-            availableNetworks.addAll(unique);
-            networkAdapter.notifyDataSetChanged();
-            Toast.makeText(this, "Scan throttled. Showing last results (" + availableNetworks.size() + ")", Toast.LENGTH_LONG).show();
-        }
+        // Shares the scan with other screens and stays within the platform's scan throttling.
+        WifiScanService.get(this).scan(wifiScanCallback);
     }
 
     private void connectToSelectedRobot() {
@@ -491,19 +650,16 @@ public class RobotControlActivity extends AppCompatActivity {
         selectedSSID = spinnerNetworks.getSelectedItem().toString();
         Toast.makeText(this, "Connecting to " + selectedSSID + "...", Toast.LENGTH_SHORT).show();
 
-        new Thread(() -> {
-            boolean connected = wifiManager.connectToNetwork(selectedSSID, ROBOT_PASSWORD);
-
-            runOnUiThread(() -> {
-                if (connected) {
-                    Toast.makeText(RobotControlActivity.this, "Connected to " + selectedSSID + " (allow the system prompt if shown)", Toast.LENGTH_SHORT).show();
-                    updateConnectionStatus();
-                } else {
-                    Toast.makeText(RobotControlActivity.this, "Failed to connect. Make sure you accepted the WiFi connect prompt.", Toast.LENGTH_LONG).show();
-                    updateConnectionStatus();
-                }
-            });
-        }).start();
+        // Completes on the main thread once the user answers the system prompt.
+        wifiManager.connectToNetwork(selectedSSID, ROBOT_PASSWORD).whenComplete((network, error) -> {
+            if (isDestroyed() || error instanceof CancellationException) return;
+            if (error == null) {
+                Toast.makeText(RobotControlActivity.this, "Connected to " + selectedSSID, Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(RobotControlActivity.this, "Failed to connect. Make sure you accepted the WiFi connect prompt.", Toast.LENGTH_LONG).show();
+            }
+            updateConnectionStatus();
+        });
     }
 
     private void disconnectFromRobot() {
@@ -541,17 +697,34 @@ public class RobotControlActivity extends AppCompatActivity {
         super.onResume();
         updateConnectionStatus();
         tryBindIfAlreadyConnected();
+        metricsHandler.post(metricsRefresh);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        metricsHandler.removeCallbacks(metricsRefresh);
+        // Never leave the control loop running in the background.
+        if (switchJoystickMode != null && switchJoystickMode.isChecked()) {
+            switchJoystickMode.setChecked(false);
+        }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (scanReceiverRegistered) {
-            try {
-                unregisterReceiver(wifiScanReceiver);
-            } catch (Exception ignored) {
-            }
-            scanReceiverRegistered = false;
+        if (replayThread != null) {
+            replayThread.interrupt();
+        }
+        if (robotController != null) {
+            networkAffinity.detach(robotController);
+            robotController.setSessionRecorder(null);
+            robotController.shutdown();
+        }
+        if (recorder != null) {
+            recorder.close();
         }
+        WifiScanService.get(this).cancel(wifiScanCallback);
+        WifiConnection.get(this).removeListener(wifiLinkListener);
     }
 }
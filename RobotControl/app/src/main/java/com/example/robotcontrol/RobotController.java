@@ -2,125 +2,645 @@ package com.example.robotcontrol;
 
 import android.util.Log;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import com.example.robotcontrol.logic.CommandMetrics;
+import com.example.robotcontrol.logic.DriveSetpoint;
+import com.example.robotcontrol.logic.PriorityCommandQueue;
+import com.example.robotcontrol.logic.PriorityCommandQueue.Lane;
+import com.example.robotcontrol.logic.RetryPolicy;
+import com.example.robotcontrol.logic.RttEstimator;
+import com.example.robotcontrol.logic.ServoPose;
+import com.example.robotcontrol.models.Robot;
+import com.example.robotcontrol.network.KeepAliveHttpClient;
+import com.example.robotcontrol.network.SessionRecorder;
+import com.example.robotcontrol.network.SessionReplayer;
+import com.example.robotcontrol.network.UdpCommandCodec;
+import com.example.robotcontrol.network.UdpCommandTransport;
+import com.example.robotcontrol.network.WebSocketClient;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.SocketFactory;
 
 public class RobotController {
     private static final String TAG = "RobotController";
+    private static final int CONNECT_TIMEOUT_MS = 4000;
+    // HTTP and UDP-ACK timeouts start here and then follow the measured RTT of this robot.
+    private static final long HTTP_INITIAL_TIMEOUT_MS = 1500;
+    private static final long HTTP_MIN_TIMEOUT_MS = 250;
+    private static final long HTTP_MAX_TIMEOUT_MS = 4000;
+    private static final long UDP_INITIAL_ACK_TIMEOUT_MS = 300;
+    private static final long UDP_MIN_ACK_TIMEOUT_MS = 50;
+    private static final long UDP_MAX_ACK_TIMEOUT_MS = 1000;
+    public static final int DEFAULT_UDP_PORT = 8889;
+    public static final int DEFAULT_WS_PORT = 81;
+    private static final String WS_PATH = "/ws";
+    private static final String WS_TELEMETRY_MARKER = "\"type\":\"telemetry\"";
+    private static final long WS_RECONNECT_DELAY_MS = 2000;
+
+    /**
+     * How commands reach the robot. UDP and WebSocket fall back to HTTP for commands they cannot
+     * deliver (no equivalent, missing ACK, session down).
+     */
+    public enum Transport {
+        HTTP,
+        UDP,
+        WEBSOCKET
+    }
+
+    public static Transport transportFor(String connectionType) {
+        if (Robot.CONNECTION_WIFI_UDP.equalsIgnoreCase(connectionType)) return Transport.UDP;
+        if (Robot.CONNECTION_WIFI_WS.equalsIgnoreCase(connectionType)) return Transport.WEBSOCKET;
+        return Transport.HTTP;
+    }
+
     private String robotIP = "192.168.4.1";
     private int robotPort = 8888;
 
+    // One sender thread + one persistent socket: commands go out in order without a
+    // thread spawn or TCP handshake per tap.
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "RobotController-sender");
+        t.setDaemon(true);
+        return t;
+    });
+    private final KeepAliveHttpClient httpClient;
+    private final Transport transport;
+    private final UdpCommandTransport udpTransport;
+    private final WebSocketClient webSocket;
+    private final int wsPort;
+    private final ConcurrentLinkedQueue<InFlight> wsInFlight = new ConcurrentLinkedQueue<>();
+    // Sender thread only.
+    private long wsRetryAfterMs;
+
+    // Pending commands keyed by target; only the newest value per key is sent, and stop
+    // (emergency lane) always goes ahead of queued motion and servo work.
+    private static final String KEY_DRIVE = "drive";
+    private static final String KEY_SERVO_PREFIX = "servo:";
+    private static final String KEY_POSE = "pose";
+    private final PriorityCommandQueue<PendingCommand> pending = new PriorityCommandQueue<>();
+
+    private final RttEstimator httpRtt =
+            new RttEstimator(HTTP_INITIAL_TIMEOUT_MS, HTTP_MIN_TIMEOUT_MS, HTTP_MAX_TIMEOUT_MS);
+    private final RttEstimator udpRtt =
+            new RttEstimator(UDP_INITIAL_ACK_TIMEOUT_MS, UDP_MIN_ACK_TIMEOUT_MS, UDP_MAX_ACK_TIMEOUT_MS);
+    private volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+
+    /** A queued command with the coalescing key and the time the UI issued it. */
+    private static final class PendingCommand {
+        final String key;
+        final String endpoint;
+        final long issuedNanos;
+
+        PendingCommand(String key, String endpoint, long issuedNanos) {
+            this.key = key;
+            this.endpoint = endpoint;
+            this.issuedNanos = issuedNanos;
+        }
+    }
+
+    // Arm angles (base, shoulder, gripper) sent or queued, for diff-mode poses. Queueing a pose
+    // or servo command and updating armPose happen together under armPose's lock.
+    private static final int ARM_SERVO_COUNT = 3;
+    private final ServoPose armPose = new ServoPose(ARM_SERVO_COUNT);
+
+    // Per-endpoint round-trip latency and outcome counters, see getMetricsSnapshot().
+    private final CommandMetrics metrics = new CommandMetrics();
+
+    /** A WebSocket command waiting for its reply frame. */
+    private static final class InFlight {
+        final PendingCommand command;
+        final String endpoint;
+        /** When the command left the queue, for its metrics outcome. */
+        final long startNanos;
+        final long deadlineNanos;
+
+        InFlight(PendingCommand command, long startNanos, long deadlineNanos) {
+            this.command = command;
+            this.endpoint = command.endpoint;
+            this.startNanos = startNanos;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
     public interface CommandCallback {
         void onSending(String endpoint, String url);
         void onResult(String endpoint, int httpCode, String body);
         void onError(String endpoint, Exception error);
+
+        /**
+         * A failed attempt is about to be sent again.
+         *
+         * @param attempt the attempt about to start (2 for the first retry)
+         * @param cause   why the previous attempt failed; a SocketTimeoutException for timeouts
+         */
+        default void onRetry(String endpoint, int attempt, Exception cause) {
+        }
+    }
+
+    /**
+     * Receives state the robot pushes on its own (WebSocket transport only).
+     */
+    public interface RobotStateListener {
+        void onRobotState(String json);
     }
 
     private volatile CommandCallback commandCallback;
+    private volatile RobotStateListener stateListener;
+    private volatile SessionRecorder recorder;
 
     public void setCommandCallback(CommandCallback callback) {
         this.commandCallback = callback;
     }
 
+    public void setRobotStateListener(RobotStateListener listener) {
+        this.stateListener = listener;
+    }
+
+    /**
+     * Records every command sent and every state message pushed by the robot; null stops.
+     * The caller owns the recorder and closes it.
+     */
+    public void setSessionRecorder(SessionRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Plays a recorded session into the callbacks: commands as {@code onSending}, robot state
+     * as {@code onRobotState}. Nothing is sent to the robot. Interrupt the returned thread to
+     * stop early.
+     *
+     * @param speed 1 for the recorded pace, 0 for as fast as possible
+     */
+    public Thread replay(SessionReplayer replayer, double speed) {
+        Thread thread = new Thread(() -> {
+            try {
+                replayer.replay((kind, timeNanos, payload, length) -> {
+                    String text = new String(payload, 0, length, StandardCharsets.UTF_8);
+                    if (kind == SessionRecorder.KIND_SENT) {
+                        notifySending(text, "replay " + text);
+                    } else if (kind == SessionRecorder.KIND_RECEIVED) {
+                        notifyRobotState(text);
+                    }
+                }, speed);
+            } catch (IOException e) {
+                Log.w(TAG, "Replay failed", e);
+            } catch (InterruptedException e) {
+                // Stopped.
+            }
+        }, "SessionReplay");
+        thread.start();
+        return thread;
+    }
+
     public RobotController() {
-        this.robotIP = "192.168.4.1";
-        this.robotPort = 8888;
+        this("192.168.4.1", 8888);
     }
 
     public RobotController(String ipAddress, int port) {
+        this(ipAddress, port, Transport.HTTP);
+    }
+
+    public RobotController(String ipAddress, int port, Transport transport) {
+        this(ipAddress, port, transport,
+                transport == Transport.WEBSOCKET ? DEFAULT_WS_PORT : DEFAULT_UDP_PORT);
+    }
+
+    /**
+     * @param transportPort where the robot listens for the chosen transport: the UDP port
+     *                      (8889 on the ESP32 firmware) or the WebSocket port; unused for HTTP
+     */
+    public RobotController(String ipAddress, int port, Transport transport, int transportPort) {
         this.robotIP = ipAddress;
         this.robotPort = port;
+        this.transport = transport;
+        int httpTimeout = (int) httpRtt.getTimeoutMs();
+        this.httpClient = new KeepAliveHttpClient(robotIP, robotPort, httpTimeout, httpTimeout);
+        this.udpTransport = (transport == Transport.UDP)
+                ? new UdpCommandTransport(robotIP, transportPort, (int) udpRtt.getTimeoutMs())
+                : null;
+        this.webSocket = (transport == Transport.WEBSOCKET) ? new WebSocketClient() : null;
+        this.wsPort = transportPort;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Replaces the retry policy; {@link RetryPolicy#NONE} restores the old send-once behaviour.
+     */
+    public void setRetryPolicy(RetryPolicy policy) {
+        this.retryPolicy = policy != null ? policy : RetryPolicy.NONE;
+    }
+
+    /**
+     * Opens HTTP and WebSocket connections through {@code factory}, normally the robot network's
+     * from {@link com.example.robotcontrol.network.NetworkAffinity}, so they reach the ESP32
+     * even when the process default network is mobile data. Null goes back to plain sockets.
+     * UDP datagrams follow the process binding.
+     */
+    public void setSocketFactory(SocketFactory factory) {
+        httpClient.setSocketFactory(factory);
+        if (webSocket != null) {
+            webSocket.setSocketFactory(factory);
+        }
+    }
+
+    /** Smoothed HTTP round-trip time to this robot, or -1 before the first reply. */
+    public long getSmoothedRttMs() {
+        return httpRtt.getSmoothedRttMs();
+    }
+
+    /** Current HTTP timeout derived from the measured RTT. */
+    public long getCommandTimeoutMs() {
+        return httpRtt.getTimeoutMs();
+    }
+
+    private void enqueue(Lane lane, String key, String endpoint) {
+        if (!pending.offer(lane, key, new PendingCommand(key, endpoint, System.nanoTime()))) {
+            // A drain is already scheduled and will pick up the newest value.
+            return;
+        }
+        try {
+            sender.execute(this::drainPending);
+        } catch (RejectedExecutionException e) {
+            pending.flush();
+            Log.w(TAG, "Controller shut down, dropping " + endpoint);
+        }
+    }
+
+    private void drainPending() {
+        PendingCommand command;
+        while ((command = pending.poll()) != null) {
+            performRequest(command);
+        }
+    }
+
+    private void performRequest(PendingCommand command) {
+        record(SessionRecorder.KIND_SENT, command.endpoint);
+        armPose.sentEndpoint(command.endpoint);
+        // Metrics get one outcome per command, from whichever transport finishes it, with the
+        // latency of every attempt and fallback included.
+        long start = metrics.now();
+        if (udpTransport != null && performUdp(command, start)) {
+            return;
+        }
+        if (webSocket != null && performWebSocket(command, start)) {
+            return;
+        }
+        performHttp(command, start, 0);
+    }
+
+    private boolean shouldRetry(PendingCommand command, int attempts) {
+        if (Thread.currentThread().isInterrupted()) {
+            return false; // shutting down
+        }
+        if (!RetryPolicy.isStop(command.endpoint) && pending.size(Lane.EMERGENCY) > 0) {
+            return false; // a stop is waiting; don't hold it behind a retry
+        }
+        long ageMs = (System.nanoTime() - command.issuedNanos) / 1_000_000L;
+        return retryPolicy.shouldRetry(command.endpoint, attempts, ageMs, pending.isPending(command.key));
     }
 
-    private void sendRequest(final String endpoint) {
-        new Thread(() -> {
+    /**
+     * Sends {@code endpoint} as a UDP datagram. Stop always asks for an ACK and is resent on
+     * ACK timeout as the retry policy allows; other commands are fire-and-forget since a newer
+     * setpoint supersedes them anyway.
+     *
+     * @return false if the command must go over HTTP instead; nothing is recorded then
+     */
+    private boolean performUdp(PendingCommand pendingCommand, long startNanos) {
+        String endpoint = pendingCommand.endpoint;
+        int[] command = UdpCommandCodec.fromEndpoint(endpoint);
+        if (command == null) {
+            return false;
+        }
+        boolean ack = command[0] == UdpCommandCodec.OP_STOP;
+
+        notifySending(endpoint, udpTransport.getAddress() + endpoint);
+        int attempts = 0;
+        while (true) {
+            attempts++;
+            udpTransport.setAckTimeoutMs((int) udpRtt.getTimeoutMs());
+            long attemptStart = metrics.now();
             try {
-                String url = "http://" + robotIP + ":" + robotPort + endpoint;
-                Log.d(TAG, "Sending: " + url);
-
-                CommandCallback cb = commandCallback;
-                if (cb != null) {
-                    try {
-                        cb.onSending(endpoint, url);
-                    } catch (Exception ignored) {
+                int seq = udpTransport.send(command[0], command[1], command[2], ack);
+                if (ack && attempts == 1) {
+                    udpRtt.addSample((metrics.now() - attemptStart) / 1_000_000L);
+                }
+                if (ack) {
+                    metrics.recordSuccess(endpoint, startNanos);
+                } else {
+                    // Sent, but nothing says the robot got it: not a success.
+                    metrics.recordUnacknowledged(endpoint);
+                }
+                // 200 when the robot ACKed, 202 (accepted) for fire-and-forget datagrams.
+                notifyResult(endpoint, ack ? 200 : 202, "udp seq=" + seq);
+                return true;
+            } catch (Exception e) {
+                if (e instanceof SocketTimeoutException) {
+                    udpRtt.onTimeout();
+                    if (shouldRetry(pendingCommand, attempts)) {
+                        notifyRetry(endpoint, attempts + 1, e);
+                        continue;
                     }
                 }
+                Log.w(TAG, "UDP send failed for " + endpoint + ", falling back to HTTP", e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Streams the command as a text frame over the WebSocket session, connecting first if
+     * needed. The result callback fires when the robot's reply frame arrives; if none arrives
+     * within the HTTP timeout, the retry policy decides whether it is resent over HTTP
+     * ({@link #expireWebSocketReplies()}).
+     *
+     * @return false if the session is unavailable and the command must go over HTTP instead;
+     *         nothing is recorded then
+     */
+    private boolean performWebSocket(PendingCommand pendingCommand, long startNanos) {
+        String endpoint = pendingCommand.endpoint;
+        if (!webSocket.isOpen()) {
+            if (System.currentTimeMillis() < wsRetryAfterMs) {
+                return false;
+            }
+            try {
+                webSocket.connect(robotIP, wsPort, WS_PATH, CONNECT_TIMEOUT_MS, webSocketListener);
+            } catch (Exception e) {
+                wsRetryAfterMs = System.currentTimeMillis() + WS_RECONNECT_DELAY_MS;
+                Log.w(TAG, "WebSocket connect failed, falling back to HTTP", e);
+                return false;
+            }
+        }
 
-                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-                connection.setRequestMethod("GET");
-                connection.setConnectTimeout(4000);
-                connection.setReadTimeout(4000);
+        notifySending(endpoint, "ws://" + robotIP + ":" + wsPort + WS_PATH + " " + endpoint);
+        long timeoutMs = httpRtt.getTimeoutMs();
+        InFlight command = new InFlight(pendingCommand, startNanos, metrics.now() + timeoutMs * 1_000_000L);
+        wsInFlight.add(command);
+        try {
+            webSocket.sendText(endpoint);
+        } catch (Exception e) {
+            wsInFlight.remove(command);
+            Log.w(TAG, "WebSocket send failed for " + endpoint + ", falling back to HTTP", e);
+            return false;
+        }
+        try {
+            sender.schedule(this::expireWebSocketReplies, timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // Shutting down.
+        }
+        return true;
+    }
 
-                int responseCode = connection.getResponseCode();
-                Log.d(TAG, "Response: " + responseCode);
+    /**
+     * Runs on the sender thread once the oldest reply may be overdue. Replies are matched to
+     * commands by order, so one missing reply makes every later match wrong: the session is
+     * dropped and every waiting command counts as one failed attempt. Those the retry policy
+     * allows are resent over HTTP; the rest (superseded values, drive commands too old to
+     * replay) fail.
+     */
+    private void expireWebSocketReplies() {
+        InFlight oldest = wsInFlight.peek();
+        if (oldest == null || metrics.now() - oldest.deadlineNanos < 0) {
+            return;
+        }
+        List<InFlight> overdue = new ArrayList<>();
+        InFlight command;
+        while ((command = wsInFlight.poll()) != null) {
+            overdue.add(command);
+        }
+        Log.w(TAG, "No WebSocket reply for " + oldest.endpoint + ", dropping the session");
+        wsRetryAfterMs = System.currentTimeMillis() + WS_RECONNECT_DELAY_MS;
+        webSocket.close();
 
-                InputStream stream = null;
-                try {
-                    stream = (responseCode >= 200 && responseCode < 300)
-                            ? connection.getInputStream()
-                            : connection.getErrorStream();
-                } catch (Exception ignored) {
-                }
+        for (InFlight c : overdue) {
+            SocketTimeoutException timeout = new SocketTimeoutException("No WebSocket reply for " + c.endpoint);
+            if (shouldRetry(c.command, 1)) {
+                notifyRetry(c.endpoint, 2, timeout);
+                performHttp(c.command, c.startNanos, 1);
+            } else {
+                metrics.recordFailure(c.endpoint, timeout);
+                notifyError(c.endpoint, timeout);
+            }
+        }
+    }
 
-                String body = "";
-                if (stream != null) {
-                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
-                        StringBuilder sb = new StringBuilder();
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            sb.append(line);
-                        }
-                        Log.d(TAG, "Body: " + sb);
-                        body = sb.toString();
-                    } catch (Exception ignored) {
-                    }
-                }
+    private final WebSocketClient.Listener webSocketListener = new WebSocketClient.Listener() {
+        @Override
+        public void onMessage(String text) {
+            // Replies come back in command order; anything else is pushed robot state.
+            InFlight command = text.contains(WS_TELEMETRY_MARKER) ? null : wsInFlight.poll();
+            if (command != null) {
+                metrics.recordSuccess(command.endpoint, command.startNanos);
+                notifyResult(command.endpoint, 200, text);
+                return;
+            }
+            record(SessionRecorder.KIND_RECEIVED, text);
+            notifyRobotState(text);
+        }
 
-                cb = commandCallback;
-                if (cb != null) {
-                    try {
-                        cb.onResult(endpoint, responseCode, body);
-                    } catch (Exception ignored) {
-                    }
+        @Override
+        public void onClosed(Exception error) {
+            Exception reason = error != null ? error : new IOException("WebSocket closed");
+            InFlight command;
+            while ((command = wsInFlight.poll()) != null) {
+                metrics.recordFailure(command.endpoint, reason);
+                notifyError(command.endpoint, reason);
+            }
+        }
+    };
+
+    /**
+     * @param attempts attempts already spent on this command over another transport
+     */
+    private void performHttp(PendingCommand command, long startNanos, int attempts) {
+        String endpoint = command.endpoint;
+        String url = httpClient.getBaseUrl() + endpoint;
+        Log.d(TAG, "Sending: " + url);
+        notifySending(endpoint, url);
+
+        int firstAttempt = attempts + 1;
+        while (true) {
+            attempts++;
+            int timeout = (int) httpRtt.getTimeoutMs();
+            httpClient.setTimeouts(timeout, timeout);
+            int connections = httpClient.getConnectionCount();
+            long attemptStart = metrics.now();
+            try {
+                KeepAliveHttpClient.Response response = httpClient.get(endpoint);
+                // Karn's rule, plus: a sample that included a TCP connect is not a plain RTT.
+                if (attempts == firstAttempt && connections == httpClient.getConnectionCount()) {
+                    httpRtt.addSample((metrics.now() - attemptStart) / 1_000_000L);
                 }
+                if (response.code >= 200 && response.code < 300) {
+                    metrics.recordSuccess(endpoint, startNanos);
+                } else {
+                    // The robot answered but refused the command, e.g. 404 for an unknown one.
+                    metrics.recordFailure(endpoint, new IOException("HTTP " + response.code));
+                }
+                Log.d(TAG, "Response: " + response.code);
+                Log.d(TAG, "Body: " + response.body);
 
-                connection.disconnect();
+                notifyResult(endpoint, response.code, response.body);
+                return;
             } catch (Exception e) {
+                if (e instanceof SocketTimeoutException) {
+                    httpRtt.onTimeout();
+                }
+                if (shouldRetry(command, attempts)) {
+                    Log.w(TAG, "Attempt " + attempts + " failed for " + endpoint + ", retrying", e);
+                    notifyRetry(endpoint, attempts + 1, e);
+                    continue;
+                }
+                metrics.recordFailure(endpoint, e);
                 Log.e(TAG, "Error", e);
+                notifyError(endpoint, e);
+                return;
+            }
+        }
+    }
 
-                CommandCallback cb = commandCallback;
-                if (cb != null) {
-                    try {
-                        cb.onError(endpoint, e);
-                    } catch (Exception ignored) {
-                    }
-                }
+    private void record(byte kind, String text) {
+        SessionRecorder r = recorder;
+        if (r != null) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            r.record(kind, System.nanoTime(), bytes, 0, bytes.length);
+        }
+    }
+
+    private void notifyRobotState(String json) {
+        RobotStateListener l = stateListener;
+        if (l != null) {
+            try {
+                l.onRobotState(json);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private void notifySending(String endpoint, String url) {
+        CommandCallback cb = commandCallback;
+        if (cb != null) {
+            try {
+                cb.onSending(endpoint, url);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private void notifyResult(String endpoint, int code, String body) {
+        if (code != 200) {
+            armPose.failedEndpoint(endpoint);
+        }
+        CommandCallback cb = commandCallback;
+        if (cb != null) {
+            try {
+                cb.onResult(endpoint, code, body);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private void notifyRetry(String endpoint, int attempt, Exception cause) {
+        metrics.recordRetry(endpoint);
+        CommandCallback cb = commandCallback;
+        if (cb != null) {
+            try {
+                cb.onRetry(endpoint, attempt, cause);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private void notifyError(String endpoint, Exception error) {
+        armPose.failedEndpoint(endpoint);
+        CommandCallback cb = commandCallback;
+        if (cb != null) {
+            try {
+                cb.onError(endpoint, error);
+            } catch (Exception ignored) {
             }
-        }).start();
+        }
+    }
+
+    /** Commands replaced by a newer value for the same target before they were sent. */
+    public long getCoalescedCommandCount() {
+        return pending.getCoalescedCount();
+    }
+
+    /** Queued commands dropped because a stop pre-empted them or the controller shut down. */
+    public long getFlushedCommandCount() {
+        return pending.getFlushedCount();
+    }
+
+    /**
+     * Round-trip latency percentiles, outcome counters and throughput per endpoint since the
+     * controller was created (or {@link #resetMetrics()}).
+     */
+    public CommandMetrics.Snapshot getMetricsSnapshot() {
+        return metrics.snapshot();
+    }
+
+    public void resetMetrics() {
+        metrics.reset();
+    }
+
+    /**
+     * Stops the sender thread and closes the keep-alive connection. Call from onDestroy.
+     */
+    public void shutdown() {
+        sender.shutdownNow();
+        // Closing the socket also unblocks a request that is still waiting on the robot.
+        httpClient.close();
+        if (udpTransport != null) {
+            udpTransport.close();
+        }
+        if (webSocket != null) {
+            webSocket.close();
+        }
     }
 
     // Motor Control Commands
     public void moveForward() {
-        sendRequest("/forward");
+        enqueue(Lane.MOTION, KEY_DRIVE, "/forward");
     }
 
     public void moveBackward() {
-        sendRequest("/backward");
+        enqueue(Lane.MOTION, KEY_DRIVE, "/backward");
     }
 
     public void turnLeft() {
-        sendRequest("/left");
+        enqueue(Lane.MOTION, KEY_DRIVE, "/left");
     }
 
     public void turnRight() {
-        sendRequest("/right");
+        enqueue(Lane.MOTION, KEY_DRIVE, "/right");
+    }
+
+    /**
+     * Continuous (joystick) drive: wheel speeds in percent. Shares the drive slot with the
+     * discrete commands, so only the newest setpoint is ever waiting to go out.
+     */
+    public void drive(DriveSetpoint setpoint) {
+        enqueue(Lane.MOTION, KEY_DRIVE, setpoint.toEndpoint());
     }
 
+    /**
+     * Sends stop next, ahead of anything queued; queued (not yet sent) motion is dropped.
+     */
     public void stopMotors() {
-        sendRequest("/stop");
+        enqueue(Lane.EMERGENCY, KEY_DRIVE, "/stop");
     }
 
     // Servo Control Commands
@@ -130,7 +650,10 @@ public class RobotController {
             return;
         }
         String endpoint = String.format("/set?servo=%d&angle=%d", servoNumber, angle);
-        sendRequest(endpoint);
+        synchronized (armPose) {
+            armPose.queueSingle(servoNumber, angle);
+            enqueue(Lane.LOW, KEY_SERVO_PREFIX + servoNumber, endpoint);
+        }
     }
 
     // Convenience methods for named servos
@@ -145,4 +668,46 @@ public class RobotController {
     public void setGripperServo(int angle) {
         setServo(3, angle);
     }
+
+    /**
+     * Moves several servos in one request ({@code /pose?s1=..&s2=..}). Index 0 is servo 1;
+     * {@link ServoPose#UNCHANGED} leaves a servo alone. A pose still queued is extended rather
+     * than replaced, and queued single-servo commands for the servos it moves are dropped.
+     *
+     * @param diffOnly only send servos whose angle differs from the last one sent or queued
+     */
+    public void setPose(int[] angles, boolean diffOnly) {
+        for (int angle : angles) {
+            if (angle != ServoPose.UNCHANGED && (angle < 0 || angle > 180)) {
+                Log.w(TAG, "Servo angle out of range: " + angle);
+                return;
+            }
+        }
+        synchronized (armPose) {
+            int[] pose = armPose.queue(angles, diffOnly);
+            if (pose == null) {
+                // Robot is already there, or on its way.
+                return;
+            }
+            for (int servo = 1; servo <= pose.length; servo++) {
+                if (pose[servo - 1] != ServoPose.UNCHANGED) pending.remove(KEY_SERVO_PREFIX + servo);
+            }
+            enqueue(Lane.LOW, KEY_POSE, ServoPose.toEndpoint(pose));
+        }
+    }
+
+    /**
+     * Moves base, shoulder and gripper together, sending only the joints that changed.
+     */
+    public void setArmPose(int base, int shoulder, int gripper) {
+        setPose(new int[]{base, shoulder, gripper}, true);
+    }
+
+    /**
+     * Forgets the arm angles sent so far, e.g. after a reconnect when the robot may have reset.
+     * Follow with a full {@link #setArmPose}.
+     */
+    public void forgetArmPose() {
+        armPose.reset();
+    }
 }
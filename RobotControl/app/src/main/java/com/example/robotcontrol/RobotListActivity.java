@@ -22,6 +22,7 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 public class RobotListActivity extends AppCompatActivity implements RobotAdapter.OnRobotClickListener {
 
@@ -41,6 +42,9 @@ public class RobotListActivity extends AppCompatActivity implements RobotAdapter
     private SharedPreferences prefs;
     private String currentUserId;
 
+    // Fans "stop all" out to every WiFi robot in the list; rebuilt when the list reloads.
+    private FleetController fleetController;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         AppSettings.applyColorTheme(this);
@@ -108,6 +112,57 @@ public class RobotListActivity extends AppCompatActivity implements RobotAdapter
         }
 
         updateUI();
+        rebuildFleet();
+    }
+
+    private void rebuildFleet() {
+        if (fleetController != null) {
+            fleetController.shutdown();
+        }
+        List<Robot> wifiRobots = new ArrayList<>();
+        for (Robot robot : robotList) {
+            if (Robot.isWifiConnectionType(robot.getConnectionType())) {
+                wifiRobots.add(robot);
+            }
+        }
+        fleetController = new FleetController(wifiRobots);
+    }
+
+    private void stopAllRobots() {
+        final FleetController fleet = fleetController;
+        if (fleet == null || fleet.size() == 0) {
+            Toast.makeText(this, "No WiFi robots to stop", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        new Thread(() -> {
+            String message;
+            try {
+                FleetController.FleetResult result = fleet.stopAll();
+                message = "Stopped " + result.count(FleetController.Outcome.ACKED) + "/" + result.results.size()
+                        + " robots in " + result.totalLatencyMs + " ms";
+                int timedOut = result.count(FleetController.Outcome.TIMED_OUT);
+                int failed = result.count(FleetController.Outcome.FAILED);
+                if (timedOut > 0 || failed > 0) {
+                    message += " (" + timedOut + " timed out, " + failed + " failed)";
+                }
+            } catch (RejectedExecutionException e) {
+                message = "Robot list changed, try again";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            final String text = message;
+            runOnUiThread(() -> Toast.makeText(RobotListActivity.this, text, Toast.LENGTH_LONG).show());
+        }).start();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (fleetController != null) {
+            fleetController.shutdown();
+            fleetController = null;
+        }
     }
 
     @Override
@@ -133,13 +188,14 @@ public class RobotListActivity extends AppCompatActivity implements RobotAdapter
         if (robot == null) return;
 
         // WiFi robots must use the WiFi control screen (ControlActivity is Bluetooth-only)
-        if ("wifi".equalsIgnoreCase(robot.getConnectionType())) {
+        if (Robot.isWifiConnectionType(robot.getConnectionType())) {
             Intent intent = new Intent(RobotListActivity.this, RobotControlActivity.class);
             intent.putExtra("robot_id", robot.getId());
             intent.putExtra("robot_name", robot.getName());
             intent.putExtra("robot_ip", robot.getIpAddress());
             intent.putExtra("robot_port", 8888);
             intent.putExtra("robot_ssid", robot.getMacAddress());
+            intent.putExtra("robot_connection_type", robot.getConnectionType());
             startActivity(intent);
             return;
         }
@@ -185,6 +241,9 @@ public class RobotListActivity extends AppCompatActivity implements RobotAdapter
         } else if (id == R.id.action_refresh) {
             loadRobots();
             return true;
+        } else if (id == R.id.action_stop_all) {
+            stopAllRobots();
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
@@ -120,6 +120,29 @@ public class SettingsActivity extends AppCompatActivity implements PermissionAda
             });
         });
 
+        if (connectionTypeText != null) {
+            connectionTypeText.setOnClickListener(v -> {
+                if (!canManageRobot) {
+                    Toast.makeText(this, "Only the owner can edit", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                if (robot == null || !Robot.isWifiConnectionType(robot.getConnectionType())) {
+                    return;
+                }
+                // WiFi robots can switch between the HTTP, UDP and WebSocket control transports.
+                final String[] types = new String[]{
+                        Robot.CONNECTION_WIFI, Robot.CONNECTION_WIFI_UDP, Robot.CONNECTION_WIFI_WS};
+                new AlertDialog.Builder(this)
+                        .setTitle("Connection Type")
+                        .setItems(types, (dialog, which) -> {
+                            robot.setConnectionType(types[which]);
+                            dbHelper.updateRobot(robot);
+                            loadRobotDetails();
+                        })
+                        .show();
+            });
+        }
+
         robotTypeText.setOnClickListener(v -> {
             if (!canManageRobot) {
                 Toast.makeText(this, "Only the owner can edit", Toast.LENGTH_SHORT).show();
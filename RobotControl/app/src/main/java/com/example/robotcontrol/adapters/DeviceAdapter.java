@@ -15,10 +15,28 @@ import androidx.core.app.ActivityCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.robotcontrol.R;
+import com.example.robotcontrol.logic.KeyedListDiff;
 
+import java.util.ArrayList;
 import java.util.List;
 
-public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceViewHolder> {
+public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceViewHolder>
+        implements KeyedListDiff.Listener {
+
+    /** Rows keyed by MAC address; a device found again keeps its row. */
+    private static final KeyedListDiff.Keys<BluetoothDevice> KEYS = new KeyedListDiff.Keys<BluetoothDevice>() {
+        @NonNull
+        @Override
+        public Object keyOf(@NonNull BluetoothDevice item) {
+            return item.getAddress();
+        }
+
+        @Override
+        public boolean sameContent(@NonNull BluetoothDevice oldItem, @NonNull BluetoothDevice newItem) {
+            // Name and address come from the same object for the same MAC.
+            return true;
+        }
+    };
 
     private Context context;
     private List<BluetoothDevice> deviceList;
@@ -64,6 +82,57 @@ public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceView
         return deviceList.size();
     }
 
+    /** Appends {@code device} unless a row for its address already exists. */
+    public void addDevice(@NonNull BluetoothDevice device) {
+        for (BluetoothDevice d : deviceList) {
+            if (d.getAddress().equals(device.getAddress())) return;
+        }
+        deviceList.add(device);
+        notifyItemInserted(deviceList.size() - 1);
+    }
+
+    /**
+     * Ends a discovery: rows for devices not in {@code found} are removed, the rest keep their
+     * place, and devices not shown yet are appended.
+     */
+    public void retainDevices(@NonNull List<BluetoothDevice> found) {
+        List<BluetoothDevice> target = new ArrayList<>(deviceList.size() + found.size());
+        for (BluetoothDevice d : deviceList) {
+            if (containsAddress(found, d.getAddress())) target.add(d);
+        }
+        for (BluetoothDevice d : found) {
+            if (!containsAddress(target, d.getAddress())) target.add(d);
+        }
+        KeyedListDiff.apply(deviceList, target, KEYS, this);
+    }
+
+    private static boolean containsAddress(List<BluetoothDevice> devices, String address) {
+        for (BluetoothDevice d : devices) {
+            if (d.getAddress().equals(address)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        notifyItemRangeRemoved(position, count);
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        notifyItemRangeInserted(position, count);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        notifyItemMoved(fromPosition, toPosition);
+    }
+
+    @Override
+    public void onChanged(int position, int count) {
+        notifyItemRangeChanged(position, count);
+    }
+
     static class DeviceViewHolder extends RecyclerView.ViewHolder {
         TextView deviceName, deviceAddress;
 
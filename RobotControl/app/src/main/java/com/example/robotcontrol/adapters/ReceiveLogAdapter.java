@@ -0,0 +1,70 @@
+package com.example.robotcontrol.adapters;
+
+import android.annotation.SuppressLint;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.robotcontrol.R;
+import com.example.robotcontrol.logic.ReceiveLog;
+
+/**
+ * Shows a {@link ReceiveLog}; appends become range insert/remove notifications, so only the
+ * rows on screen are ever bound.
+ */
+public class ReceiveLogAdapter extends RecyclerView.Adapter<ReceiveLogAdapter.LineViewHolder>
+        implements ReceiveLog.Listener {
+
+    private final ReceiveLog log;
+
+    public ReceiveLogAdapter(@NonNull ReceiveLog log) {
+        this.log = log;
+        log.setListener(this);
+    }
+
+    @NonNull
+    @Override
+    public LineViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_receive_log, parent, false);
+        return new LineViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull LineViewHolder holder, int position) {
+        holder.line.setText(log.get(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return log.size();
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        notifyItemRangeRemoved(position, count);
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        notifyItemRangeInserted(position, count);
+    }
+
+    @SuppressLint("NotifyDataSetChanged")
+    @Override
+    public void onReset() {
+        notifyDataSetChanged();
+    }
+
+    static class LineViewHolder extends RecyclerView.ViewHolder {
+        final TextView line;
+
+        LineViewHolder(@NonNull View itemView) {
+            super(itemView);
+            line = itemView.findViewById(R.id.receiveLogLine);
+        }
+    }
+}
@@ -67,7 +67,7 @@ public class RobotAdapter extends RecyclerView.Adapter<RobotAdapter.RobotViewHol
         }
 
         // Set connection type icon
-        if ("wifi".equals(robot.getConnectionType())) {
+        if (Robot.isWifiConnectionType(robot.getConnectionType())) {
             holder.connectionTypeIcon.setImageResource(R.drawable.ic_wifi);
         } else {
             holder.connectionTypeIcon.setImageResource(R.drawable.ic_bluetooth);
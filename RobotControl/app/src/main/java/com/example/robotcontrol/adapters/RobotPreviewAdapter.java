@@ -54,7 +54,7 @@ public class RobotPreviewAdapter extends RecyclerView.Adapter<RobotPreviewAdapte
         SimpleDateFormat sdf = new SimpleDateFormat("MMM dd", Locale.getDefault());
         holder.tvLastSeen.setText(sdf.format(new Date(robot.getLastConnected())));
 
-        if ("wifi".equalsIgnoreCase(robot.getConnectionType())) {
+        if (Robot.isWifiConnectionType(robot.getConnectionType())) {
             holder.ivConnType.setImageResource(R.drawable.ic_wifi);
         } else {
             holder.ivConnType.setImageResource(R.drawable.ic_bluetooth);
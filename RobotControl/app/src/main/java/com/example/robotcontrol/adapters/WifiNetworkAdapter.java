@@ -10,10 +10,33 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.robotcontrol.R;
+import com.example.robotcontrol.logic.KeyedListDiff;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+
+public class WifiNetworkAdapter extends RecyclerView.Adapter<WifiNetworkAdapter.NetworkViewHolder>
+        implements KeyedListDiff.Listener {
+
+    /**
+     * Rows are keyed by BSSID; a row is rebound only when what it shows, the SSID or the dBm
+     * reading, changes.
+     */
+    private static final KeyedListDiff.Keys<ScanResult> KEYS = new KeyedListDiff.Keys<ScanResult>() {
+        @NonNull
+        @Override
+        public Object keyOf(@NonNull ScanResult item) {
+            return keyFor(item);
+        }
 
-public class WifiNetworkAdapter extends RecyclerView.Adapter<WifiNetworkAdapter.NetworkViewHolder> {
+        @Override
+        public boolean sameContent(@NonNull ScanResult oldItem, @NonNull ScanResult newItem) {
+            return String.valueOf(oldItem.SSID).equals(String.valueOf(newItem.SSID))
+                    && oldItem.level == newItem.level;
+        }
+    };
 
     public interface OnNetworkClickListener {
         void onNetworkClick(ScanResult network);
@@ -42,7 +65,7 @@ public class WifiNetworkAdapter extends RecyclerView.Adapter<WifiNetworkAdapter.
         String bssid = network.BSSID != null ? network.BSSID : "";
 
         holder.deviceName.setText(ssid.isEmpty() ? "Hidden network" : ssid);
-        holder.deviceAddress.setText(bssid);
+        holder.deviceAddress.setText(bssid + "  " + network.level + " dBm");
 
         holder.itemView.setOnClickListener(v -> listener.onNetworkClick(network));
     }
@@ -52,6 +75,45 @@ public class WifiNetworkAdapter extends RecyclerView.Adapter<WifiNetworkAdapter.
         return networks.size();
     }
 
+    /**
+     * Shows {@code results} in their order, moving, inserting and removing only the rows that
+     * differ from the current list. Duplicate BSSIDs keep their first entry.
+     *
+     * @return true if any row changed
+     */
+    public boolean submitList(@NonNull List<ScanResult> results) {
+        List<ScanResult> target = new ArrayList<>(results.size());
+        Set<String> seen = new HashSet<>();
+        for (ScanResult r : results) {
+            if (r != null && seen.add(keyFor(r))) target.add(r);
+        }
+        return KeyedListDiff.apply(networks, target, KEYS, this) > 0;
+    }
+
+    private static String keyFor(ScanResult r) {
+        return r.BSSID != null ? r.BSSID : "ssid:" + r.SSID;
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        notifyItemRangeRemoved(position, count);
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        notifyItemRangeInserted(position, count);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        notifyItemMoved(fromPosition, toPosition);
+    }
+
+    @Override
+    public void onChanged(int position, int count) {
+        notifyItemRangeChanged(position, count);
+    }
+
     static class NetworkViewHolder extends RecyclerView.ViewHolder {
         TextView deviceName, deviceAddress;
 
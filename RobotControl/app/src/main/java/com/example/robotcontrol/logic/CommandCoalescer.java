@@ -0,0 +1,100 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latest-wins queue of pending robot commands, keyed by target (e.g. "servo:2", "drive").
+ *
+ * Offering a command for a key that is still pending replaces the queued value in place, so a
+ * slider drag produces one write per servo instead of a backlog of stale angles. Keys keep the
+ * position of their first offer, which stops a busy servo from starving the others.
+ */
+public final class CommandCoalescer<T> {
+
+    private final LinkedHashMap<String, T> pending = new LinkedHashMap<>();
+
+    private long offeredCount;
+    private long coalescedCount;
+    private long flushedCount;
+
+    /**
+     * Queues {@code command} for {@code key}, replacing any value not yet sent.
+     *
+     * @return true if the queue was empty, i.e. the caller should schedule a drain
+     */
+    public synchronized boolean offer(@NonNull String key, @NonNull T command) {
+        offeredCount++;
+        boolean wasEmpty = pending.isEmpty();
+        if (pending.put(key, command) != null) {
+            coalescedCount++;
+        }
+        return wasEmpty;
+    }
+
+    /**
+     * Removes and returns the oldest pending command, or null if nothing is queued.
+     */
+    @Nullable
+    public synchronized T poll() {
+        Iterator<Map.Entry<String, T>> it = pending.entrySet().iterator();
+        if (!it.hasNext()) return null;
+        T value = it.next().getValue();
+        it.remove();
+        return value;
+    }
+
+    /**
+     * Drops the unsent value for {@code key}, counted as coalesced: the caller has queued a newer
+     * command that covers it under another key.
+     *
+     * @return true if a value was pending
+     */
+    public synchronized boolean remove(@NonNull String key) {
+        if (pending.remove(key) == null) return false;
+        coalescedCount++;
+        return true;
+    }
+
+    /**
+     * True if a command for {@code key} is waiting to be sent.
+     */
+    public synchronized boolean isPending(@NonNull String key) {
+        return pending.containsKey(key);
+    }
+
+    /**
+     * Drops everything queued (used by stop to pre-empt pending motion).
+     *
+     * @return number of commands dropped
+     */
+    public synchronized int flush() {
+        int dropped = pending.size();
+        pending.clear();
+        flushedCount += dropped;
+        return dropped;
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /** Total commands offered. */
+    public synchronized long getOfferedCount() {
+        return offeredCount;
+    }
+
+    /** Commands replaced by a newer value for the same key before being sent. */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /** Commands dropped by {@link #flush()}. */
+    public synchronized long getFlushedCount() {
+        return flushedCount;
+    }
+}
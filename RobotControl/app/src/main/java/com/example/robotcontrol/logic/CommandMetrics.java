@@ -0,0 +1,244 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Round-trip instrumentation for robot commands.
+ *
+ * Keeps one {@link LatencyHistogram} plus success/error/timeout counters per endpoint path (the
+ * query string is dropped, so every "/set?servo=.." lands in "/set"), and a sliding one-second
+ * window for commands per second. Recording is lock-free except for the throughput window;
+ * {@link #snapshot()} can be called from any thread.
+ */
+public final class CommandMetrics {
+
+    private static final int RATE_WINDOW_SECONDS = 5;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final LongSupplier nanoClock;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    // Completions per whole second, indexed by second % window.
+    private final long[] rateSecond = new long[RATE_WINDOW_SECONDS];
+    private final long[] rateCount = new long[RATE_WINDOW_SECONDS];
+
+    private static final class Endpoint {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong success = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final AtomicLong unacked = new AtomicLong();
+    }
+
+    public CommandMetrics() {
+        this(System::nanoTime);
+    }
+
+    public CommandMetrics(@NonNull LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        long now = nanoClock.getAsLong() / NANOS_PER_SECOND;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) rateSecond[i] = now;
+    }
+
+    /** Current clock value; pass it back as {@code startNanos} when the command completes. */
+    public long now() {
+        return nanoClock.getAsLong();
+    }
+
+    public void recordSuccess(@NonNull String endpoint, long startNanos) {
+        Endpoint e = endpointFor(endpoint);
+        long now = nanoClock.getAsLong();
+        e.latency.recordNanos(now - startNanos);
+        e.success.incrementAndGet();
+        countCompletion(now);
+    }
+
+    /**
+     * Records a failed command. {@link SocketTimeoutException}s are counted as timeouts, anything
+     * else as an error; neither goes into the latency histogram.
+     */
+    public void recordFailure(@NonNull String endpoint, @NonNull Exception error) {
+        Endpoint e = endpointFor(endpoint);
+        if (error instanceof SocketTimeoutException) {
+            e.timeouts.incrementAndGet();
+        } else {
+            e.errors.incrementAndGet();
+        }
+        countCompletion(nanoClock.getAsLong());
+    }
+
+    /**
+     * Records a command sent without asking for a reply (a fire-and-forget UDP datagram). It
+     * counts towards throughput but not as a success, and has no latency.
+     */
+    public void recordUnacknowledged(@NonNull String endpoint) {
+        endpointFor(endpoint).unacked.incrementAndGet();
+        countCompletion(nanoClock.getAsLong());
+    }
+
+    /** Records that a failed attempt is being sent again; the outcome is recorded separately. */
+    public void recordRetry(@NonNull String endpoint) {
+        endpointFor(endpoint).retries.incrementAndGet();
+    }
+
+    public void reset() {
+        endpoints.clear();
+        synchronized (rateCount) {
+            long now = nanoClock.getAsLong() / NANOS_PER_SECOND;
+            for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+                rateSecond[i] = now;
+                rateCount[i] = 0;
+            }
+        }
+    }
+
+    private Endpoint endpointFor(String endpoint) {
+        int q = endpoint.indexOf('?');
+        String path = q < 0 ? endpoint : endpoint.substring(0, q);
+        return endpoints.computeIfAbsent(path, k -> new Endpoint());
+    }
+
+    private void countCompletion(long nowNanos) {
+        long second = nowNanos / NANOS_PER_SECOND;
+        int slot = (int) Math.floorMod(second, (long) RATE_WINDOW_SECONDS);
+        synchronized (rateCount) {
+            if (rateSecond[slot] != second) {
+                rateSecond[slot] = second;
+                rateCount[slot] = 0;
+            }
+            rateCount[slot]++;
+        }
+    }
+
+    /**
+     * Average completions per second over the last full seconds of the window (the current,
+     * partial second is left out so the figure doesn't sag right after each tick).
+     */
+    private double commandsPerSecond(long nowNanos) {
+        long current = nowNanos / NANOS_PER_SECOND;
+        long total = 0;
+        synchronized (rateCount) {
+            for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+                long age = current - rateSecond[i];
+                if (age >= 1 && age < RATE_WINDOW_SECONDS) total += rateCount[i];
+            }
+        }
+        return total / (double) (RATE_WINDOW_SECONDS - 1);
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        List<EndpointStats> stats = new ArrayList<>();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint e = entry.getValue();
+            LatencyHistogram h = e.latency;
+            stats.add(new EndpointStats(entry.getKey(), e.success.get(), e.errors.get(), e.timeouts.get(),
+                    e.retries.get(), e.unacked.get(), h.getPercentileMicros(50), h.getPercentileMicros(90), h.getPercentileMicros(99),
+                    h.getMaxMicros()));
+        }
+        Collections.sort(stats, (a, b) -> a.endpoint.compareTo(b.endpoint));
+        return new Snapshot(stats, commandsPerSecond(nanoClock.getAsLong()));
+    }
+
+    public static final class EndpointStats {
+        public final String endpoint;
+        public final long success;
+        public final long errors;
+        public final long timeouts;
+        public final long retries;
+        /** Sent without asking for a reply; neither successes nor failures. */
+        public final long unacked;
+        public final long p50Micros;
+        public final long p90Micros;
+        public final long p99Micros;
+        public final long maxMicros;
+
+        EndpointStats(String endpoint, long success, long errors, long timeouts, long retries, long unacked,
+                      long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+            this.endpoint = endpoint;
+            this.success = success;
+            this.errors = errors;
+            this.timeouts = timeouts;
+            this.retries = retries;
+            this.unacked = unacked;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+    }
+
+    public static final class Snapshot {
+        public final List<EndpointStats> endpoints;
+        public final double commandsPerSecond;
+
+        Snapshot(List<EndpointStats> endpoints, double commandsPerSecond) {
+            this.endpoints = Collections.unmodifiableList(endpoints);
+            this.commandsPerSecond = commandsPerSecond;
+        }
+
+        public long getTotalSuccess() {
+            long n = 0;
+            for (EndpointStats s : endpoints) n += s.success;
+            return n;
+        }
+
+        public long getTotalErrors() {
+            long n = 0;
+            for (EndpointStats s : endpoints) n += s.errors;
+            return n;
+        }
+
+        public long getTotalTimeouts() {
+            long n = 0;
+            for (EndpointStats s : endpoints) n += s.timeouts;
+            return n;
+        }
+
+        public long getTotalRetries() {
+            long n = 0;
+            for (EndpointStats s : endpoints) n += s.retries;
+            return n;
+        }
+
+        public long getTotalUnacked() {
+            long n = 0;
+            for (EndpointStats s : endpoints) n += s.unacked;
+            return n;
+        }
+
+        /** Compact multi-line text for the debug overlay; latencies in milliseconds. */
+        @NonNull
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US, "%.1f cmd/s  ok %d  err %d  timeout %d  retry %d",
+                    commandsPerSecond, getTotalSuccess(), getTotalErrors(), getTotalTimeouts(),
+                    getTotalRetries()));
+            long unacked = getTotalUnacked();
+            if (unacked > 0) {
+                sb.append(String.format(Locale.US, "  unacked %d", unacked));
+            }
+            for (EndpointStats s : endpoints) {
+                sb.append(String.format(Locale.US, "\n%-9s n=%d p50 %.1f p90 %.1f p99 %.1f max %.1f ms",
+                        s.endpoint, s.success, s.p50Micros / 1000.0, s.p90Micros / 1000.0,
+                        s.p99Micros / 1000.0, s.maxMicros / 1000.0));
+                if (s.errors > 0 || s.timeouts > 0 || s.retries > 0) {
+                    sb.append(String.format(Locale.US, " (err %d, t/o %d, retry %d)",
+                            s.errors, s.timeouts, s.retries));
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Differential-drive velocity setpoint: left and right wheel speed in percent, -100..100.
+ */
+public final class DriveSetpoint {
+
+    public static final int MAX = 100;
+    public static final DriveSetpoint STOP = new DriveSetpoint(0, 0);
+
+    public final int left;
+    public final int right;
+
+    public DriveSetpoint(int left, int right) {
+        this.left = clamp(left);
+        this.right = clamp(right);
+    }
+
+    public boolean isStop() {
+        return left == 0 && right == 0;
+    }
+
+    /**
+     * HTTP form: {@code /drive?l=60&r=-20}.
+     */
+    @NonNull
+    public String toEndpoint() {
+        return "/drive?l=" + left + "&r=" + right;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(-MAX, Math.min(MAX, value));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DriveSetpoint)) return false;
+        DriveSetpoint other = (DriveSetpoint) o;
+        return left == other.left && right == other.right;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * left + right;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "DriveSetpoint{" + left + ", " + right + "}";
+    }
+}
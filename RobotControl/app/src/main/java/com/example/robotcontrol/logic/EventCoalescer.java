@@ -0,0 +1,130 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects UI events from background threads until the UI drains them, once per frame.
+ *
+ * Three kinds are kept apart: one-off events (connected, lost, ...) are delivered in order and
+ * never dropped; received lines are kept in order up to {@code maxLines}, dropping the oldest,
+ * since a log only shows the last few anyway; a status text only ever needs its newest value,
+ * so each new one replaces (merges) the one still waiting. Every offer says whether it was the
+ * first since the last drain, i.e. whether the caller has to schedule one.
+ */
+public final class EventCoalescer {
+
+    /** What one drain hands over. Reused between drains by its owner. */
+    public static final class Batch {
+        @Nullable
+        public String status;
+        public final List<String> lines = new ArrayList<>();
+        public final List<Runnable> events = new ArrayList<>();
+
+        public boolean isEmpty() {
+            return status == null && lines.isEmpty() && events.isEmpty();
+        }
+
+        public void clear() {
+            status = null;
+            lines.clear();
+            events.clear();
+        }
+    }
+
+    private final int maxLines;
+
+    private final ArrayDeque<Runnable> events = new ArrayDeque<>();
+    private final ArrayDeque<String> lines = new ArrayDeque<>();
+    @Nullable
+    private String status;
+    private boolean pending;
+
+    private long offeredCount;
+    private long mergedCount;
+    private long droppedCount;
+    private long batchCount;
+
+    public EventCoalescer(int maxLines) {
+        if (maxLines < 1) {
+            throw new IllegalArgumentException("maxLines must be positive");
+        }
+        this.maxLines = maxLines;
+    }
+
+    /** @return true if the caller must schedule a drain */
+    public synchronized boolean offerEvent(@NonNull Runnable event) {
+        offeredCount++;
+        events.add(event);
+        return markPending();
+    }
+
+    /** @return true if the caller must schedule a drain */
+    public synchronized boolean offerLine(@NonNull String line) {
+        offeredCount++;
+        if (lines.size() == maxLines) {
+            lines.poll();
+            droppedCount++;
+        }
+        lines.add(line);
+        return markPending();
+    }
+
+    /** @return true if the caller must schedule a drain */
+    public synchronized boolean offerStatus(@NonNull String text) {
+        offeredCount++;
+        if (status != null) mergedCount++;
+        status = text;
+        return markPending();
+    }
+
+    private boolean markPending() {
+        if (pending) return false;
+        pending = true;
+        return true;
+    }
+
+    /** Moves everything waiting into {@code out} (cleared first). */
+    public synchronized void drainTo(@NonNull Batch out) {
+        out.clear();
+        out.status = status;
+        out.lines.addAll(lines);
+        out.events.addAll(events);
+        status = null;
+        lines.clear();
+        events.clear();
+        if (pending) batchCount++;
+        pending = false;
+    }
+
+    /** Drops everything waiting, e.g. when the screen goes away. */
+    public synchronized void clear() {
+        status = null;
+        lines.clear();
+        events.clear();
+        pending = false;
+    }
+
+    public synchronized long getOfferedCount() {
+        return offeredCount;
+    }
+
+    /** Status texts replaced by a newer one before the UI saw them. */
+    public synchronized long getMergedCount() {
+        return mergedCount;
+    }
+
+    /** Lines dropped because more than {@code maxLines} arrived within one frame. */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /** Drains that delivered something; offers per batch is how much was coalesced. */
+    public synchronized long getBatchCount() {
+        return batchCount;
+    }
+}
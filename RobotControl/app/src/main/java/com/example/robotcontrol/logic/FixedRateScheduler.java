@@ -0,0 +1,126 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Runs a task at a fixed rate on its own thread.
+ *
+ * Ticks are scheduled against absolute deadlines so the rate doesn't drift with the task's run
+ * time. If the thread falls more than a whole period behind (GC pause, CPU contention) the missed
+ * ticks are skipped and counted rather than run back to back, since a burst of stale control
+ * setpoints is worse than a gap. Time comes from a {@link Clock} so tests can drive it.
+ */
+public final class FixedRateScheduler {
+
+    public interface Clock {
+        long nanoTime();
+
+        void sleepNanos(long nanos) throws InterruptedException;
+    }
+
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleepNanos(long nanos) throws InterruptedException {
+            Thread.sleep(nanos / 1_000_000L, (int) (nanos % 1_000_000L));
+        }
+    };
+
+    private final Clock clock;
+    private final long periodNanos;
+    private final Runnable task;
+
+    private volatile boolean running;
+    private volatile long tickCount;
+    private volatile long missedTickCount;
+    private Thread thread;
+
+    public FixedRateScheduler(@NonNull Clock clock, int rateHz, @NonNull Runnable task) {
+        if (rateHz <= 0) {
+            throw new IllegalArgumentException("rateHz must be positive: " + rateHz);
+        }
+        this.clock = clock;
+        this.periodNanos = 1_000_000_000L / rateHz;
+        this.task = task;
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    public synchronized void start(@NonNull String threadName) {
+        if (running) return;
+        running = true;
+        thread = new Thread(() -> {
+            try {
+                loop(-1);
+            } catch (InterruptedException ignored) {
+            }
+        }, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Runs {@code ticks} ticks on the calling thread; lets tests step the loop with a fake clock.
+     */
+    public void runTicks(int ticks) throws InterruptedException {
+        running = true;
+        try {
+            loop(ticks);
+        } finally {
+            running = false;
+        }
+    }
+
+    private void loop(long maxTicks) throws InterruptedException {
+        long ran = 0;
+        long next = clock.nanoTime();
+        while (running && (maxTicks < 0 || ran < maxTicks)) {
+            try {
+                task.run();
+            } catch (RuntimeException ignored) {
+                // One bad tick must not kill the control loop.
+            }
+            ran++;
+            tickCount++;
+
+            next += periodNanos;
+            long now = clock.nanoTime();
+            long late = now - next;
+            if (late >= periodNanos) {
+                long missed = late / periodNanos;
+                missedTickCount += missed;
+                next += missed * periodNanos;
+            }
+            long wait = next - now;
+            if (wait > 0 && (maxTicks < 0 || ran < maxTicks)) {
+                clock.sleepNanos(wait);
+            }
+        }
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public long getMissedTickCount() {
+        return missedTickCount;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Turns an analog stick position into a coarse {@link DriveSetpoint}.
+ *
+ * The stick is arcade-mixed (y = throttle, x = turn) after a radial dead zone, then each wheel
+ * speed is rounded to a multiple of {@code stepPercent}. Coarse steps are what make it possible
+ * to skip sends: finger jitter of a few pixels maps to the same setpoint.
+ */
+public final class JoystickQuantizer {
+
+    private final float deadZone;
+    private final int stepPercent;
+
+    /**
+     * @param deadZone    stick radius (0..1) treated as centered
+     * @param stepPercent quantization step for wheel speeds, e.g. 10
+     */
+    public JoystickQuantizer(float deadZone, int stepPercent) {
+        if (deadZone < 0f || deadZone >= 1f) {
+            throw new IllegalArgumentException("deadZone must be in [0, 1): " + deadZone);
+        }
+        if (stepPercent < 1 || stepPercent > DriveSetpoint.MAX) {
+            throw new IllegalArgumentException("stepPercent must be in [1, 100]: " + stepPercent);
+        }
+        this.deadZone = deadZone;
+        this.stepPercent = stepPercent;
+    }
+
+    /**
+     * @param x turn, -1 (full left) .. 1 (full right)
+     * @param y throttle, -1 (full reverse) .. 1 (full forward)
+     */
+    @NonNull
+    public DriveSetpoint quantize(float x, float y) {
+        double radius = Math.hypot(x, y);
+        if (radius <= deadZone || Double.isNaN(radius)) {
+            return DriveSetpoint.STOP;
+        }
+        // Rescale so output ramps from 0 right at the dead-zone edge instead of jumping.
+        double scale = Math.min(1.0, (radius - deadZone) / (1.0 - deadZone)) / radius;
+        double turn = x * scale;
+        double throttle = y * scale;
+
+        double left = throttle + turn;
+        double right = throttle - turn;
+        double peak = Math.max(Math.abs(left), Math.abs(right));
+        if (peak > 1.0) {
+            left /= peak;
+            right /= peak;
+        }
+        return new DriveSetpoint(step(left), step(right));
+    }
+
+    private int step(double value) {
+        return (int) Math.round(value * DriveSetpoint.MAX / stepPercent) * stepPercent;
+    }
+}
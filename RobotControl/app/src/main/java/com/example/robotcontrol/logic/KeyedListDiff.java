@@ -0,0 +1,176 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns one scan's list into the next with keyed edits, for list adapters.
+ *
+ * Rows are matched by key (BSSID, MAC address), so an access point that is still in range keeps
+ * its row and view holder instead of the whole list being rebound: rows that vanished are
+ * removed, new ones inserted, rows whose position changed (e.g. sorted by signal) moved, and
+ * rows whose content changed (e.g. signal level) reported as changed. The edits are applied to
+ * the current list as they are reported, so each position is valid at the moment the listener
+ * sees it, which is what RecyclerView's notifyItem* calls expect. Adjacent inserts, removals
+ * and changes are reported as ranges. Keys must be unique within each list.
+ */
+public final class KeyedListDiff {
+
+    public interface Keys<T> {
+        @NonNull
+        Object keyOf(@NonNull T item);
+
+        /** True if the row for {@code oldItem} does not need rebinding to show {@code newItem}. */
+        boolean sameContent(@NonNull T oldItem, @NonNull T newItem);
+    }
+
+    public interface Listener {
+        void onRemoved(int position, int count);
+
+        void onInserted(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position, int count);
+    }
+
+    private KeyedListDiff() {
+    }
+
+    /**
+     * Edits {@code current} until it equals {@code target}, reporting every edit.
+     *
+     * @return number of notifications sent; 0 if nothing changed
+     */
+    public static <T> int apply(@NonNull List<T> current, @NonNull List<T> target,
+                                @NonNull Keys<T> keys, @NonNull Listener listener) {
+        Ranges ranges = new Ranges(listener);
+
+        Set<Object> targetKeys = new HashSet<>(target.size() * 2);
+        for (T item : target) targetKeys.add(keys.keyOf(item));
+
+        // Removals, from the end so earlier positions stay valid.
+        for (int i = current.size() - 1; i >= 0; i--) {
+            if (!targetKeys.contains(keys.keyOf(current.get(i)))) {
+                current.remove(i);
+                ranges.removed(i);
+            }
+        }
+        ranges.flush();
+
+        // Whatever is left is in the target, at or after the position being filled.
+        Set<Object> remaining = new HashSet<>(current.size() * 2);
+        for (T item : current) remaining.add(keys.keyOf(item));
+
+        for (int i = 0; i < target.size(); i++) {
+            T wanted = target.get(i);
+            Object key = keys.keyOf(wanted);
+            if (i < current.size() && key.equals(keys.keyOf(current.get(i)))) {
+                replace(current, i, wanted, keys, ranges);
+                continue;
+            }
+            if (remaining.contains(key)) {
+                int from = indexOf(current, key, i + 1, keys);
+                T moved = current.remove(from);
+                current.add(i, moved);
+                ranges.moved(from, i);
+                replace(current, i, wanted, keys, ranges);
+            } else {
+                current.add(i, wanted);
+                ranges.inserted(i);
+            }
+        }
+        ranges.flush();
+        return ranges.notifications;
+    }
+
+    private static <T> void replace(List<T> current, int i, T wanted, Keys<T> keys, Ranges ranges) {
+        T old = current.get(i);
+        if (old != wanted && !keys.sameContent(old, wanted)) {
+            ranges.changed(i);
+        }
+        current.set(i, wanted);
+    }
+
+    private static <T> int indexOf(List<T> list, Object key, int from, Keys<T> keys) {
+        for (int j = from; j < list.size(); j++) {
+            if (key.equals(keys.keyOf(list.get(j)))) return j;
+        }
+        throw new IllegalStateException("Duplicate key " + key);
+    }
+
+    /** Merges adjacent single-row edits of the same kind into one range notification. */
+    private static final class Ranges {
+        private static final int NONE = 0, REMOVED = 1, INSERTED = 2, CHANGED = 3;
+
+        private final Listener listener;
+        private int kind = NONE;
+        private int start;
+        private int count;
+        int notifications;
+
+        Ranges(Listener listener) {
+            this.listener = listener;
+        }
+
+        void removed(int position) {
+            // Walking backwards: the range grows at the front.
+            if (kind == REMOVED && position == start - 1) {
+                start = position;
+                count++;
+                return;
+            }
+            begin(REMOVED, position);
+        }
+
+        void inserted(int position) {
+            if (kind == INSERTED && position == start + count) {
+                count++;
+                return;
+            }
+            begin(INSERTED, position);
+        }
+
+        void changed(int position) {
+            if (kind == CHANGED && position == start + count) {
+                count++;
+                return;
+            }
+            begin(CHANGED, position);
+        }
+
+        void moved(int from, int to) {
+            flush();
+            listener.onMoved(from, to);
+            notifications++;
+        }
+
+        private void begin(int kind, int position) {
+            flush();
+            this.kind = kind;
+            start = position;
+            count = 1;
+        }
+
+        void flush() {
+            switch (kind) {
+                case REMOVED:
+                    listener.onRemoved(start, count);
+                    break;
+                case INSERTED:
+                    listener.onInserted(start, count);
+                    break;
+                case CHANGED:
+                    listener.onChanged(start, count);
+                    break;
+                default:
+                    return;
+            }
+            notifications++;
+            kind = NONE;
+        }
+    }
+}
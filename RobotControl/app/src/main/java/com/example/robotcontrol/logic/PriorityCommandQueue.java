@@ -0,0 +1,131 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Pending robot commands split into priority lanes, each a latest-wins {@link CommandCoalescer}.
+ *
+ * {@link #poll()} always serves the highest non-empty lane, and a lane is FIFO by key, so order
+ * is kept within a lane but never across lanes. With a single consumer that polls once per write,
+ * an emergency command waits for at most the one write already in flight, however much
+ * low-priority work is queued.
+ */
+public final class PriorityCommandQueue<T> {
+
+    public enum Lane {
+        /** Stop and disconnect. */
+        EMERGENCY,
+        /** Drive commands and setpoints. */
+        MOTION,
+        /** Servos, test and configuration. */
+        LOW
+    }
+
+    private static final Lane[] LANES = Lane.values();
+
+    private final Object lock = new Object();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final CommandCoalescer<T>[] lanes = new CommandCoalescer[LANES.length];
+
+    public PriorityCommandQueue() {
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new CommandCoalescer<>();
+        }
+    }
+
+    /**
+     * Queues {@code command} in {@code lane}, replacing any unsent value for {@code key} there.
+     * An emergency command also drops queued motion, which it is meant to override.
+     *
+     * @return true if the whole queue was empty, i.e. the caller should schedule a drain
+     */
+    public boolean offer(@NonNull Lane lane, @NonNull String key, @NonNull T command) {
+        synchronized (lock) {
+            boolean wasEmpty = sizeLocked() == 0;
+            if (lane == Lane.EMERGENCY) {
+                lanes[Lane.MOTION.ordinal()].flush();
+            }
+            lanes[lane.ordinal()].offer(key, command);
+            return wasEmpty;
+        }
+    }
+
+    /**
+     * Removes and returns the oldest command of the highest-priority non-empty lane.
+     */
+    @Nullable
+    public T poll() {
+        synchronized (lock) {
+            for (CommandCoalescer<T> lane : lanes) {
+                T command = lane.poll();
+                if (command != null) return command;
+            }
+            return null;
+        }
+    }
+
+    /** See {@link CommandCoalescer#remove}; applies to every lane. */
+    public boolean remove(@NonNull String key) {
+        synchronized (lock) {
+            boolean removed = false;
+            for (CommandCoalescer<T> lane : lanes) {
+                removed |= lane.remove(key);
+            }
+            return removed;
+        }
+    }
+
+    /** True if a command for {@code key} is waiting in any lane. */
+    public boolean isPending(@NonNull String key) {
+        synchronized (lock) {
+            for (CommandCoalescer<T> lane : lanes) {
+                if (lane.isPending(key)) return true;
+            }
+            return false;
+        }
+    }
+
+    public int size(@NonNull Lane lane) {
+        return lanes[lane.ordinal()].size();
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return sizeLocked();
+        }
+    }
+
+    private int sizeLocked() {
+        int n = 0;
+        for (CommandCoalescer<T> lane : lanes) n += lane.size();
+        return n;
+    }
+
+    /**
+     * Drops everything queued in every lane.
+     *
+     * @return number of commands dropped
+     */
+    public int flush() {
+        synchronized (lock) {
+            int dropped = 0;
+            for (CommandCoalescer<T> lane : lanes) dropped += lane.flush();
+            return dropped;
+        }
+    }
+
+    /** Commands replaced by a newer value for the same key before being sent. */
+    public long getCoalescedCount() {
+        long n = 0;
+        for (CommandCoalescer<T> lane : lanes) n += lane.getCoalescedCount();
+        return n;
+    }
+
+    /** Commands dropped by {@link #flush()} or pre-empted by an emergency command. */
+    public long getFlushedCount() {
+        long n = 0;
+        for (CommandCoalescer<T> lane : lanes) n += lane.getFlushedCount();
+        return n;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scrollback of lines received from a robot, for a list view.
+ *
+ * Every line goes into a fixed ring of {@code capacity} lines; the oldest is overwritten. The
+ * visible rows are a second ring holding the lines that match the prefix filter, so appending
+ * costs the same whether the log holds ten lines or ten thousand, and the listener only hears
+ * about rows removed at the top and inserted at the bottom. While paused the rows stay as they
+ * are and new lines are only recorded; resuming or changing the filter rebuilds the rows from
+ * the ring once. Main thread only.
+ */
+public final class ReceiveLog {
+
+    public interface Listener {
+        void onRemoved(int position, int count);
+
+        void onInserted(int position, int count);
+
+        /** Rows were rebuilt; everything may have changed. */
+        void onReset();
+    }
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    // Everything received; line 'seq' lives at all[seq % capacity].
+    private final String[] all;
+    private long nextSeq;
+
+    // Visible rows, oldest at 'head'. Seqs tell when a row has fallen out of 'all'.
+    private final String[] rows;
+    private final long[] rowSeqs;
+    private int head;
+    private int size;
+
+    @Nullable
+    private String filterPrefix;
+    private boolean paused;
+    private long pendingCount;
+
+    @Nullable
+    private Listener listener;
+
+    public ReceiveLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ReceiveLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        all = new String[capacity];
+        rows = new String[capacity];
+        rowSeqs = new long[capacity];
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    public int capacity() {
+        return all.length;
+    }
+
+    /** Visible rows. */
+    public int size() {
+        return size;
+    }
+
+    /** Row {@code position}, 0 being the oldest visible line. */
+    @NonNull
+    public String get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+        return rows[(head + position) % rows.length];
+    }
+
+    /** Lines ever appended, including ones no longer kept. */
+    public long getTotalCount() {
+        return nextSeq;
+    }
+
+    public void append(@NonNull String line) {
+        int before = size;
+        int removed = record(line);
+        notifyAppended(before, removed);
+    }
+
+    /** Appends a batch with one removal and one insertion notification. */
+    public void appendAll(@NonNull List<String> lines) {
+        int before = size;
+        int removed = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            removed += record(lines.get(i));
+        }
+        notifyAppended(before, removed);
+    }
+
+    /** @return rows removed from the top */
+    private int record(String line) {
+        long seq = nextSeq++;
+        all[(int) (seq % all.length)] = line;
+        if (paused) {
+            pendingCount++;
+            return 0;
+        }
+        int removed = 0;
+        // The ring just overwrote line seq - capacity; drop its row if it was showing.
+        if (size > 0 && rowSeqs[head] <= seq - all.length) {
+            dropHead();
+            removed++;
+        }
+        if (matches(line)) {
+            if (size == rows.length) {
+                dropHead();
+                removed++;
+            }
+            int slot = (head + size) % rows.length;
+            rows[slot] = line;
+            rowSeqs[slot] = seq;
+            size++;
+        }
+        return removed;
+    }
+
+    private void dropHead() {
+        rows[head] = null;
+        head = (head + 1) % rows.length;
+        size--;
+    }
+
+    private void notifyAppended(int before, int removed) {
+        Listener l = listener;
+        if (l == null || paused) return;
+        // Rows removed in this call may include rows it had just inserted.
+        int removedOld = Math.min(before, removed);
+        int inserted = size - (before - removedOld);
+        if (removedOld > 0) l.onRemoved(0, removedOld);
+        if (inserted > 0) l.onInserted(before - removedOld, inserted);
+    }
+
+    private boolean matches(String line) {
+        return filterPrefix == null || line.startsWith(filterPrefix);
+    }
+
+    /** Freezes the rows; new lines are still kept and appear on resume. */
+    public void setPaused(boolean paused) {
+        if (this.paused == paused) return;
+        this.paused = paused;
+        if (!paused) {
+            pendingCount = 0;
+            rebuild();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /** Lines received since pausing. */
+    public long getPendingCount() {
+        return pendingCount;
+    }
+
+    /** Shows only lines starting with {@code prefix}; null or empty shows everything. */
+    public void setFilterPrefix(@Nullable String prefix) {
+        String next = prefix == null || prefix.isEmpty() ? null : prefix;
+        if (next == null ? filterPrefix == null : next.equals(filterPrefix)) return;
+        filterPrefix = next;
+        if (!paused) rebuild();
+    }
+
+    @Nullable
+    public String getFilterPrefix() {
+        return filterPrefix;
+    }
+
+    public void clear() {
+        Arrays.fill(all, null);
+        nextSeq = 0;
+        pendingCount = 0;
+        Arrays.fill(rows, null);
+        head = 0;
+        size = 0;
+        if (listener != null) listener.onReset();
+    }
+
+    private void rebuild() {
+        Arrays.fill(rows, null);
+        head = 0;
+        size = 0;
+        long first = Math.max(0, nextSeq - all.length);
+        for (long seq = first; seq < nextSeq; seq++) {
+            String line = all[(int) (seq % all.length)];
+            if (!matches(line)) continue;
+            rows[size] = line;
+            rowSeqs[size] = seq;
+            size++;
+        }
+        if (listener != null) listener.onReset();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+
+import java.util.Random;
+
+/**
+ * Delays between reconnect attempts after a link drops.
+ *
+ * The first retry comes almost at once, because most dropouts are a robot briefly out of range
+ * or a module resetting. After that the delay doubles up to {@code maxDelayMs}, and each delay
+ * is drawn between half and all of its nominal value so that several phones (or a phone and the
+ * service) do not retry the same module in lockstep. Also measures how long each outage lasted
+ * until the link came back. Not thread-safe; use it from one thread.
+ */
+public final class ReconnectBackoff {
+
+    private final long firstDelayMs;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int maxAttempts;
+    private final Random random;
+
+    private int attempts;
+    private long lostAtMs = -1;
+    private long lastTimeToReconnectMs = -1;
+    private long totalTimeToReconnectMs;
+    private int reconnectCount;
+
+    /**
+     * @param firstDelayMs delay before the first attempt, without jitter
+     * @param baseDelayMs  nominal delay before the second attempt; doubles for each one after it
+     * @param maxDelayMs   cap on the nominal delay
+     * @param maxAttempts  attempts per outage before giving up
+     */
+    public ReconnectBackoff(long firstDelayMs, long baseDelayMs, long maxDelayMs, int maxAttempts) {
+        this(firstDelayMs, baseDelayMs, maxDelayMs, maxAttempts, new Random());
+    }
+
+    public ReconnectBackoff(long firstDelayMs, long baseDelayMs, long maxDelayMs, int maxAttempts,
+                            @NonNull Random random) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is required");
+        }
+        this.firstDelayMs = firstDelayMs;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxAttempts = maxAttempts;
+        this.random = random;
+    }
+
+    /** Starts timing an outage; a second call during the same outage is ignored. */
+    public void onLost(long nowMs) {
+        if (lostAtMs < 0) {
+            lostAtMs = nowMs;
+            attempts = 0;
+        }
+    }
+
+    /** True while an outage is being timed. */
+    public boolean isOutage() {
+        return lostAtMs >= 0;
+    }
+
+    /**
+     * Delay before the next attempt, counting it as made.
+     *
+     * @return the delay in ms, or -1 once {@code maxAttempts} have been used
+     */
+    public long nextDelayMs() {
+        if (attempts >= maxAttempts) return -1;
+        int attempt = attempts++;
+        if (attempt == 0) return firstDelayMs;
+        long nominal = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        long half = nominal / 2;
+        return half + (long) (random.nextDouble() * (nominal - half + 1));
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Ends the outage and records its length.
+     *
+     * @return the time from {@link #onLost} to now, or -1 if no outage was being timed
+     */
+    public long onReconnected(long nowMs) {
+        attempts = 0;
+        if (lostAtMs < 0) return -1;
+        long elapsed = Math.max(0, nowMs - lostAtMs);
+        lostAtMs = -1;
+        lastTimeToReconnectMs = elapsed;
+        totalTimeToReconnectMs += elapsed;
+        reconnectCount++;
+        return elapsed;
+    }
+
+    /** Forgets the current outage without counting it, e.g. when the user disconnects. */
+    public void cancel() {
+        attempts = 0;
+        lostAtMs = -1;
+    }
+
+    /** Length of the last outage that ended in a reconnect, -1 if there was none. */
+    public long getLastTimeToReconnectMs() {
+        return lastTimeToReconnectMs;
+    }
+
+    public long getAverageTimeToReconnectMs() {
+        return reconnectCount == 0 ? -1 : totalTimeToReconnectMs / reconnectCount;
+    }
+
+    public int getReconnectCount() {
+        return reconnectCount;
+    }
+}
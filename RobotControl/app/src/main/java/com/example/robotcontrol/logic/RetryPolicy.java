@@ -0,0 +1,74 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Decides whether a failed robot command is worth sending again.
+ *
+ * Stop is always retried up to its own limit, even if that delays everything behind it: losing
+ * a stop is the one failure the user can't recover from by tapping again. Drive commands are
+ * only replayed while they are still the newest intent and younger than {@code maxDriveAgeMs};
+ * replaying a stale "forward" after the user let go would be worse than dropping it. Servo and
+ * pose setpoints are absolute, so resending one is harmless unless a newer one is queued.
+ */
+public final class RetryPolicy {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(4, 2, 300);
+    public static final RetryPolicy NONE = new RetryPolicy(1, 1, 0);
+
+    private final int stopMaxAttempts;
+    private final int motionMaxAttempts;
+    private final long maxDriveAgeMs;
+
+    /**
+     * @param stopMaxAttempts   total attempts for /stop, including the first
+     * @param motionMaxAttempts total attempts for drive and servo/pose commands
+     * @param maxDriveAgeMs     drive commands older than this are never replayed
+     */
+    public RetryPolicy(int stopMaxAttempts, int motionMaxAttempts, long maxDriveAgeMs) {
+        if (stopMaxAttempts < 1 || motionMaxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is required");
+        }
+        this.stopMaxAttempts = stopMaxAttempts;
+        this.motionMaxAttempts = motionMaxAttempts;
+        this.maxDriveAgeMs = maxDriveAgeMs;
+    }
+
+    /**
+     * @param endpoint   the command, e.g. "/stop" or "/set?servo=1&angle=90"
+     * @param attempts   attempts made so far (1 after the first failure)
+     * @param ageMs      time since the command was issued by the UI
+     * @param superseded true if a newer command for the same target is already queued
+     */
+    public boolean shouldRetry(@NonNull String endpoint, int attempts, long ageMs, boolean superseded) {
+        if (isStop(endpoint)) {
+            return attempts < stopMaxAttempts;
+        }
+        if (superseded || attempts >= motionMaxAttempts) {
+            return false;
+        }
+        if (isDrive(endpoint)) {
+            return ageMs <= maxDriveAgeMs;
+        }
+        return endpoint.startsWith("/set?") || endpoint.startsWith("/pose?");
+    }
+
+    public static boolean isStop(@NonNull String endpoint) {
+        return "/stop".equals(endpoint);
+    }
+
+    public static boolean isDrive(@NonNull String endpoint) {
+        if (endpoint.startsWith("/drive?")) {
+            return true;
+        }
+        switch (endpoint) {
+            case "/forward":
+            case "/backward":
+            case "/left":
+            case "/right":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
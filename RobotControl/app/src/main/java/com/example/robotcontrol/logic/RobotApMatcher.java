@@ -0,0 +1,298 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Decides which scanned access points are robots, from user-editable rules.
+ *
+ * Rules are one per line:
+ * <pre>
+ *   exact:Robot_AP
+ *   prefix:ESP_
+ *   suffix:-bot
+ *   regex:^RC-[0-9]{3}$
+ *   oui:24:0A:C4
+ * </pre>
+ * Blank lines and lines starting with '#' are ignored. SSID rules ignore case. All exact and
+ * prefix rules share one trie and all suffix rules a reversed one, so an SSID is classified in
+ * one walk from each end however many rules there are; the regex rules are compiled into a
+ * single alternation, and OUIs (the vendor part of the BSSID) are binary-searched. Not
+ * thread-safe (the regex matcher is reused); use one instance per thread.
+ */
+public final class RobotApMatcher {
+
+    public static final int MATCH_EXACT = 1;
+    public static final int MATCH_PREFIX = 1 << 1;
+    public static final int MATCH_SUFFIX = 1 << 2;
+    public static final int MATCH_REGEX = 1 << 3;
+    public static final int MATCH_OUI = 1 << 4;
+
+    /** The SSIDs the app has always recognised. */
+    public static final String DEFAULT_RULES = "exact:Robot_AP\n"
+            + "prefix:ROBOT_\n"
+            + "prefix:Robot\n"
+            + "prefix:ESP_\n"
+            + "prefix:Arduino_\n";
+
+    /** Results not seen for this long rank as if they had no signal advantage left. */
+    public static final long STALE_AFTER_MS = 30_000;
+    private static final int RSSI_FLOOR_DBM = -100;
+    private static final int RSSI_CEILING_DBM = -30;
+
+    private final Trie forward;
+    private final Trie backward;
+    @Nullable
+    private final Matcher regex;
+    private final int[] ouis;
+    private final int ruleCount;
+
+    private RobotApMatcher(Trie forward, Trie backward, @Nullable Pattern regex, int[] ouis, int ruleCount) {
+        this.forward = forward;
+        this.backward = backward;
+        this.regex = regex != null ? regex.matcher("") : null;
+        this.ouis = ouis;
+        this.ruleCount = ruleCount;
+    }
+
+    @NonNull
+    public static RobotApMatcher defaults() {
+        return parse(DEFAULT_RULES);
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the first bad line
+     */
+    @NonNull
+    public static RobotApMatcher parse(@NonNull String rules) {
+        TrieBuilder forward = new TrieBuilder();
+        TrieBuilder backward = new TrieBuilder();
+        List<String> regexes = new ArrayList<>();
+        List<Integer> ouis = new ArrayList<>();
+        int count = 0;
+
+        String[] lines = rules.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int colon = line.indexOf(':');
+            String kind = colon > 0 ? line.substring(0, colon).trim().toLowerCase(Locale.ROOT) : "";
+            String value = colon > 0 ? line.substring(colon + 1).trim() : "";
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": expected kind:value");
+            }
+            switch (kind) {
+                case "exact":
+                    forward.add(value, false, MATCH_EXACT);
+                    break;
+                case "prefix":
+                    forward.add(value, false, MATCH_PREFIX);
+                    break;
+                case "suffix":
+                    backward.add(value, true, MATCH_SUFFIX);
+                    break;
+                case "regex":
+                    try {
+                        Pattern.compile(value);
+                    } catch (PatternSyntaxException e) {
+                        throw new IllegalArgumentException("Line " + (i + 1) + ": " + e.getDescription());
+                    }
+                    regexes.add("(?:" + value + ")");
+                    break;
+                case "oui":
+                    int oui = parseOui(value, 0, value.length());
+                    if (oui < 0) {
+                        throw new IllegalArgumentException("Line " + (i + 1) + ": OUI must be 3 hex bytes");
+                    }
+                    ouis.add(oui);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Line " + (i + 1) + ": unknown rule '" + kind + "'");
+            }
+            count++;
+        }
+
+        Pattern regex = regexes.isEmpty() ? null
+                : Pattern.compile(String.join("|", regexes), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        int[] ouiArray = new int[ouis.size()];
+        for (int i = 0; i < ouiArray.length; i++) ouiArray[i] = ouis.get(i);
+        Arrays.sort(ouiArray);
+        return new RobotApMatcher(forward.build(), backward.build(), regex, ouiArray, count);
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    /**
+     * @return the MATCH_* bits of every kind of rule that matched; 0 if this is not a robot
+     */
+    public int match(@Nullable String ssid, @Nullable String bssid) {
+        int bits = 0;
+        if (ssid != null && !ssid.isEmpty()) {
+            bits |= forward.walk(ssid, false);
+            bits |= backward.walk(ssid, true);
+            if (regex != null && regex.reset(ssid).find()) bits |= MATCH_REGEX;
+        }
+        if (ouis.length > 0 && bssid != null && bssid.length() >= 8) {
+            int oui = parseOui(bssid, 0, 8);
+            if (oui >= 0 && Arrays.binarySearch(ouis, oui) >= 0) bits |= MATCH_OUI;
+        }
+        return bits;
+    }
+
+    /** Like {@link #match} but stops at the first hit, trying the regexes last. */
+    public boolean matches(@Nullable String ssid, @Nullable String bssid) {
+        if (ssid != null && !ssid.isEmpty()
+                && (forward.walk(ssid, false) | backward.walk(ssid, true)) != 0) {
+            return true;
+        }
+        if (ouis.length > 0 && bssid != null && bssid.length() >= 8) {
+            int oui = parseOui(bssid, 0, 8);
+            if (oui >= 0 && Arrays.binarySearch(ouis, oui) >= 0) return true;
+        }
+        return regex != null && ssid != null && !ssid.isEmpty() && regex.reset(ssid).find();
+    }
+
+    /**
+     * Ranking score, higher first: signal strength scaled to 0..1 (-100 to -30 dBm), minus up
+     * to 0.5 as the result ages towards {@link #STALE_AFTER_MS}. A strong AP last seen half a
+     * minute ago ranks below a fair one seen just now.
+     */
+    public static double score(int rssiDbm, long ageMs) {
+        int clamped = Math.max(RSSI_FLOOR_DBM, Math.min(RSSI_CEILING_DBM, rssiDbm));
+        double signal = (double) (clamped - RSSI_FLOOR_DBM) / (RSSI_CEILING_DBM - RSSI_FLOOR_DBM);
+        double age = Math.min(1.0, Math.max(0, ageMs) / (double) STALE_AFTER_MS);
+        return signal - 0.5 * age;
+    }
+
+    public interface Signal<T> {
+        int rssiDbm(@NonNull T item);
+
+        long ageMs(@NonNull T item);
+    }
+
+    /** Sorts {@code items} by {@link #score}, best first; each score is computed once. */
+    public static <T> void rank(@NonNull List<T> items, @NonNull Signal<T> signal) {
+        int n = items.size();
+        if (n < 2) return;
+        double[] scores = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            T item = items.get(i);
+            scores[i] = score(signal.rssiDbm(item), signal.ageMs(item));
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        List<T> sorted = new ArrayList<>(n);
+        for (Integer i : order) sorted.add(items.get(i));
+        for (int i = 0; i < n; i++) items.set(i, sorted.get(i));
+    }
+
+    /** "24:0A:C4", "24-0a-c4" or "240AC4" as 0x240AC4; -1 if malformed. */
+    static int parseOui(String s, int from, int to) {
+        int value = 0;
+        int digits = 0;
+        for (int i = from; i < to && digits < 6; i++) {
+            char c = s.charAt(i);
+            int d = Character.digit(c, 16);
+            if (d >= 0) {
+                value = (value << 4) | d;
+                digits++;
+            } else if (c != ':' && c != '-') {
+                return -1;
+            }
+        }
+        return digits == 6 ? value : -1;
+    }
+
+    /** Immutable trie over lower-cased chars; children kept as sorted arrays per node. */
+    private static final class Trie {
+        final char[][] labels;
+        final int[][] children;
+        // MATCH_PREFIX/MATCH_SUFFIX: some rule ends here. MATCH_EXACT: an exact rule ends here.
+        final int[] terminal;
+
+        Trie(char[][] labels, int[][] children, int[] terminal) {
+            this.labels = labels;
+            this.children = children;
+            this.terminal = terminal;
+        }
+
+        int walk(String s, boolean reversed) {
+            int n = s.length();
+            int node = 0;
+            int bits = 0;
+            for (int k = 0; k < n; k++) {
+                char c = Character.toLowerCase(s.charAt(reversed ? n - 1 - k : k));
+                int idx = Arrays.binarySearch(labels[node], c);
+                if (idx < 0) return bits;
+                node = children[node][idx];
+                // Affix rules match at any depth; exact rules only at the end of the SSID.
+                bits |= terminal[node] & ~MATCH_EXACT;
+            }
+            return bits | (terminal[node] & MATCH_EXACT);
+        }
+    }
+
+    private static final class TrieBuilder {
+        private final List<Map<Character, Integer>> nodes = new ArrayList<>();
+        private final List<Integer> terminal = new ArrayList<>();
+
+        TrieBuilder() {
+            newNode();
+        }
+
+        private int newNode() {
+            nodes.add(new TreeMap<>());
+            terminal.add(0);
+            return nodes.size() - 1;
+        }
+
+        void add(String word, boolean reversed, int bit) {
+            int node = 0;
+            int n = word.length();
+            for (int k = 0; k < n; k++) {
+                char c = Character.toLowerCase(word.charAt(reversed ? n - 1 - k : k));
+                Integer next = nodes.get(node).get(c);
+                if (next == null) {
+                    next = newNode();
+                    nodes.get(node).put(c, next);
+                }
+                node = next;
+            }
+            terminal.set(node, terminal.get(node) | bit);
+        }
+
+        Trie build() {
+            int size = nodes.size();
+            char[][] labels = new char[size][];
+            int[][] children = new int[size][];
+            int[] term = new int[size];
+            for (int i = 0; i < size; i++) {
+                Map<Character, Integer> map = nodes.get(i);
+                labels[i] = new char[map.size()];
+                children[i] = new int[map.size()];
+                int j = 0;
+                // TreeMap iterates in key order, which binarySearch needs.
+                for (Map.Entry<Character, Integer> e : map.entrySet()) {
+                    labels[i][j] = e.getKey();
+                    children[i][j] = e.getValue();
+                    j++;
+                }
+                term[i] = terminal.get(i);
+            }
+            return new Trie(labels, children, term);
+        }
+    }
+}
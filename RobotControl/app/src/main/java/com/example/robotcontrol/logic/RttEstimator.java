@@ -0,0 +1,66 @@
+package com.example.robotcontrol.logic;
+
+/**
+ * TCP-style round-trip time estimator (RFC 6298) used to size per-robot command timeouts.
+ *
+ * Keeps a smoothed RTT and its mean deviation; the timeout is {@code srtt + 4 * rttvar},
+ * clamped to [min, max]. Each timeout doubles the current value until a fresh sample arrives.
+ * Callers should only feed samples from first attempts (Karn's rule), since a reply to a retried
+ * request can't be matched to the attempt that produced it.
+ */
+public final class RttEstimator {
+
+    private static final double ALPHA = 1.0 / 8;
+    private static final double BETA = 1.0 / 4;
+    private static final int K = 4;
+
+    private final long minTimeoutMs;
+    private final long maxTimeoutMs;
+
+    private double srttMs = -1;
+    private double rttvarMs;
+    private long timeoutMs;
+
+    public RttEstimator(long initialTimeoutMs, long minTimeoutMs, long maxTimeoutMs) {
+        if (minTimeoutMs <= 0 || minTimeoutMs > maxTimeoutMs) {
+            throw new IllegalArgumentException("Bad timeout bounds " + minTimeoutMs + ".." + maxTimeoutMs);
+        }
+        this.minTimeoutMs = minTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+        this.timeoutMs = clamp(initialTimeoutMs);
+    }
+
+    public synchronized void addSample(long rttMs) {
+        if (rttMs < 0) return;
+        if (srttMs < 0) {
+            srttMs = rttMs;
+            rttvarMs = rttMs / 2.0;
+        } else {
+            rttvarMs = (1 - BETA) * rttvarMs + BETA * Math.abs(srttMs - rttMs);
+            srttMs = (1 - ALPHA) * srttMs + ALPHA * rttMs;
+        }
+        timeoutMs = clamp(Math.round(srttMs + Math.max(1.0, K * rttvarMs)));
+    }
+
+    /** Backs the timeout off exponentially after a request timed out. */
+    public synchronized void onTimeout() {
+        timeoutMs = clamp(timeoutMs * 2);
+    }
+
+    public synchronized long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /** Smoothed RTT in ms, or -1 before the first sample. */
+    public synchronized long getSmoothedRttMs() {
+        return srttMs < 0 ? -1 : Math.round(srttMs);
+    }
+
+    public synchronized long getRttVarianceMs() {
+        return Math.round(rttvarMs);
+    }
+
+    private long clamp(long value) {
+        return Math.max(minTimeoutMs, Math.min(maxTimeoutMs, value));
+    }
+}
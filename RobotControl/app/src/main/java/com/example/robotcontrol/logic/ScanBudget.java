@@ -0,0 +1,94 @@
+package com.example.robotcontrol.logic;
+
+/**
+ * Sliding-window budget for WiFi scans.
+ *
+ * Since Android 9 a foreground app may start 4 scans every 2 minutes; past that,
+ * {@code WifiManager.startScan()} quietly returns false or the broadcast carries the previous
+ * results. Keeping count on our side lets the scan service wait for the next free slot instead
+ * of burning a request the platform will refuse. A refused start backs off, since the platform's
+ * count may include scans made by other parts of the app or before it restarted: a slot's worth
+ * of the window after the first refusal, doubling with each refusal in a row, and never past the
+ * point where the oldest counted scan expires. Not thread-safe; use it from one thread.
+ */
+public final class ScanBudget {
+
+    /** Android 9+ limit for foreground apps. */
+    public static final int PLATFORM_MAX_SCANS = 4;
+    public static final long PLATFORM_WINDOW_MS = 120_000;
+
+    private final long windowMs;
+    private final long[] startedAt;
+    private int count;
+    private int oldest;
+    private long blockedUntilMs = Long.MIN_VALUE;
+    // Refusals since the last accepted scan.
+    private int refusals;
+
+    public ScanBudget() {
+        this(PLATFORM_MAX_SCANS, PLATFORM_WINDOW_MS);
+    }
+
+    public ScanBudget(int maxScans, long windowMs) {
+        if (maxScans < 1) {
+            throw new IllegalArgumentException("At least one scan per window is required");
+        }
+        this.windowMs = windowMs;
+        this.startedAt = new long[maxScans];
+    }
+
+    /** Milliseconds until a scan may start; 0 if one may start now. */
+    public long delayUntilNextScanMs(long nowMs) {
+        expire(nowMs);
+        long wait = 0;
+        if (count == startedAt.length) {
+            wait = startedAt[oldest] + windowMs - nowMs;
+        }
+        if (blockedUntilMs > nowMs) {
+            wait = Math.max(wait, blockedUntilMs - nowMs);
+        }
+        return Math.max(0, wait);
+    }
+
+    /** Counts a scan the platform accepted. */
+    public void onScanStarted(long nowMs) {
+        expire(nowMs);
+        if (count == startedAt.length) {
+            // Budget was not checked; forget the oldest so the newest is always counted.
+            oldest = (oldest + 1) % startedAt.length;
+            count--;
+        }
+        startedAt[(oldest + count) % startedAt.length] = nowMs;
+        count++;
+        refusals = 0;
+        blockedUntilMs = Long.MIN_VALUE;
+    }
+
+    /**
+     * The platform refused a scan, or dropped one: back off, longer with each refusal in a row,
+     * up to when the oldest counted scan (or a full window) expires.
+     */
+    public void onScanRefused(long nowMs) {
+        expire(nowMs);
+        long cap = count > 0 ? startedAt[oldest] + windowMs - nowMs : windowMs;
+        long backoff = windowMs / startedAt.length;
+        for (int i = 0; i < refusals && backoff < cap; i++) {
+            backoff *= 2;
+        }
+        refusals++;
+        blockedUntilMs = nowMs + Math.min(backoff, cap);
+    }
+
+    /** Scans counted in the current window. */
+    public int getUsed(long nowMs) {
+        expire(nowMs);
+        return count;
+    }
+
+    private void expire(long nowMs) {
+        while (count > 0 && startedAt[oldest] + windowMs <= nowMs) {
+            oldest = (oldest + 1) % startedAt.length;
+            count--;
+        }
+    }
+}
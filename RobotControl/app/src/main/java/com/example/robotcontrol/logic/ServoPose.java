@@ -0,0 +1,215 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Multi-servo pose commands: one request or frame carrying several servo targets.
+ *
+ * A pose is an int array where index 0 is servo 1; {@link #UNCHANGED} marks servos the pose
+ * does not touch. An instance tracks what has already been sent or queued, split into the
+ * committed angles (sent, or queued as single-servo commands) and the angles waiting in the one
+ * queued pose command. {@link #queue} diffs against both, so diff mode never skips a servo
+ * because of an angle that is only still in flight, and merges into the waiting pose, so
+ * re-queueing it under a latest-wins key never drops a servo an earlier call set.
+ */
+public final class ServoPose {
+
+    public static final int UNCHANGED = -1;
+
+    private final int[] committed;
+    private final int[] waiting;
+
+    public ServoPose(int servoCount) {
+        committed = new int[servoCount];
+        waiting = new int[servoCount];
+        Arrays.fill(committed, UNCHANGED);
+        Arrays.fill(waiting, UNCHANGED);
+    }
+
+    /**
+     * Merges {@code target} into the waiting pose.
+     *
+     * @param diffOnly skip servos already at (or on their way to) the target angle
+     * @return the whole waiting pose, to queue in place of the previous one, or null if
+     *         {@code target} adds nothing to it
+     */
+    @Nullable
+    public synchronized int[] queue(@NonNull int[] target, boolean diffOnly) {
+        boolean any = false;
+        for (int i = 0; i < target.length && i < waiting.length; i++) {
+            if (target[i] == UNCHANGED) continue;
+            if (diffOnly && target[i] == expected(i)) continue;
+            waiting[i] = target[i];
+            any = true;
+        }
+        return any ? waiting.clone() : null;
+    }
+
+    /**
+     * Records a single-servo command queued outside the pose. It is newer than whatever the
+     * waiting pose holds for that servo, so the servo leaves the waiting pose.
+     */
+    public synchronized void queueSingle(int servo, int angle) {
+        if (servo < 1 || servo > committed.length) return;
+        committed[servo - 1] = angle;
+        waiting[servo - 1] = UNCHANGED;
+    }
+
+    /**
+     * Records that {@code pose} left the queue. Servos re-targeted since stay in the waiting pose.
+     */
+    public synchronized void sent(@NonNull int[] pose) {
+        for (int i = 0; i < pose.length && i < committed.length; i++) {
+            if (pose[i] == UNCHANGED) continue;
+            committed[i] = pose[i];
+            if (waiting[i] == pose[i]) waiting[i] = UNCHANGED;
+        }
+    }
+
+    /**
+     * Records that a command never took effect; its servos are sent again by the next diff.
+     */
+    public synchronized void failed(@NonNull int[] pose) {
+        for (int i = 0; i < pose.length && i < committed.length; i++) {
+            if (pose[i] != UNCHANGED && committed[i] == pose[i]) committed[i] = UNCHANGED;
+        }
+    }
+
+    /** {@link #sent} for an HTTP endpoint; understands both "/pose?..." and "/set?servo=..". */
+    public void sentEndpoint(@NonNull String endpoint) {
+        int[] pose = fromEndpoint(endpoint, committed.length);
+        if (pose != null) sent(pose);
+    }
+
+    /** {@link #failed} for an HTTP endpoint. */
+    public void failedEndpoint(@NonNull String endpoint) {
+        int[] pose = fromEndpoint(endpoint, committed.length);
+        if (pose != null) failed(pose);
+    }
+
+    /** {@link #sent} for a Bluetooth command ("p3:120;" or "q1:90,3:45;"). */
+    public void sentBluetoothCommand(@NonNull String command) {
+        int[] pose = fromBluetoothCommand(command, committed.length);
+        if (pose != null) sent(pose);
+    }
+
+    /**
+     * Forgets everything, e.g. after a reconnect when the robot may have reset. The waiting pose
+     * is forgotten too, so follow with a full pose rather than a diff.
+     */
+    public synchronized void reset() {
+        Arrays.fill(committed, UNCHANGED);
+        Arrays.fill(waiting, UNCHANGED);
+    }
+
+    private int expected(int i) {
+        return waiting[i] != UNCHANGED ? waiting[i] : committed[i];
+    }
+
+    /**
+     * HTTP form: {@code /pose?s1=90&s3=45}.
+     */
+    @NonNull
+    public static String toEndpoint(@NonNull int[] pose) {
+        StringBuilder sb = new StringBuilder("/pose");
+        char sep = '?';
+        for (int i = 0; i < pose.length; i++) {
+            if (pose[i] == UNCHANGED) continue;
+            sb.append(sep).append('s').append(i + 1).append('=').append(pose[i]);
+            sep = '&';
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Bluetooth form: {@code q1:90,3:45;} (the firmware folds upper case, so 'P' is not usable).
+     */
+    @NonNull
+    public static String toBluetoothCommand(@NonNull int[] pose) {
+        StringBuilder sb = new StringBuilder("q");
+        boolean first = true;
+        for (int i = 0; i < pose.length; i++) {
+            if (pose[i] == UNCHANGED) continue;
+            if (!first) sb.append(',');
+            sb.append(i + 1).append(':').append(pose[i]);
+            first = false;
+        }
+        return sb.append(';').toString();
+    }
+
+    /**
+     * Parses "p3:120;" or "q1:90,3:45;" back into a pose, or returns null.
+     */
+    @Nullable
+    public static int[] fromBluetoothCommand(@NonNull String command, int servoCount) {
+        if (command.length() < 2 || !command.endsWith(";")) return null;
+        char kind = command.charAt(0);
+        if (kind != 'p' && kind != 'q') return null;
+
+        int[] pose = new int[servoCount];
+        Arrays.fill(pose, UNCHANGED);
+        String body = command.substring(1, command.length() - 1);
+        for (String pair : body.split(",")) {
+            int colon = pair.indexOf(':');
+            if (colon <= 0) return null;
+            try {
+                int index = Integer.parseInt(pair.substring(0, colon));
+                int angle = Integer.parseInt(pair.substring(colon + 1));
+                if (index >= 1 && index <= servoCount) pose[index - 1] = angle;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return pose;
+    }
+
+    /**
+     * Parses "/pose?s1=..&s2=.." or "/set?servo=N&angle=A" back into a pose, or returns null.
+     */
+    @Nullable
+    public static int[] fromEndpoint(@NonNull String endpoint, int servoCount) {
+        int q = endpoint.indexOf('?');
+        if (q < 0) return null;
+        String path = endpoint.substring(0, q);
+        int[] pose = new int[servoCount];
+        Arrays.fill(pose, UNCHANGED);
+
+        int servo = -1;
+        int angle = -1;
+        for (String pair : endpoint.substring(q + 1).split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            String key = pair.substring(0, eq);
+            int value;
+            try {
+                value = Integer.parseInt(pair.substring(eq + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if ("/pose".equals(path) && key.length() > 1 && key.charAt(0) == 's') {
+                int index;
+                try {
+                    index = Integer.parseInt(key.substring(1));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (index >= 1 && index <= servoCount) pose[index - 1] = value;
+            } else if ("servo".equals(key)) {
+                servo = value;
+            } else if ("angle".equals(key)) {
+                angle = value;
+            }
+        }
+
+        if ("/set".equals(path)) {
+            if (servo < 1 || servo > servoCount || angle < 0) return null;
+            pose[servo - 1] = angle;
+        } else if (!"/pose".equals(path)) {
+            return null;
+        }
+        return pose;
+    }
+}
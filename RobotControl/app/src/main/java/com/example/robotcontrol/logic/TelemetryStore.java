@@ -0,0 +1,177 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Robot telemetry, one {@link TimeSeries} per known channel.
+ *
+ * Lines look like {@code T bat=7.41 s1=90 s3=45 encl=1200 encr=1187 dist=23.5}: a "T " prefix,
+ * then any subset of the keys below as key=value (or key:value) pairs. Parsing works on the raw
+ * bytes and allocates nothing, so it keeps up with 100+ Hz telemetry on the reader thread;
+ * screens read the series through lock-free snapshots.
+ */
+public final class TelemetryStore {
+
+    public enum Channel {
+        BATTERY_V("bat"),
+        SERVO_1("s1"),
+        SERVO_2("s2"),
+        SERVO_3("s3"),
+        SERVO_4("s4"),
+        SERVO_5("s5"),
+        SERVO_6("s6"),
+        SERVO_7("s7"),
+        SERVO_8("s8"),
+        ENCODER_LEFT("encl"),
+        ENCODER_RIGHT("encr"),
+        DISTANCE_CM("dist");
+
+        final byte[] key;
+
+        Channel(String key) {
+            this.key = key.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /** Marks a line as telemetry. */
+    public static final byte[] PREFIX = {'T', ' '};
+    /** About 40 s at 100 Hz. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final Channel[] CHANNELS = Channel.values();
+
+    private final TimeSeries[] series = new TimeSeries[CHANNELS.length];
+
+    // Written by the reader thread only; volatile so screens can show them.
+    private volatile long lineCount;
+    private volatile long malformedCount;
+
+    public TelemetryStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TelemetryStore(int capacity) {
+        for (int i = 0; i < series.length; i++) {
+            series[i] = new TimeSeries(capacity);
+        }
+    }
+
+    @NonNull
+    public TimeSeries series(@NonNull Channel channel) {
+        return series[channel.ordinal()];
+    }
+
+    /** True if the slice starts with {@link #PREFIX}. */
+    public static boolean isTelemetry(@NonNull byte[] buf, int offset, int length) {
+        return length >= PREFIX.length && buf[offset] == PREFIX[0] && buf[offset + 1] == PREFIX[1];
+    }
+
+    /**
+     * Parses one telemetry line and appends every known value, stamped {@code timeNanos}.
+     * Unknown keys are skipped. Writer (reader-thread) side only.
+     *
+     * @return false if the line is not telemetry or carried no known value
+     */
+    public boolean parse(@NonNull byte[] buf, int offset, int length, long timeNanos) {
+        if (!isTelemetry(buf, offset, length)) return false;
+        int end = offset + length;
+        int i = offset + PREFIX.length;
+        int recorded = 0;
+        boolean malformed = false;
+        while (i < end) {
+            while (i < end && (buf[i] == ' ' || buf[i] == ',')) i++;
+            int keyStart = i;
+            while (i < end && buf[i] != '=' && buf[i] != ':' && buf[i] != ' ') i++;
+            int keyEnd = i;
+            if (i >= end || buf[i] == ' ') {
+                malformed |= keyEnd > keyStart;
+                continue;
+            }
+            i++;
+            int valueStart = i;
+            while (i < end && buf[i] != ' ' && buf[i] != ',') i++;
+
+            Channel channel = channelFor(buf, keyStart, keyEnd - keyStart);
+            if (channel == null) continue;
+            double value = parseNumber(buf, valueStart, i - valueStart);
+            if (Double.isNaN(value)) {
+                malformed = true;
+                continue;
+            }
+            series[channel.ordinal()].append(timeNanos, value);
+            recorded++;
+        }
+        if (malformed) malformedCount++;
+        if (recorded > 0) lineCount++;
+        return recorded > 0;
+    }
+
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /** Lines with a value that was not a number or a key without a value. */
+    public long getMalformedCount() {
+        return malformedCount;
+    }
+
+    @Nullable
+    private static Channel channelFor(byte[] buf, int offset, int length) {
+        for (Channel c : CHANNELS) {
+            byte[] key = c.key;
+            if (key.length != length) continue;
+            boolean match = true;
+            for (int j = 0; j < length; j++) {
+                int b = buf[offset + j];
+                if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+                if (b != key[j]) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) return c;
+        }
+        return null;
+    }
+
+    /**
+     * Parses "-12", "7.41" or ".5" without building a String; NaN if it is not a plain decimal.
+     */
+    static double parseNumber(byte[] buf, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        if (i >= end) return Double.NaN;
+        boolean negative = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = buf[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b >= '0' && b <= '9') {
+                // Beyond 18 digits the extra ones cannot change a double much; drop them.
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (fraction) scale++;
+                } else if (!fraction) {
+                    scale--;
+                }
+                digits++;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0) return Double.NaN;
+        double value = scale >= 0 ? mantissa / Math.pow(10, scale) : mantissa * Math.pow(10, -scale);
+        return negative ? -value : value;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+
+import java.util.function.LongSupplier;
+
+/**
+ * One tick of the joystick control loop, run by a {@link FixedRateScheduler}.
+ *
+ * Each tick quantizes the latest stick position and sends it only if the setpoint changed, or
+ * if {@code heartbeatNanos} passed since the last send. The heartbeat lets the robot stop on its
+ * own when ticks stop arriving (app killed, link lost) instead of driving on the last setpoint.
+ */
+public final class TeleopLoop implements Runnable {
+
+    public interface Sink {
+        void send(@NonNull DriveSetpoint setpoint, boolean heartbeat);
+    }
+
+    private final JoystickQuantizer quantizer;
+    private final long heartbeatNanos;
+    private final LongSupplier nanoClock;
+    private final Sink sink;
+
+    // x and y float bits packed together so a tick never sees half of an update.
+    private volatile long stickBits;
+
+    private DriveSetpoint lastSent;
+    private long lastSendNanos;
+
+    private volatile long sentCount;
+    private volatile long heartbeatCount;
+    private volatile long suppressedCount;
+
+    public TeleopLoop(@NonNull JoystickQuantizer quantizer, long heartbeatNanos,
+                      @NonNull LongSupplier nanoClock, @NonNull Sink sink) {
+        this.quantizer = quantizer;
+        this.heartbeatNanos = heartbeatNanos;
+        this.nanoClock = nanoClock;
+        this.sink = sink;
+    }
+
+    /** Latest stick position, from the UI thread; both axes in -1..1. */
+    public void setStick(float x, float y) {
+        stickBits = ((long) Float.floatToIntBits(x) << 32) | (Float.floatToIntBits(y) & 0xFFFFFFFFL);
+    }
+
+    public void centerStick() {
+        setStick(0f, 0f);
+    }
+
+    /** Forces the next tick to send, e.g. after a reconnect. */
+    public synchronized void reset() {
+        lastSent = null;
+    }
+
+    @Override
+    public synchronized void run() {
+        long bits = stickBits;
+        float x = Float.intBitsToFloat((int) (bits >>> 32));
+        float y = Float.intBitsToFloat((int) bits);
+        DriveSetpoint setpoint = quantizer.quantize(x, y);
+
+        long now = nanoClock.getAsLong();
+        boolean changed = !setpoint.equals(lastSent);
+        boolean heartbeat = !changed && now - lastSendNanos >= heartbeatNanos;
+        if (!changed && !heartbeat) {
+            suppressedCount++;
+            return;
+        }
+
+        lastSent = setpoint;
+        lastSendNanos = now;
+        sentCount++;
+        if (heartbeat) heartbeatCount++;
+        sink.send(setpoint, heartbeat);
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    /** Sends that repeated an unchanged setpoint to keep the robot's failsafe fed. */
+    public long getHeartbeatCount() {
+        return heartbeatCount;
+    }
+
+    /** Ticks that sent nothing because the setpoint was unchanged. */
+    public long getSuppressedCount() {
+        return suppressedCount;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Fixed-capacity ring of (timestamp, value) samples in primitive arrays.
+ *
+ * One thread appends; any number of threads may take snapshots without locking. A snapshot
+ * copies the newest samples and then re-reads the sample count: anything the writer may have
+ * overwritten during the copy is discarded rather than returned torn, in the style of a
+ * seqlock. Values are doubles so encoder tick counts stay exact alongside voltages and angles.
+ */
+public final class TimeSeries {
+
+    private final long[] times;
+    private final double[] values;
+    private final int mask;
+
+    // Samples ever appended; published after the slot is written.
+    private volatile long count;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public TimeSeries(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        times = new long[size];
+        values = new double[size];
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return times.length;
+    }
+
+    /** Samples ever appended, including ones already overwritten. */
+    public long getCount() {
+        return count;
+    }
+
+    /** Writer thread only. */
+    public void append(long time, double value) {
+        long n = count;
+        int slot = (int) (n & mask);
+        times[slot] = time;
+        values[slot] = value;
+        count = n + 1;
+    }
+
+    /** The newest value, or {@code fallback} if nothing was appended yet. */
+    public double latest(double fallback) {
+        while (true) {
+            long n = count;
+            if (n == 0) return fallback;
+            double v = values[(int) ((n - 1) & mask)];
+            // Re-check that the writer did not lap the slot while we read it.
+            if (count - n < times.length - 1) return v;
+        }
+    }
+
+    /**
+     * Copies up to {@code max} of the newest samples, oldest first, into the given arrays. Once
+     * the ring has wrapped at most {@code capacity() - 1} come back: the oldest slot is the one the
+     * writer fills next.
+     *
+     * @return the number of samples copied
+     */
+    public int snapshot(@NonNull long[] outTimes, @NonNull double[] outValues, int max) {
+        int want = Math.min(max, Math.min(outTimes.length, outValues.length));
+        long end = count;
+        long start = Math.max(0, end - Math.min(want, times.length));
+        int n = (int) (end - start);
+        for (int i = 0; i < n; i++) {
+            int slot = (int) ((start + i) & mask);
+            outTimes[i] = times[slot];
+            outValues[i] = values[slot];
+        }
+
+        // The slot for sample k is reused by sample k + capacity; the writer may already be
+        // writing sample 'after', so only samples after 'after - capacity' are certainly intact.
+        long after = count;
+        long firstValid = Math.max(start, after - times.length + 1);
+        int skip = (int) Math.min(n, firstValid - start);
+        if (skip > 0) {
+            System.arraycopy(outTimes, skip, outTimes, 0, n - skip);
+            System.arraycopy(outValues, skip, outValues, 0, n - skip);
+            n -= skip;
+        }
+        return n;
+    }
+
+    /**
+     * Reduces {@code count} samples to at most {@code buckets} (min, max) pairs for a chart, so a
+     * spike survives however far the series is zoomed out. {@code outTimes} gets each bucket's
+     * first timestamp.
+     *
+     * @return the number of buckets written
+     */
+    public static int downsampleMinMax(@NonNull long[] times, @NonNull double[] values, int count,
+                                       int buckets, @NonNull long[] outTimes,
+                                       @NonNull double[] outMin, @NonNull double[] outMax) {
+        if (count <= 0 || buckets <= 0) return 0;
+        int n = Math.min(buckets, count);
+        for (int b = 0; b < n; b++) {
+            int from = (int) ((long) b * count / n);
+            int to = (int) ((long) (b + 1) * count / n);
+            double min = values[from];
+            double max = values[from];
+            for (int i = from + 1; i < to; i++) {
+                double v = values[i];
+                if (v < min) min = v;
+                if (v > max) max = v;
+            }
+            outTimes[b] = times[from];
+            outMin[b] = min;
+            outMax[b] = max;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * States of the app's link to a robot's WiFi network, with the time spent reaching each one.
+ *
+ * <pre>
+ *   IDLE -> REQUESTING -> AVAILABLE -> BOUND -> LOST
+ *              |  ^                               |
+ *              v  +---- (network comes back) -----+--> AVAILABLE
+ *            IDLE (unavailable: prompt declined or timed out)
+ * </pre>
+ * {@link #release} returns to IDLE from anywhere. Events that don't apply to the current state
+ * (a late callback for a request already released) are ignored and reported as such. Not
+ * thread-safe; the connection drives it from the main thread.
+ */
+public final class WifiLinkStateMachine {
+
+    public enum State {
+        IDLE, REQUESTING, AVAILABLE, BOUND, LOST
+    }
+
+    /** One state change; times are on the caller's monotonic clock. */
+    public static final class Transition {
+        @NonNull
+        public final State from;
+        @NonNull
+        public final State to;
+        public final long atMs;
+        /** Time spent in {@link #from}. */
+        public final long durationMs;
+        /** Why a request ended without a network; null otherwise. */
+        @Nullable
+        public final String reason;
+
+        Transition(@NonNull State from, @NonNull State to, long atMs, long durationMs, @Nullable String reason) {
+            this.from = from;
+            this.to = to;
+            this.atMs = atMs;
+            this.durationMs = durationMs;
+            this.reason = reason;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s -> %s after %d ms%s", from, to, durationMs,
+                    reason != null ? " (" + reason + ")" : "");
+        }
+    }
+
+    public static final int HISTORY_SIZE = 32;
+
+    private State state = State.IDLE;
+    private long enteredAtMs;
+    private long requestedAtMs = -1;
+    private long lastTimeToBoundMs = -1;
+    private long lastTimeToAvailableMs = -1;
+    private final List<Transition> history = new ArrayList<>();
+
+    @NonNull
+    public State getState() {
+        return state;
+    }
+
+    /** Starts a request; from AVAILABLE, BOUND or LOST this replaces the current network. */
+    @Nullable
+    public Transition request(long nowMs) {
+        if (state == State.REQUESTING) return null;
+        requestedAtMs = nowMs;
+        return move(State.REQUESTING, nowMs, null);
+    }
+
+    /** The system offered a matching network. */
+    @Nullable
+    public Transition onAvailable(long nowMs) {
+        if (state != State.REQUESTING && state != State.LOST) return null;
+        if (state == State.REQUESTING) lastTimeToAvailableMs = nowMs - requestedAtMs;
+        return move(State.AVAILABLE, nowMs, null);
+    }
+
+    /** The process now routes its sockets over the network. */
+    @Nullable
+    public Transition onBound(long nowMs) {
+        if (state != State.AVAILABLE) return null;
+        if (requestedAtMs >= 0) lastTimeToBoundMs = nowMs - requestedAtMs;
+        return move(State.BOUND, nowMs, null);
+    }
+
+    /** The network went away; the request stays registered and may get it back. */
+    @Nullable
+    public Transition onLost(long nowMs) {
+        if (state != State.AVAILABLE && state != State.BOUND) return null;
+        return move(State.LOST, nowMs, null);
+    }
+
+    /** The request ended without a network: declined, timed out or refused. */
+    @Nullable
+    public Transition onUnavailable(long nowMs, @NonNull String reason) {
+        if (state != State.REQUESTING) return null;
+        requestedAtMs = -1;
+        return move(State.IDLE, nowMs, reason);
+    }
+
+    /** The app gave the network up. */
+    @Nullable
+    public Transition release(long nowMs) {
+        if (state == State.IDLE) return null;
+        requestedAtMs = -1;
+        return move(State.IDLE, nowMs, null);
+    }
+
+    /** Request to bound, for the last request that got there; -1 if none has. */
+    public long getLastTimeToBoundMs() {
+        return lastTimeToBoundMs;
+    }
+
+    /** Request to the system offering the network (mostly the user answering the prompt). */
+    public long getLastTimeToAvailableMs() {
+        return lastTimeToAvailableMs;
+    }
+
+    /** The last {@link #HISTORY_SIZE} transitions, oldest first. */
+    @NonNull
+    public List<Transition> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    private Transition move(State to, long nowMs, @Nullable String reason) {
+        Transition t = new Transition(state, to, nowMs, nowMs - enteredAtMs, reason);
+        state = to;
+        enteredAtMs = nowMs;
+        if (history.size() == HISTORY_SIZE) history.remove(0);
+        history.add(t);
+        return t;
+    }
+}
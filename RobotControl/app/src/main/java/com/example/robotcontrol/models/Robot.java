@@ -1,6 +1,13 @@
 package com.example.robotcontrol.models;
 
 public class Robot {
+    public static final String CONNECTION_BLUETOOTH = "bluetooth";
+    public static final String CONNECTION_WIFI = "wifi";
+    // WiFi robot that accepts the binary UDP control protocol (HTTP stays the fallback)
+    public static final String CONNECTION_WIFI_UDP = "wifi_udp";
+    // WiFi robot with a WebSocket control session (HTTP stays the fallback)
+    public static final String CONNECTION_WIFI_WS = "wifi_ws";
+
     private String id;
     private String name;
     private String macAddress;
@@ -8,7 +15,7 @@ public class Robot {
     private String type;
     private String ownerId;
     private boolean isConnected;
-    private String connectionType; // "bluetooth" or "wifi"
+    private String connectionType; // "bluetooth", "wifi", "wifi_udp" or "wifi_ws"
     private long lastConnected;
 
     public Robot() {
@@ -23,7 +30,7 @@ public class Robot {
         this.type = type;
         this.ownerId = ownerId;
         this.isConnected = false;
-        this.connectionType = "bluetooth";
+        this.connectionType = CONNECTION_BLUETOOTH;
         this.lastConnected = System.currentTimeMillis();
     }
 
@@ -92,6 +99,12 @@ public class Robot {
         this.connectionType = connectionType;
     }
 
+    public static boolean isWifiConnectionType(String connectionType) {
+        return CONNECTION_WIFI.equalsIgnoreCase(connectionType)
+                || CONNECTION_WIFI_UDP.equalsIgnoreCase(connectionType)
+                || CONNECTION_WIFI_WS.equalsIgnoreCase(connectionType);
+    }
+
     public long getLastConnected() {
         return lastConnected;
     }
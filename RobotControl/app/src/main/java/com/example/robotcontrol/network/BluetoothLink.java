@@ -0,0 +1,242 @@
+package com.example.robotcontrol.network;
+
+import android.annotation.SuppressLint;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothSocket;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.robotcontrol.logic.PriorityCommandQueue.Lane;
+import com.example.robotcontrol.logic.TelemetryStore;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The one RFCOMM connection to a robot, shared by every screen and service that talks to it.
+ *
+ * Links are looked up by MAC address, so an activity and {@code AutoReconnectService} end up on
+ * the same socket and the same {@link RfcommEngine} instead of racing two sockets to one module.
+ * After connecting, the link offers {@link BtFrameCodec} framing; firmware that does not answer
+ * keeps getting the plain ASCII commands. The robot's output is split into lines here, once:
+ * telemetry lines ("T bat=7.4 ...") are parsed into the link's {@link TelemetryStore}, and every
+ * line goes to the {@link #addLineListener line listeners}, so screens never decode it again.
+ *
+ * Each user {@link #acquire}s the link and {@link #release}s it when done; the socket closes
+ * when the last one leaves, so one screen going away does not cut off the others.
+ */
+public final class BluetoothLink {
+
+    /** Serial Port Profile, what HC-05/HC-06 style modules expose. */
+    public static final UUID SPP_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
+
+    private static final long HELLO_TIMEOUT_MS = 400;
+
+    private static final Map<String, BluetoothLink> LINKS = new HashMap<>();
+
+    private final String address;
+    private final RfcommEngine engine;
+    // Reader thread only.
+    private final BtFrameDecoder decoder;
+    private final LineDecoder lines;
+    private final TelemetryStore telemetry = new TelemetryStore();
+    private final CopyOnWriteArrayList<LineDecoder.Listener> lineListeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean framed;
+    private volatile CountDownLatch helloReply;
+
+    private final AtomicLong ackCount = new AtomicLong();
+    private final AtomicLong nackCount = new AtomicLong();
+
+    // Guarded by this.
+    private int users;
+
+    private BluetoothLink(@NonNull String address) {
+        this.address = address;
+        this.engine = new RfcommEngine(address);
+        this.lines = new LineDecoder((buffer, offset, length) -> {
+            telemetry.parse(buffer, offset, length, System.nanoTime());
+            for (LineDecoder.Listener l : lineListeners) {
+                l.onLine(buffer, offset, length);
+            }
+        });
+        this.decoder = new BtFrameDecoder(new BtFrameDecoder.Listener() {
+            @Override
+            public void onFrame(int type, int seq, @NonNull byte[] payload, int length) {
+                if (type == BtFrameCodec.TYPE_ACK) {
+                    ackCount.incrementAndGet();
+                } else if (type == BtFrameCodec.TYPE_NACK) {
+                    nackCount.incrementAndGet();
+                } else if (type == BtFrameCodec.TYPE_HELLO) {
+                    CountDownLatch latch = helloReply;
+                    if (latch != null) latch.countDown();
+                }
+            }
+
+            @Override
+            public void onText(@NonNull byte[] buffer, int offset, int length) {
+                lines.feed(buffer, offset, length);
+            }
+        });
+        engine.addListener(new RfcommEngine.Listener() {
+            @Override
+            public void onData(@NonNull byte[] buffer, int length) {
+                decoder.feed(buffer, 0, length);
+            }
+
+            @Override
+            public void onClosed(@Nullable IOException error) {
+                framed = false;
+                lines.reset();
+            }
+        });
+    }
+
+    @NonNull
+    public static synchronized BluetoothLink forAddress(@NonNull String address) {
+        String key = address.trim().toUpperCase();
+        BluetoothLink link = LINKS.get(key);
+        if (link == null) {
+            link = new BluetoothLink(key);
+            LINKS.put(key, link);
+        }
+        return link;
+    }
+
+    @NonNull
+    public String getAddress() {
+        return address;
+    }
+
+    @NonNull
+    public RfcommEngine getEngine() {
+        return engine;
+    }
+
+    public boolean isConnected() {
+        return engine.isOpen();
+    }
+
+    /** Telemetry received on this link, kept across reconnects. */
+    @NonNull
+    public TelemetryStore getTelemetry() {
+        return telemetry;
+    }
+
+    /**
+     * Receives every text line from the robot, without its line ending and with binary frames
+     * already stripped, on the link's reader thread. The buffer is only valid during the call.
+     */
+    public void addLineListener(@NonNull LineDecoder.Listener listener) {
+        lineListeners.addIfAbsent(listener);
+    }
+
+    public void removeLineListener(@NonNull LineDecoder.Listener listener) {
+        lineListeners.remove(listener);
+    }
+
+    /** True once the robot has agreed to binary frames for this session. */
+    public boolean isFramed() {
+        return framed;
+    }
+
+    /** Command frames the robot acknowledged. */
+    public long getAckCount() {
+        return ackCount.get();
+    }
+
+    /** Command frames the robot rejected because the checksum did not match. */
+    public long getNackCount() {
+        return nackCount.get();
+    }
+
+    /** Frames from the robot that arrived with a bad checksum. */
+    public long getReceiveCrcErrorCount() {
+        return decoder.getCrcErrorCount();
+    }
+
+    /** Fraction of answered command frames that were rejected, 0 if none were answered. */
+    public double getFrameErrorRate() {
+        long acks = ackCount.get();
+        long nacks = nackCount.get();
+        return acks + nacks == 0 ? 0 : (double) nacks / (acks + nacks);
+    }
+
+    /**
+     * Opens the socket and starts the engine, or does nothing if the link is already up.
+     * Blocks for the RFCOMM connect, so never call it on the main thread. The caller must hold
+     * BLUETOOTH_CONNECT.
+     */
+    @SuppressLint("MissingPermission")
+    public synchronized void connect(@NonNull BluetoothAdapter adapter) throws IOException {
+        if (engine.isOpen()) return;
+        BluetoothDevice device = adapter.getRemoteDevice(address);
+        BluetoothSocket socket = device.createRfcommSocketToServiceRecord(SPP_UUID);
+        try {
+            socket.connect();
+            decoder.reset();
+            engine.start(socket.getInputStream(), socket.getOutputStream(), socket);
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+        negotiateFraming();
+    }
+
+    private void negotiateFraming() {
+        CountDownLatch latch = new CountDownLatch(1);
+        helloReply = latch;
+        try {
+            engine.send(Lane.EMERGENCY, "hello", BtFrameCodec.encodeHello());
+            if (latch.await(HELLO_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                engine.setFramer(new BtFrameCodec.Framer());
+                framed = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            helloReply = null;
+        }
+    }
+
+    /** Registers a user of the link; pair with {@link #release}. */
+    public synchronized void acquire() {
+        users++;
+    }
+
+    /**
+     * Gives up one user's hold. The last user out closes the link once {@code lastCommand} (if
+     * any, e.g. a stop) is written; otherwise the command is just sent and the link stays up.
+     *
+     * @return true if this closed the link
+     */
+    public synchronized boolean release(@Nullable byte[] lastCommand) {
+        if (users > 0) users--;
+        if (users == 0) {
+            engine.closeGracefully(lastCommand);
+            return true;
+        }
+        if (lastCommand != null) engine.send(Lane.EMERGENCY, null, lastCommand);
+        return false;
+    }
+
+    /**
+     * Closes a connection found to be dead, for every user. Listeners get {@code cause}, so each
+     * user sees a loss rather than a deliberate close; holds are kept and the next
+     * {@link #connect} opens a fresh socket.
+     */
+    public void drop(@NonNull IOException cause) {
+        engine.close(cause);
+    }
+}
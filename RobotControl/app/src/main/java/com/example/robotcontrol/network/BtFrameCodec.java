@@ -0,0 +1,167 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.robotcontrol.logic.ServoPose;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary framing for the Bluetooth serial link.
+ *
+ * Every frame is:
+ * <pre>
+ *   [0]      sync 0xA5
+ *   [1]      type (high nibble) | payload length 0..15 (low nibble)
+ *   [2]      sequence number, wraps at 256
+ *   [3..]    payload
+ *   [last]   CRC-8 (poly 0x07) over bytes 1 .. last-1
+ * </pre>
+ * The robot answers each command frame with {@link #TYPE_ACK} or, on a bad checksum,
+ * {@link #TYPE_NACK} carrying the same sequence. Firmware that does not speak frames never
+ * answers {@link #encodeHello()}, and the link stays on the ASCII protocol.
+ */
+public final class BtFrameCodec {
+
+    public static final int SYNC = 0xA5;
+    public static final int HEADER_BYTES = 3;
+    public static final int MAX_PAYLOAD = 15;
+    public static final int MAX_FRAME_BYTES = HEADER_BYTES + MAX_PAYLOAD + 1;
+    public static final int VERSION = 1;
+
+    /** Payload: the single ASCII command character ('a', 'b', 's', 'l', 'w', 't'). */
+    public static final int TYPE_MOVE = 0x1;
+    /** Payload: servo number 1..8, angle 0..180. */
+    public static final int TYPE_SERVO = 0x2;
+    /** Payload: bit mask of servos (bit 0 = servo 1), then one angle per set bit in order. */
+    public static final int TYPE_POSE = 0x3;
+    public static final int TYPE_ACK = 0x8;
+    public static final int TYPE_NACK = 0x9;
+    /**
+     * Payload: protocol version. Kept in the 0xF_ range so no byte of the probe is a letter the
+     * ASCII firmware would act on.
+     */
+    public static final int TYPE_HELLO = 0xF;
+
+    private static final int POLY = 0x07;
+    private static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x80) != 0 ? ((crc << 1) ^ POLY) & 0xFF : (crc << 1) & 0xFF;
+            }
+            CRC_TABLE[i] = crc;
+        }
+    }
+
+    private BtFrameCodec() {
+    }
+
+    public static int crc8(@NonNull byte[] buf, int offset, int length) {
+        int crc = 0;
+        for (int i = offset; i < offset + length; i++) {
+            crc = CRC_TABLE[(crc ^ buf[i]) & 0xFF];
+        }
+        return crc;
+    }
+
+    @NonNull
+    public static byte[] encode(int type, int seq, @NonNull byte[] payload, int length) {
+        if (length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Payload too long: " + length);
+        }
+        byte[] out = new byte[HEADER_BYTES + length + 1];
+        out[0] = (byte) SYNC;
+        out[1] = (byte) (((type & 0x0F) << 4) | length);
+        out[2] = (byte) seq;
+        System.arraycopy(payload, 0, out, HEADER_BYTES, length);
+        out[out.length - 1] = (byte) crc8(out, 1, out.length - 2);
+        return out;
+    }
+
+    @NonNull
+    public static byte[] encodeHello() {
+        return encode(TYPE_HELLO, 0, new byte[]{VERSION}, 1);
+    }
+
+    /**
+     * Frames an ASCII command ("a", "p3:120;", "q1:90,3:45;"), or returns null if it has no
+     * binary form and should go out as text.
+     */
+    @Nullable
+    public static byte[] encodeCommand(int seq, @NonNull String command) {
+        String cmd = command.trim();
+        if (cmd.length() == 1) {
+            return encode(TYPE_MOVE, seq, new byte[]{(byte) cmd.charAt(0)}, 1);
+        }
+        int[] pose = ServoPose.fromBluetoothCommand(cmd, 8);
+        if (pose == null) return null;
+
+        byte[] payload = new byte[1 + pose.length];
+        int mask = 0;
+        int n = 1;
+        for (int i = 0; i < pose.length; i++) {
+            if (pose[i] == ServoPose.UNCHANGED) continue;
+            if (pose[i] < 0 || pose[i] > 180) return null;
+            mask |= 1 << i;
+            payload[n++] = (byte) pose[i];
+        }
+        if (cmd.charAt(0) == 'p' && n == 2) {
+            int servo = Integer.numberOfTrailingZeros(mask) + 1;
+            return encode(TYPE_SERVO, seq, new byte[]{(byte) servo, payload[1]}, 2);
+        }
+        payload[0] = (byte) mask;
+        return encode(TYPE_POSE, seq, payload, n);
+    }
+
+    /**
+     * The ASCII command a command frame stands for, or null for other frame types.
+     */
+    @Nullable
+    public static String decodeCommand(int type, @NonNull byte[] payload, int length) {
+        switch (type) {
+            case TYPE_MOVE:
+                return length == 1 ? new String(payload, 0, 1, StandardCharsets.US_ASCII) : null;
+            case TYPE_SERVO:
+                return length == 2 ? "p" + (payload[0] & 0xFF) + ":" + (payload[1] & 0xFF) + ";" : null;
+            case TYPE_POSE: {
+                if (length < 1) return null;
+                int mask = payload[0] & 0xFF;
+                int[] pose = new int[8];
+                int n = 1;
+                for (int i = 0; i < pose.length; i++) {
+                    if ((mask & (1 << i)) == 0) {
+                        pose[i] = ServoPose.UNCHANGED;
+                    } else if (n < length) {
+                        pose[i] = payload[n++] & 0xFF;
+                    } else {
+                        return null;
+                    }
+                }
+                return ServoPose.toBluetoothCommand(pose);
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Turns ASCII commands into frames on the engine's writer thread, numbering them in the
+     * order they actually go out.
+     */
+    public static final class Framer implements RfcommEngine.Framer {
+        private int nextSeq;
+
+        @NonNull
+        @Override
+        public byte[] frame(@NonNull byte[] command) {
+            byte[] frame = encodeCommand(nextSeq, new String(command, StandardCharsets.US_ASCII));
+            if (frame == null) return command;
+            nextSeq = (nextSeq + 1) & 0xFF;
+            return frame;
+        }
+    }
+}
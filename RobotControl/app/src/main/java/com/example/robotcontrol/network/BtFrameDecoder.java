@@ -0,0 +1,94 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Incremental decoder for {@link BtFrameCodec} frames mixed with plain ASCII text.
+ *
+ * Bytes can be fed in whatever pieces the socket returns them; a frame split across reads is
+ * assembled, and bytes outside frames are passed through as text (the robot still prints its
+ * "OK ..." lines). When a checksum fails, decoding restarts at the byte after the bad frame's
+ * sync, so one corrupted frame cannot swallow the next one. Not thread-safe: feed it from the
+ * reader thread only.
+ */
+public final class BtFrameDecoder {
+
+    public interface Listener {
+        /** {@code payload} is reused after the call returns. */
+        void onFrame(int type, int seq, @NonNull byte[] payload, int length);
+
+        default void onText(@NonNull byte[] buffer, int offset, int length) {
+        }
+    }
+
+    private final Listener listener;
+    private final byte[] frame = new byte[BtFrameCodec.MAX_FRAME_BYTES];
+    private final byte[] payload = new byte[BtFrameCodec.MAX_PAYLOAD];
+    private int filled;
+    private int expected;
+
+    private long frameCount;
+    private long crcErrorCount;
+
+    public BtFrameDecoder(@NonNull Listener listener) {
+        this.listener = listener;
+    }
+
+    public void feed(@NonNull byte[] buf, int offset, int length) {
+        int end = offset + length;
+        int textStart = -1;
+        for (int i = offset; i < end; i++) {
+            int b = buf[i] & 0xFF;
+            if (filled == 0) {
+                if (b != BtFrameCodec.SYNC) {
+                    if (textStart < 0) textStart = i;
+                    continue;
+                }
+                if (textStart >= 0) {
+                    listener.onText(buf, textStart, i - textStart);
+                    textStart = -1;
+                }
+            }
+            frame[filled++] = (byte) b;
+            if (filled == 2) {
+                expected = BtFrameCodec.HEADER_BYTES + (b & 0x0F) + 1;
+            } else if (filled > 2 && filled == expected) {
+                complete();
+            }
+        }
+        if (textStart >= 0) {
+            listener.onText(buf, textStart, end - textStart);
+        }
+    }
+
+    private void complete() {
+        int length = expected;
+        filled = 0;
+        int crc = BtFrameCodec.crc8(frame, 1, length - 2);
+        if (crc == (frame[length - 1] & 0xFF)) {
+            frameCount++;
+            int payloadLength = length - BtFrameCodec.HEADER_BYTES - 1;
+            System.arraycopy(frame, BtFrameCodec.HEADER_BYTES, payload, 0, payloadLength);
+            listener.onFrame((frame[1] & 0xF0) >>> 4, frame[2] & 0xFF, payload, payloadLength);
+            return;
+        }
+        // The sync may have been noise: rescan everything after it.
+        crcErrorCount++;
+        byte[] rest = new byte[length - 1];
+        System.arraycopy(frame, 1, rest, 0, rest.length);
+        feed(rest, 0, rest.length);
+    }
+
+    /** Drops a partially received frame, e.g. when the link is reopened. */
+    public void reset() {
+        filled = 0;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getCrcErrorCount() {
+        return crcErrorCount;
+    }
+}
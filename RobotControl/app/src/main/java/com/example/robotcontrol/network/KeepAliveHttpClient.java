@@ -0,0 +1,297 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+import javax.net.SocketFactory;
+
+/**
+ * Minimal HTTP/1.1 client that keeps a single socket open to the robot.
+ *
+ * The ESP32 answers every command with a small JSON body and a Content-Length header, so
+ * requests can be sent one after another over the same TCP connection instead of paying a
+ * handshake per tap. Only one request is outstanding at a time; there is no pipelining.
+ * If the robot closes the connection (Connection: close, idle timeout, AP restart) the next
+ * request transparently opens a new one.
+ *
+ * Not thread-safe on its own; callers are expected to use it from one sender thread.
+ */
+public class KeepAliveHttpClient {
+
+    private static final int MAX_HEADER_LINE = 1024;
+    // Robot replies are a few hundred bytes of JSON; anything past this is not the robot talking.
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    public static final class Response {
+        public final int code;
+        @NonNull
+        public final String body;
+
+        public Response(int code, @NonNull String body) {
+            this.code = code;
+            this.body = body;
+        }
+    }
+
+    private final String host;
+    private final int port;
+    private int connectTimeoutMs;
+    private int readTimeoutMs;
+
+    // Set from other threads; picked up by the sender at the next request.
+    private volatile SocketFactory socketFactory;
+
+    private Socket socket;
+    private SocketFactory socketOpenedWith;
+    private InputStream in;
+    private OutputStream out;
+    private int connectionCount = 0;
+
+    public KeepAliveHttpClient(@NonNull String host, int port, int connectTimeoutMs, int readTimeoutMs) {
+        this.host = host;
+        this.port = port;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * Changes the timeouts for future connects and reads; applies to the open socket right away.
+     */
+    public void setTimeouts(int connectTimeoutMs, int readTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        Socket s = socket;
+        if (s != null && !s.isClosed()) {
+            try {
+                s.setSoTimeout(readTimeoutMs);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Opens connections through {@code factory}, e.g. {@code Network.getSocketFactory()} to pin
+     * them to the robot's WiFi; null for plain sockets. An open connection made through another
+     * factory is replaced at the next request. Safe to call from any thread.
+     */
+    public void setSocketFactory(@Nullable SocketFactory factory) {
+        this.socketFactory = factory;
+    }
+
+    public int getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    @NonNull
+    public String getBaseUrl() {
+        return "http://" + host + ":" + port;
+    }
+
+    /**
+     * Number of TCP connections opened so far. Stays at 1 while the robot honours keep-alive.
+     */
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Sends a GET for {@code path} and reads the full response.
+     *
+     * A request that fails on a reused connection before any response byte arrives is retried once
+     * on a fresh socket, because the robot may have dropped the idle connection in the meantime.
+     */
+    @NonNull
+    public Response get(@NonNull String path) throws IOException {
+        boolean reused = isOpen();
+        try {
+            return execute(path);
+        } catch (StaleConnectionException e) {
+            close();
+            if (!reused) throw e;
+            return execute(path);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public void close() {
+        Socket s = socket;
+        socket = null;
+        in = null;
+        out = null;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private boolean isOpen() {
+        return socket != null && socket.isConnected() && !socket.isClosed();
+    }
+
+    private void open() throws IOException {
+        SocketFactory factory = socketFactory;
+        Socket s = factory != null ? factory.createSocket() : new Socket();
+        try {
+            s.setTcpNoDelay(true);
+            s.setKeepAlive(true);
+            s.connect(new InetSocketAddress(host, port), connectTimeoutMs);
+            s.setSoTimeout(readTimeoutMs);
+        } catch (IOException e) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+        socket = s;
+        socketOpenedWith = factory;
+        in = new BufferedInputStream(s.getInputStream());
+        out = s.getOutputStream();
+        connectionCount++;
+    }
+
+    private Response execute(String path) throws IOException {
+        if (isOpen() && socketOpenedWith != socketFactory) {
+            // Bound to a network we have since moved off.
+            close();
+        }
+        if (!isOpen()) {
+            open();
+        }
+
+        String request = "GET " + path + " HTTP/1.1\r\n"
+                + "Host: " + host + ":" + port + "\r\n"
+                + "Connection: keep-alive\r\n"
+                + "\r\n";
+        try {
+            out.write(request.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        } catch (IOException e) {
+            throw new StaleConnectionException(e);
+        }
+
+        String statusLine;
+        try {
+            statusLine = readLine(in);
+        } catch (SocketTimeoutException e) {
+            // The robot is slow, not gone; resending would only double the wait.
+            throw e;
+        } catch (IOException e) {
+            throw new StaleConnectionException(e);
+        }
+        if (statusLine == null) {
+            throw new StaleConnectionException(new EOFException("Connection closed by robot"));
+        }
+
+        int code = parseStatusCode(statusLine);
+        int contentLength = -1;
+        boolean closeAfter = statusLine.startsWith("HTTP/1.0");
+
+        String header;
+        while ((header = readLine(in)) != null && !header.isEmpty()) {
+            int colon = header.indexOf(':');
+            if (colon <= 0) continue;
+            String name = header.substring(0, colon).trim();
+            String value = header.substring(colon + 1).trim();
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                try {
+                    contentLength = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    contentLength = -1;
+                }
+                if (contentLength < 0 || contentLength > MAX_BODY_BYTES) {
+                    throw new IOException("Bad Content-Length: " + value);
+                }
+            } else if ("Connection".equalsIgnoreCase(name)) {
+                closeAfter = "close".equalsIgnoreCase(value);
+            }
+        }
+
+        String body;
+        if (contentLength >= 0) {
+            body = readFixed(in, contentLength);
+        } else {
+            // No length: the body ends when the robot closes the socket.
+            body = readToEnd(in);
+            closeAfter = true;
+        }
+
+        if (closeAfter) {
+            close();
+        }
+        return new Response(code, body);
+    }
+
+    private static int parseStatusCode(String statusLine) throws IOException {
+        int sp1 = statusLine.indexOf(' ');
+        int sp2 = sp1 >= 0 ? statusLine.indexOf(' ', sp1 + 1) : -1;
+        if (sp2 < 0) sp2 = statusLine.length();
+        try {
+            return Integer.parseInt(statusLine.substring(sp1 + 1, sp2));
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed status line: " + statusLine);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int len = sb.length();
+                if (len > 0 && sb.charAt(len - 1) == '\r') sb.setLength(len - 1);
+                return sb.toString();
+            }
+            if (sb.length() >= MAX_HEADER_LINE) {
+                throw new IOException("Header line too long");
+            }
+            sb.append((char) c);
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static String readFixed(InputStream in, int length) throws IOException {
+        byte[] buf = new byte[length];
+        int off = 0;
+        while (off < length) {
+            int n = in.read(buf, off, length - off);
+            if (n < 0) throw new EOFException("Truncated response body");
+            off += n;
+        }
+        return new String(buf, StandardCharsets.UTF_8);
+    }
+
+    private static String readToEnd(InputStream in) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[256];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            if (bos.size() + n > MAX_BODY_BYTES) throw new IOException("Response body too large");
+            bos.write(buf, 0, n);
+        }
+        return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static final class StaleConnectionException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        StaleConnectionException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
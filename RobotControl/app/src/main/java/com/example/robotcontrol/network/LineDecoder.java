@@ -0,0 +1,112 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Splits a byte stream into text lines without allocating per byte or per line.
+ *
+ * Lines that arrive whole inside one read are handed out as a slice of the caller's buffer;
+ * only the unfinished tail of a read is copied into a fixed buffer and completed by the next
+ * one. Line endings ("\n" or "\r\n") and surrounding blanks are stripped and empty lines
+ * dropped. A line longer than the buffer is dropped up to its newline and counted. Feed it from
+ * one thread only.
+ */
+public final class LineDecoder {
+
+    public interface Listener {
+        /** The slice is only valid during the call; copy it if it must be kept. */
+        void onLine(@NonNull byte[] buffer, int offset, int length);
+    }
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final Listener listener;
+    private final byte[] partial;
+    private int partialLength;
+    private boolean overflowing;
+
+    private long lineCount;
+    private long overflowCount;
+
+    public LineDecoder(@NonNull Listener listener) {
+        this(DEFAULT_CAPACITY, listener);
+    }
+
+    public LineDecoder(int capacity, @NonNull Listener listener) {
+        this.partial = new byte[capacity];
+        this.listener = listener;
+    }
+
+    public void feed(@NonNull byte[] buf, int offset, int length) {
+        int end = offset + length;
+        int lineStart = offset;
+        for (int i = offset; i < end; i++) {
+            if (buf[i] != '\n') continue;
+            if (partialLength == 0 && !overflowing) {
+                emit(buf, lineStart, i - lineStart);
+            } else {
+                append(buf, lineStart, i - lineStart);
+                if (!overflowing) emit(partial, 0, partialLength);
+                partialLength = 0;
+                overflowing = false;
+            }
+            lineStart = i + 1;
+        }
+        if (lineStart < end) {
+            append(buf, lineStart, end - lineStart);
+        }
+    }
+
+    private void append(byte[] buf, int offset, int length) {
+        if (overflowing) return;
+        if (partialLength + length > partial.length) {
+            overflowing = true;
+            overflowCount++;
+            partialLength = 0;
+            return;
+        }
+        System.arraycopy(buf, offset, partial, partialLength, length);
+        partialLength += length;
+    }
+
+    private void emit(byte[] buf, int offset, int length) {
+        int start = offset;
+        int stop = offset + length;
+        while (start < stop && isBlank(buf[start])) start++;
+        while (stop > start && isBlank(buf[stop - 1])) stop--;
+        if (stop == start) return;
+        lineCount++;
+        listener.onLine(buf, start, stop - start);
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\r' || b == '\t';
+    }
+
+    /** Drops an unfinished line, e.g. when the link is reopened. */
+    public void reset() {
+        partialLength = 0;
+        overflowing = false;
+    }
+
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /** Lines dropped because they did not fit the buffer. */
+    public long getOverflowCount() {
+        return overflowCount;
+    }
+
+    /**
+     * True if the slice starts with {@code prefix}; lets listeners route lines without building
+     * a String first.
+     */
+    public static boolean startsWith(@NonNull byte[] buf, int offset, int length, @NonNull byte[] prefix) {
+        if (length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf[offset + i] != prefix[i]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.robotcontrol.network;
+
+import android.content.Context;
+import android.net.Network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.robotcontrol.RobotController;
+import com.example.robotcontrol.logic.WifiLinkStateMachine.State;
+import com.example.robotcontrol.logic.WifiLinkStateMachine.Transition;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.net.SocketFactory;
+
+/**
+ * Which network robot traffic goes over, kept up to date from {@link WifiConnection} instead of
+ * being checked before every command.
+ *
+ * The link is bound once ({@link #ensureBound}); after that loss and regain arrive as
+ * transitions and are mirrored into one volatile field, so {@link #isReadyFor} on the command
+ * path is a plain read from any thread. It also checks the bound network is the robot's, not
+ * whatever other WiFi the process was bound to. Attached controllers are handed the bound
+ * network's socket factory whenever it changes, so their connections go to the robot AP even if
+ * something else resets the process binding.
+ */
+public final class NetworkAffinity implements WifiConnection.Listener {
+
+    /** A bound network and what is needed to use it; replaced as a whole, never mutated. */
+    private static final class Binding {
+        @NonNull
+        final Network network;
+        @NonNull
+        final SocketFactory socketFactory;
+        @Nullable
+        final String ssid;
+
+        Binding(@NonNull Network network, @Nullable String ssid) {
+            this.network = network;
+            this.socketFactory = network.getSocketFactory();
+            this.ssid = ssid;
+        }
+    }
+
+    private static NetworkAffinity instance;
+
+    private final WifiConnection connection;
+    private final List<RobotController> controllers = new CopyOnWriteArrayList<>();
+
+    private volatile Binding binding;
+
+    private NetworkAffinity(@NonNull WifiConnection connection) {
+        this.connection = connection;
+        connection.addListener(this);
+        update(connection.getNetwork());
+    }
+
+    /** Call from the main thread. */
+    @NonNull
+    public static synchronized NetworkAffinity get(@NonNull Context context) {
+        if (instance == null) {
+            instance = new NetworkAffinity(WifiConnection.get(context));
+        }
+        return instance;
+    }
+
+    /**
+     * True while the process is bound to {@code ssid}'s network. Any thread; never blocks.
+     */
+    public boolean isReadyFor(@NonNull String ssid) {
+        Binding b = binding;
+        return b != null && ssid.equals(b.ssid);
+    }
+
+    @Nullable
+    public Network getNetwork() {
+        Binding b = binding;
+        return b != null ? b.network : null;
+    }
+
+    /** The bound network's socket factory, or null when not bound. */
+    @Nullable
+    public SocketFactory getSocketFactory() {
+        Binding b = binding;
+        return b != null ? b.socketFactory : null;
+    }
+
+    /**
+     * Binds to the current WiFi, which the caller has checked is {@code ssid}, unless already
+     * bound to it or a request is running. A binding to another network is dropped first. Main
+     * thread; for screen start-up and reconnect buttons, not per command.
+     */
+    public void ensureBound(@NonNull String ssid) {
+        State state = connection.getState();
+        if (state == State.REQUESTING) return;
+        if (state == State.BOUND) {
+            if (ssid.equals(connection.getBoundSsid())) return;
+            connection.disconnect();
+        }
+        connection.bindToCurrentWifi();
+    }
+
+    /** Keeps {@code controller} on the robot network until {@link #detach}. */
+    public void attach(@NonNull RobotController controller) {
+        if (!controllers.contains(controller)) controllers.add(controller);
+        controller.setSocketFactory(getSocketFactory());
+    }
+
+    public void detach(@NonNull RobotController controller) {
+        controllers.remove(controller);
+        controller.setSocketFactory(null);
+    }
+
+    @Override
+    public void onStateChanged(@NonNull Transition transition, @Nullable Network network) {
+        // AVAILABLE isn't usable until the bind that follows it.
+        update(transition.to == State.BOUND ? network : null);
+    }
+
+    private void update(@Nullable Network bound) {
+        Binding current = binding;
+        String ssid = bound != null ? connection.getBoundSsid() : null;
+        if (bound != null && current != null && bound.equals(current.network)
+                && Objects.equals(ssid, current.ssid)) {
+            return;
+        }
+        Binding next = bound != null ? new Binding(bound, ssid) : null;
+        binding = next;
+        SocketFactory factory = next != null ? next.socketFactory : null;
+        for (RobotController controller : controllers) {
+            controller.setSocketFactory(factory);
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.robotcontrol.logic.PriorityCommandQueue;
+import com.example.robotcontrol.logic.PriorityCommandQueue.Lane;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Byte-stream transport for the Bluetooth serial link: one reader thread, one writer thread.
+ *
+ * Any thread may {@link #send}; the call only appends to a lock-free inbox and unparks the
+ * writer, which is the single consumer. The writer moves the inbox into its own
+ * {@link PriorityCommandQueue} between writes, so stop still overtakes queued motion and a slider
+ * drag still collapses to its latest angle, but producers never block on the stream or on each
+ * other. Works on any stream pair, so it runs on a loopback pipe in tests.
+ *
+ * With a batch window set, the writer holds the first command for up to that long and sends
+ * everything queued meanwhile in one write, so a pose touching eight servos costs one RFCOMM
+ * packet instead of eight. Stop is never held: it ends the batch and goes out at once.
+ */
+public class RfcommEngine {
+
+    public interface Listener {
+        /**
+         * Bytes read from the robot, on the reader thread. {@code buffer} is reused after the
+         * call returns.
+         */
+        default void onData(@NonNull byte[] buffer, int length) {
+        }
+
+        /** A command was written and flushed, on the writer thread. */
+        default void onWritten(@NonNull byte[] command) {
+        }
+
+        /** Called once per session; {@code error} is null when closed locally. */
+        default void onClosed(@Nullable IOException error) {
+        }
+    }
+
+    /** Wraps each command on its way out, e.g. into a {@link BtFrameCodec} frame. */
+    public interface Framer {
+        @NonNull
+        byte[] frame(@NonNull byte[] command);
+    }
+
+    private static final int READ_BUFFER_BYTES = 1024;
+    /** A batch is sent early once it reaches this size; stays under a typical RFCOMM frame. */
+    static final int MAX_BATCH_BYTES = 512;
+
+    private static final class Outgoing {
+        final Lane lane;
+        final String key;
+        final byte[] data;
+
+        Outgoing(Lane lane, String key, byte[] data) {
+            this.lane = lane;
+            this.key = key;
+            this.data = data;
+        }
+    }
+
+    private final String name;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong unkeyedSeq = new AtomicLong();
+
+    private final AtomicLong commandCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private volatile Session session;
+    private volatile Framer framer;
+    private volatile long batchWindowNanos;
+
+    // Previous sampleStats() call, for rates.
+    private long sampleNanos = System.nanoTime();
+    private long sampleWrites;
+    private long sampleCommands;
+
+    /**
+     * @param name used for the thread names, e.g. the robot's MAC address
+     */
+    public RfcommEngine(@NonNull String name) {
+        this.name = name;
+    }
+
+    public void addListener(@NonNull Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts a session on an already connected stream pair. {@code resource} (the socket) is
+     * closed together with the streams when the session ends.
+     */
+    public synchronized void start(@NonNull InputStream in, @NonNull OutputStream out,
+                                   @Nullable Closeable resource) {
+        if (session != null && session.open) {
+            throw new IllegalStateException("Already started");
+        }
+        // A new session starts unframed until both ends agree otherwise.
+        framer = null;
+        session = new Session(in, out, resource);
+        session.start();
+    }
+
+    /**
+     * Sets the framer applied to every following write; null sends commands as they are.
+     * Listeners still see the unframed command in {@link Listener#onWritten}.
+     */
+    public void setFramer(@Nullable Framer framer) {
+        this.framer = framer;
+    }
+
+    /**
+     * How long the writer may hold a command to send it together with the ones queued after it;
+     * 0 (the default) writes every command on its own.
+     */
+    public void setBatchWindowMs(int windowMs) {
+        batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMs));
+    }
+
+    public boolean isOpen() {
+        Session s = session;
+        return s != null && s.open;
+    }
+
+    /**
+     * Queues {@code data} for the writer. Commands with the same non-null {@code key} in the same
+     * lane replace each other until written; a null key is never coalesced.
+     *
+     * @return false if there is no open session
+     */
+    public boolean send(@NonNull Lane lane, @Nullable String key, @NonNull byte[] data) {
+        Session s = session;
+        if (s == null || !s.open) return false;
+        if (key == null) key = "#" + unkeyedSeq.incrementAndGet();
+        s.inbox.offer(new Outgoing(lane, key, data));
+        LockSupport.unpark(s.writer);
+        return true;
+    }
+
+    /**
+     * Drops everything queued, writes {@code lastCommand} (if any) right after the write in
+     * progress, then closes the session from the writer thread.
+     */
+    public void closeGracefully(@Nullable byte[] lastCommand) {
+        Session s = session;
+        if (s == null || !s.open) return;
+        s.closeRequest = lastCommand != null ? lastCommand : new byte[0];
+        LockSupport.unpark(s.writer);
+    }
+
+    /** Closes the session immediately; queued commands are dropped. */
+    public void close() {
+        close(null);
+    }
+
+    /**
+     * Closes the session immediately and reports {@code error} to listeners, as if the read had
+     * failed with it; null for a deliberate close.
+     */
+    public void close(@Nullable IOException error) {
+        Session s = session;
+        if (s != null) s.shutdown(error);
+    }
+
+    /** Commands written, whether on their own or in a batch. */
+    public long getCommandCount() {
+        return commandCount.get();
+    }
+
+    /** Writes (and flushes) on the stream; lower than the command count when batching. */
+    public long getWriteCount() {
+        return writeCount.get();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /** Commands replaced by a newer one for the same key before they were written. */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /** Commands dropped by stop pre-emption, a graceful close or a broken link. */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Write statistics; rates cover the time since the previous call.
+     */
+    @NonNull
+    public synchronized WriteStats sampleStats() {
+        long now = System.nanoTime();
+        long writes = writeCount.get();
+        long commands = commandCount.get();
+        double seconds = Math.max(1e-9, (now - sampleNanos) / 1e9);
+        WriteStats stats = new WriteStats(writes, commands, bytesWritten.get(),
+                (writes - sampleWrites) / seconds, (commands - sampleCommands) / seconds);
+        sampleNanos = now;
+        sampleWrites = writes;
+        sampleCommands = commands;
+        return stats;
+    }
+
+    public static final class WriteStats {
+        public final long writes;
+        public final long commands;
+        public final long bytes;
+        public final double writesPerSecond;
+        public final double commandsPerSecond;
+
+        WriteStats(long writes, long commands, long bytes, double writesPerSecond, double commandsPerSecond) {
+            this.writes = writes;
+            this.commands = commands;
+            this.bytes = bytes;
+            this.writesPerSecond = writesPerSecond;
+            this.commandsPerSecond = commandsPerSecond;
+        }
+
+        public double getBytesPerWrite() {
+            return writes == 0 ? 0 : (double) bytes / writes;
+        }
+
+        public double getCommandsPerWrite() {
+            return writes == 0 ? 0 : (double) commands / writes;
+        }
+
+        @NonNull
+        public String format() {
+            return String.format(Locale.US, "writes %.1f/s  cmds %.1f/s  %.1f B/write  %.2f cmds/write",
+                    writesPerSecond, commandsPerSecond, getBytesPerWrite(), getCommandsPerWrite());
+        }
+    }
+
+    private final class Session {
+        final InputStream in;
+        final OutputStream out;
+        final Closeable resource;
+        final Thread reader;
+        final Thread writer;
+        // Per session, so nothing queued for a dead link leaks into the next one.
+        final ConcurrentLinkedQueue<Outgoing> inbox = new ConcurrentLinkedQueue<>();
+        // Only touched by the writer thread.
+        final PriorityCommandQueue<Outgoing> queue = new PriorityCommandQueue<>();
+        final ByteArrayOutputStream batch = new ByteArrayOutputStream(MAX_BATCH_BYTES);
+        final List<byte[]> batched = new ArrayList<>();
+
+        volatile boolean open = true;
+        volatile byte[] closeRequest;
+
+        Session(InputStream in, OutputStream out, Closeable resource) {
+            this.in = in;
+            this.out = out;
+            this.resource = resource;
+            reader = new Thread(this::readLoop, "RfcommEngine-reader-" + name);
+            writer = new Thread(this::writeLoop, "RfcommEngine-writer-" + name);
+            reader.setDaemon(true);
+            writer.setDaemon(true);
+        }
+
+        void start() {
+            writer.start();
+            reader.start();
+        }
+
+        private void writeLoop() {
+            try {
+                while (open) {
+                    byte[] last = closeRequest;
+                    if (last != null) {
+                        drainInbox();
+                        droppedCount.addAndGet(queue.flush());
+                        if (last.length > 0) write(last);
+                        shutdown(null);
+                        return;
+                    }
+                    drainInbox();
+                    Outgoing next = queue.poll();
+                    if (next == null) {
+                        if (inbox.isEmpty() && closeRequest == null) {
+                            LockSupport.park(this);
+                        }
+                        continue;
+                    }
+                    long window = batchWindowNanos;
+                    if (window <= 0 || next.lane == Lane.EMERGENCY) {
+                        write(next.data);
+                    } else {
+                        writeBatch(next, window);
+                    }
+                }
+            } catch (IOException e) {
+                shutdown(e);
+            }
+        }
+
+        private void drainInbox() {
+            Outgoing o;
+            while ((o = inbox.poll()) != null) {
+                long coalesced = queue.getCoalescedCount();
+                long flushed = queue.getFlushedCount();
+                queue.offer(o.lane, o.key, o);
+                coalescedCount.addAndGet(queue.getCoalescedCount() - coalesced);
+                droppedCount.addAndGet(queue.getFlushedCount() - flushed);
+            }
+        }
+
+        private void write(byte[] data) throws IOException {
+            Framer f = framer;
+            byte[] wire = f != null ? f.frame(data) : data;
+            out.write(wire);
+            out.flush();
+            writeCount.incrementAndGet();
+            commandCount.incrementAndGet();
+            bytesWritten.addAndGet(wire.length);
+            notifyWritten(data);
+        }
+
+        /**
+         * Collects commands for up to {@code windowNanos} after {@code first} and writes them at
+         * once. A stop, a close request or a full buffer ends the window early.
+         */
+        private void writeBatch(Outgoing first, long windowNanos) throws IOException {
+            Framer f = framer;
+            batch.reset();
+            batched.clear();
+            addToBatch(first.data, f);
+            long deadline = System.nanoTime() + windowNanos;
+            while (batch.size() < MAX_BATCH_BYTES && closeRequest == null && open) {
+                drainInbox();
+                Outgoing more = queue.poll();
+                if (more != null) {
+                    addToBatch(more.data, f);
+                    if (more.lane == Lane.EMERGENCY) break;
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) break;
+                LockSupport.parkNanos(this, remaining);
+            }
+
+            batch.writeTo(out);
+            out.flush();
+            writeCount.incrementAndGet();
+            commandCount.addAndGet(batched.size());
+            bytesWritten.addAndGet(batch.size());
+            for (byte[] command : batched) {
+                notifyWritten(command);
+            }
+        }
+
+        private void addToBatch(byte[] command, @Nullable Framer f) {
+            byte[] wire = f != null ? f.frame(command) : command;
+            batch.write(wire, 0, wire.length);
+            batched.add(command);
+        }
+
+        private void notifyWritten(byte[] command) {
+            for (Listener l : listeners) {
+                try {
+                    l.onWritten(command);
+                } catch (RuntimeException ignored) {
+                }
+            }
+        }
+
+        private void readLoop() {
+            byte[] buf = new byte[READ_BUFFER_BYTES];
+            try {
+                while (open) {
+                    int n = in.read(buf);
+                    if (n < 0) throw new EOFException("Connection closed by robot");
+                    if (n == 0) continue;
+                    bytesRead.addAndGet(n);
+                    for (Listener l : listeners) {
+                        try {
+                            l.onData(buf, n);
+                        } catch (RuntimeException ignored) {
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                shutdown(e);
+            }
+        }
+
+        void shutdown(@Nullable IOException error) {
+            synchronized (this) {
+                if (!open) return;
+                open = false;
+            }
+            droppedCount.addAndGet(inbox.size());
+            inbox.clear();
+            closeQuietly(out);
+            closeQuietly(in);
+            closeQuietly(resource);
+            LockSupport.unpark(writer);
+            for (Listener l : listeners) {
+                try {
+                    // A read failing because we closed the socket ourselves is not an error.
+                    l.onClosed(closeRequest != null ? null : error);
+                } catch (RuntimeException ignored) {
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Append-only log of everything sent to and received from a robot, for replaying a session
+ * later with {@link SessionReplayer}.
+ *
+ * A session is a run of segment files "{@code <session>-000.rcl}", "{@code -001.rcl}", ... in
+ * one directory. Each segment is memory-mapped at its full size up front, so recording a
+ * record is a couple of buffer puts with no system call; when the next record would not fit,
+ * the segment is forced to disk and the next one mapped. A segment starts with a
+ * {@value #HEADER_BYTES}-byte header (magic, version, wall-clock start, segment index) followed
+ * by records of {@code [int size][byte kind][long nanoTime][payload]}; a size of 0 marks the
+ * end of the written part.
+ *
+ * Received data is stored as the raw bytes read from the link, so a replay goes through the
+ * same frame and line decoding as the live session. Recording never throws: after an I/O error
+ * the recorder stops and keeps the error for {@link #getError()}. Safe to call from the reader
+ * and writer threads at once.
+ */
+public final class SessionRecorder implements RfcommEngine.Listener {
+
+    public static final byte KIND_SENT = 1;
+    public static final byte KIND_RECEIVED = 2;
+
+    public static final String SUFFIX = ".rcl";
+    public static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+    static final int MIN_SEGMENT_BYTES = 4 * 1024;
+
+    static final int MAGIC = 0x52434C31; // "RCL1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int RECORD_HEADER_BYTES = 4 + 1 + 8;
+
+    private final File dir;
+    private final String sessionId;
+    private final int segmentBytes;
+    private final long startEpochMillis;
+
+    private MappedByteBuffer buffer;
+    private int segmentIndex = -1;
+    private boolean closed;
+    @Nullable
+    private IOException error;
+
+    private long recordCount;
+    private long byteCount;
+    private long droppedCount;
+
+    /**
+     * Starts a new session in {@code dir}, named after the current time.
+     */
+    @NonNull
+    public static SessionRecorder start(@NonNull File dir) throws IOException {
+        return new SessionRecorder(dir, newSessionId(), DEFAULT_SEGMENT_BYTES);
+    }
+
+    public SessionRecorder(@NonNull File dir, @NonNull String sessionId, int segmentBytes) throws IOException {
+        if (segmentBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Segments must be at least " + MIN_SEGMENT_BYTES + " bytes");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        this.dir = dir;
+        this.sessionId = sessionId;
+        this.segmentBytes = segmentBytes;
+        this.startEpochMillis = System.currentTimeMillis();
+        nextSegment();
+    }
+
+    @NonNull
+    static String newSessionId() {
+        return String.format(Locale.US, "session-%d", System.currentTimeMillis());
+    }
+
+    @NonNull
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    @Override
+    public void onData(@NonNull byte[] data, int length) {
+        record(KIND_RECEIVED, System.nanoTime(), data, 0, length);
+    }
+
+    @Override
+    public void onWritten(@NonNull byte[] command) {
+        record(KIND_SENT, System.nanoTime(), command, 0, command.length);
+    }
+
+    /**
+     * Appends one record. Payloads too large for an empty segment are dropped and counted.
+     */
+    public synchronized void record(byte kind, long timeNanos, @NonNull byte[] payload, int offset, int length) {
+        if (closed || error != null) return;
+        int size = RECORD_HEADER_BYTES + length;
+        if (size > segmentBytes - HEADER_BYTES - 4) {
+            droppedCount++;
+            return;
+        }
+        try {
+            // Keep 4 bytes free for the zero terminator a reader stops at.
+            if (buffer.remaining() < size + 4) {
+                nextSegment();
+            }
+            buffer.putInt(size);
+            buffer.put(kind);
+            buffer.putLong(timeNanos);
+            buffer.put(payload, offset, length);
+            recordCount++;
+            byteCount += size;
+        } catch (IOException e) {
+            error = e;
+            closeSegment();
+        }
+    }
+
+    private void nextSegment() throws IOException {
+        closeSegment();
+        segmentIndex++;
+        File file = segmentFile(dir, sessionId, segmentIndex);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(segmentBytes);
+            // The mapping stays valid after the file is closed.
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(startEpochMillis);
+        buffer.putInt(segmentIndex);
+        buffer.putInt(0);
+    }
+
+    private void closeSegment() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+    }
+
+    /** Flushes the current segment to storage; recording can continue. */
+    public synchronized void flush() {
+        if (buffer != null) buffer.force();
+    }
+
+    /** Flushes and stops; later records are ignored. */
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        closeSegment();
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /** Bytes of records written, headers included. */
+    public synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    /** Records too large for a segment. */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segmentIndex + 1;
+    }
+
+    /** The I/O error that stopped recording, if any. */
+    @Nullable
+    public synchronized IOException getError() {
+        return error;
+    }
+
+    @NonNull
+    static File segmentFile(@NonNull File dir, @NonNull String sessionId, int index) {
+        return new File(dir, String.format(Locale.US, "%s-%03d%s", sessionId, index, SUFFIX));
+    }
+
+    /** Segments of {@code sessionId}, in order. */
+    @NonNull
+    public static List<File> listSegments(@NonNull File dir, @NonNull String sessionId) {
+        List<File> segments = new ArrayList<>();
+        for (int i = 0; ; i++) {
+            File f = segmentFile(dir, sessionId, i);
+            if (!f.isFile()) break;
+            segments.add(f);
+        }
+        return segments;
+    }
+
+    /** Session ids found in {@code dir}, oldest first. */
+    @NonNull
+    public static List<String> listSessions(@NonNull File dir) {
+        List<String> sessions = new ArrayList<>();
+        String[] names = dir.list();
+        if (names == null) return sessions;
+        String first = String.format(Locale.US, "-%03d%s", 0, SUFFIX);
+        for (String name : names) {
+            if (name.endsWith(first)) {
+                sessions.add(name.substring(0, name.length() - first.length()));
+            }
+        }
+        // Ids embed the start time; sort numerically so "session-9" comes before "session-10".
+        sessions.sort((a, b) -> a.length() != b.length() ? a.length() - b.length() : a.compareTo(b));
+        return sessions;
+    }
+
+    /** Deletes all but the newest {@code keep} sessions in {@code dir}. */
+    public static void deleteOldSessions(@NonNull File dir, int keep) {
+        List<String> sessions = listSessions(dir);
+        for (int i = 0; i < sessions.size() - keep; i++) {
+            for (File f : listSegments(dir, sessions.get(i))) {
+                //noinspection ResultOfMethodCallIgnored
+                f.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays back a session written by {@link SessionRecorder}, either paced like the original
+ * (optionally faster) or as fast as the sink takes it.
+ *
+ * Replays run on the calling thread, which stands in for the link's reader and writer threads;
+ * interrupt it to stop early.
+ */
+public final class SessionReplayer {
+
+    public interface Sink {
+        /** The payload is only valid during the call. */
+        void onRecord(byte kind, long timeNanos, @NonNull byte[] payload, int length);
+    }
+
+    private final List<File> segments;
+
+    public SessionReplayer(@NonNull List<File> segments) {
+        this.segments = new ArrayList<>(segments);
+    }
+
+    @NonNull
+    public static SessionReplayer forSession(@NonNull File dir, @NonNull String sessionId) throws IOException {
+        List<File> segments = SessionRecorder.listSegments(dir, sessionId);
+        if (segments.isEmpty()) {
+            throw new IOException("No recorded session " + sessionId + " in " + dir);
+        }
+        return new SessionReplayer(segments);
+    }
+
+    /**
+     * Feeds every record to {@code sink} in order.
+     *
+     * @param speed 1 to keep the recorded timing, 2 for twice as fast, 0 (or less) for no pacing
+     * @return the number of records replayed
+     */
+    public long replay(@NonNull Sink sink, double speed) throws IOException, InterruptedException {
+        byte[] payload = new byte[1024];
+        long count = 0;
+        long firstRecordNanos = 0;
+        long startNanos = 0;
+        for (File file : segments) {
+            MappedByteBuffer in = map(file);
+            while (in.remaining() >= SessionRecorder.RECORD_HEADER_BYTES) {
+                int size = in.getInt();
+                if (size == 0) break;
+                int length = size - SessionRecorder.RECORD_HEADER_BYTES;
+                if (length < 0 || length > in.remaining() - 9) {
+                    throw new IOException("Corrupt record in " + file.getName() + " at " + (in.position() - 4));
+                }
+                byte kind = in.get();
+                long timeNanos = in.getLong();
+                if (length > payload.length) payload = new byte[Math.max(length, payload.length * 2)];
+                in.get(payload, 0, length);
+
+                if (count == 0) {
+                    firstRecordNanos = timeNanos;
+                    startNanos = System.nanoTime();
+                } else if (speed > 0) {
+                    long due = startNanos + (long) ((timeNanos - firstRecordNanos) / speed);
+                    long wait;
+                    while ((wait = due - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                        if (Thread.interrupted()) throw new InterruptedException();
+                    }
+                }
+                if (Thread.interrupted()) throw new InterruptedException();
+                sink.onRecord(kind, timeNanos, payload, length);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            MappedByteBuffer in = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            if (in.remaining() < SessionRecorder.HEADER_BYTES || in.getInt() != SessionRecorder.MAGIC) {
+                throw new IOException(file.getName() + " is not a session segment");
+            }
+            int version = in.getInt();
+            if (version != SessionRecorder.VERSION) {
+                throw new IOException(file.getName() + " has unsupported version " + version);
+            }
+            in.position(SessionRecorder.HEADER_BYTES);
+            return in;
+        }
+    }
+
+    /**
+     * A sink that splits received bytes into text lines the way a live {@link BluetoothLink}
+     * does, with decoders of its own: a replay runs on its own thread and must not touch the
+     * decoder state of a live link. Binary frames are skipped; sent commands are passed to
+     * {@code sent} as recorded.
+     */
+    @NonNull
+    public static Sink toLines(@NonNull LineDecoder.Listener lines, @Nullable Sink sent) {
+        LineDecoder lineDecoder = new LineDecoder(lines);
+        BtFrameDecoder frameDecoder = new BtFrameDecoder(new BtFrameDecoder.Listener() {
+            @Override
+            public void onFrame(int type, int seq, @NonNull byte[] payload, int length) {
+            }
+
+            @Override
+            public void onText(@NonNull byte[] buffer, int offset, int length) {
+                lineDecoder.feed(buffer, offset, length);
+            }
+        });
+        return (kind, timeNanos, payload, length) -> {
+            if (kind == SessionRecorder.KIND_RECEIVED) {
+                frameDecoder.feed(payload, 0, length);
+            } else if (kind == SessionRecorder.KIND_SENT && sent != null) {
+                sent.onRecord(kind, timeNanos, payload, length);
+            }
+        };
+    }
+
+    /**
+     * A sink that plays the session into a link listener: received bytes as {@code onData},
+     * sent commands as {@code onWritten}, like a live {@link RfcommEngine} would.
+     */
+    @NonNull
+    public static Sink toEngineListener(@NonNull RfcommEngine.Listener listener) {
+        return (kind, timeNanos, payload, length) -> {
+            if (kind == SessionRecorder.KIND_RECEIVED) {
+                listener.onData(payload, length);
+            } else if (kind == SessionRecorder.KIND_SENT) {
+                byte[] command = new byte[length];
+                System.arraycopy(payload, 0, command, 0, length);
+                listener.onWritten(command);
+            }
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Compact binary encoding of robot commands for the UDP control transport.
+ *
+ * Every datagram is 8 bytes:
+ * <pre>
+ *   [0]    magic 0xA5
+ *   [1]    opcode (low 7 bits) | 0x80 if the sender wants an ACK
+ *   [2..5] sequence number, big-endian, wraps around
+ *   [6]    arg0 (servo number, or left wheel speed + 100 for drive)
+ *   [7]    arg1 (servo angle, or right wheel speed + 100 for drive)
+ * </pre>
+ * The receiver answers an ACK request with an {@link #OP_ACK} packet carrying the same sequence.
+ */
+public final class UdpCommandCodec {
+
+    public static final int PACKET_SIZE = 8;
+    public static final int MAGIC = 0xA5;
+    public static final int FLAG_ACK_REQUESTED = 0x80;
+
+    public static final int OP_FORWARD = 1;
+    public static final int OP_BACKWARD = 2;
+    public static final int OP_LEFT = 3;
+    public static final int OP_RIGHT = 4;
+    public static final int OP_STOP = 5;
+    public static final int OP_SERVO = 6;
+    public static final int OP_DRIVE = 7;
+    /** Drive speeds (-100..100) are sent offset by this so they fit an unsigned byte. */
+    public static final int DRIVE_OFFSET = 100;
+    public static final int OP_ACK = 0x7F;
+
+    private UdpCommandCodec() {
+    }
+
+    public static final class Packet {
+        public final int seq;
+        public final int opcode;
+        public final int arg0;
+        public final int arg1;
+        public final boolean ackRequested;
+
+        public Packet(int seq, int opcode, int arg0, int arg1, boolean ackRequested) {
+            this.seq = seq;
+            this.opcode = opcode;
+            this.arg0 = arg0;
+            this.arg1 = arg1;
+            this.ackRequested = ackRequested;
+        }
+    }
+
+    @NonNull
+    public static byte[] encode(int seq, int opcode, int arg0, int arg1, boolean ackRequested) {
+        byte[] out = new byte[PACKET_SIZE];
+        out[0] = (byte) MAGIC;
+        out[1] = (byte) ((opcode & 0x7F) | (ackRequested ? FLAG_ACK_REQUESTED : 0));
+        out[2] = (byte) (seq >>> 24);
+        out[3] = (byte) (seq >>> 16);
+        out[4] = (byte) (seq >>> 8);
+        out[5] = (byte) seq;
+        out[6] = (byte) arg0;
+        out[7] = (byte) arg1;
+        return out;
+    }
+
+    @NonNull
+    public static byte[] encodeAck(int seq) {
+        return encode(seq, OP_ACK, 0, 0, false);
+    }
+
+    /**
+     * Decodes a datagram, or returns null if it is not a valid command packet.
+     */
+    @Nullable
+    public static Packet decode(@NonNull byte[] buf, int offset, int length) {
+        if (length != PACKET_SIZE) return null;
+        if ((buf[offset] & 0xFF) != MAGIC) return null;
+        int typeByte = buf[offset + 1] & 0xFF;
+        int seq = ((buf[offset + 2] & 0xFF) << 24)
+                | ((buf[offset + 3] & 0xFF) << 16)
+                | ((buf[offset + 4] & 0xFF) << 8)
+                | (buf[offset + 5] & 0xFF);
+        return new Packet(seq, typeByte & 0x7F, buf[offset + 6] & 0xFF, buf[offset + 7] & 0xFF,
+                (typeByte & FLAG_ACK_REQUESTED) != 0);
+    }
+
+    /**
+     * True if {@code seq} is newer than {@code lastSeq}, tolerating wrap-around.
+     */
+    public static boolean isNewer(int seq, int lastSeq) {
+        return seq - lastSeq > 0;
+    }
+
+    /**
+     * Maps an HTTP endpoint ("/forward", "/set?servo=2&angle=90") to {opcode, arg0, arg1},
+     * or returns null if the endpoint has no UDP equivalent.
+     */
+    @Nullable
+    public static int[] fromEndpoint(@NonNull String endpoint) {
+        switch (endpoint) {
+            case "/forward":
+                return new int[]{OP_FORWARD, 0, 0};
+            case "/backward":
+                return new int[]{OP_BACKWARD, 0, 0};
+            case "/left":
+                return new int[]{OP_LEFT, 0, 0};
+            case "/right":
+                return new int[]{OP_RIGHT, 0, 0};
+            case "/stop":
+                return new int[]{OP_STOP, 0, 0};
+            default:
+                break;
+        }
+        if (endpoint.startsWith("/drive?")) {
+            Integer left = querySigned(endpoint, "l=");
+            Integer right = querySigned(endpoint, "r=");
+            if (left != null && right != null && Math.abs(left) <= 100 && Math.abs(right) <= 100) {
+                return new int[]{OP_DRIVE, left + DRIVE_OFFSET, right + DRIVE_OFFSET};
+            }
+            return null;
+        }
+        if (endpoint.startsWith("/set?")) {
+            int servo = queryInt(endpoint, "servo=");
+            int angle = queryInt(endpoint, "angle=");
+            if (servo >= 0 && servo <= 255 && angle >= 0 && angle <= 180) {
+                return new int[]{OP_SERVO, servo, angle};
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Integer querySigned(String endpoint, String key) {
+        int idx = endpoint.indexOf(key);
+        if (idx < 0) return null;
+        int start = idx + key.length();
+        int end = endpoint.indexOf('&', start);
+        if (end < 0) end = endpoint.length();
+        try {
+            return Integer.parseInt(endpoint.substring(start, end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int queryInt(String endpoint, String key) {
+        Integer value = querySigned(endpoint, key);
+        return value != null ? value : -1;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reference receiver for the UDP control protocol, i.e. what the robot firmware is expected to do.
+ *
+ * Runs on plain JVM so the transport can be exercised on loopback: it ACKs packets that ask
+ * for it, and drops packets whose sequence is not newer than the last one seen from the same
+ * sender, so a reordered "forward" can never override a later "stop".
+ */
+public class UdpCommandReceiver implements Closeable {
+
+    public interface Listener {
+        void onCommand(@NonNull UdpCommandCodec.Packet packet);
+    }
+
+    private final DatagramSocket socket;
+    private final Listener listener;
+    private final Map<SocketAddress, Integer> lastSeqBySender = new HashMap<>();
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong staleCount = new AtomicLong();
+    private final AtomicLong malformedCount = new AtomicLong();
+
+    private Thread thread;
+
+    /**
+     * @param port UDP port to listen on, or 0 for an ephemeral port
+     */
+    public UdpCommandReceiver(int port, @NonNull Listener listener) throws IOException {
+        this.socket = new DatagramSocket(port, InetAddress.getLoopbackAddress());
+        this.listener = listener;
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    public void start() {
+        thread = new Thread(this::receiveLoop, "UdpCommandReceiver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void receiveLoop() {
+        byte[] buf = new byte[64];
+        while (!socket.isClosed()) {
+            DatagramPacket in = new DatagramPacket(buf, buf.length);
+            try {
+                socket.receive(in);
+            } catch (IOException e) {
+                return;
+            }
+
+            UdpCommandCodec.Packet packet = UdpCommandCodec.decode(buf, 0, in.getLength());
+            if (packet == null || packet.opcode == UdpCommandCodec.OP_ACK) {
+                malformedCount.incrementAndGet();
+                continue;
+            }
+
+            SocketAddress sender = in.getSocketAddress();
+            Integer last = lastSeqBySender.get(sender);
+            if (last != null && !UdpCommandCodec.isNewer(packet.seq, last)) {
+                staleCount.incrementAndGet();
+            } else {
+                lastSeqBySender.put(sender, packet.seq);
+                acceptedCount.incrementAndGet();
+                listener.onCommand(packet);
+            }
+
+            if (packet.ackRequested) {
+                // ACK after applying, and ACK stale duplicates too so the sender stops waiting.
+                byte[] ack = UdpCommandCodec.encodeAck(packet.seq);
+                try {
+                    socket.send(new DatagramPacket(ack, ack.length, sender));
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    public long getStaleDroppedCount() {
+        return staleCount.get();
+    }
+
+    public long getMalformedCount() {
+        return malformedCount.get();
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+
+/**
+ * Sends {@link UdpCommandCodec} datagrams to the robot.
+ *
+ * Commands are fire-and-forget unless an ACK is requested, in which case {@link #send} blocks
+ * until the matching ACK arrives or the ACK timeout expires. Like {@link KeepAliveHttpClient},
+ * this is meant to be driven from a single sender thread.
+ */
+public class UdpCommandTransport implements Closeable {
+
+    private final String host;
+    private final int port;
+    private volatile int ackTimeoutMs;
+
+    private DatagramSocket socket;
+    private int nextSeq = 1;
+
+    public UdpCommandTransport(@NonNull String host, int port, int ackTimeoutMs) {
+        this.host = host;
+        this.port = port;
+        this.ackTimeoutMs = ackTimeoutMs;
+    }
+
+    @NonNull
+    public String getAddress() {
+        return "udp://" + host + ":" + port;
+    }
+
+    public void setAckTimeoutMs(int ackTimeoutMs) {
+        this.ackTimeoutMs = ackTimeoutMs;
+    }
+
+    /**
+     * Sends one command and returns its sequence number.
+     *
+     * @throws SocketTimeoutException if an ACK was requested and none arrived in time
+     */
+    public int send(int opcode, int arg0, int arg1, boolean ackRequested) throws IOException {
+        DatagramSocket s = ensureSocket();
+        int seq = nextSeq++;
+        byte[] payload = UdpCommandCodec.encode(seq, opcode, arg0, arg1, ackRequested);
+        s.send(new DatagramPacket(payload, payload.length));
+
+        if (ackRequested) {
+            awaitAck(s, seq);
+        }
+        return seq;
+    }
+
+    private void awaitAck(DatagramSocket s, int seq) throws IOException {
+        byte[] buf = new byte[UdpCommandCodec.PACKET_SIZE];
+        long deadline = System.currentTimeMillis() + ackTimeoutMs;
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new SocketTimeoutException("No ACK for seq " + seq);
+            }
+            s.setSoTimeout((int) remaining);
+            DatagramPacket in = new DatagramPacket(buf, buf.length);
+            s.receive(in);
+            UdpCommandCodec.Packet ack = UdpCommandCodec.decode(buf, 0, in.getLength());
+            // Late ACKs for earlier commands are skipped.
+            if (ack != null && ack.opcode == UdpCommandCodec.OP_ACK && ack.seq == seq) {
+                return;
+            }
+        }
+    }
+
+    private DatagramSocket ensureSocket() throws IOException {
+        if (socket == null || socket.isClosed()) {
+            DatagramSocket s = new DatagramSocket();
+            s.connect(new InetSocketAddress(host, port));
+            socket = s;
+        }
+        return socket;
+    }
+
+    @Override
+    public void close() {
+        DatagramSocket s = socket;
+        socket = null;
+        if (s != null) {
+            s.close();
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.robotcontrol.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.net.SocketFactory;
+
+/**
+ * Small RFC 6455 WebSocket client for streaming commands to the robot and reading its replies.
+ *
+ * Only what the robot protocol needs is implemented: text frames, ping/pong and close.
+ * Outgoing frames are masked as the RFC requires; incoming fragmented messages are reassembled.
+ * Received messages are delivered on a dedicated reader thread. The robot's silence is not taken
+ * on trust: after {@link #setPingIntervalMs ping interval} without a frame the client pings, and
+ * if nothing arrives within another interval the session ends with a SocketTimeoutException.
+ */
+public class WebSocketClient {
+
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private static final int OP_CONTINUATION = 0x0;
+    private static final int OP_TEXT = 0x1;
+    private static final int OP_BINARY = 0x2;
+    private static final int OP_CLOSE = 0x8;
+    private static final int OP_PING = 0x9;
+    private static final int OP_PONG = 0xA;
+
+    private static final int MAX_MESSAGE_BYTES = 64 * 1024;
+    public static final int DEFAULT_PING_INTERVAL_MS = 5000;
+
+    public interface Listener {
+        void onMessage(@NonNull String text);
+
+        /** Called once when the session ends; {@code error} is null for a clean close. */
+        void onClosed(@Nullable Exception error);
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private volatile SocketFactory socketFactory;
+    private volatile int pingIntervalMs = DEFAULT_PING_INTERVAL_MS;
+
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+    private Listener listener;
+    private Thread readerThread;
+    private volatile boolean closed = true;
+    private volatile boolean closing;
+
+    /**
+     * Opens later connections through {@code factory} (e.g. the robot network's); null for plain
+     * sockets. An open session is left alone.
+     */
+    public void setSocketFactory(@Nullable SocketFactory factory) {
+        this.socketFactory = factory;
+    }
+
+    /** Applies from the next {@link #connect}. */
+    public void setPingIntervalMs(int pingIntervalMs) {
+        if (pingIntervalMs <= 0) throw new IllegalArgumentException("pingIntervalMs must be positive");
+        this.pingIntervalMs = pingIntervalMs;
+    }
+
+    /**
+     * Opens the TCP connection, performs the upgrade handshake and starts the reader thread.
+     */
+    public synchronized void connect(@NonNull String host, int port, @NonNull String path,
+                                     int connectTimeoutMs, @NonNull Listener listener) throws IOException {
+        if (!closed) {
+            throw new IllegalStateException("Already connected");
+        }
+        SocketFactory factory = socketFactory;
+        Socket s = factory != null ? factory.createSocket() : new Socket();
+        try {
+            s.setTcpNoDelay(true);
+            s.connect(new InetSocketAddress(host, port), connectTimeoutMs);
+            s.setSoTimeout(connectTimeoutMs);
+
+            InputStream sin = new BufferedInputStream(s.getInputStream());
+            OutputStream sout = s.getOutputStream();
+            handshake(sin, sout, host, port, path);
+
+            // Wakes the reader when the robot goes quiet, so it can ping and notice a dead link.
+            s.setSoTimeout(pingIntervalMs);
+            socket = s;
+            in = sin;
+            out = sout;
+        } catch (IOException e) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+
+        this.listener = listener;
+        closing = false;
+        closed = false;
+        readerThread = new Thread(this::readLoop, "WebSocketClient-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    public void sendText(@NonNull String text) throws IOException {
+        sendFrame(OP_TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a close frame (best effort) and tears the connection down.
+     */
+    public void close() {
+        if (closed) return;
+        // The robot may drop the connection as soon as it sees our close frame; that is not an error.
+        closing = true;
+        try {
+            sendFrame(OP_CLOSE, new byte[]{0x03, (byte) 0xE8}); // 1000 normal closure
+        } catch (IOException ignored) {
+        }
+        shutdown(null);
+    }
+
+    private void handshake(InputStream sin, OutputStream sout, String host, int port, String path) throws IOException {
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+        String key = Base64.getEncoder().encodeToString(nonce);
+
+        String request = "GET " + path + " HTTP/1.1\r\n"
+                + "Host: " + host + ":" + port + "\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + key + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n"
+                + "\r\n";
+        sout.write(request.getBytes(StandardCharsets.US_ASCII));
+        sout.flush();
+
+        String status = readLine(sin);
+        if (status == null || !status.startsWith("HTTP/1.1 101")) {
+            throw new IOException("WebSocket upgrade rejected: " + status);
+        }
+        String accept = null;
+        String line;
+        while ((line = readLine(sin)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && "Sec-WebSocket-Accept".equalsIgnoreCase(line.substring(0, colon).trim())) {
+                accept = line.substring(colon + 1).trim();
+            }
+        }
+        if (!acceptKeyFor(key).equals(accept)) {
+            throw new IOException("Bad Sec-WebSocket-Accept");
+        }
+    }
+
+    @NonNull
+    public static String acceptKeyFor(@NonNull String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void sendFrame(int opcode, byte[] payload) throws IOException {
+        OutputStream o = out;
+        if (o == null || closed) {
+            throw new IOException("WebSocket not connected");
+        }
+        int len = payload.length;
+        byte[] header;
+        if (len < 126) {
+            header = new byte[]{(byte) (0x80 | opcode), (byte) (0x80 | len)};
+        } else if (len <= 0xFFFF) {
+            header = new byte[]{(byte) (0x80 | opcode), (byte) (0x80 | 126), (byte) (len >>> 8), (byte) len};
+        } else {
+            throw new IOException("Frame too large");
+        }
+
+        byte[] mask = new byte[4];
+        random.nextBytes(mask);
+        byte[] frame = new byte[header.length + 4 + len];
+        System.arraycopy(header, 0, frame, 0, header.length);
+        System.arraycopy(mask, 0, frame, header.length, 4);
+        int base = header.length + 4;
+        for (int i = 0; i < len; i++) {
+            frame[base + i] = (byte) (payload[i] ^ mask[i & 3]);
+        }
+
+        // One write per frame; the lock keeps the reader's pong from interleaving with a command.
+        synchronized (this) {
+            o.write(frame);
+            o.flush();
+        }
+    }
+
+    private void readLoop() {
+        InputStream input = in;
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        int messageOpcode = -1;
+        boolean pingOutstanding = false;
+        try {
+            while (!closed) {
+                int b0;
+                try {
+                    b0 = input.read();
+                } catch (SocketTimeoutException e) {
+                    if (pingOutstanding) {
+                        throw new SocketTimeoutException("No frame from robot for " + 2 * pingIntervalMs + " ms");
+                    }
+                    pingOutstanding = true;
+                    sendFrame(OP_PING, new byte[0]);
+                    continue;
+                }
+                // Any frame, pong or not, shows the link is alive. A timeout inside a frame
+                // is not recoverable and ends the session below.
+                pingOutstanding = false;
+                int b1 = input.read();
+                if (b0 < 0 || b1 < 0) throw new EOFException("Connection closed by robot");
+
+                boolean fin = (b0 & 0x80) != 0;
+                int opcode = b0 & 0x0F;
+                boolean masked = (b1 & 0x80) != 0;
+                long len = b1 & 0x7F;
+                if (len == 126) {
+                    len = (readByte(input) << 8) | readByte(input);
+                } else if (len == 127) {
+                    len = 0;
+                    for (int i = 0; i < 8; i++) len = (len << 8) | readByte(input);
+                }
+                // A 64-bit length with the top bit set reads as negative.
+                if (len < 0 || len > MAX_MESSAGE_BYTES) throw new IOException("Bad frame length: " + len);
+
+                byte[] mask = null;
+                if (masked) {
+                    mask = new byte[4];
+                    readFully(input, mask);
+                }
+                byte[] payload = new byte[(int) len];
+                readFully(input, payload);
+                if (mask != null) {
+                    for (int i = 0; i < payload.length; i++) payload[i] ^= mask[i & 3];
+                }
+
+                switch (opcode) {
+                    case OP_PING:
+                        sendFrame(OP_PONG, payload);
+                        break;
+                    case OP_PONG:
+                        break;
+                    case OP_CLOSE:
+                        shutdown(null);
+                        return;
+                    case OP_TEXT:
+                    case OP_BINARY:
+                    case OP_CONTINUATION:
+                        if (opcode != OP_CONTINUATION) {
+                            message.reset();
+                            messageOpcode = opcode;
+                        }
+                        if (message.size() + payload.length > MAX_MESSAGE_BYTES) {
+                            throw new IOException("Message too large");
+                        }
+                        message.write(payload, 0, payload.length);
+                        if (fin) {
+                            if (messageOpcode == OP_TEXT) {
+                                deliver(new String(message.toByteArray(), StandardCharsets.UTF_8));
+                            }
+                            message.reset();
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unknown opcode " + opcode);
+                }
+            }
+        } catch (IOException e) {
+            shutdown(closed || closing ? null : e);
+        } catch (RuntimeException e) {
+            // Never let the reader die without telling the listener.
+            shutdown(closed || closing ? null : new IOException("WebSocket reader failed", e));
+        }
+    }
+
+    private void deliver(String text) {
+        Listener l = listener;
+        if (l == null) return;
+        try {
+            l.onMessage(text);
+        } catch (Exception ignored) {
+        }
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException("Connection closed by robot");
+        return b;
+    }
+
+    private static void readFully(InputStream in, byte[] buf) throws IOException {
+        int off = 0;
+        while (off < buf.length) {
+            int n = in.read(buf, off, buf.length - off);
+            if (n < 0) throw new EOFException("Connection closed by robot");
+            off += n;
+        }
+    }
+
+    private void shutdown(@Nullable Exception error) {
+        Listener l;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            l = listener;
+            listener = null;
+            try {
+                if (socket != null) socket.close();
+            } catch (IOException ignored) {
+            }
+            socket = null;
+            in = null;
+            out = null;
+        }
+        if (l != null) {
+            try {
+                l.onClosed(error);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int len = sb.length();
+                if (len > 0 && sb.charAt(len - 1) == '\r') sb.setLength(len - 1);
+                return sb.toString();
+            }
+            sb.append((char) c);
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+}
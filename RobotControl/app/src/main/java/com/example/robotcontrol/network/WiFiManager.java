@@ -4,14 +4,12 @@ import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.Network;
 import android.net.NetworkCapabilities;
-import android.net.NetworkRequest;
 import android.net.wifi.WifiConfiguration;
-import android.net.wifi.WifiNetworkSpecifier;
 import android.os.Build;
-import android.os.Handler;
-import android.os.Looper;
 
-import androidx.annotation.NonNull;
+import com.example.robotcontrol.logic.WifiLinkStateMachine;
+
+import java.util.concurrent.CancellationException;
 
 /**
  * WiFi Manager for connecting to robot WiFi networks
@@ -22,8 +20,7 @@ public class WiFiManager {
     private android.net.wifi.WifiManager wifiManager;
     private ConnectivityManager connectivityManager;
 
-    private ConnectivityManager.NetworkCallback activeNetworkCallback;
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private WifiConnection.Listener lossListener;
     
     public interface ConnectionCallback {
         void onConnected(Network network);
@@ -64,75 +61,37 @@ public class WiFiManager {
     }
     
     /**
-     * Modern WiFi connection (Android 10+)
+     * Modern WiFi connection (Android 10+), through the shared {@link WifiConnection}
      */
     private void connectToWiFiModern(String ssid, String password, ConnectionCallback callback) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            // Clean up any previous request.
-            disconnect();
-
-            WifiNetworkSpecifier.Builder builder = new WifiNetworkSpecifier.Builder()
-                    .setSsid(ssid)
-                    .setWpa2Passphrase(password);
-            
-            WifiNetworkSpecifier wifiNetworkSpecifier = builder.build();
-            
-            NetworkRequest.Builder requestBuilder = new NetworkRequest.Builder()
-                    .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
-                    // ESP32 AP usually has no Internet; avoid waiting for Internet validation.
-                    .removeCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
-                    .setNetworkSpecifier(wifiNetworkSpecifier);
-            
-            NetworkRequest networkRequest = requestBuilder.build();
+        WifiConnection connection = WifiConnection.get(context);
+        stopWatching();
+        connection.connect(ssid, password).whenComplete((network, error) -> {
+            if (error == null) {
+                watchForLoss(connection, callback);
+                callback.onConnected(network);
+            } else if (!(error instanceof CancellationException)) {
+                callback.onConnectionFailed(error.getMessage());
+            }
+        });
+    }
 
-            final Runnable timeout = () -> {
-                try {
-                    if (activeNetworkCallback != null) {
-                        connectivityManager.unregisterNetworkCallback(activeNetworkCallback);
-                    }
-                } catch (Exception ignored) {
-                }
-                activeNetworkCallback = null;
-                callback.onConnectionFailed("Connection timed out. Accept the WiFi prompt and try again.");
-            };
+    private void watchForLoss(WifiConnection connection, ConnectionCallback callback) {
+        stopWatching();
+        lossListener = (transition, network) -> {
+            if (transition.to == WifiLinkStateMachine.State.LOST) callback.onDisconnected();
+        };
+        connection.addListener(lossListener);
+    }
 
-            mainHandler.postDelayed(timeout, 15000);
-            
-            ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
-                @Override
-                public void onAvailable(@NonNull Network network) {
-                    super.onAvailable(network);
-                    mainHandler.removeCallbacks(timeout);
-                    connectivityManager.bindProcessToNetwork(network);
-                    callback.onConnected(network);
-                }
-                
-                @Override
-                public void onUnavailable() {
-                    super.onUnavailable();
-                    mainHandler.removeCallbacks(timeout);
-                    callback.onConnectionFailed("Network unavailable");
-                }
-                
-                @Override
-                public void onLost(@NonNull Network network) {
-                    super.onLost(network);
-                    callback.onDisconnected();
-                }
-            };
-            
-            activeNetworkCallback = networkCallback;
-            try {
-                connectivityManager.requestNetwork(networkRequest, networkCallback);
-            } catch (SecurityException se) {
-                mainHandler.removeCallbacks(timeout);
-                activeNetworkCallback = null;
-                callback.onConnectionFailed("WiFi permission denied. Grant Nearby WiFi / Location permission and try again.");
-            } catch (IllegalArgumentException iae) {
-                mainHandler.removeCallbacks(timeout);
-                activeNetworkCallback = null;
-                callback.onConnectionFailed("WiFi request failed: " + iae.getMessage());
-            }
+    /**
+     * Stop reporting loss of the network to the last callback, e.g. from onDestroy.
+     * The connection itself stays up.
+     */
+    public void stopWatching() {
+        if (lossListener != null) {
+            WifiConnection.get(context).removeListener(lossListener);
+            lossListener = null;
         }
     }
     
@@ -170,19 +129,8 @@ public class WiFiManager {
      * Disconnect from current WiFi
      */
     public void disconnect() {
-        if (connectivityManager != null) {
-            try {
-                if (activeNetworkCallback != null) {
-                    connectivityManager.unregisterNetworkCallback(activeNetworkCallback);
-                }
-            } catch (Exception ignored) {
-            }
-            activeNetworkCallback = null;
-            try {
-                connectivityManager.bindProcessToNetwork(null);
-            } catch (Exception ignored) {
-            }
-        }
+        stopWatching();
+        WifiConnection.get(context).disconnect();
 
         if (wifiManager != null) {
             try {
@@ -4,82 +4,60 @@ import android.content.Context;
 import android.net.wifi.ScanResult;
 import android.net.wifi.WifiManager;
 import android.os.Build;
+import android.os.SystemClock;
+
+import com.example.robotcontrol.AppSettings;
+import com.example.robotcontrol.logic.RobotApMatcher;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * WiFi Access Point Scanner for detecting robot WiFi networks
+ * WiFi Access Point Scanner for detecting robot WiFi networks. Scans themselves go through
+ * {@link WifiScanService}, which shares them between screens and stays within the platform's
+ * throttling.
  */
 public class WifiAPScanner {
     
     private Context context;
     private WifiManager wifiManager;
-    private List<ScanResult> scanResults;
-    
-    public interface ScanCallback {
-        void onScanComplete(List<ScanResult> results);
-        void onScanFailed(String error);
-    }
     
     public WifiAPScanner(Context context) {
         this.context = context;
         this.wifiManager = (WifiManager) context.getApplicationContext()
                 .getSystemService(Context.WIFI_SERVICE);
-        this.scanResults = new ArrayList<>();
-    }
-    
-    /**
-     * Start WiFi scan
-     */
-    public boolean startScan(ScanCallback callback) {
-        if (wifiManager == null) {
-            callback.onScanFailed("WiFi Manager not available");
-            return false;
-        }
-        
-        if (!wifiManager.isWifiEnabled()) {
-            callback.onScanFailed("WiFi is disabled");
-            return false;
-        }
-        
-        // Check permissions for Android 6.0+
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            // Permission check should be done in Activity before calling this
-        }
-        
-        boolean success = wifiManager.startScan();
-        if (success) {
-            // Get scan results
-            scanResults = wifiManager.getScanResults();
-            callback.onScanComplete(scanResults);
-        } else {
-            callback.onScanFailed("Scan failed to start");
-        }
-        
-        return success;
     }
     
     /**
-     * Filter scan results to find robot APs
-     * Assuming robot APs have specific SSID pattern like "ROBOT_*" or "ESP_*"
+     * Filter scan results to find robot APs, using the rules from settings
+     * ({@link AppSettings#getRobotApMatcher}), strongest and most recently seen first.
      */
     public List<ScanResult> filterRobotAPs(List<ScanResult> results) {
+        return filterRobotAPs(results, AppSettings.getRobotApMatcher(context));
+    }
+
+    public static List<ScanResult> filterRobotAPs(List<ScanResult> results, RobotApMatcher matcher) {
         List<ScanResult> robotAPs = new ArrayList<>();
         
         for (ScanResult result : results) {
-            String ssid = result.SSID;
-            if (ssid != null && (
-                    ssid.equalsIgnoreCase("Robot_AP") ||
-                    ssid.startsWith("ROBOT_") ||
-                    ssid.startsWith("Robot") ||
-                    ssid.startsWith("ESP_") ||
-                    ssid.startsWith("Arduino_")
-            )) {
+            if (result != null && matcher.matches(result.SSID, result.BSSID)) {
                 robotAPs.add(result);
             }
         }
         
+        long nowMicros = SystemClock.elapsedRealtime() * 1000;
+        RobotApMatcher.rank(robotAPs, new RobotApMatcher.Signal<ScanResult>() {
+            @Override
+            public int rssiDbm(ScanResult item) {
+                return item.level;
+            }
+
+            @Override
+            public long ageMs(ScanResult item) {
+                // ScanResult.timestamp: microseconds since boot when the AP was last seen.
+                return (nowMicros - item.timestamp) / 1000;
+            }
+        });
         return robotAPs;
     }
     
@@ -0,0 +1,305 @@
+package com.example.robotcontrol.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.net.wifi.WifiNetworkSpecifier;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.robotcontrol.logic.WifiLinkStateMachine;
+import com.example.robotcontrol.logic.WifiLinkStateMachine.State;
+import com.example.robotcontrol.logic.WifiLinkStateMachine.Transition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The app's one request for a robot WiFi network, shared by every screen.
+ *
+ * Requests go through {@link ConnectivityManager#requestNetwork} with the platform's own timeout
+ * and callbacks delivered on the main thread, so nothing blocks while the user answers the
+ * system prompt: callers get a future, and screens that only care about the link register a
+ * {@link Listener}. When the network comes up the process is bound to it, because robot APs have
+ * no internet and would otherwise lose the default route to mobile data. Every state change is
+ * timed by {@link WifiLinkStateMachine}.
+ *
+ * Call from the main thread; futures complete and listeners run on it.
+ */
+public final class WifiConnection {
+
+    private static final String TAG = "WifiConnection";
+
+    /** How long the platform waits for the user and the network before onUnavailable. */
+    public static final int REQUEST_TIMEOUT_MS = 15_000;
+
+    public interface Listener {
+        /**
+         * @param network the network now in use; null unless {@code transition.to} is AVAILABLE
+         *                or BOUND
+         */
+        void onStateChanged(@NonNull Transition transition, @Nullable Network network);
+    }
+
+    private static WifiConnection instance;
+
+    private final ConnectivityManager connectivityManager;
+    private final WifiManager wifiManager;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final WifiLinkStateMachine machine = new WifiLinkStateMachine();
+
+    // Main thread only.
+    private final List<Listener> listeners = new ArrayList<>();
+    @Nullable
+    private Request active;
+    @Nullable
+    private Network network;
+    @Nullable
+    private String networkSsid;
+
+    private WifiConnection(@NonNull Context context) {
+        connectivityManager = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+        wifiManager = (WifiManager) context.getApplicationContext()
+                .getSystemService(Context.WIFI_SERVICE);
+    }
+
+    @NonNull
+    public static synchronized WifiConnection get(@NonNull Context context) {
+        if (instance == null) {
+            instance = new WifiConnection(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Asks for {@code ssid}; the system shows its connect prompt. Joins a request for the same
+     * SSID that is still running, completes at once if already bound to it, and otherwise
+     * replaces the current request (whose future is cancelled).
+     *
+     * @return completes with the bound network, or exceptionally with an IOException saying why
+     */
+    @NonNull
+    public CompletableFuture<Network> connect(@NonNull String ssid, @NonNull String password) {
+        if (active != null && ssid.equals(active.ssid)) {
+            if (machine.getState() == State.BOUND && network != null) {
+                return CompletableFuture.completedFuture(network);
+            }
+            if (machine.getState() == State.REQUESTING) return active.future;
+        }
+        WifiNetworkSpecifier specifier = new WifiNetworkSpecifier.Builder()
+                .setSsid(ssid)
+                .setWpa2Passphrase(password)
+                .build();
+        return start(ssid, specifier);
+    }
+
+    /**
+     * Binds the process to whatever WiFi the device is already on, e.g. a robot AP joined from
+     * Settings. No prompt; a request already running or bound (for any SSID) is reused.
+     */
+    @NonNull
+    public CompletableFuture<Network> bindToCurrentWifi() {
+        if (active != null) {
+            if (machine.getState() == State.BOUND && network != null) {
+                return CompletableFuture.completedFuture(network);
+            }
+            if (machine.getState() == State.REQUESTING) return active.future;
+        }
+        return start(null, null);
+    }
+
+    /** Drops the request and unbinds the process. Does not turn WiFi off or forget the AP. */
+    public void disconnect() {
+        Request request = active;
+        releaseRequest();
+        if (request != null) request.future.completeExceptionally(new CancellationException("Disconnected"));
+        notifyListeners(machine.release(now()), null);
+    }
+
+    public void addListener(@NonNull Listener listener) {
+        if (!listeners.contains(listener)) listeners.add(listener);
+    }
+
+    public void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    @NonNull
+    public State getState() {
+        return machine.getState();
+    }
+
+    /** The network the process is bound to, or null. */
+    @Nullable
+    public Network getNetwork() {
+        return machine.getState() == State.BOUND ? network : null;
+    }
+
+    /**
+     * SSID of the network the process is bound to: the requested one, or for
+     * {@link #bindToCurrentWifi()} the one the device was on when the network came up. Null when
+     * not bound or if the system would not say.
+     */
+    @Nullable
+    public String getBoundSsid() {
+        return getNetwork() != null ? networkSsid : null;
+    }
+
+    /** SSID of the current request; null if none, or if it is for whatever WiFi is up. */
+    @Nullable
+    public String getRequestedSsid() {
+        return active != null ? active.ssid : null;
+    }
+
+    /** See {@link WifiLinkStateMachine#getLastTimeToBoundMs()}. */
+    public long getLastTimeToBoundMs() {
+        return machine.getLastTimeToBoundMs();
+    }
+
+    /** See {@link WifiLinkStateMachine#getLastTimeToAvailableMs()}. */
+    public long getLastTimeToAvailableMs() {
+        return machine.getLastTimeToAvailableMs();
+    }
+
+    @NonNull
+    public List<Transition> getHistory() {
+        return machine.getHistory();
+    }
+
+    private CompletableFuture<Network> start(@Nullable String ssid, @Nullable WifiNetworkSpecifier specifier) {
+        Request previous = active;
+        releaseRequest();
+        if (previous != null) {
+            previous.future.completeExceptionally(new CancellationException("Replaced by a new request"));
+        }
+
+        Request request = new Request(ssid);
+        CompletableFuture<Network> future = request.future;
+        if (connectivityManager == null) {
+            future.completeExceptionally(new IOException("Connectivity service unavailable"));
+            return future;
+        }
+
+        NetworkRequest.Builder builder = new NetworkRequest.Builder()
+                .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+                // ESP32 APs have no internet; don't wait for validation.
+                .removeCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+        if (specifier != null) builder.setNetworkSpecifier(specifier);
+
+        active = request;
+        notifyListeners(machine.request(now()), null);
+        try {
+            connectivityManager.requestNetwork(builder.build(), request, main, REQUEST_TIMEOUT_MS);
+        } catch (SecurityException e) {
+            fail(request, "WiFi permission denied. Grant Nearby WiFi / Location permission and try again.");
+        } catch (IllegalArgumentException e) {
+            fail(request, "WiFi request failed: " + e.getMessage());
+        }
+        return future;
+    }
+
+    private void fail(Request request, String reason) {
+        if (request != active) return;
+        releaseRequest();
+        notifyListeners(machine.onUnavailable(now(), reason), null);
+        request.future.completeExceptionally(new IOException(reason));
+    }
+
+    /** Unregisters the active request and unbinds; the caller moves the state machine. */
+    private void releaseRequest() {
+        Request request = active;
+        active = null;
+        if (request != null) {
+            try {
+                connectivityManager.unregisterNetworkCallback(request);
+            } catch (IllegalArgumentException ignored) {
+                // Never registered (requestNetwork threw) or already released.
+            }
+        }
+        if (network != null) {
+            connectivityManager.bindProcessToNetwork(null);
+            network = null;
+            networkSsid = null;
+        }
+    }
+
+    @Nullable
+    private String currentWifiSsid() {
+        if (wifiManager == null) return null;
+        WifiInfo info = wifiManager.getConnectionInfo();
+        String ssid = info != null ? info.getSSID() : null;
+        // "<unknown ssid>" is WifiManager.UNKNOWN_SSID (API 30), returned without location access.
+        if (ssid == null || "<unknown ssid>".equals(ssid)) return null;
+        if (ssid.length() >= 2 && ssid.startsWith("\"") && ssid.endsWith("\"")) {
+            ssid = ssid.substring(1, ssid.length() - 1);
+        }
+        return ssid;
+    }
+
+    private void notifyListeners(@Nullable Transition transition, @Nullable Network network) {
+        if (transition == null) return;
+        Log.d(TAG, transition.toString());
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onStateChanged(transition, network);
+        }
+    }
+
+    private static long now() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    /** One requestNetwork call; callbacks from a request that has been replaced are ignored. */
+    private final class Request extends ConnectivityManager.NetworkCallback {
+        @Nullable
+        final String ssid;
+        final CompletableFuture<Network> future = new CompletableFuture<>();
+
+        Request(@Nullable String ssid) {
+            this.ssid = ssid;
+        }
+
+        @Override
+        public void onAvailable(@NonNull Network available) {
+            if (this != active) return;
+            network = available;
+            networkSsid = ssid != null ? ssid : currentWifiSsid();
+            notifyListeners(machine.onAvailable(now()), available);
+            if (connectivityManager.bindProcessToNetwork(available)) {
+                notifyListeners(machine.onBound(now()), available);
+                future.complete(available);
+            } else {
+                Log.w(TAG, "Could not bind the process to " + available);
+                future.completeExceptionally(new IOException("Could not route traffic over " + Objects.toString(ssid, "WiFi")));
+            }
+        }
+
+        @Override
+        public void onLost(@NonNull Network lost) {
+            if (this != active || !lost.equals(network)) return;
+            connectivityManager.bindProcessToNetwork(null);
+            network = null;
+            networkSsid = null;
+            notifyListeners(machine.onLost(now()), null);
+        }
+
+        @Override
+        public void onUnavailable() {
+            // The user dismissed the prompt, or nothing matching showed up in time.
+            fail(this, "Network unavailable. Accept the WiFi prompt and try again.");
+        }
+    }
+}
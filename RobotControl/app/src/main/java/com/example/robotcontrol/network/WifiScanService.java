@@ -0,0 +1,303 @@
+package com.example.robotcontrol.network;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.robotcontrol.logic.ScanBudget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The app's one WiFi scanner, shared by every screen that looks for robot APs.
+ *
+ * Results are delivered when {@code SCAN_RESULTS_AVAILABLE_ACTION} says they are ready, not
+ * read straight after {@code startScan()} (which returns whatever the last scan left behind).
+ * Screens asking while a scan is running join that scan instead of starting another, results
+ * younger than the caller's {@code maxAgeMs} are served from the cache, and scans are spaced
+ * to stay inside the platform's throttling budget ({@link ScanBudget}). When a fresh scan has to
+ * wait for the budget, callers get the last known results straight away, marked not fresh, and
+ * the fresh ones once the deferred scan completes.
+ *
+ * All callbacks run on the main thread.
+ */
+public final class WifiScanService {
+
+    private static final String TAG = "WifiScanService";
+
+    /** Results this young are served without scanning by {@link #scan(Callback)}. */
+    public static final long DEFAULT_MAX_AGE_MS = 30_000;
+    /** Give up on the broadcast after this long and use whatever the platform has. */
+    private static final long SCAN_TIMEOUT_MS = 10_000;
+
+    public interface Callback {
+        /**
+         * @param results scan results, never null; the list must not be modified
+         * @param fresh   false for older results handed out while a fresh scan waits for the
+         *                throttling budget (the request stays open), or as the final answer
+         *                when the platform dropped the scan
+         */
+        void onScanResults(@NonNull List<ScanResult> results, boolean fresh);
+
+        /** WiFi is off or unsupported, or scan permission is missing; the request ends. */
+        default void onScanFailed(@NonNull String reason) {
+        }
+    }
+
+    private static WifiScanService instance;
+
+    private final Context appContext;
+    private final WifiManager wifiManager;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final ScanBudget budget = new ScanBudget();
+
+    // Main thread only.
+    private final List<Callback> waiting = new ArrayList<>();
+    private List<ScanResult> cached = Collections.emptyList();
+    private long cachedAtMs = -1;
+    private boolean scanning;
+    private boolean scanScheduled;
+    private boolean receiverRegistered;
+
+    private int scansStarted;
+    private int scansShared;
+    private int cacheHits;
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (!WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(intent.getAction())) return;
+            // Also sent when another app's scan completes while ours runs; those results are
+            // just as new.
+            boolean updated = intent.getBooleanExtra(WifiManager.EXTRA_RESULTS_UPDATED, true);
+            finishScan(updated);
+        }
+    };
+
+    private final Runnable scanTimeout = () -> {
+        Log.w(TAG, "No scan results after " + SCAN_TIMEOUT_MS + " ms");
+        finishScan(false);
+    };
+
+    private final Runnable deferredScan = () -> {
+        scanScheduled = false;
+        if (!waiting.isEmpty()) startScan();
+    };
+
+    private WifiScanService(@NonNull Context context) {
+        appContext = context.getApplicationContext();
+        wifiManager = (WifiManager) appContext.getSystemService(Context.WIFI_SERVICE);
+    }
+
+    /** Call from the main thread. */
+    @NonNull
+    public static synchronized WifiScanService get(@NonNull Context context) {
+        if (instance == null) {
+            instance = new WifiScanService(context);
+        }
+        return instance;
+    }
+
+    /** {@link #scan(long, Callback)} with {@link #DEFAULT_MAX_AGE_MS}. */
+    public void scan(@NonNull Callback callback) {
+        scan(DEFAULT_MAX_AGE_MS, callback);
+    }
+
+    /**
+     * Asks for results no older than {@code maxAgeMs}; 0 always waits for a new scan. Call
+     * from the main thread. Results are always delivered asynchronously.
+     */
+    public void scan(long maxAgeMs, @NonNull Callback callback) {
+        if (wifiManager == null) {
+            main.post(() -> callback.onScanFailed("WiFi not supported"));
+            return;
+        }
+        if (cachedAtMs >= 0 && getCacheAgeMs() <= maxAgeMs) {
+            cacheHits++;
+            List<ScanResult> results = cached;
+            main.post(() -> callback.onScanResults(results, true));
+            return;
+        }
+        if (!waiting.contains(callback)) waiting.add(callback);
+        if (scanning || scanScheduled) {
+            scansShared++;
+            return;
+        }
+        startScan();
+    }
+
+    /** Drops a pending request, e.g. from onDestroy. The shared scan keeps running for others. */
+    public void cancel(@NonNull Callback callback) {
+        waiting.remove(callback);
+        if (waiting.isEmpty() && scanScheduled) {
+            main.removeCallbacks(deferredScan);
+            scanScheduled = false;
+        }
+    }
+
+    /** The last results, however old; empty before the first scan. */
+    @NonNull
+    public List<ScanResult> getCachedResults() {
+        return cached;
+    }
+
+    /** Age of {@link #getCachedResults()}, or -1 before the first scan. */
+    public long getCacheAgeMs() {
+        return cachedAtMs < 0 ? -1 : SystemClock.elapsedRealtime() - cachedAtMs;
+    }
+
+    public boolean isScanning() {
+        return scanning;
+    }
+
+    /**
+     * True while a scan is running or waiting for the budget; inside
+     * {@link Callback#onScanResults} it means more results will follow.
+     */
+    public boolean isScanPending() {
+        return scanning || scanScheduled;
+    }
+
+    /** Scans actually started with the platform. */
+    public int getScansStarted() {
+        return scansStarted;
+    }
+
+    /** Requests that joined a scan already running or scheduled. */
+    public int getScansShared() {
+        return scansShared;
+    }
+
+    /** Requests answered from the cache without scanning. */
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    private void startScan() {
+        if (!wifiManager.isWifiEnabled()) {
+            fail("WiFi is disabled");
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        long delay = budget.delayUntilNextScanMs(now);
+        if (delay > 0) {
+            deferScan(delay);
+            return;
+        }
+
+        boolean started;
+        try {
+            registerReceiver();
+            started = wifiManager.startScan();
+        } catch (SecurityException e) {
+            fail("WiFi permission denied");
+            return;
+        }
+        if (!started) {
+            unregisterReceiver();
+            // Throttled by the platform (our count may be behind), or WiFi is busy.
+            budget.onScanRefused(now);
+            deferScan(budget.delayUntilNextScanMs(now));
+            return;
+        }
+        budget.onScanStarted(now);
+        scansStarted++;
+        scanning = true;
+        main.postDelayed(scanTimeout, SCAN_TIMEOUT_MS);
+    }
+
+    /** Hands out what we have now and tries again when the budget allows. */
+    private void deferScan(long delayMs) {
+        Log.d(TAG, "Scan deferred " + delayMs + " ms by throttling");
+        scanScheduled = true;
+        main.postDelayed(deferredScan, delayMs);
+        deliver(staleResults(), false, false);
+    }
+
+    private void finishScan(boolean updated) {
+        if (!scanning) return;
+        scanning = false;
+        main.removeCallbacks(scanTimeout);
+        unregisterReceiver();
+
+        if (!updated) {
+            // The platform dropped our scan (throttled) or never answered: the results are
+            // whatever an earlier scan left, so they don't refresh the cache.
+            budget.onScanRefused(SystemClock.elapsedRealtime());
+            deliver(staleResults(), false, true);
+            return;
+        }
+        List<ScanResult> results = readPlatformResults();
+        if (results == null) {
+            fail("WiFi permission denied");
+            return;
+        }
+        updateCache(results);
+        deliver(cached, true, true);
+    }
+
+    private void deliver(List<ScanResult> results, boolean fresh, boolean last) {
+        List<Callback> targets = new ArrayList<>(waiting);
+        if (last) waiting.clear();
+        for (Callback c : targets) {
+            c.onScanResults(results, fresh);
+        }
+    }
+
+    private void fail(String reason) {
+        scanning = false;
+        main.removeCallbacks(scanTimeout);
+        unregisterReceiver();
+        List<Callback> targets = new ArrayList<>(waiting);
+        waiting.clear();
+        for (Callback c : targets) {
+            c.onScanFailed(reason);
+        }
+    }
+
+    private List<ScanResult> readPlatformResults() {
+        try {
+            List<ScanResult> results = wifiManager.getScanResults();
+            return results != null ? results : Collections.emptyList();
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    /** The platform's last results without touching the cache age, else the cache. */
+    private List<ScanResult> staleResults() {
+        List<ScanResult> results = readPlatformResults();
+        return results != null && !results.isEmpty() ? Collections.unmodifiableList(new ArrayList<>(results)) : cached;
+    }
+
+    private void updateCache(List<ScanResult> results) {
+        cached = Collections.unmodifiableList(new ArrayList<>(results));
+        cachedAtMs = SystemClock.elapsedRealtime();
+    }
+
+    private void registerReceiver() {
+        if (receiverRegistered) return;
+        appContext.registerReceiver(receiver, new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        receiverRegistered = true;
+    }
+
+    private void unregisterReceiver() {
+        if (!receiverRegistered) return;
+        try {
+            appContext.unregisterReceiver(receiver);
+        } catch (IllegalArgumentException ignored) {
+        }
+        receiverRegistered = false;
+    }
+}
@@ -3,38 +3,86 @@ package com.example.robotcontrol.services;
 import android.app.Service;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
-import android.bluetooth.BluetoothSocket;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.os.Binder;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
+import android.os.SystemClock;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.example.robotcontrol.logic.ReconnectBackoff;
+import com.example.robotcontrol.network.BluetoothLink;
+import com.example.robotcontrol.network.RfcommEngine;
+
 import java.io.IOException;
-import java.util.UUID;
 
 /**
  * Background service for auto-reconnecting to robot
  * Maintains connection and attempts reconnection on disconnect
+ *
+ * Link loss is noticed as it happens, from the engine's reader thread failing or from the
+ * system's ACL disconnect broadcast, whichever comes first; nothing polls the socket. Attempts
+ * run on one worker thread with {@link ReconnectBackoff} delays, and an ACL connect from the
+ * robot (it came back in range or finished rebooting) skips the rest of the wait.
  */
 public class AutoReconnectService extends Service {
     
     private static final String TAG = "AutoReconnectService";
-    private static final UUID MY_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
-    private static final int RECONNECT_DELAY_MS = 5000; // 5 seconds
-    private static final int MAX_RECONNECT_ATTEMPTS = 5;
+    public static final String EXTRA_TIME_TO_RECONNECT_MS = "TIME_TO_RECONNECT_MS";
     
     private BluetoothAdapter bluetoothAdapter;
-    private BluetoothSocket bluetoothSocket;
-    private BluetoothDevice connectedDevice;
-    private Handler reconnectHandler;
-    private Runnable reconnectRunnable;
+    // Set on the worker thread; read by the ACL receiver and isConnected().
+    private volatile BluetoothLink link;
+    private HandlerThread workerThread;
+    // Connects, backoff state and link-loss handling all run on this thread.
+    private Handler worker;
+    private final ReconnectBackoff backoff = new ReconnectBackoff(150, 500, 8000, 10);
+    
+    private volatile boolean isConnected = false;
+    private volatile boolean shouldReconnect = true;
+    private volatile long lastTimeToReconnectMs = -1;
+    private volatile long averageTimeToReconnectMs = -1;
     
-    private boolean isConnected = false;
-    private boolean shouldReconnect = true;
-    private int reconnectAttempts = 0;
+    private final Runnable reconnectRunnable = this::attemptReconnect;
+    
+    private final RfcommEngine.Listener linkListener = new RfcommEngine.Listener() {
+        @Override
+        public void onClosed(@Nullable IOException error) {
+            // Null means someone closed the link on purpose; only a failed read is a loss.
+            if (error != null) {
+                worker.post(() -> onLinkLost("read failed: " + error.getMessage()));
+            }
+        }
+    };
+    
+    private final BroadcastReceiver aclReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+            BluetoothLink l = link;
+            if (device == null || l == null || !l.getAddress().equalsIgnoreCase(device.getAddress())) {
+                return;
+            }
+            if (BluetoothDevice.ACTION_ACL_DISCONNECTED.equals(intent.getAction())) {
+                // Often arrives before the socket read fails; don't wait for it.
+                worker.post(() -> onLinkLost("ACL disconnected"));
+            } else if (BluetoothDevice.ACTION_ACL_CONNECTED.equals(intent.getAction())) {
+                worker.post(() -> {
+                    if (backoff.isOutage() && shouldReconnect) {
+                        worker.removeCallbacks(reconnectRunnable);
+                        worker.post(reconnectRunnable);
+                    }
+                });
+            }
+        }
+    };
     
     private final IBinder binder = new LocalBinder();
     
@@ -48,24 +96,13 @@ public class AutoReconnectService extends Service {
     public void onCreate() {
         super.onCreate();
         bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-        reconnectHandler = new Handler();
+        workerThread = new HandlerThread("AutoReconnect");
+        workerThread.start();
+        worker = new Handler(workerThread.getLooper());
         
-        reconnectRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (shouldReconnect && !isConnected && reconnectAttempts < MAX_RECONNECT_ATTEMPTS) {
-                    reconnectAttempts++;
-                    Log.d(TAG, "Attempting reconnection... Attempt: " + reconnectAttempts);
-                    attemptReconnect();
-                    
-                    // Schedule next attempt
-                    reconnectHandler.postDelayed(this, RECONNECT_DELAY_MS);
-                } else if (reconnectAttempts >= MAX_RECONNECT_ATTEMPTS) {
-                    Log.d(TAG, "Max reconnect attempts reached");
-                    notifyConnectionFailed();
-                }
-            }
-        };
+        IntentFilter filter = new IntentFilter(BluetoothDevice.ACTION_ACL_DISCONNECTED);
+        filter.addAction(BluetoothDevice.ACTION_ACL_CONNECTED);
+        registerReceiver(aclReceiver, filter);
     }
     
     @Nullable
@@ -99,91 +136,82 @@ public class AutoReconnectService extends Service {
             return;
         }
         
-        connectedDevice = bluetoothAdapter.getRemoteDevice(deviceAddress);
+        // Same link (and socket) as the control screen when it is already connected.
+        BluetoothLink next = BluetoothLink.forAddress(deviceAddress);
+        shouldReconnect = true;
         
-        new Thread(() -> {
+        worker.post(() -> {
+            if (link != next) {
+                releaseLink();
+                next.acquire();
+                next.getEngine().addListener(linkListener);
+                link = next;
+            }
+            worker.removeCallbacks(reconnectRunnable);
+            backoff.cancel();
             try {
-                bluetoothSocket = connectedDevice.createRfcommSocketToServiceRecord(MY_UUID);
-                bluetoothSocket.connect();
+                link.connect(bluetoothAdapter);
                 
                 isConnected = true;
-                reconnectAttempts = 0;
-                shouldReconnect = true;
                 
                 Log.d(TAG, "Connected to device: " + deviceAddress);
                 notifyConnectionSuccess();
                 
-                // Monitor connection
-                monitorConnection();
-                
             } catch (IOException e) {
                 Log.e(TAG, "Connection failed: " + e.getMessage());
-                isConnected = false;
-                
-                // Start reconnection attempts
-                if (shouldReconnect) {
-                    reconnectHandler.postDelayed(reconnectRunnable, RECONNECT_DELAY_MS);
-                }
+                onLinkLost("connect failed");
             }
-        }).start();
+        });
     }
     
     /**
-     * Attempt to reconnect
+     * Worker thread: starts (or keeps) the reconnect schedule after the link went away.
      */
-    private void attemptReconnect() {
-        if (connectedDevice != null) {
-            try {
-                if (bluetoothSocket != null && bluetoothSocket.isConnected()) {
-                    bluetoothSocket.close();
-                }
-                
-                bluetoothSocket = connectedDevice.createRfcommSocketToServiceRecord(MY_UUID);
-                bluetoothSocket.connect();
-                
-                isConnected = true;
-                reconnectAttempts = 0;
-                
-                Log.d(TAG, "Reconnection successful");
-                notifyReconnectionSuccess();
-                
-                // Continue monitoring
-                monitorConnection();
-                
-            } catch (IOException e) {
-                Log.e(TAG, "Reconnection failed: " + e.getMessage());
-                isConnected = false;
-            }
+    private void onLinkLost(@NonNull String reason) {
+        if (link == null || !shouldReconnect || backoff.isOutage()) return;
+        Log.d(TAG, "Connection lost: " + reason);
+        isConnected = false;
+        // Close the dead socket now so the next connect opens a fresh one. Other users of the
+        // link get the error too, not a clean close.
+        link.drop(new IOException("Connection lost: " + reason));
+        backoff.onLost(SystemClock.elapsedRealtime());
+        notifyConnectionLost();
+        scheduleReconnect();
+    }
+    
+    private void scheduleReconnect() {
+        long delay = backoff.nextDelayMs();
+        if (delay < 0) {
+            Log.d(TAG, "Max reconnect attempts reached");
+            backoff.cancel();
+            notifyConnectionFailed();
+            return;
         }
+        Log.d(TAG, "Reconnect attempt " + backoff.getAttempts() + " in " + delay + " ms");
+        worker.postDelayed(reconnectRunnable, delay);
     }
     
     /**
-     * Monitor connection status
+     * Attempt to reconnect
      */
-    private void monitorConnection() {
-        new Thread(() -> {
-            while (isConnected && bluetoothSocket != null) {
-                try {
-                    if (!bluetoothSocket.isConnected()) {
-                        Log.d(TAG, "Connection lost");
-                        isConnected = false;
-                        notifyConnectionLost();
-                        
-                        // Start reconnection
-                        if (shouldReconnect) {
-                            reconnectHandler.post(reconnectRunnable);
-                        }
-                        break;
-                    }
-                    
-                    Thread.sleep(1000); // Check every second
-                    
-                } catch (InterruptedException e) {
-                    Log.e(TAG, "Monitoring interrupted: " + e.getMessage());
-                    break;
-                }
-            }
-        }).start();
+    private void attemptReconnect() {
+        if (link == null || !shouldReconnect) return;
+        try {
+            link.connect(bluetoothAdapter);
+            
+            isConnected = true;
+            long elapsed = backoff.onReconnected(SystemClock.elapsedRealtime());
+            lastTimeToReconnectMs = elapsed;
+            averageTimeToReconnectMs = backoff.getAverageTimeToReconnectMs();
+            
+            Log.d(TAG, "Reconnection successful after " + elapsed + " ms");
+            notifyReconnectionSuccess(elapsed);
+            
+        } catch (IOException e) {
+            Log.e(TAG, "Reconnection failed: " + e.getMessage());
+            isConnected = false;
+            if (shouldReconnect) scheduleReconnect();
+        }
     }
     
     /**
@@ -191,20 +219,25 @@ public class AutoReconnectService extends Service {
      */
     public void disconnect() {
         shouldReconnect = false;
-        reconnectHandler.removeCallbacks(reconnectRunnable);
-        
-        try {
-            if (bluetoothSocket != null) {
-                bluetoothSocket.close();
-            }
+        worker.post(() -> {
+            worker.removeCallbacks(reconnectRunnable);
+            backoff.cancel();
+            // The control screen may still be using the link; it closes when both are done.
+            releaseLink();
             isConnected = false;
             Log.d(TAG, "Disconnected from device");
-            
-        } catch (IOException e) {
-            Log.e(TAG, "Error disconnecting: " + e.getMessage());
-        }
+        });
     }
     
+    /** Worker thread: gives up the service's hold on the link, if any. */
+    private void releaseLink() {
+        BluetoothLink l = link;
+        if (l == null) return;
+        link = null;
+        l.getEngine().removeListener(linkListener);
+        l.release(null);
+    }
+
     /**
      * Send broadcast notifications
      */
@@ -213,8 +246,9 @@ public class AutoReconnectService extends Service {
         sendBroadcast(intent);
     }
     
-    private void notifyReconnectionSuccess() {
+    private void notifyReconnectionSuccess(long timeToReconnectMs) {
         Intent intent = new Intent("com.example.robotcontrol.RECONNECTION_SUCCESS");
+        intent.putExtra(EXTRA_TIME_TO_RECONNECT_MS, timeToReconnectMs);
         sendBroadcast(intent);
     }
     
@@ -232,12 +266,28 @@ public class AutoReconnectService extends Service {
      * Check connection status
      */
     public boolean isConnected() {
-        return isConnected && bluetoothSocket != null && bluetoothSocket.isConnected();
+        BluetoothLink l = link;
+        return isConnected && l != null && l.isConnected();
+    }
+    
+    /**
+     * How long the last dropout took to recover, from detection to a working link; -1 if the
+     * link has not been lost and regained yet.
+     */
+    public long getLastTimeToReconnectMs() {
+        return lastTimeToReconnectMs;
+    }
+    
+    /** Mean of all recovered dropouts this session, -1 if none. */
+    public long getAverageTimeToReconnectMs() {
+        return averageTimeToReconnectMs;
     }
     
     @Override
     public void onDestroy() {
         super.onDestroy();
+        unregisterReceiver(aclReceiver);
         disconnect();
+        workerThread.quitSafely();
     }
 }
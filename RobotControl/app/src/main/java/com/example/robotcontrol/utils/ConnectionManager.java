@@ -2,38 +2,48 @@ package com.example.robotcontrol.utils;
 
 import android.Manifest;
 import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothDevice;
-import android.bluetooth.BluetoothSocket;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.os.Handler;
 import android.os.Looper;
 
+import androidx.annotation.Nullable;
 import androidx.core.app.ActivityCompat;
 
 import com.example.robotcontrol.database.DatabaseHelper;
+import com.example.robotcontrol.logic.PriorityCommandQueue.Lane;
+import com.example.robotcontrol.logic.TelemetryStore;
 import com.example.robotcontrol.models.Robot;
+import com.example.robotcontrol.network.BluetoothLink;
+import com.example.robotcontrol.network.LineDecoder;
+import com.example.robotcontrol.network.RfcommEngine;
+import com.example.robotcontrol.network.SessionReplayer;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
 
 public class ConnectionManager {
-    private static final UUID MY_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
     private static final int RECONNECT_DELAY = 5000; // 5 seconds
     private static final int MAX_RECONNECT_ATTEMPTS = 3;
 
     private Context context;
     private DatabaseHelper dbHelper;
     private BluetoothAdapter bluetoothAdapter;
-    private BluetoothSocket bluetoothSocket;
-    private OutputStream outputStream;
-    private InputStream inputStream;
-    private boolean isConnected = false;
+    private volatile BluetoothLink link;
+    // Whether this manager holds the link (BluetoothLink#acquire); from connect to disconnect.
+    private volatile boolean holdsLink;
+    private volatile boolean isConnected = false;
     private boolean autoReconnect = true;
     private int reconnectAttempts = 0;
     private Handler reconnectHandler;
+    // Listener callbacks reach the main thread batched, at most once per frame.
+    private final FrameDispatcher dispatcher = new FrameDispatcher(lines -> {
+        DataListener listener = dataListener;
+        if (listener == null) return;
+        for (String line : lines) {
+            listener.onDataReceived(line);
+        }
+    });
 
     private ConnectionListener connectionListener;
     private DataListener dataListener;
@@ -45,6 +55,7 @@ public class ConnectionManager {
     }
 
     public interface DataListener {
+        /** One line of text from the robot, without its line ending. */
         void onDataReceived(String data);
     }
 
@@ -55,6 +66,22 @@ public class ConnectionManager {
         this.reconnectHandler = new Handler(Looper.getMainLooper());
     }
 
+    // Lines the link decoded, on its reader thread, or from the replay thread. The listener
+    // gets the robot's text a whole line at a time, without ACK frames.
+    private final LineDecoder.Listener robotLines = (buffer, offset, length) -> {
+        // Telemetry is parsed by the link; see getTelemetry().
+        if (TelemetryStore.isTelemetry(buffer, offset, length)) return;
+        notifyDataReceived(new String(buffer, offset, length, StandardCharsets.US_ASCII));
+    };
+
+    private final RfcommEngine.Listener linkListener = new RfcommEngine.Listener() {
+        @Override
+        public void onClosed(IOException error) {
+            isConnected = false;
+            notifyDisconnected();
+        }
+    };
+
     public void setConnectionListener(ConnectionListener listener) {
         this.connectionListener = listener;
     }
@@ -71,6 +98,13 @@ public class ConnectionManager {
         return isConnected;
     }
 
+    /** Telemetry of the robot last connected to, or null before the first connect. */
+    @Nullable
+    public TelemetryStore getTelemetry() {
+        BluetoothLink l = link;
+        return l != null ? l.getTelemetry() : null;
+    }
+
     public void connect(Robot robot) {
         if (isConnected) {
             return;
@@ -84,12 +118,16 @@ public class ConnectionManager {
                     return;
                 }
 
-                BluetoothDevice device = bluetoothAdapter.getRemoteDevice(robot.getMacAddress());
-                bluetoothSocket = device.createRfcommSocketToServiceRecord(MY_UUID);
-                bluetoothSocket.connect();
-                
-                outputStream = bluetoothSocket.getOutputStream();
-                inputStream = bluetoothSocket.getInputStream();
+                BluetoothLink robotLink = BluetoothLink.forAddress(robot.getMacAddress());
+                if (link != robotLink || !holdsLink) {
+                    releaseLink();
+                    robotLink.acquire();
+                    robotLink.getEngine().addListener(linkListener);
+                    robotLink.addLineListener(robotLines);
+                    link = robotLink;
+                    holdsLink = true;
+                }
+                robotLink.connect(bluetoothAdapter);
                 
                 isConnected = true;
                 reconnectAttempts = 0;
@@ -100,7 +138,6 @@ public class ConnectionManager {
                 dbHelper.updateRobot(robot);
                 
                 notifyConnected();
-                startListening();
                 
             } catch (IOException e) {
                 isConnected = false;
@@ -122,81 +159,91 @@ public class ConnectionManager {
         autoReconnect = false;
         reconnectHandler.removeCallbacksAndMessages(null);
         
-        try {
-            if (inputStream != null) {
-                inputStream.close();
-            }
-            if (outputStream != null) {
-                outputStream.close();
-            }
-            if (bluetoothSocket != null) {
-                bluetoothSocket.close();
-            }
+        // The link stays up if another screen still uses it; either way this is reported once.
+        releaseLink();
+        if (isConnected) {
             isConnected = false;
             notifyDisconnected();
-        } catch (IOException e) {
-            e.printStackTrace();
         }
     }
 
+    private void releaseLink() {
+        BluetoothLink l = link;
+        if (l == null || !holdsLink) return;
+        holdsLink = false;
+        l.getEngine().removeListener(linkListener);
+        l.removeLineListener(robotLines);
+        l.release(null);
+    }
+
     public void sendCommand(String command) {
-        if (!isConnected || outputStream == null) {
+        BluetoothLink l = link;
+        if (!isConnected || l == null) {
             return;
         }
-
-        new Thread(() -> {
+        // Queued on the link's writer thread; stop overtakes anything still waiting.
+        Lane lane = "s".equals(command.trim()) ? Lane.EMERGENCY : Lane.MOTION;
+        l.getEngine().send(lane, null, (command + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Plays a recorded session through this manager's listeners, as if the robot were sending
+     * it now: lines go through the same decoding and dispatch as a live link, with decoders of
+     * the replay's own. Runs on its own thread; interrupt the returned thread to stop.
+     *
+     * @param speed 1 for the recorded pace, 0 for as fast as possible
+     */
+    public Thread replay(SessionReplayer replayer, double speed) {
+        // The listeners don't see a disconnect at the end.
+        SessionReplayer.Sink sink = SessionReplayer.toLines(robotLines, null);
+        Thread thread = new Thread(() -> {
             try {
-                outputStream.write((command + "\n").getBytes());
-                outputStream.flush();
+                replayer.replay(sink, speed);
             } catch (IOException e) {
-                isConnected = false;
-                notifyDisconnected();
-            }
-        }).start();
-    }
-
-    private void startListening() {
-        new Thread(() -> {
-            byte[] buffer = new byte[1024];
-            int bytes;
-
-            while (isConnected) {
-                try {
-                    bytes = inputStream.read(buffer);
-                    if (bytes > 0) {
-                        String data = new String(buffer, 0, bytes);
-                        notifyDataReceived(data);
-                    }
-                } catch (IOException e) {
-                    isConnected = false;
-                    notifyDisconnected();
-                    break;
-                }
+                notifyConnectionFailed("Replay failed: " + e.getMessage());
+            } catch (InterruptedException e) {
+                // Stopped.
             }
-        }).start();
+        }, "SessionReplay");
+        thread.start();
+        return thread;
     }
 
     private void notifyConnected() {
         if (connectionListener != null) {
-            new Handler(Looper.getMainLooper()).post(() -> connectionListener.onConnected());
+            dispatcher.postEvent(() -> connectionListener.onConnected());
         }
     }
 
     private void notifyDisconnected() {
         if (connectionListener != null) {
-            new Handler(Looper.getMainLooper()).post(() -> connectionListener.onDisconnected());
+            dispatcher.postEvent(() -> connectionListener.onDisconnected());
         }
     }
 
     private void notifyConnectionFailed(String error) {
         if (connectionListener != null) {
-            new Handler(Looper.getMainLooper()).post(() -> connectionListener.onConnectionFailed(error));
+            dispatcher.postEvent(() -> connectionListener.onConnectionFailed(error));
         }
     }
 
     private void notifyDataReceived(String data) {
         if (dataListener != null) {
-            new Handler(Looper.getMainLooper()).post(() -> dataListener.onDataReceived(data));
+            dispatcher.postLine(data);
         }
     }
+
+    /** Events posted towards the listeners, and how many frames delivered them. */
+    public long getPostedEventCount() {
+        return dispatcher.getPostedCount();
+    }
+
+    public long getDeliveredFrameCount() {
+        return dispatcher.getFrameCount();
+    }
+
+    /** Received lines dropped because more arrived within one frame than the dispatcher keeps. */
+    public long getDroppedLineCount() {
+        return dispatcher.getDroppedCount();
+    }
 }
@@ -0,0 +1,118 @@
+package com.example.robotcontrol.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import com.example.robotcontrol.logic.EventCoalescer;
+
+import java.util.List;
+
+/**
+ * Delivers connection and data events to the main thread at most once per display frame.
+ *
+ * Any thread may post. Events pile up in an {@link EventCoalescer} and the first one after a
+ * delivery schedules a single Choreographer frame callback, so a burst of robot output costs one
+ * main-looper message per frame instead of one per line. The sink then sees one-off events
+ * first, in order, then the frame's lines as a list, then only the newest status text.
+ */
+public final class FrameDispatcher {
+
+    public interface Sink {
+        /** Main thread; the list is only valid during the call. */
+        void onLines(@NonNull List<String> lines);
+
+        /** Main thread; the newest status posted since the last frame. */
+        default void onStatus(@NonNull String status) {
+        }
+    }
+
+    public static final int DEFAULT_MAX_LINES = 256;
+
+    private final Sink sink;
+    private final EventCoalescer coalescer;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Main thread only.
+    private final EventCoalescer.Batch batch = new EventCoalescer.Batch();
+    private volatile boolean released;
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> deliver();
+    private final Runnable scheduleFrame = () -> Choreographer.getInstance().postFrameCallback(frameCallback);
+
+    public FrameDispatcher(@NonNull Sink sink) {
+        this(sink, DEFAULT_MAX_LINES);
+    }
+
+    public FrameDispatcher(@NonNull Sink sink, int maxLinesPerFrame) {
+        this.sink = sink;
+        this.coalescer = new EventCoalescer(maxLinesPerFrame);
+    }
+
+    /** Runs {@code event} on the main thread with the next frame; never dropped. */
+    public void postEvent(@NonNull Runnable event) {
+        if (released) return;
+        if (coalescer.offerEvent(event)) schedule();
+    }
+
+    public void postLine(@NonNull String line) {
+        if (released) return;
+        if (coalescer.offerLine(line)) schedule();
+    }
+
+    public void postStatus(@NonNull String status) {
+        if (released) return;
+        if (coalescer.offerStatus(status)) schedule();
+    }
+
+    private void schedule() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            scheduleFrame.run();
+        } else {
+            mainHandler.post(scheduleFrame);
+        }
+    }
+
+    private void deliver() {
+        coalescer.drainTo(batch);
+        if (released) {
+            batch.clear();
+            return;
+        }
+        for (Runnable event : batch.events) {
+            event.run();
+        }
+        if (!batch.lines.isEmpty()) sink.onLines(batch.lines);
+        if (batch.status != null) sink.onStatus(batch.status);
+        batch.clear();
+    }
+
+    /** Main thread. Drops anything undelivered; later posts are discarded too. */
+    public void release() {
+        released = true;
+        mainHandler.removeCallbacks(scheduleFrame);
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        coalescer.clear();
+    }
+
+    /** Events, lines and statuses posted so far. */
+    public long getPostedCount() {
+        return coalescer.getOfferedCount();
+    }
+
+    /** Status texts overwritten by a newer one within the same frame. */
+    public long getMergedCount() {
+        return coalescer.getMergedCount();
+    }
+
+    /** Lines dropped because more than the per-frame limit arrived. */
+    public long getDroppedCount() {
+        return coalescer.getDroppedCount();
+    }
+
+    /** Frames that delivered something. */
+    public long getFrameCount() {
+        return coalescer.getBatchCount();
+    }
+}
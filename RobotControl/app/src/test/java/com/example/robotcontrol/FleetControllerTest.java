@@ -0,0 +1,125 @@
+package com.example.robotcontrol;
+
+import com.example.robotcontrol.models.Robot;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FleetControllerTest {
+
+    private static final int ROBOTS = 6;
+    private static final int ROBOT_DELAY_MS = 150;
+
+    private final List<ServerSocket> servers = new ArrayList<>();
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    @After
+    public void tearDown() throws IOException {
+        for (ServerSocket s : servers) s.close();
+    }
+
+    /**
+     * Every fake robot shares one port number on its own loopback address (127.0.0.x), the way
+     * real robots share 8888 on different IPs. Each takes {@code delayMs} to answer.
+     */
+    private int startRobots(int count, int delayMs) throws IOException {
+        int port = 0;
+        for (int i = 0; i < count; i++) {
+            ServerSocket server = new ServerSocket();
+            server.bind(new java.net.InetSocketAddress("127.0.0." + (i + 1), port));
+            port = server.getLocalPort();
+            servers.add(server);
+            Thread t = new Thread(() -> serve(server, delayMs));
+            t.setDaemon(true);
+            t.start();
+        }
+        return port;
+    }
+
+    private void serve(ServerSocket server, int delayMs) {
+        while (!server.isClosed()) {
+            try (Socket s = server.accept()) {
+                accepted.incrementAndGet();
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                OutputStream out = s.getOutputStream();
+                String requestLine;
+                while ((requestLine = in.readLine()) != null) {
+                    String h;
+                    while ((h = in.readLine()) != null && !h.isEmpty()) {
+                        // skip headers
+                    }
+                    Thread.sleep(delayMs);
+                    String body = "{\"command\":\"" + requestLine.split(" ")[1] + "\"}";
+                    out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + body.length() + "\r\n\r\n" + body)
+                            .getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException ignored) {
+            }
+        }
+    }
+
+    private static List<Robot> robots(int count) {
+        List<Robot> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(new Robot("r" + i, "Robot " + i, "", "127.0.0." + (i + 1), "wifi", "local_user"));
+        }
+        list.add(new Robot("bt", "BT robot", "00:11:22:33:44:55", "", "bluetooth", "local_user"));
+        return list;
+    }
+
+    @Test
+    public void broadcast_reachesEveryRobotInAboutOneRoundTrip() throws Exception {
+        int port = startRobots(ROBOTS, ROBOT_DELAY_MS);
+        FleetController fleet = new FleetController(robots(ROBOTS), port, 16, 2000);
+        assertEquals(ROBOTS, fleet.size());
+
+        fleet.warmUp();
+        FleetController.FleetResult result = fleet.stopAll();
+
+        assertTrue(result.allAcked());
+        assertEquals(ROBOTS, result.count(FleetController.Outcome.ACKED));
+        // Sequential would be ROBOTS * 150 ms = 900 ms.
+        assertTrue("took " + result.totalLatencyMs, result.totalLatencyMs < 2 * ROBOT_DELAY_MS + 150);
+        assertEquals(ROBOTS, accepted.get()); // connections were reused
+        fleet.shutdown();
+    }
+
+    @Test
+    public void broadcast_waitsForRobotsQueuedBehindTheWorkerLimit() throws Exception {
+        int port = startRobots(ROBOTS, ROBOT_DELAY_MS);
+        // Three waves of two; each robot answers well within its own timeout.
+        FleetController fleet = new FleetController(robots(ROBOTS), port, 2, 250);
+
+        FleetController.FleetResult result = fleet.broadcast("/stop");
+
+        assertTrue(result.allAcked());
+        assertTrue("took " + result.totalLatencyMs, result.totalLatencyMs >= 3 * ROBOT_DELAY_MS);
+        fleet.shutdown();
+    }
+
+    @Test
+    public void broadcast_reportsSlowRobotsAsTimedOut() throws Exception {
+        int port = startRobots(2, 600);
+        FleetController fleet = new FleetController(robots(2), port, 4, 200);
+
+        FleetController.FleetResult result = fleet.broadcast("/forward");
+
+        assertEquals(2, result.count(FleetController.Outcome.TIMED_OUT));
+        fleet.shutdown();
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.robotcontrol;
+
+import com.example.robotcontrol.emulator.LinkConditions;
+import com.example.robotcontrol.emulator.RobotEmulator;
+import com.example.robotcontrol.emulator.RobotState;
+import com.example.robotcontrol.logic.CommandMetrics;
+import com.example.robotcontrol.logic.DriveSetpoint;
+import com.example.robotcontrol.logic.PriorityCommandQueue.Lane;
+import com.example.robotcontrol.logic.RetryPolicy;
+import com.example.robotcontrol.network.LocalWebSocketServer;
+import com.example.robotcontrol.network.RfcommEngine;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * End-to-end against the emulated robot: real sockets, real firmware replies, and link
+ * conditions the phone would see on a bad day.
+ */
+public class RobotControllerEmulatorTest {
+
+    private RobotEmulator robot;
+    private RobotController controller;
+
+    @After
+    public void tearDown() throws IOException {
+        if (controller != null) controller.shutdown();
+        if (robot != null) robot.close();
+    }
+
+    @Test
+    public void httpCommandsReachTheRobot() throws Exception {
+        robot = new RobotEmulator(LinkConditions.IDEAL, 1).start(0, 0);
+        controller = new RobotController("127.0.0.1", robot.getHttpPort());
+
+        controller.moveForward();
+        assertTrue(robot.getState().awaitCommandCount(1, 2000));
+        assertEquals(RobotState.Motion.FORWARD, robot.getState().getMotion());
+
+        controller.setArmPose(30, 60, 120);
+        assertTrue(robot.getState().awaitCommandCount(2, 2000));
+        assertEquals(30, robot.getState().getServo(1));
+        assertEquals(120, robot.getState().getServo(3));
+
+        controller.stopMotors();
+        assertTrue(robot.getState().awaitCommandCount(3, 2000));
+        assertEquals(RobotState.Motion.STOPPED, robot.getState().getMotion());
+    }
+
+    @Test
+    public void queuedPoseAndServoCommandsLandInTheOrderTheyWereIssued() throws Exception {
+        robot = new RobotEmulator(new LinkConditions(30, 0, 0, 0), 7).start(0, 0);
+        controller = new RobotController("127.0.0.1", robot.getHttpPort());
+
+        // Everything after the first command queues up behind it.
+        controller.moveForward();
+        controller.setServo(1, 30);
+        // Newer than the queued servo 1 command, which it replaces.
+        controller.setArmPose(90, 45, 120);
+        // Diffs against the queued pose and extends it.
+        controller.setArmPose(90, 60, 120);
+        controller.setServo(3, 5);
+
+        assertTrue(robot.getState().awaitCommandCount(3, 2000));
+        Thread.sleep(200);
+        assertEquals(3, robot.getState().getCommandCount());
+        assertEquals(90, robot.getState().getServo(1));
+        assertEquals(60, robot.getState().getServo(2));
+        assertEquals(5, robot.getState().getServo(3));
+
+        // Already there: nothing to send.
+        controller.setArmPose(90, 60, 5);
+        Thread.sleep(200);
+        assertEquals(3, robot.getState().getCommandCount());
+    }
+
+    @Test
+    public void onlyTheNewestDriveSetpointIsSentOverASlowLink() throws Exception {
+        robot = new RobotEmulator(new LinkConditions(40, 10, 0, 10), 2).start(0, 0);
+        controller = new RobotController("127.0.0.1", robot.getHttpPort());
+
+        for (int i = 1; i <= 50; i++) {
+            controller.drive(new DriveSetpoint(i, i));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (robot.getState().getLeftPct() != 50 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(50, robot.getState().getLeftPct());
+        // The first setpoint goes out at once; the rest collapse while it is in flight.
+        assertTrue("sent " + robot.getReceivedCount(), robot.getReceivedCount() < 10);
+    }
+
+    @Test
+    public void lostStopIsRetriedUntilItArrives() throws Exception {
+        robot = new RobotEmulator(new LinkConditions(0, 0, 0.5, 0), 3).start(0, 0);
+        controller = new RobotController("127.0.0.1", robot.getHttpPort());
+        controller.setRetryPolicy(new RetryPolicy(8, 1, 0));
+
+        controller.stopMotors();
+        assertTrue(robot.getState().awaitCommandCount(1, 15000));
+        assertEquals("stop", robot.getState().getLastCommand());
+        assertEquals(robot.getDroppedCount() + 1, robot.getReceivedCount());
+    }
+
+    @Test
+    public void udpCommandsReachTheRobotAndOnlyAckedOnesCountAsSuccess() throws Exception {
+        robot = new RobotEmulator(LinkConditions.IDEAL, 5).start(0, 0);
+        controller = new RobotController("127.0.0.1", robot.getHttpPort(),
+                RobotController.Transport.UDP, robot.getUdpPort());
+
+        controller.drive(new DriveSetpoint(60, -20));
+        assertTrue(robot.getState().awaitCommandCount(1, 2000));
+        controller.setServo(2, 45);
+        assertTrue(robot.getState().awaitCommandCount(2, 2000));
+        controller.stopMotors();
+        assertTrue(robot.getState().awaitCommandCount(3, 2000));
+
+        assertEquals(RobotState.Motion.STOPPED, robot.getState().getMotion());
+        assertEquals(45, robot.getState().getServo(2));
+        assertEquals(0, robot.getHttpServer().getReceivedCount());
+        // Only the stop was ACKed; the ACK may still be on its way back.
+        long deadline = System.currentTimeMillis() + 2000;
+        while (controller.getMetricsSnapshot().getTotalSuccess() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, controller.getMetricsSnapshot().getTotalSuccess());
+        assertEquals(2, controller.getMetricsSnapshot().getTotalUnacked());
+    }
+
+    @Test
+    public void webSocketCommandsReachTheRobotAndTelemetryReachesTheApp() throws Exception {
+        robot = new RobotEmulator(LinkConditions.IDEAL, 9).start(0, 0);
+        controller = new RobotController("127.0.0.1", robot.getHttpPort(),
+                RobotController.Transport.WEBSOCKET, robot.getWebSocketPort());
+        CountDownLatch telemetry = new CountDownLatch(1);
+        controller.setRobotStateListener(json -> {
+            if (json.contains("\"type\":\"telemetry\"")) telemetry.countDown();
+        });
+
+        controller.moveForward();
+        assertTrue(robot.getState().awaitCommandCount(1, 2000));
+        controller.setServo(2, 45);
+        assertTrue(robot.getState().awaitCommandCount(2, 2000));
+
+        assertEquals(RobotState.Motion.FORWARD, robot.getState().getMotion());
+        assertEquals(45, robot.getState().getServo(2));
+        assertEquals(2, robot.getWebSocketServer().getReceivedCount());
+        assertEquals(0, robot.getHttpServer().getReceivedCount());
+        assertTrue(telemetry.await(3, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void unansweredWebSocketCommandIsRetriedOverHttp() throws Exception {
+        robot = new RobotEmulator(LinkConditions.IDEAL, 6).start(0, 0);
+        try (LocalWebSocketServer ws = new LocalWebSocketServer()) {
+            ws.setSilent(true);
+            controller = new RobotController("127.0.0.1", robot.getHttpPort(),
+                    RobotController.Transport.WEBSOCKET, ws.getPort());
+            CountDownLatch retried = new CountDownLatch(1);
+            AtomicInteger errors = new AtomicInteger();
+            controller.setCommandCallback(new RobotController.CommandCallback() {
+                @Override
+                public void onSending(String endpoint, String url) {
+                }
+
+                @Override
+                public void onResult(String endpoint, int httpCode, String body) {
+                }
+
+                @Override
+                public void onError(String endpoint, Exception error) {
+                    errors.incrementAndGet();
+                }
+
+                @Override
+                public void onRetry(String endpoint, int attempt, Exception cause) {
+                    if (attempt == 2 && cause instanceof SocketTimeoutException) retried.countDown();
+                }
+            });
+
+            controller.setServo(2, 45);
+            assertTrue(retried.await(5, TimeUnit.SECONDS));
+            assertTrue(robot.getState().awaitCommandCount(1, 5000));
+            assertEquals(45, robot.getState().getServo(2));
+            // One command, one outcome: the HTTP resend's.
+            assertOneSuccessAndNoFailures(controller);
+            assertEquals(0, errors.get());
+        }
+    }
+
+    @Test
+    public void unansweredWebSocketDriveIsDroppedOnceStale() throws Exception {
+        robot = new RobotEmulator(LinkConditions.IDEAL, 10).start(0, 0);
+        try (LocalWebSocketServer ws = new LocalWebSocketServer()) {
+            ws.setSilent(true);
+            controller = new RobotController("127.0.0.1", robot.getHttpPort(),
+                    RobotController.Transport.WEBSOCKET, ws.getPort());
+            // Every drive command is too old to replay by the time its reply is overdue.
+            controller.setRetryPolicy(new RetryPolicy(3, 3, 0));
+            CountDownLatch failed = new CountDownLatch(1);
+            AtomicInteger results = new AtomicInteger();
+            controller.setCommandCallback(new RobotController.CommandCallback() {
+                @Override
+                public void onSending(String endpoint, String url) {
+                }
+
+                @Override
+                public void onResult(String endpoint, int httpCode, String body) {
+                    results.incrementAndGet();
+                }
+
+                @Override
+                public void onError(String endpoint, Exception error) {
+                    if (error instanceof SocketTimeoutException) failed.countDown();
+                }
+            });
+
+            controller.moveForward();
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+            Thread.sleep(200);
+            assertEquals(0, robot.getHttpServer().getReceivedCount());
+            assertEquals(0, results.get());
+            assertEquals(1, controller.getMetricsSnapshot().getTotalTimeouts());
+        }
+    }
+
+    @Test
+    public void stopThatFallsBackFromUdpToHttpCountsAsOneSuccess() throws Exception {
+        robot = new RobotEmulator(LinkConditions.IDEAL, 8).start(0, 0);
+        int deadPort;
+        try (DatagramSocket unused = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            deadPort = unused.getLocalPort();
+        }
+        controller = new RobotController("127.0.0.1", robot.getHttpPort(),
+                RobotController.Transport.UDP, deadPort);
+        controller.setRetryPolicy(new RetryPolicy(2, 1, 0));
+
+        controller.stopMotors();
+        assertTrue(robot.getState().awaitCommandCount(1, 5000));
+        assertEquals(1, robot.getHttpServer().getReceivedCount());
+        assertOneSuccessAndNoFailures(controller);
+    }
+
+    @Test
+    public void refusedHttpCommandCountsAsAnError() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread robot = new Thread(() -> {
+                try (Socket s = server.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                    String line;
+                    while ((line = in.readLine()) != null && !line.isEmpty()) {
+                        // request line and headers
+                    }
+                    s.getOutputStream().write("HTTP/1.1 500 Internal Server Error\r\nContent-Length: 0\r\n\r\n"
+                            .getBytes(StandardCharsets.US_ASCII));
+                    s.getOutputStream().flush();
+                    Thread.sleep(500);
+                } catch (IOException | InterruptedException ignored) {
+                }
+            });
+            robot.setDaemon(true);
+            robot.start();
+            controller = new RobotController("127.0.0.1", server.getLocalPort());
+            CountDownLatch answered = new CountDownLatch(1);
+            controller.setCommandCallback(new RobotController.CommandCallback() {
+                @Override
+                public void onSending(String endpoint, String url) {
+                }
+
+                @Override
+                public void onResult(String endpoint, int httpCode, String body) {
+                    if (httpCode == 500) answered.countDown();
+                }
+
+                @Override
+                public void onError(String endpoint, Exception error) {
+                }
+            });
+
+            controller.setServo(1, 10);
+            assertTrue(answered.await(5, TimeUnit.SECONDS));
+            CommandMetrics.Snapshot metrics = controller.getMetricsSnapshot();
+            assertEquals(0, metrics.getTotalSuccess());
+            assertEquals(1, metrics.getTotalErrors());
+        }
+    }
+
+    private static void assertOneSuccessAndNoFailures(RobotController controller) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (controller.getMetricsSnapshot().getTotalSuccess() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        CommandMetrics.Snapshot metrics = controller.getMetricsSnapshot();
+        assertEquals(1, metrics.getTotalSuccess());
+        assertEquals(0, metrics.getTotalErrors());
+        assertEquals(0, metrics.getTotalTimeouts());
+    }
+
+    @Test
+    public void rfcommEngineTalksToTheBluetoothProtocol() throws Exception {
+        robot = new RobotEmulator(LinkConditions.IDEAL, 4).start(0, 0);
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), robot.getBluetoothPort());
+        RfcommEngine engine = new RfcommEngine("emulator");
+        StringBuilder received = new StringBuilder();
+        CountDownLatch replies = new CountDownLatch(1);
+        engine.addListener(new RfcommEngine.Listener() {
+            @Override
+            public void onData(byte[] buffer, int length) {
+                synchronized (received) {
+                    received.append(new String(buffer, 0, length, StandardCharsets.US_ASCII));
+                    if (received.toString().contains("OK p2 45")) replies.countDown();
+                }
+            }
+        });
+        engine.start(socket.getInputStream(), socket.getOutputStream(), socket);
+        try {
+            engine.send(Lane.MOTION, "drive", "w".getBytes(StandardCharsets.US_ASCII));
+            engine.send(Lane.LOW, "servo:2", "p2:45;".getBytes(StandardCharsets.US_ASCII));
+            assertTrue(replies.await(2, TimeUnit.SECONDS));
+        } finally {
+            engine.close();
+        }
+        assertEquals(RobotState.Motion.WALK, robot.getState().getMotion());
+        assertEquals(45, robot.getState().getServo(2));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CommandCoalescerTest {
+
+    @Test
+    public void offer_keepsOnlyNewestValuePerKey() {
+        CommandCoalescer<String> q = new CommandCoalescer<>();
+
+        assertTrue(q.offer("servo:1", "p1:10;"));
+        assertFalse(q.offer("servo:2", "p2:10;"));
+        q.offer("servo:1", "p1:20;");
+        q.offer("servo:1", "p1:30;");
+
+        // servo:1 keeps its original slot but carries the latest angle
+        assertEquals("p1:30;", q.poll());
+        assertEquals("p2:10;", q.poll());
+        assertNull(q.poll());
+
+        assertEquals(4, q.getOfferedCount());
+        assertEquals(2, q.getCoalescedCount());
+    }
+
+    @Test
+    public void flush_dropsEverythingQueued() {
+        CommandCoalescer<String> q = new CommandCoalescer<>();
+        q.offer("drive", "/forward");
+        q.offer("servo:3", "/set?servo=3&angle=90");
+
+        assertEquals(2, q.flush());
+        assertTrue(q.offer("drive", "/stop"));
+        assertEquals("/stop", q.poll());
+        assertEquals(2, q.getFlushedCount());
+    }
+}
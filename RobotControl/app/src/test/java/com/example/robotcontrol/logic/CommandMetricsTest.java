@@ -0,0 +1,76 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CommandMetricsTest {
+
+    @Test
+    public void histogram_percentilesWithinBucketError() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) {
+            h.recordMicros(ms * 1000L);
+        }
+
+        assertEquals(100, h.getCount());
+        assertEquals(100_000, h.getMaxMicros());
+        assertWithin(50_000, h.getPercentileMicros(50));
+        assertWithin(90_000, h.getPercentileMicros(90));
+        assertWithin(99_000, h.getPercentileMicros(99));
+        assertEquals(100_000, h.getPercentileMicros(100));
+    }
+
+    @Test
+    public void snapshot_groupsByPathAndCountsOutcomes() {
+        AtomicLong clock = new AtomicLong(10_000_000_000L);
+        CommandMetrics metrics = new CommandMetrics(clock::get);
+
+        long start = metrics.now();
+        clock.addAndGet(20_000_000L); // 20 ms
+        metrics.recordSuccess("/set?servo=1&angle=90", start);
+        start = metrics.now();
+        clock.addAndGet(40_000_000L);
+        metrics.recordSuccess("/set?servo=2&angle=10", start);
+        metrics.recordFailure("/forward", new SocketTimeoutException("read timed out"));
+        metrics.recordFailure("/forward", new java.io.IOException("reset"));
+
+        clock.addAndGet(1_000_000_000L);
+        CommandMetrics.Snapshot snap = metrics.snapshot();
+
+        assertEquals(2, snap.endpoints.size());
+        CommandMetrics.EndpointStats forward = snap.endpoints.get(0);
+        CommandMetrics.EndpointStats set = snap.endpoints.get(1);
+        assertEquals("/forward", forward.endpoint);
+        assertEquals(1, forward.timeouts);
+        assertEquals(1, forward.errors);
+        assertEquals("/set", set.endpoint);
+        assertEquals(2, set.success);
+        assertWithin(40_000, set.maxMicros);
+        assertEquals(4 / 4.0, snap.commandsPerSecond, 0.001);
+        assertEquals(2, snap.getTotalSuccess());
+    }
+
+    @Test
+    public void unacknowledged_isNeitherSuccessNorFailure() {
+        CommandMetrics metrics = new CommandMetrics();
+        metrics.recordUnacknowledged("/drive?l=10&r=10");
+        metrics.recordUnacknowledged("/drive?l=20&r=20");
+
+        CommandMetrics.Snapshot snap = metrics.snapshot();
+        assertEquals(0, snap.getTotalSuccess());
+        assertEquals(0, snap.getTotalErrors());
+        assertEquals(2, snap.getTotalUnacked());
+        assertEquals(0, snap.endpoints.get(0).maxMicros);
+        assertTrue(snap.format().contains("unacked 2"));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 8);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EventCoalescerTest {
+
+    @Test
+    public void drain_deliversOneBatchPerScheduleWithLatestStatus() {
+        EventCoalescer coalescer = new EventCoalescer(3);
+        List<String> ran = new ArrayList<>();
+
+        assertTrue(coalescer.offerStatus("sending a"));
+        assertFalse(coalescer.offerEvent(() -> ran.add("connected")));
+        assertFalse(coalescer.offerStatus("sent a"));
+        for (int i = 1; i <= 5; i++) {
+            assertFalse(coalescer.offerLine("OK " + i));
+        }
+
+        EventCoalescer.Batch batch = new EventCoalescer.Batch();
+        coalescer.drainTo(batch);
+        for (Runnable r : batch.events) r.run();
+
+        assertEquals(Arrays.asList("connected"), ran);
+        assertEquals("sent a", batch.status);
+        assertEquals(Arrays.asList("OK 3", "OK 4", "OK 5"), batch.lines);
+        assertEquals(1, coalescer.getMergedCount());
+        assertEquals(2, coalescer.getDroppedCount());
+        assertEquals(1, coalescer.getBatchCount());
+        assertEquals(8, coalescer.getOfferedCount());
+
+        coalescer.drainTo(batch);
+        assertTrue(batch.isEmpty());
+        assertNull(batch.status);
+        assertTrue(coalescer.offerLine("next frame"));
+    }
+
+    @Test
+    public void clear_dropsPendingEventsAndAllowsANewSchedule() {
+        EventCoalescer coalescer = new EventCoalescer(3);
+        assertTrue(coalescer.offerLine("a"));
+        coalescer.clear();
+
+        EventCoalescer.Batch batch = new EventCoalescer.Batch();
+        coalescer.drainTo(batch);
+        assertTrue(batch.isEmpty());
+        assertTrue(coalescer.offerStatus("again"));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JoystickQuantizerTest {
+
+    private final JoystickQuantizer quantizer = new JoystickQuantizer(0.1f, 10);
+
+    @Test
+    public void quantize_deadZoneAndJitterMapToSameSetpoint() {
+        assertEquals(DriveSetpoint.STOP, quantizer.quantize(0.05f, -0.05f));
+        assertEquals(quantizer.quantize(0.0f, 0.80f), quantizer.quantize(0.01f, 0.81f));
+    }
+
+    @Test
+    public void quantize_arcadeMixesAndSaturates() {
+        assertEquals(new DriveSetpoint(100, 100), quantizer.quantize(0f, 1f));
+        assertEquals(new DriveSetpoint(-100, -100), quantizer.quantize(0f, -1f));
+        assertEquals(new DriveSetpoint(100, -100), quantizer.quantize(1f, 0f)); // spin right
+        // Full forward plus full right: left wheel saturates, right wheel stops.
+        DriveSetpoint arc = quantizer.quantize(0.7f, 0.7f);
+        assertEquals(100, arc.left);
+        assertEquals(0, arc.right);
+        assertEquals("/drive?l=100&r=0", arc.toEndpoint());
+    }
+}
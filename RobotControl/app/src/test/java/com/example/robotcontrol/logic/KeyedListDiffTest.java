@@ -0,0 +1,117 @@
+package com.example.robotcontrol.logic;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeyedListDiffTest {
+
+    /** "key:content" strings. */
+    private static final KeyedListDiff.Keys<String> KEYS = new KeyedListDiff.Keys<String>() {
+        @NonNull
+        @Override
+        public Object keyOf(@NonNull String item) {
+            return item.substring(0, item.indexOf(':'));
+        }
+
+        @Override
+        public boolean sameContent(@NonNull String oldItem, @NonNull String newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    /** Replays the notifications on a mirror list the way RecyclerView would. */
+    private static final class Recorder implements KeyedListDiff.Listener {
+        final List<String> mirror;
+        final List<String> target;
+        final List<String> log = new ArrayList<>();
+
+        Recorder(List<String> before, List<String> target) {
+            this.mirror = new ArrayList<>(before);
+            this.target = target;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            log.add("remove " + position + "+" + count);
+            for (int i = 0; i < count; i++) mirror.remove(position);
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            log.add("insert " + position + "+" + count);
+            for (int i = 0; i < count; i++) mirror.add(position + i, "?:new");
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            log.add("move " + fromPosition + ">" + toPosition);
+            mirror.add(toPosition, mirror.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            log.add("change " + position + "+" + count);
+            for (int i = 0; i < count; i++) mirror.set(position + i, "?:changed");
+        }
+
+        /** Every untouched row must be the one the target has at that position. */
+        void check() {
+            assertEquals(target.size(), mirror.size());
+            for (int i = 0; i < target.size(); i++) {
+                if (!mirror.get(i).startsWith("?:")) assertEquals(target.get(i), mirror.get(i));
+            }
+        }
+    }
+
+    private static Recorder diff(List<String> before, List<String> after) {
+        List<String> current = new ArrayList<>(before);
+        Recorder recorder = new Recorder(before, after);
+        KeyedListDiff.apply(current, after, KEYS, recorder);
+        assertEquals(after, current);
+        recorder.check();
+        return recorder;
+    }
+
+    @Test
+    public void apply_reportsRangesForRemovalsInsertsAndChanges() {
+        Recorder r = diff(Arrays.asList("a:1", "b:1", "c:1", "d:1", "e:1"),
+                Arrays.asList("a:1", "d:2", "e:2", "f:1", "g:1"));
+        assertEquals(Arrays.asList("remove 1+2", "change 1+2", "insert 3+2"), r.log);
+    }
+
+    @Test
+    public void apply_movesRowsInsteadOfRebindingThem() {
+        Recorder r = diff(Arrays.asList("a:1", "b:1", "c:1"), Arrays.asList("c:1", "a:1", "b:2"));
+        assertEquals(Arrays.asList("move 2>0", "change 2+1"), r.log);
+    }
+
+    @Test
+    public void apply_sendsNothingWhenTheScanIsUnchanged() {
+        List<String> list = Arrays.asList("a:1", "b:1");
+        assertEquals(0, KeyedListDiff.apply(new ArrayList<>(list), new ArrayList<>(list), KEYS, new Recorder(list, list)));
+    }
+
+    @Test
+    public void apply_keepsTheMirrorInSyncForRandomScans() {
+        Random random = new Random(5);
+        List<String> before = new ArrayList<>();
+        for (int round = 0; round < 300; round++) {
+            List<String> after = new ArrayList<>();
+            for (int k = 0; k < 60; k++) {
+                if (random.nextInt(4) != 0) after.add("ap" + k + ":" + random.nextInt(3));
+            }
+            Collections.shuffle(after, random);
+            diff(before, after);
+            before = after;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.robotcontrol.logic;
+
+import com.example.robotcontrol.logic.PriorityCommandQueue.Lane;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PriorityCommandQueueTest {
+
+    @Test
+    public void poll_servesHigherLanesFirstAndKeepsOrderWithinALane() {
+        PriorityCommandQueue<String> q = new PriorityCommandQueue<>();
+        assertTrue(q.offer(Lane.LOW, "servo:1", "p1:10;"));
+        assertFalse(q.offer(Lane.LOW, "servo:2", "p2:20;"));
+        q.offer(Lane.MOTION, "drive", "w");
+        q.offer(Lane.LOW, "servo:3", "p3:30;");
+
+        assertEquals("w", q.poll());
+        assertEquals("p1:10;", q.poll());
+        assertEquals("p2:20;", q.poll());
+        assertEquals("p3:30;", q.poll());
+        assertNull(q.poll());
+    }
+
+    @Test
+    public void remove_dropsAKeyFromAnyLane() {
+        PriorityCommandQueue<String> q = new PriorityCommandQueue<>();
+        q.offer(Lane.LOW, "servo:1", "p1:10;");
+        q.offer(Lane.LOW, "pose", "q1:20;");
+
+        assertTrue(q.remove("servo:1"));
+        assertFalse(q.remove("servo:1"));
+        assertEquals(1, q.getCoalescedCount());
+        assertEquals("q1:20;", q.poll());
+        assertNull(q.poll());
+    }
+
+    @Test
+    public void emergency_jumpsQueuedWorkAndDropsQueuedMotion() {
+        PriorityCommandQueue<String> q = new PriorityCommandQueue<>();
+        for (int i = 1; i <= 8; i++) {
+            q.offer(Lane.LOW, "servo:" + i, "p" + i + ":90;");
+        }
+        q.offer(Lane.MOTION, "drive", "w");
+
+        // "w" is in flight; a new turn and then a stop arrive behind it.
+        assertEquals("w", q.poll());
+        q.offer(Lane.MOTION, "drive", "l");
+        q.offer(Lane.EMERGENCY, "drive", "s");
+
+        assertTrue(q.isPending("drive"));
+        assertEquals("s", q.poll());
+        assertEquals(0, q.size(Lane.MOTION));
+        assertEquals(8, q.size(Lane.LOW));
+        assertEquals(1, q.getFlushedCount());
+    }
+}
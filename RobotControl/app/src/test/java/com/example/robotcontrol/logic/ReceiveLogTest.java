@@ -0,0 +1,99 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReceiveLogTest {
+
+    private final List<String> changes = new ArrayList<>();
+
+    private ReceiveLog log(int capacity) {
+        ReceiveLog log = new ReceiveLog(capacity);
+        log.setListener(new ReceiveLog.Listener() {
+            @Override
+            public void onRemoved(int position, int count) {
+                changes.add("-" + position + "x" + count);
+            }
+
+            @Override
+            public void onInserted(int position, int count) {
+                changes.add("+" + position + "x" + count);
+            }
+
+            @Override
+            public void onReset() {
+                changes.add("reset");
+            }
+        });
+        return log;
+    }
+
+    private static List<String> rows(ReceiveLog log) {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < log.size(); i++) rows.add(log.get(i));
+        return rows;
+    }
+
+    @Test
+    public void append_evictsOldestAndReportsRangeChanges() {
+        ReceiveLog log = log(3);
+        log.appendAll(Arrays.asList("a", "b"));
+        log.append("c");
+        log.appendAll(Arrays.asList("d", "e"));
+
+        assertEquals(Arrays.asList("c", "d", "e"), rows(log));
+        assertEquals(Arrays.asList("+0x2", "+2x1", "-0x2", "+1x2"), changes);
+        assertEquals(5, log.getTotalCount());
+    }
+
+    @Test
+    public void appendAll_largerThanCapacityOnlyReportsSurvivors() {
+        ReceiveLog log = log(3);
+        log.append("a");
+        changes.clear();
+        log.appendAll(Arrays.asList("1", "2", "3", "4", "5"));
+
+        assertEquals(Arrays.asList("3", "4", "5"), rows(log));
+        assertEquals(Arrays.asList("-0x1", "+0x3"), changes);
+    }
+
+    @Test
+    public void filter_showsMatchingLinesAndDropsRowsTheRingForgot() {
+        ReceiveLog log = log(4);
+        log.appendAll(Arrays.asList("OK a", "ERR 1", "OK b"));
+        log.setFilterPrefix("ERR");
+        assertEquals(Arrays.asList("ERR 1"), rows(log));
+
+        changes.clear();
+        log.appendAll(Arrays.asList("OK c", "OK d", "OK e"));
+        // "ERR 1" fell out of the 4-line ring, so its row goes too.
+        assertEquals(0, log.size());
+        assertEquals(Arrays.asList("-0x1"), changes);
+
+        log.setFilterPrefix("");
+        assertEquals(Arrays.asList("OK b", "OK c", "OK d", "OK e"), rows(log));
+    }
+
+    @Test
+    public void pause_freezesRowsUntilResumed() {
+        ReceiveLog log = log(10);
+        log.append("a");
+        log.setPaused(true);
+        changes.clear();
+        log.appendAll(Arrays.asList("b", "c"));
+
+        assertEquals(Arrays.asList("a"), rows(log));
+        assertEquals(2, log.getPendingCount());
+        assertEquals(0, changes.size());
+
+        log.setPaused(false);
+        assertEquals(Arrays.asList("a", "b", "c"), rows(log));
+        assertEquals(Arrays.asList("reset"), changes);
+        assertEquals(0, log.getPendingCount());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReconnectBackoffTest {
+
+    @Test
+    public void nextDelay_retriesFastThenBacksOffWithJitterUpToTheCap() {
+        ReconnectBackoff backoff = new ReconnectBackoff(100, 500, 4000, 6, new Random(1));
+        backoff.onLost(0);
+
+        assertEquals(100, backoff.nextDelayMs());
+        long[] nominal = {500, 1000, 2000, 4000, 4000};
+        for (long n : nominal) {
+            long delay = backoff.nextDelayMs();
+            assertTrue(delay + " not in [" + n / 2 + ", " + n + "]", delay >= n / 2 && delay <= n);
+        }
+        assertEquals(-1, backoff.nextDelayMs());
+    }
+
+    @Test
+    public void onReconnected_measuresEachOutageOnce() {
+        ReconnectBackoff backoff = new ReconnectBackoff(100, 500, 4000, 6, new Random(1));
+        assertEquals(-1, backoff.onReconnected(50));
+
+        backoff.onLost(1000);
+        backoff.nextDelayMs();
+        backoff.onLost(1200);
+        assertTrue(backoff.isOutage());
+        assertEquals(300, backoff.onReconnected(1300));
+        assertFalse(backoff.isOutage());
+        assertEquals(0, backoff.getAttempts());
+
+        backoff.onLost(2000);
+        assertEquals(700, backoff.onReconnected(2700));
+        assertEquals(700, backoff.getLastTimeToReconnectMs());
+        assertEquals(500, backoff.getAverageTimeToReconnectMs());
+        assertEquals(2, backoff.getReconnectCount());
+
+        backoff.onLost(3000);
+        backoff.cancel();
+        assertEquals(-1, backoff.onReconnected(3500));
+        assertEquals(2, backoff.getReconnectCount());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(3, 2, 300);
+
+    @Test
+    public void stop_isRetriedEvenWhenSomethingNewerIsQueued() {
+        assertTrue(policy.shouldRetry("/stop", 1, 5_000, true));
+        assertTrue(policy.shouldRetry("/stop", 2, 5_000, true));
+        assertFalse(policy.shouldRetry("/stop", 3, 0, false));
+    }
+
+    @Test
+    public void drive_isNeverReplayedOnceStale() {
+        assertTrue(policy.shouldRetry("/forward", 1, 100, false));
+        assertFalse(policy.shouldRetry("/forward", 1, 100, true)); // stop or another drive queued
+        assertFalse(policy.shouldRetry("/forward", 1, 301, false)); // too old
+        assertFalse(policy.shouldRetry("/forward", 2, 0, false));
+    }
+
+    @Test
+    public void setpoints_retryUnlessSuperseded() {
+        assertTrue(policy.shouldRetry("/set?servo=1&angle=90", 1, 10_000, false));
+        assertFalse(policy.shouldRetry("/pose?s1=90", 1, 0, true));
+        assertFalse(policy.shouldRetry("/status", 1, 0, false));
+        assertFalse(RetryPolicy.NONE.shouldRetry("/stop", 1, 0, false));
+    }
+}
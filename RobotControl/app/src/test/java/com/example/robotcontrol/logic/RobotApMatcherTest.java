@@ -0,0 +1,131 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RobotApMatcherTest {
+
+    @Test
+    public void defaults_matchTheSsidsTheAppAlwaysRecognised() {
+        RobotApMatcher m = RobotApMatcher.defaults();
+        assertEquals(RobotApMatcher.MATCH_EXACT | RobotApMatcher.MATCH_PREFIX, m.match("robot_ap", null));
+        assertTrue(m.matches("ROBOT_7", null));
+        assertTrue(m.matches("RobotArm", null));
+        assertTrue(m.matches("ESP_1A2B3C", null));
+        assertTrue(m.matches("Arduino_Uno", null));
+        assertFalse(m.matches("HomeWiFi", null));
+        assertFalse(m.matches("ESP", null));
+        assertFalse(m.matches("", null));
+    }
+
+    @Test
+    public void match_reportsEachKindOfRule() {
+        RobotApMatcher m = RobotApMatcher.parse("# classroom kits\n"
+                + "exact:Lab Robot\n"
+                + "suffix:-BOT\n"
+                + "regex:^RC-[0-9]{3}$\n"
+                + "oui:24:0A:C4\n");
+        assertEquals(4, m.getRuleCount());
+        assertEquals(RobotApMatcher.MATCH_EXACT, m.match("lab robot", null));
+        assertEquals(0, m.match("lab robot 2", null));
+        assertEquals(RobotApMatcher.MATCH_SUFFIX, m.match("rover-bot", null));
+        assertEquals(RobotApMatcher.MATCH_REGEX, m.match("rc-042", null));
+        assertEquals(0, m.match("RC-42", null));
+        assertEquals(RobotApMatcher.MATCH_OUI, m.match("Printer", "24:0a:c4:11:22:33"));
+        assertEquals(0, m.match("Printer", "24:0a:c5:11:22:33"));
+        assertEquals(RobotApMatcher.MATCH_SUFFIX | RobotApMatcher.MATCH_OUI, m.match("x-bot", "24:0A:C4:00:00:01"));
+    }
+
+    @Test
+    public void parse_namesTheBadLine() {
+        for (String bad : Arrays.asList("prefix:A\nbogus:B", "prefix:A\nregex:(", "oui:24:0A", "prefix:")) {
+            try {
+                RobotApMatcher.parse(bad);
+                fail("accepted " + bad);
+            } catch (IllegalArgumentException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().startsWith("Line "));
+            }
+        }
+    }
+
+    @Test
+    public void matches_agreesWithCheckingEachRuleInTurn() {
+        StringBuilder rules = new StringBuilder();
+        List<String> prefixes = new ArrayList<>();
+        List<String> suffixes = new ArrayList<>();
+        List<Pattern> regexes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            prefixes.add("Kit" + i + "_");
+            rules.append("prefix:Kit").append(i).append("_\n");
+        }
+        for (int i = 0; i < 15; i++) {
+            suffixes.add("-rover" + i);
+            rules.append("suffix:-rover").append(i).append('\n');
+        }
+        for (int i = 0; i < 5; i++) {
+            String r = "^LAB" + i + "-[0-9]{2}$";
+            regexes.add(Pattern.compile(r, Pattern.CASE_INSENSITIVE));
+            rules.append("regex:").append(r).append('\n');
+        }
+        RobotApMatcher matcher = RobotApMatcher.parse(rules.toString());
+
+        // A busy building's scan: kit and rover names, lab robots, and plenty of strangers.
+        Random random = new Random(3);
+        int matched = 0;
+        for (int i = 0; i < 500; i++) {
+            String ssid;
+            switch (random.nextInt(5)) {
+                case 0: ssid = "kit" + random.nextInt(60) + "_" + i; break;
+                case 1: ssid = "unit" + i + "-ROVER" + random.nextInt(20); break;
+                case 2: ssid = "lab" + random.nextInt(8) + "-" + (10 + random.nextInt(90)); break;
+                default: ssid = "eduroam-" + Integer.toHexString(random.nextInt()); break;
+            }
+            boolean expected = false;
+            for (String p : prefixes) {
+                expected |= ssid.regionMatches(true, 0, p, 0, p.length());
+            }
+            for (String x : suffixes) {
+                expected |= ssid.regionMatches(true, ssid.length() - x.length(), x, 0, x.length());
+            }
+            for (Pattern r : regexes) {
+                expected |= r.matcher(ssid).find();
+            }
+            assertEquals(ssid, expected, matcher.matches(ssid, null));
+            if (expected) matched++;
+        }
+        assertTrue(matched > 100);
+    }
+
+    @Test
+    public void rank_prefersStrongAndRecentResults() {
+        assertTrue(RobotApMatcher.score(-40, 0) > RobotApMatcher.score(-70, 0));
+        assertTrue(RobotApMatcher.score(-70, 0) > RobotApMatcher.score(-40, 30_000));
+
+        List<int[]> aps = new ArrayList<>(Arrays.asList(
+                new int[]{-80, 0}, new int[]{-40, 60_000}, new int[]{-50, 1_000}, new int[]{-60, 0}));
+        RobotApMatcher.rank(aps, new RobotApMatcher.Signal<int[]>() {
+            @Override
+            public int rssiDbm(int[] item) {
+                return item[0];
+            }
+
+            @Override
+            public long ageMs(int[] item) {
+                return item[1];
+            }
+        });
+        assertEquals(-50, aps.get(0)[0]);
+        assertEquals(-60, aps.get(1)[0]);
+        assertEquals(-80, aps.get(3)[0]);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RttEstimatorTest {
+
+    @Test
+    public void timeout_tracksSmoothedRttAndVariance() {
+        RttEstimator rtt = new RttEstimator(1500, 50, 4000);
+        assertEquals(1500, rtt.getTimeoutMs());
+        assertEquals(-1, rtt.getSmoothedRttMs());
+
+        rtt.addSample(40);
+        // First sample: srtt = 40, rttvar = 20, timeout = 40 + 4 * 20
+        assertEquals(40, rtt.getSmoothedRttMs());
+        assertEquals(120, rtt.getTimeoutMs());
+
+        for (int i = 0; i < 50; i++) rtt.addSample(40);
+        assertEquals(50, rtt.getTimeoutMs()); // variance decays, clamped to the minimum
+    }
+
+    @Test
+    public void timeout_backsOffAndRecovers() {
+        RttEstimator rtt = new RttEstimator(1500, 50, 1000);
+        rtt.addSample(100);
+        long base = rtt.getTimeoutMs();
+
+        rtt.onTimeout();
+        assertEquals(base * 2, rtt.getTimeoutMs());
+        for (int i = 0; i < 10; i++) rtt.onTimeout();
+        assertEquals(1000, rtt.getTimeoutMs());
+
+        rtt.addSample(100);
+        assertTrue(rtt.getTimeoutMs() < 1000);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScanBudgetTest {
+
+    @Test
+    public void delay_waitsForTheOldestScanToLeaveTheWindow() {
+        ScanBudget budget = new ScanBudget(4, 120_000);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, budget.delayUntilNextScanMs(i * 10_000));
+            budget.onScanStarted(i * 10_000);
+        }
+        assertEquals(4, budget.getUsed(30_000));
+        assertEquals(90_000, budget.delayUntilNextScanMs(30_000));
+        assertEquals(0, budget.delayUntilNextScanMs(120_000));
+        assertEquals(3, budget.getUsed(120_000));
+
+        budget.onScanStarted(120_000);
+        assertEquals(10_000, budget.delayUntilNextScanMs(120_000));
+    }
+
+    @Test
+    public void refused_backsOffLongerWithEachRefusalInARow() {
+        ScanBudget budget = new ScanBudget(4, 120_000);
+        budget.onScanRefused(5_000);
+        assertEquals(30_000, budget.delayUntilNextScanMs(5_000));
+        budget.onScanRefused(35_000);
+        assertEquals(60_000, budget.delayUntilNextScanMs(35_000));
+        budget.onScanRefused(95_000);
+        assertEquals(120_000, budget.delayUntilNextScanMs(95_000));
+        budget.onScanRefused(215_000);
+        assertEquals(120_000, budget.delayUntilNextScanMs(215_000));
+
+        // An accepted scan starts the backoff over.
+        budget.onScanStarted(335_000);
+        budget.onScanRefused(340_000);
+        assertEquals(30_000, budget.delayUntilNextScanMs(340_000));
+    }
+
+    @Test
+    public void refused_neverWaitsPastTheOldestCountedScan() {
+        ScanBudget budget = new ScanBudget(4, 120_000);
+        budget.onScanStarted(0);
+        budget.onScanRefused(100_000);
+        assertEquals(20_000, budget.delayUntilNextScanMs(100_000));
+        assertEquals(0, budget.delayUntilNextScanMs(120_000));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ServoPoseTest {
+
+    private static final int U = ServoPose.UNCHANGED;
+
+    @Test
+    public void diff_isAgainstWhatWasSentOrQueued() {
+        ServoPose pose = new ServoPose(3);
+
+        int[] first = pose.queue(new int[]{90, 45, 120}, true);
+        assertEquals("/pose?s1=90&s2=45&s3=120", ServoPose.toEndpoint(first));
+        // Still queued: asking again adds nothing.
+        assertNull(pose.queue(new int[]{90, 45, 120}, true));
+        pose.sentEndpoint(ServoPose.toEndpoint(first));
+
+        int[] second = pose.queue(new int[]{90, 60, 120}, true);
+        assertEquals("/pose?s2=60", ServoPose.toEndpoint(second));
+        pose.sentEndpoint(ServoPose.toEndpoint(second));
+        assertNull(pose.queue(new int[]{90, 60, 120}, true));
+
+        // A lost command is sent again by the next diff.
+        pose.failedEndpoint("/pose?s2=60");
+        assertArrayEquals(new int[]{U, 60, U}, pose.queue(new int[]{90, 60, 120}, true));
+    }
+
+    @Test
+    public void queue_mergesIntoTheWaitingPose() {
+        ServoPose pose = new ServoPose(3);
+        pose.queue(new int[]{90, U, U}, true);
+        // Replaces the first pose in the queue, so it must still carry servo 1.
+        assertArrayEquals(new int[]{90, 45, U}, pose.queue(new int[]{U, 45, U}, true));
+
+        // A newer single-servo command takes servo 1 out of the pose.
+        pose.queueSingle(1, 30);
+        assertArrayEquals(new int[]{U, 45, 10}, pose.queue(new int[]{30, U, 10}, true));
+
+        // Sending an older value leaves the newer one waiting.
+        pose.queue(new int[]{U, 50, U}, true);
+        pose.sentEndpoint("/pose?s2=45&s3=10");
+        assertArrayEquals(new int[]{U, 50, 20}, pose.queue(new int[]{U, U, 20}, true));
+    }
+
+    @Test
+    public void bluetoothCommand_roundTrips() {
+        String cmd = ServoPose.toBluetoothCommand(new int[]{90, U, 45, U, U, U, U, 180});
+        assertEquals("q1:90,3:45,8:180;", cmd);
+        assertArrayEquals(new int[]{90, U, 45, U, U, U, U, 180}, ServoPose.fromBluetoothCommand(cmd, 8));
+        assertArrayEquals(new int[]{U, U, 120, U, U, U, U, U}, ServoPose.fromBluetoothCommand("p3:120;", 8));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TelemetryStoreTest {
+
+    private final TelemetryStore store = new TelemetryStore(16);
+
+    private boolean parse(String line, long time) {
+        byte[] bytes = ("xx" + line).getBytes(StandardCharsets.US_ASCII);
+        return store.parse(bytes, 2, bytes.length - 2, time);
+    }
+
+    @Test
+    public void parse_recordsKnownChannels() {
+        assertTrue(parse("T bat=7.41 s3:45 ENCL=1200,encr=-3 dist=23.5 rssi=-60", 5));
+
+        assertEquals(7.41, store.series(TelemetryStore.Channel.BATTERY_V).latest(0), 1e-9);
+        assertEquals(45.0, store.series(TelemetryStore.Channel.SERVO_3).latest(0), 0);
+        assertEquals(1200.0, store.series(TelemetryStore.Channel.ENCODER_LEFT).latest(0), 0);
+        assertEquals(-3.0, store.series(TelemetryStore.Channel.ENCODER_RIGHT).latest(0), 0);
+        assertEquals(23.5, store.series(TelemetryStore.Channel.DISTANCE_CM).latest(0), 1e-9);
+        assertEquals(0, store.series(TelemetryStore.Channel.SERVO_1).getCount());
+        assertEquals(1, store.getLineCount());
+        assertEquals(0, store.getMalformedCount());
+    }
+
+    @Test
+    public void parse_skipsMalformedValuesAndOtherLines() {
+        assertFalse(parse("OK a (forward)", 1));
+        assertFalse(parse("T: 12", 1));
+        assertTrue(parse("T bat=7.x dist=10 s1", 2));
+
+        assertEquals(0, store.series(TelemetryStore.Channel.BATTERY_V).getCount());
+        assertEquals(10.0, store.series(TelemetryStore.Channel.DISTANCE_CM).latest(0), 0);
+        assertEquals(1, store.getMalformedCount());
+    }
+
+    @Test
+    public void parseNumber_handlesPlainDecimals() {
+        byte[] b = "-0.25 .5 12 1e3 .".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(-0.25, TelemetryStore.parseNumber(b, 0, 5), 0);
+        assertEquals(0.5, TelemetryStore.parseNumber(b, 6, 2), 0);
+        assertEquals(12.0, TelemetryStore.parseNumber(b, 9, 2), 0);
+        assertTrue(Double.isNaN(TelemetryStore.parseNumber(b, 12, 3)));
+        assertTrue(Double.isNaN(TelemetryStore.parseNumber(b, 16, 1)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TeleopLoopTest {
+
+    private static final long MS = 1_000_000L;
+
+    /** Fake clock: sleeping just advances time, so a whole run is instant and deterministic. */
+    private static final class FakeClock implements FixedRateScheduler.Clock {
+        long now;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public void sleepNanos(long nanos) {
+            now += nanos;
+        }
+    }
+
+    @Test
+    public void loop_suppressesUnchangedValuesAndHeartbeats() throws InterruptedException {
+        FakeClock clock = new FakeClock();
+        List<DriveSetpoint> sent = new ArrayList<>();
+        List<Boolean> heartbeats = new ArrayList<>();
+        TeleopLoop loop = new TeleopLoop(new JoystickQuantizer(0.1f, 10), 200 * MS, clock::nanoTime,
+                (setpoint, heartbeat) -> {
+                    sent.add(setpoint);
+                    heartbeats.add(heartbeat);
+                });
+        // 20 Hz: one tick every 50 ms
+        FixedRateScheduler scheduler = new FixedRateScheduler(clock, 20, loop);
+
+        loop.setStick(0f, 1f);
+        scheduler.runTicks(10); // t = 0 .. 450 ms
+
+        // First tick sends, then a heartbeat at 200 ms and 400 ms.
+        assertEquals(3, sent.size());
+        assertFalse(heartbeats.get(0));
+        assertTrue(heartbeats.get(1));
+        assertEquals(new DriveSetpoint(100, 100), sent.get(2));
+        assertEquals(7, loop.getSuppressedCount());
+
+        loop.centerStick();
+        scheduler.runTicks(1);
+        assertEquals(DriveSetpoint.STOP, sent.get(3));
+        assertFalse(heartbeats.get(3));
+    }
+
+    @Test
+    public void scheduler_skipsTicksItFellBehindOn() throws InterruptedException {
+        FakeClock clock = new FakeClock();
+        // Each tick takes 120 ms against a 50 ms period.
+        FixedRateScheduler scheduler = new FixedRateScheduler(clock, 20, () -> clock.now += 120 * MS);
+
+        scheduler.runTicks(3);
+
+        assertEquals(3, scheduler.getTickCount());
+        assertEquals(4, scheduler.getMissedTickCount());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.robotcontrol.logic;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TimeSeriesTest {
+
+    @Test
+    public void snapshot_returnsNewestSamplesOldestFirstAfterWrapping() {
+        TimeSeries series = new TimeSeries(3);
+        assertEquals(4, series.capacity());
+        assertEquals(-1.0, series.latest(-1), 0);
+
+        for (int i = 1; i <= 6; i++) series.append(i * 10L, i);
+
+        long[] times = new long[8];
+        double[] values = new double[8];
+        int n = series.snapshot(times, values, 8);
+        // The oldest slot is next in line for the writer, so a full ring yields capacity - 1.
+        assertEquals(3, n);
+        assertArrayEquals(new double[]{4, 5, 6}, Arrays.copyOf(values, n), 0);
+        assertEquals(40L, times[0]);
+        assertEquals(6.0, series.latest(-1), 0);
+
+        assertEquals(2, series.snapshot(times, values, 2));
+        assertArrayEquals(new double[]{5, 6}, Arrays.copyOf(values, 2), 0);
+    }
+
+    @Test
+    public void downsampleMinMax_keepsSpikesInEachBucket() {
+        long[] times = {0, 1, 2, 3, 4, 5, 6, 7};
+        double[] values = {1, 9, 2, 3, 4, -5, 6, 7};
+        long[] outTimes = new long[4];
+        double[] min = new double[4];
+        double[] max = new double[4];
+
+        assertEquals(2, TimeSeries.downsampleMinMax(times, values, 8, 2, outTimes, min, max));
+        assertEquals(0L, outTimes[0]);
+        assertEquals(4L, outTimes[1]);
+        assertEquals(1.0, min[0], 0);
+        assertEquals(9.0, max[0], 0);
+        assertEquals(-5.0, min[1], 0);
+        assertEquals(7.0, max[1], 0);
+    }
+
+    @Test
+    public void snapshot_neverReturnsTornSamplesWhileWriting() throws Exception {
+        TimeSeries series = new TimeSeries(64);
+        Thread writer = new Thread(() -> {
+            // Value always mirrors its timestamp, so a mixed-up slot is easy to spot.
+            for (long i = 0; i < 2_000_000; i++) series.append(i, i);
+        });
+        writer.start();
+
+        long[] times = new long[64];
+        double[] values = new double[64];
+        while (writer.isAlive()) {
+            int n = series.snapshot(times, values, 64);
+            for (int i = 0; i < n; i++) {
+                assertEquals(times[i], (long) values[i]);
+                if (i > 0) assertEquals(times[i - 1] + 1, times[i]);
+            }
+        }
+        writer.join();
+        assertEquals(2_000_000, series.getCount());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.robotcontrol.logic;
+
+import com.example.robotcontrol.logic.WifiLinkStateMachine.State;
+import com.example.robotcontrol.logic.WifiLinkStateMachine.Transition;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class WifiLinkStateMachineTest {
+
+    @Test
+    public void connect_recordsTimeToEachState() {
+        WifiLinkStateMachine m = new WifiLinkStateMachine();
+        m.request(1_000);
+        Transition available = m.onAvailable(4_500);
+        Transition bound = m.onBound(4_520);
+
+        assertEquals(State.BOUND, m.getState());
+        assertEquals(3_500, available.durationMs);
+        assertEquals(20, bound.durationMs);
+        assertEquals(3_500, m.getLastTimeToAvailableMs());
+        assertEquals(3_520, m.getLastTimeToBoundMs());
+        assertEquals(3, m.getHistory().size());
+    }
+
+    @Test
+    public void lostNetwork_canComeBackWithoutANewRequest() {
+        WifiLinkStateMachine m = new WifiLinkStateMachine();
+        m.request(0);
+        m.onAvailable(100);
+        m.onBound(100);
+        assertEquals(State.LOST, m.onLost(5_000).to);
+        assertEquals(State.AVAILABLE, m.onAvailable(7_000).to);
+        m.onBound(7_000);
+        // Only the original request counts towards time to available.
+        assertEquals(100, m.getLastTimeToAvailableMs());
+        assertEquals(State.BOUND, m.getState());
+    }
+
+    @Test
+    public void unavailable_returnsToIdleWithTheReason() {
+        WifiLinkStateMachine m = new WifiLinkStateMachine();
+        m.request(0);
+        Transition t = m.onUnavailable(15_000, "declined");
+        assertEquals(State.IDLE, t.to);
+        assertEquals("declined", t.reason);
+        assertEquals(15_000, t.durationMs);
+        assertEquals(-1, m.getLastTimeToBoundMs());
+    }
+
+    @Test
+    public void eventsThatDoNotApply_areIgnored() {
+        WifiLinkStateMachine m = new WifiLinkStateMachine();
+        assertNull(m.onAvailable(0));
+        assertNull(m.onBound(0));
+        assertNull(m.onLost(0));
+        assertNull(m.onUnavailable(0, "late"));
+        assertNull(m.release(0));
+        assertNotNull(m.request(0));
+        assertNull(m.request(10));
+        assertNull(m.onLost(20));
+        assertEquals(State.REQUESTING, m.getState());
+    }
+
+    @Test
+    public void history_keepsTheMostRecentTransitions() {
+        WifiLinkStateMachine m = new WifiLinkStateMachine();
+        for (int i = 0; i < WifiLinkStateMachine.HISTORY_SIZE; i++) {
+            m.request(i * 10);
+            m.release(i * 10 + 5);
+        }
+        List<Transition> history = m.getHistory();
+        assertEquals(WifiLinkStateMachine.HISTORY_SIZE, history.size());
+        assertEquals(State.IDLE, history.get(history.size() - 1).to);
+        assertEquals(WifiLinkStateMachine.HISTORY_SIZE * 10 / 2, history.get(0).atMs);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.robotcontrol.network;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BtFrameCodecTest {
+
+    /** Collects decoded frames as "type/seq/command" and passes text through. */
+    private static final class Recorder implements BtFrameDecoder.Listener {
+        final List<String> frames = new ArrayList<>();
+        final StringBuilder text = new StringBuilder();
+
+        @Override
+        public void onFrame(int type, int seq, byte[] payload, int length) {
+            frames.add(type + "/" + seq + "/" + BtFrameCodec.decodeCommand(type, payload, length));
+        }
+
+        @Override
+        public void onText(byte[] buffer, int offset, int length) {
+            text.append(new String(buffer, offset, length, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void commands_roundTripAndPoseIsSmallerThanAscii() {
+        String[] commands = {"a", "s", "p3:120;", "q1:90,3:45,8:180;"};
+        Recorder recorder = new Recorder();
+        BtFrameDecoder decoder = new BtFrameDecoder(recorder);
+        for (int i = 0; i < commands.length; i++) {
+            byte[] frame = BtFrameCodec.encodeCommand(i, commands[i]);
+            decoder.feed(frame, 0, frame.length);
+        }
+
+        assertEquals("1/0/a", recorder.frames.get(0));
+        assertEquals("1/1/s", recorder.frames.get(1));
+        assertEquals("2/2/p3:120;", recorder.frames.get(2));
+        assertEquals("3/3/q1:90,3:45,8:180;", recorder.frames.get(3));
+
+        String fullPose = "q1:90,2:90,3:90,4:90,5:90,6:90,7:90,8:90;";
+        assertEquals(13, BtFrameCodec.encodeCommand(0, fullPose).length);
+        assertTrue(fullPose.length() > 3 * 13);
+        assertNull(BtFrameCodec.encodeCommand(0, "hello"));
+    }
+
+    @Test
+    public void decoder_assemblesSplitFramesAndPassesTextThrough() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write("OK a\n".getBytes(StandardCharsets.US_ASCII));
+        stream.write(BtFrameCodec.encode(BtFrameCodec.TYPE_ACK, 7, new byte[0], 0));
+        stream.write("OK p3 120\n".getBytes(StandardCharsets.US_ASCII));
+        stream.write(BtFrameCodec.encodeCommand(8, "p3:120;"));
+        byte[] bytes = stream.toByteArray();
+
+        Recorder recorder = new Recorder();
+        BtFrameDecoder decoder = new BtFrameDecoder(recorder);
+        for (byte b : bytes) {
+            decoder.feed(new byte[]{b}, 0, 1);
+        }
+
+        assertEquals("OK a\nOK p3 120\n", recorder.text.toString());
+        assertEquals(2, recorder.frames.size());
+        assertEquals("8/7/null", recorder.frames.get(0));
+        assertEquals("2/8/p3:120;", recorder.frames.get(1));
+    }
+
+    @Test
+    public void decoder_countsCorruptFramesAndResyncsOnTheNextOne() throws Exception {
+        byte[] bad = BtFrameCodec.encodeCommand(1, "p2:45;");
+        bad[4] ^= 0x10;
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(bad);
+        stream.write(BtFrameCodec.encodeCommand(2, "s"));
+
+        Recorder recorder = new Recorder();
+        BtFrameDecoder decoder = new BtFrameDecoder(recorder);
+        byte[] bytes = stream.toByteArray();
+        decoder.feed(bytes, 0, bytes.length);
+
+        assertEquals(1, decoder.getCrcErrorCount());
+        assertEquals(1, decoder.getFrameCount());
+        assertEquals("1/2/s", recorder.frames.get(0));
+    }
+
+    @Test
+    public void hello_containsNothingTheAsciiFirmwareWouldExecute() {
+        for (byte b : BtFrameCodec.encodeHello()) {
+            char c = Character.toLowerCase((char) (b & 0xFF));
+            assertFalse("hello byte " + (b & 0xFF), "abslwtpq".indexOf(c) >= 0);
+        }
+    }
+}
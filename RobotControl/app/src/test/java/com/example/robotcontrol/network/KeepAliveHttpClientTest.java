@@ -0,0 +1,171 @@
+package com.example.robotcontrol.network;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.SocketFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class KeepAliveHttpClientTest {
+
+    private ServerSocket server;
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null) server.close();
+    }
+
+    /** Serves JSON responses; closes the connection after {@code requestsPerConnection} requests. */
+    private int startServer(int requestsPerConnection) throws IOException {
+        server = new ServerSocket(0);
+        Thread t = new Thread(() -> {
+            while (!server.isClosed()) {
+                try (Socket s = server.accept()) {
+                    accepted.incrementAndGet();
+                    BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                    OutputStream out = s.getOutputStream();
+                    for (int i = 0; i < requestsPerConnection; i++) {
+                        String requestLine = in.readLine();
+                        if (requestLine == null) break;
+                        String h;
+                        while ((h = in.readLine()) != null && !h.isEmpty()) {
+                            // skip headers
+                        }
+                        String path = requestLine.split(" ")[1];
+                        String body = "{\"command\":\"" + path + "\"}";
+                        out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + body.length() + "\r\n\r\n" + body)
+                                .getBytes(StandardCharsets.US_ASCII));
+                        out.flush();
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        t.setDaemon(true);
+        t.start();
+        return server.getLocalPort();
+    }
+
+    @Test
+    public void get_reusesOneConnectionForManyCommands() throws IOException {
+        int port = startServer(Integer.MAX_VALUE);
+        KeepAliveHttpClient client = new KeepAliveHttpClient("127.0.0.1", port, 1000, 1000);
+
+        for (int i = 0; i < 20; i++) {
+            KeepAliveHttpClient.Response r = client.get("/forward");
+            assertEquals(200, r.code);
+            assertEquals("{\"command\":\"/forward\"}", r.body);
+        }
+
+        assertEquals(1, client.getConnectionCount());
+        assertEquals(1, accepted.get());
+        client.close();
+    }
+
+    @Test
+    public void get_reconnectsWhenRobotDropsIdleConnection() throws IOException {
+        int port = startServer(1);
+        KeepAliveHttpClient client = new KeepAliveHttpClient("127.0.0.1", port, 1000, 1000);
+
+        assertEquals("{\"command\":\"/stop\"}", client.get("/stop").body);
+        assertEquals("{\"command\":\"/left\"}", client.get("/left").body);
+
+        assertEquals(2, client.getConnectionCount());
+        client.close();
+    }
+
+    /** Answers every request with {@code headers} and no body. */
+    private int startRawServer(String headers) throws IOException {
+        ServerSocket listening = new ServerSocket(0);
+        server = listening;
+        Thread t = new Thread(() -> {
+            while (!listening.isClosed()) {
+                try (Socket s = listening.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                    String h;
+                    while ((h = in.readLine()) != null && !h.isEmpty()) {
+                        // skip request
+                    }
+                    s.getOutputStream().write(headers.getBytes(StandardCharsets.US_ASCII));
+                    s.getOutputStream().flush();
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        t.setDaemon(true);
+        t.start();
+        return listening.getLocalPort();
+    }
+
+    @Test
+    public void get_rejectsContentLengthsItWillNotAllocate() throws IOException {
+        for (String length : new String[]{"-1", "2147483647", "99999999999"}) {
+            int port = startRawServer("HTTP/1.1 200 OK\r\nContent-Length: " + length + "\r\n\r\n");
+            KeepAliveHttpClient client = new KeepAliveHttpClient("127.0.0.1", port, 1000, 1000);
+            try {
+                client.get("/stop");
+                fail("Content-Length " + length + " was accepted");
+            } catch (IOException expected) {
+                assertEquals("Bad Content-Length: " + length, expected.getMessage());
+            }
+            client.close();
+            server.close();
+        }
+    }
+
+    @Test
+    public void setSocketFactory_movesTheConnectionToTheNewFactory() throws IOException {
+        int port = startServer(Integer.MAX_VALUE);
+        KeepAliveHttpClient client = new KeepAliveHttpClient("127.0.0.1", port, 1000, 1000);
+        AtomicInteger created = new AtomicInteger();
+        SocketFactory factory = new SocketFactory() {
+            @Override
+            public Socket createSocket() {
+                created.incrementAndGet();
+                return new Socket();
+            }
+
+            @Override
+            public Socket createSocket(String host, int port) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Socket createSocket(String host, int port, InetAddress localHost, int localPort) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Socket createSocket(InetAddress host, int port) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        client.get("/stop");
+        client.setSocketFactory(factory);
+        client.get("/stop");
+        client.get("/stop");
+
+        assertEquals(1, created.get());
+        assertEquals(2, client.getConnectionCount());
+        client.close();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.robotcontrol.network;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LineDecoderTest {
+
+    private final List<String> lines = new ArrayList<>();
+    private final LineDecoder decoder = new LineDecoder(16,
+            (buf, off, len) -> lines.add(new String(buf, off, len, StandardCharsets.US_ASCII)));
+
+    private void feed(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+        decoder.feed(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void feed_joinsLinesSplitAcrossReads() {
+        feed("OK a (for");
+        feed("ward)\r\nOK s\n\nREA");
+        feed("DY\n");
+
+        assertEquals(Arrays.asList("OK a (forward)", "OK s", "READY"), lines);
+        assertEquals(3, decoder.getLineCount());
+    }
+
+    @Test
+    public void feed_dropsLinesLongerThanTheBufferUpToTheirNewline() {
+        feed("0123456789");
+        feed("0123456789");
+        feed("tail\nOK\n");
+
+        assertEquals(Arrays.asList("OK"), lines);
+        assertEquals(1, decoder.getOverflowCount());
+    }
+
+    @Test
+    public void reset_forgetsAnUnfinishedLine() {
+        feed("half a li");
+        decoder.reset();
+        feed("OK\n");
+
+        assertEquals(Arrays.asList("OK"), lines);
+    }
+
+    @Test
+    public void feed_decodesWhatTheStringBuilderLoopDecoded() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("T:").append(i).append(" V:7.").append(i % 100).append(" A:0.").append(i % 37).append("\r\n");
+        }
+        byte[] data = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        List<String> decoded = new ArrayList<>();
+        LineDecoder big = new LineDecoder((buf, off, len) -> decoded.add(new String(buf, off, len, StandardCharsets.US_ASCII)));
+
+        // The read loop it replaced: one char at a time into a StringBuilder, trimmed per line.
+        List<String> legacy = new ArrayList<>();
+        StringBuilder lineBuffer = new StringBuilder();
+        // Reads cut like an RFCOMM socket returns them: anything from 1 byte to a full buffer.
+        Random random = new Random(42);
+        int pos = 0;
+        while (pos < data.length) {
+            int len = Math.min(data.length - pos, 1 + random.nextInt(64));
+            big.feed(data, pos, len);
+            for (int i = pos; i < pos + len; i++) {
+                char c = (char) (data[i] & 0xFF);
+                if (c == '\r') continue;
+                if (c == '\n') {
+                    String line = lineBuffer.toString().trim();
+                    lineBuffer.setLength(0);
+                    if (!line.isEmpty()) legacy.add(line);
+                } else {
+                    lineBuffer.append(c);
+                }
+            }
+            pos += len;
+        }
+
+        assertEquals(2000, legacy.size());
+        assertEquals(legacy, decoded);
+    }
+
+    @Test
+    public void startsWith_matchesPrefixesWithoutAString() {
+        byte[] line = "T:12.5".getBytes(StandardCharsets.US_ASCII);
+        assertTrue(LineDecoder.startsWith(line, 0, line.length, new byte[]{'T', ':'}));
+        assertFalse(LineDecoder.startsWith(line, 2, 1, new byte[]{'1', '2'}));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.robotcontrol.network;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stand-in for the robot's WebSocket endpoint: answers every text frame with a JSON reply and
+ * every ping with a pong, and can push unsolicited telemetry frames. A silent server keeps the
+ * connection open but never answers, like a robot whose link has gone dead.
+ */
+public class LocalWebSocketServer implements AutoCloseable {
+
+    private final ServerSocket server;
+    private volatile OutputStream clientOut;
+    private volatile boolean silent;
+
+    public LocalWebSocketServer() throws IOException {
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread t = new Thread(this::serve, "LocalWebSocketServer");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public void setSilent(boolean silent) {
+        this.silent = silent;
+    }
+
+    public void push(String text) throws IOException {
+        OutputStream out = clientOut;
+        if (out == null) throw new IOException("No client");
+        writeText(out, text);
+    }
+
+    /** Sends {@code frame} as is, e.g. a malformed header. */
+    public void pushRaw(byte[] frame) throws IOException {
+        OutputStream out = clientOut;
+        if (out == null) throw new IOException("No client");
+        synchronized (LocalWebSocketServer.class) {
+            out.write(frame);
+            out.flush();
+        }
+    }
+
+    private void serve() {
+        try (Socket s = server.accept()) {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+
+            String key = null;
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                    key = line.substring(line.indexOf(':') + 1).trim();
+                }
+            }
+            // Before the 101, so a client whose connect() has returned can always be pushed to.
+            clientOut = out;
+            out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + WebSocketClient.acceptKeyFor(key) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            while (true) {
+                int b0 = in.read();
+                int b1 = in.read();
+                if (b0 < 0 || b1 < 0) return;
+                int opcode = b0 & 0x0F;
+                int len = b1 & 0x7F;
+                if (len == 126) len = (in.read() << 8) | in.read();
+                byte[] mask = readN(in, 4);
+                byte[] payload = readN(in, len);
+                for (int i = 0; i < len; i++) payload[i] ^= mask[i & 3];
+
+                if (opcode == 0x8) return;
+                if (silent) continue;
+                if (opcode == 0x9) {
+                    pushRaw(new byte[]{(byte) 0x8A, 0});
+                } else if (opcode == 0x1) {
+                    String endpoint = new String(payload, StandardCharsets.UTF_8);
+                    writeText(out, "{\"command\":\"" + endpoint + "\",\"status\":\"ok\"}");
+                }
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static synchronized void writeText(OutputStream out, String text) throws IOException {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        out.write(0x81);
+        out.write(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    private static byte[] readN(InputStream in, int n) throws IOException {
+        byte[] buf = new byte[n];
+        int off = 0;
+        while (off < n) {
+            int r = in.read(buf, off, n - off);
+            if (r < 0) throw new EOFException();
+            off += r;
+        }
+        return buf;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1 && c != '\n') {
+            if (c != '\r') sb.append((char) c);
+        }
+        return c == -1 && sb.length() == 0 ? null : sb.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.robotcontrol.network;
+
+import com.example.robotcontrol.logic.PriorityCommandQueue.Lane;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RfcommEngineTest {
+
+    private static final int PIPE_BYTES = 64 * 1024;
+
+    private final RfcommEngine engine = new RfcommEngine("test");
+
+    // Robot side of the loopback: reads what the engine writes, writes what the engine reads.
+    private PipedInputStream fromEngine;
+    private PipedOutputStream toEngine;
+    private PipedInputStream engineIn;
+    private PipedOutputStream engineOut;
+
+    @Before
+    public void setUp() throws IOException {
+        engineIn = new PipedInputStream(PIPE_BYTES);
+        toEngine = new PipedOutputStream(engineIn);
+        fromEngine = new PipedInputStream(PIPE_BYTES);
+        engineOut = new PipedOutputStream(fromEngine);
+    }
+
+    @After
+    public void tearDown() {
+        engine.close();
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void send_keepsPerProducerOrderAcrossConcurrentProducers() throws Exception {
+        engine.start(engineIn, engineOut, null);
+        int producers = 4;
+        int perProducer = 2000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    engine.send(Lane.MOTION, null, ascii(id + ":" + i + "\n"));
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+
+        BufferedReader robot = new BufferedReader(new InputStreamReader(fromEngine, StandardCharsets.US_ASCII));
+        int[] next = new int[producers];
+        long start = System.nanoTime();
+        for (int n = 0; n < producers * perProducer; n++) {
+            String[] parts = robot.readLine().split(":");
+            int id = Integer.parseInt(parts[0]);
+            assertEquals(next[id]++, Integer.parseInt(parts[1]));
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        for (Thread t : threads) t.join();
+
+        assertEquals(producers * perProducer, engine.getWriteCount());
+        assertEquals(0, engine.getCoalescedCount());
+        assertTrue("8000 commands took " + elapsedMs + " ms", elapsedMs < 5000);
+    }
+
+    @Test
+    public void stop_overtakesQueuedWorkAndDropsQueuedMotion() throws Exception {
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        OutputStream gated = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                firstWriteStarted.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                written.add(new String(b, off, len, StandardCharsets.US_ASCII));
+            }
+        };
+        engine.start(engineIn, gated, null);
+
+        engine.send(Lane.MOTION, "drive", ascii("a"));
+        assertTrue(firstWriteStarted.await(2, TimeUnit.SECONDS));
+        engine.send(Lane.LOW, "servo:1", ascii("p1:10;"));
+        engine.send(Lane.LOW, "servo:1", ascii("p1:20;"));
+        engine.send(Lane.MOTION, "drive", ascii("b"));
+        engine.send(Lane.EMERGENCY, "drive", ascii("s"));
+        release.countDown();
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (written.size() < 3 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        Thread.sleep(50);
+
+        assertEquals(Arrays.asList("a", "s", "p1:20;"), written);
+        assertEquals(1, engine.getCoalescedCount());
+        assertEquals(1, engine.getDroppedCount());
+    }
+
+    @Test
+    public void reader_deliversBytesAndReportsRemoteClose() throws Exception {
+        StringBuilder received = new StringBuilder();
+        CountDownLatch closed = new CountDownLatch(1);
+        AtomicReference<IOException> closeError = new AtomicReference<>();
+        engine.addListener(new RfcommEngine.Listener() {
+            @Override
+            public void onData(byte[] buffer, int length) {
+                received.append(new String(buffer, 0, length, StandardCharsets.US_ASCII));
+            }
+
+            @Override
+            public void onClosed(IOException error) {
+                closeError.set(error);
+                closed.countDown();
+            }
+        });
+        engine.start(engineIn, engineOut, null);
+
+        toEngine.write(ascii("ready\n"));
+        toEngine.close();
+
+        assertTrue(closed.await(3, TimeUnit.SECONDS));
+        assertEquals("ready\n", received.toString());
+        assertTrue(closeError.get() != null);
+        assertFalse(engine.isOpen());
+        assertFalse(engine.send(Lane.MOTION, null, ascii("a")));
+    }
+
+    @Test
+    public void closeGracefully_writesLastCommandThenCloses() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        AtomicReference<IOException> closeError = new AtomicReference<>(new IOException("not called"));
+        engine.addListener(new RfcommEngine.Listener() {
+            @Override
+            public void onClosed(IOException error) {
+                closeError.set(error);
+                closed.countDown();
+            }
+        });
+        engine.start(engineIn, engineOut, null);
+
+        engine.closeGracefully(ascii("s"));
+
+        assertTrue(closed.await(2, TimeUnit.SECONDS));
+        assertEquals(null, closeError.get());
+        byte[] out = new byte[1];
+        assertEquals(1, fromEngine.read(out));
+        assertArrayEquals(ascii("s"), out);
+        assertFalse(engine.isOpen());
+    }
+
+    @Test
+    public void closeWithError_reportsTheErrorToListeners() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        AtomicReference<IOException> closeError = new AtomicReference<>();
+        engine.addListener(new RfcommEngine.Listener() {
+            @Override
+            public void onClosed(IOException error) {
+                closeError.set(error);
+                closed.countDown();
+            }
+        });
+        engine.start(engineIn, engineOut, null);
+
+        IOException lost = new IOException("ACL disconnected");
+        engine.close(lost);
+
+        assertTrue(closed.await(2, TimeUnit.SECONDS));
+        assertSame(lost, closeError.get());
+        assertFalse(engine.isOpen());
+    }
+
+    @Test
+    public void start_canReopenAfterClose() throws Exception {
+        engine.start(engineIn, engineOut, null);
+        engine.close();
+        assertFalse(engine.isOpen());
+
+        setUp();
+        engine.start(engineIn, engineOut, null);
+        assertTrue(engine.send(Lane.LOW, "test", ascii("t")));
+        assertEquals('t', fromEngine.read());
+    }
+
+    @Test
+    public void framer_wrapsWritesButListenersSeeTheCommand() throws Exception {
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        engine.addListener(new RfcommEngine.Listener() {
+            @Override
+            public void onWritten(byte[] command) {
+                written.add(new String(command, StandardCharsets.US_ASCII));
+            }
+        });
+        engine.start(engineIn, engineOut, null);
+        engine.setFramer(new BtFrameCodec.Framer());
+
+        engine.send(Lane.LOW, "servo:3", ascii("p3:120;"));
+
+        byte[] expected = BtFrameCodec.encodeCommand(0, "p3:120;");
+        byte[] wire = new byte[expected.length];
+        for (int i = 0; i < wire.length; i++) wire[i] = (byte) fromEngine.read();
+        assertArrayEquals(expected, wire);
+        long deadline = System.currentTimeMillis() + 1000;
+        while (written.isEmpty() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        assertEquals(Arrays.asList("p3:120;"), written);
+        assertEquals(expected.length, engine.getBytesWritten());
+    }
+
+    /** Records each write call separately, so batching is visible. */
+    private static final class WriteRecorder extends OutputStream {
+        final List<String> writes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void write(int b) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            writes.add(new String(b, off, len, StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static void awaitSize(List<?> list, int size, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (list.size() < size && System.currentTimeMillis() < deadline) Thread.sleep(1);
+    }
+
+    @Test
+    public void batchWindow_sendsAFullPoseInOneWrite() throws Exception {
+        WriteRecorder out = new WriteRecorder();
+        // Wide enough that a slow test machine still queues all eight inside it.
+        engine.setBatchWindowMs(200);
+        engine.start(engineIn, out, null);
+
+        for (int servo = 1; servo <= 8; servo++) {
+            engine.send(Lane.LOW, "servo:" + servo, ascii("p" + servo + ":90;"));
+        }
+        awaitSize(out.writes, 1, 1000);
+        Thread.sleep(50);
+
+        assertEquals(1, out.writes.size());
+        assertEquals("p1:90;p2:90;p3:90;p4:90;p5:90;p6:90;p7:90;p8:90;", out.writes.get(0));
+        RfcommEngine.WriteStats stats = engine.sampleStats();
+        assertEquals(8, stats.commands);
+        assertEquals(1, stats.writes);
+        assertEquals(48.0, stats.getBytesPerWrite(), 1e-9);
+    }
+
+    @Test
+    public void batchWindow_stopEndsTheWindowImmediately() throws Exception {
+        WriteRecorder out = new WriteRecorder();
+        engine.setBatchWindowMs(10_000);
+        engine.start(engineIn, out, null);
+
+        engine.send(Lane.LOW, "servo:1", ascii("p1:90;"));
+        Thread.sleep(20); // the writer is now holding the servo command in its window
+        long start = System.nanoTime();
+        engine.send(Lane.EMERGENCY, "drive", ascii("s"));
+        awaitSize(out.writes, 1, 2000);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("took " + elapsedMs + " ms", elapsedMs < 1000);
+        assertEquals("p1:90;s", out.writes.get(0));
+
+        // A stop on its own is never held back either.
+        engine.send(Lane.EMERGENCY, "drive", ascii("s"));
+        awaitSize(out.writes, 2, 1000);
+        assertEquals("s", out.writes.get(1));
+    }
+}
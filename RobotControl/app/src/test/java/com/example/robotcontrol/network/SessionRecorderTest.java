@@ -0,0 +1,138 @@
+package com.example.robotcontrol.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SessionRecorderTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sessions").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void replay_returnsRecordsInOrderAcrossSegments() throws Exception {
+        SessionRecorder recorder = new SessionRecorder(dir, "s1", SessionRecorder.MIN_SEGMENT_BYTES);
+        byte[] line = ascii("T bat=7.41 dist=23.5\n");
+        for (int i = 0; i < 300; i++) {
+            recorder.record(SessionRecorder.KIND_RECEIVED, 1000L + i, line, 0, line.length);
+            recorder.onWritten(ascii("a"));
+        }
+        recorder.close();
+        assertTrue(recorder.getSegmentCount() > 1);
+        assertEquals(600, recorder.getRecordCount());
+
+        List<String> seen = new ArrayList<>();
+        long[] lastTime = {0};
+        long count = SessionReplayer.forSession(dir, "s1").replay((kind, time, payload, length) -> {
+            if (kind == SessionRecorder.KIND_RECEIVED) {
+                assertTrue(time > lastTime[0]);
+                lastTime[0] = time;
+            }
+            seen.add(kind + ":" + new String(payload, 0, length, StandardCharsets.US_ASCII));
+        }, 0);
+
+        assertEquals(600, count);
+        assertEquals("2:T bat=7.41 dist=23.5\n", seen.get(0));
+        assertEquals("1:a", seen.get(599));
+        assertEquals(1299L, lastTime[0]);
+    }
+
+    @Test
+    public void replay_paceFollowsRecordedTimestamps() throws Exception {
+        SessionRecorder recorder = new SessionRecorder(dir, "s2", SessionRecorder.MIN_SEGMENT_BYTES);
+        byte[] ok = ascii("OK\n");
+        recorder.record(SessionRecorder.KIND_RECEIVED, 0, ok, 0, ok.length);
+        recorder.record(SessionRecorder.KIND_RECEIVED, 200_000_000L, ok, 0, ok.length);
+        recorder.close();
+
+        long start = System.nanoTime();
+        SessionReplayer.forSession(dir, "s2").replay((kind, time, payload, length) -> { }, 2.0);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        assertTrue("took " + elapsedMs + " ms", elapsedMs >= 95);
+    }
+
+    @Test
+    public void toEngineListener_feedsDataAndWrittenCommands() throws Exception {
+        SessionRecorder recorder = new SessionRecorder(dir, "s3", SessionRecorder.MIN_SEGMENT_BYTES);
+        recorder.onWritten(ascii("s"));
+        byte[] chunk = ascii("OK s\n");
+        recorder.onData(chunk, chunk.length);
+        recorder.close();
+
+        List<String> events = new ArrayList<>();
+        SessionReplayer.forSession(dir, "s3").replay(SessionReplayer.toEngineListener(new RfcommEngine.Listener() {
+            @Override
+            public void onData(byte[] buffer, int length) {
+                events.add("data " + new String(buffer, 0, length, StandardCharsets.US_ASCII).trim());
+            }
+
+            @Override
+            public void onWritten(byte[] command) {
+                events.add("sent " + new String(command, StandardCharsets.US_ASCII));
+            }
+        }), 0);
+
+        assertEquals(Arrays.asList("sent s", "data OK s"), events);
+    }
+
+    @Test
+    public void toLines_decodesWithItsOwnDecoders() throws Exception {
+        SessionRecorder recorder = new SessionRecorder(dir, "s4", SessionRecorder.MIN_SEGMENT_BYTES);
+        recorder.onWritten(ascii("a"));
+        // A line split across reads, with an ACK frame in between.
+        byte[] first = ascii("OK a (for");
+        recorder.onData(first, first.length);
+        byte[] ack = BtFrameCodec.encode(BtFrameCodec.TYPE_ACK, 1, new byte[0], 0);
+        recorder.onData(ack, ack.length);
+        byte[] rest = ascii("ward)\n");
+        recorder.onData(rest, rest.length);
+        recorder.close();
+
+        List<String> events = new ArrayList<>();
+        SessionReplayer.forSession(dir, "s4").replay(SessionReplayer.toLines(
+                (buffer, offset, length) -> events.add("line " + new String(buffer, offset, length, StandardCharsets.US_ASCII)),
+                (kind, time, payload, length) -> events.add("sent " + new String(payload, 0, length, StandardCharsets.US_ASCII))),
+                0);
+
+        assertEquals(Arrays.asList("sent a", "line OK a (forward)"), events);
+    }
+
+    @Test
+    public void deleteOldSessions_keepsNewest() throws Exception {
+        for (String id : new String[]{"session-9", "session-10", "session-11"}) {
+            new SessionRecorder(dir, id, SessionRecorder.MIN_SEGMENT_BYTES).close();
+        }
+        assertEquals(Arrays.asList("session-9", "session-10", "session-11"), SessionRecorder.listSessions(dir));
+
+        SessionRecorder.deleteOldSessions(dir, 2);
+        assertEquals(Arrays.asList("session-10", "session-11"), SessionRecorder.listSessions(dir));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.robotcontrol.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class UdpCommandTransportTest {
+
+    private final List<UdpCommandCodec.Packet> received = new CopyOnWriteArrayList<>();
+    private UdpCommandReceiver receiver;
+
+    @Before
+    public void setUp() throws IOException {
+        receiver = new UdpCommandReceiver(0, received::add);
+        receiver.start();
+    }
+
+    @After
+    public void tearDown() {
+        receiver.close();
+    }
+
+    @Test
+    public void fromEndpoint_mapsHttpEndpoints() {
+        assertArrayEquals(new int[]{UdpCommandCodec.OP_STOP, 0, 0}, UdpCommandCodec.fromEndpoint("/stop"));
+        assertArrayEquals(new int[]{UdpCommandCodec.OP_SERVO, 2, 90}, UdpCommandCodec.fromEndpoint("/set?servo=2&angle=90"));
+        assertNull(UdpCommandCodec.fromEndpoint("/status"));
+    }
+
+    @Test
+    public void send_withAck_deliversInOrderOnLoopback() throws IOException {
+        UdpCommandTransport transport = new UdpCommandTransport("127.0.0.1", receiver.getPort(), 1000);
+
+        transport.send(UdpCommandCodec.OP_FORWARD, 0, 0, true);
+        transport.send(UdpCommandCodec.OP_SERVO, 3, 120, true);
+        transport.send(UdpCommandCodec.OP_STOP, 0, 0, true);
+        transport.close();
+
+        assertEquals(3, received.size());
+        assertEquals(UdpCommandCodec.OP_FORWARD, received.get(0).opcode);
+        assertEquals(3, received.get(1).arg0);
+        assertEquals(120, received.get(1).arg1);
+        assertEquals(UdpCommandCodec.OP_STOP, received.get(2).opcode);
+    }
+
+    @Test
+    public void receiver_dropsStalePackets() throws Exception {
+        try (DatagramSocket raw = new DatagramSocket()) {
+            InetAddress loopback = InetAddress.getLoopbackAddress();
+            send(raw, loopback, UdpCommandCodec.encode(10, UdpCommandCodec.OP_STOP, 0, 0, true));
+            // Arrives late: older than the stop, must not start the motors again.
+            send(raw, loopback, UdpCommandCodec.encode(9, UdpCommandCodec.OP_FORWARD, 0, 0, true));
+        }
+
+        assertEquals(1, received.size());
+        assertEquals(UdpCommandCodec.OP_STOP, received.get(0).opcode);
+        assertEquals(1, receiver.getStaleDroppedCount());
+    }
+
+    private void send(DatagramSocket raw, InetAddress to, byte[] payload) throws IOException {
+        raw.send(new DatagramPacket(payload, payload.length, to, receiver.getPort()));
+        // Wait for the ACK so the receiver has processed the packet.
+        raw.setSoTimeout(1000);
+        byte[] buf = new byte[UdpCommandCodec.PACKET_SIZE];
+        raw.receive(new DatagramPacket(buf, buf.length));
+    }
+}
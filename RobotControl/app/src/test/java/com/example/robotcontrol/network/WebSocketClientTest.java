@@ -0,0 +1,105 @@
+package com.example.robotcontrol.network;
+
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WebSocketClientTest {
+
+    @Test
+    public void session_streamsCommandsAndReceivesRepliesAndTelemetry() throws Exception {
+        BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+        BlockingQueue<String> closed = new LinkedBlockingQueue<>();
+
+        try (LocalWebSocketServer server = new LocalWebSocketServer()) {
+            WebSocketClient client = new WebSocketClient();
+            client.connect("127.0.0.1", server.getPort(), "/ws", 1000, new WebSocketClient.Listener() {
+                @Override
+                public void onMessage(String text) {
+                    messages.add(text);
+                }
+
+                @Override
+                public void onClosed(Exception error) {
+                    closed.add(error == null ? "clean" : error.toString());
+                }
+            });
+            assertTrue(client.isOpen());
+
+            client.sendText("/forward");
+            client.sendText("/set?servo=2&angle=90");
+            assertEquals("{\"command\":\"/forward\",\"status\":\"ok\"}", messages.poll(1, TimeUnit.SECONDS));
+            assertEquals("{\"command\":\"/set?servo=2&angle=90\",\"status\":\"ok\"}", messages.poll(1, TimeUnit.SECONDS));
+
+            server.push("{\"type\":\"telemetry\",\"battery\":7.4}");
+            assertEquals("{\"type\":\"telemetry\",\"battery\":7.4}", messages.poll(1, TimeUnit.SECONDS));
+
+            client.close();
+            assertFalse(client.isOpen());
+            assertEquals("clean", closed.poll(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void ping_keepsAQuietSessionOpen() throws Exception {
+        BlockingQueue<String> closed = new LinkedBlockingQueue<>();
+        try (LocalWebSocketServer server = new LocalWebSocketServer()) {
+            WebSocketClient client = new WebSocketClient();
+            client.setPingIntervalMs(50);
+            client.connect("127.0.0.1", server.getPort(), "/ws", 1000, recordClose(closed));
+
+            Thread.sleep(400);
+            assertTrue(client.isOpen());
+            client.close();
+        }
+    }
+
+    @Test
+    public void silentRobot_endsTheSessionWithATimeout() throws Exception {
+        BlockingQueue<String> closed = new LinkedBlockingQueue<>();
+        try (LocalWebSocketServer server = new LocalWebSocketServer()) {
+            server.setSilent(true);
+            WebSocketClient client = new WebSocketClient();
+            client.setPingIntervalMs(50);
+            client.connect("127.0.0.1", server.getPort(), "/ws", 1000, recordClose(closed));
+
+            String reason = closed.poll(2, TimeUnit.SECONDS);
+            assertTrue(reason, reason.startsWith("java.net.SocketTimeoutException"));
+            assertFalse(client.isOpen());
+        }
+    }
+
+    @Test
+    public void negativeFrameLength_endsTheSessionWithAnError() throws Exception {
+        BlockingQueue<String> closed = new LinkedBlockingQueue<>();
+        try (LocalWebSocketServer server = new LocalWebSocketServer()) {
+            WebSocketClient client = new WebSocketClient();
+            client.connect("127.0.0.1", server.getPort(), "/ws", 1000, recordClose(closed));
+            // Text frame, 64-bit length with the top bit set.
+            server.pushRaw(new byte[]{(byte) 0x81, 0x7F, (byte) 0x80, 0, 0, 0, 0, 0, 0, 1});
+
+            String reason = closed.poll(2, TimeUnit.SECONDS);
+            assertTrue(reason, reason.startsWith("java.io.IOException: Bad frame length"));
+            assertFalse(client.isOpen());
+        }
+    }
+
+    private static WebSocketClient.Listener recordClose(BlockingQueue<String> closed) {
+        return new WebSocketClient.Listener() {
+            @Override
+            public void onMessage(String text) {
+            }
+
+            @Override
+            public void onClosed(Exception error) {
+                closed.add(error == null ? "clean" : error.toString());
+            }
+        };
+    }
+}
@@ -8,6 +8,11 @@
 //   w = walk position
 //   t = test (sweep)
 //
+// The app may also send binary frames (see BtFrameCodec in the app):
+//   [0xA5][type << 4 | length][seq][payload...][CRC-8 poly 0x07 over type..payload]
+// Each command frame is answered with an ACK frame (or NACK on a bad checksum). The app only
+// switches to frames after this sketch answers its HELLO frame, so older sketches keep working.
+//
 // Hardware option A (recommended for Arduino UNO/Nano + HC-05/HC-06):
 // - HC-05 TX -> Arduino RX pin (SoftwareSerial RX)
 // - HC-05 RX -> Arduino TX pin (SoftwareSerial TX) through a voltage divider (5V->3.3V)
@@ -224,6 +229,94 @@ void handleCommand(char c) {
   }
 }
 
+// ---- Binary frames ----
+static const uint8_t FRAME_SYNC = 0xA5;
+static const uint8_t FRAME_MOVE = 0x1;
+static const uint8_t FRAME_SERVO = 0x2;
+static const uint8_t FRAME_POSE = 0x3;
+static const uint8_t FRAME_ACK = 0x8;
+static const uint8_t FRAME_NACK = 0x9;
+static const uint8_t FRAME_HELLO = 0xF;
+static const uint8_t FRAME_VERSION = 1;
+static const unsigned long FRAME_TIMEOUT_MS = 100;
+
+static uint8_t crc8Update(uint8_t crc, uint8_t b) {
+  crc ^= b;
+  for (uint8_t i = 0; i < 8; i++) {
+    crc = (crc & 0x80) ? (uint8_t)((crc << 1) ^ 0x07) : (uint8_t)(crc << 1);
+  }
+  return crc;
+}
+
+static void sendFrame(uint8_t type, uint8_t seq, const uint8_t* payload, uint8_t len) {
+  uint8_t header = (uint8_t)((type << 4) | len);
+  uint8_t crc = crc8Update(crc8Update(0, header), seq);
+  BT_PORT.write(FRAME_SYNC);
+  BT_PORT.write(header);
+  BT_PORT.write(seq);
+  for (uint8_t i = 0; i < len; i++) {
+    BT_PORT.write(payload[i]);
+    crc = crc8Update(crc, payload[i]);
+  }
+  BT_PORT.write(crc);
+}
+
+static int readFrameByte(unsigned long start) {
+  while (millis() - start < FRAME_TIMEOUT_MS) {
+    if (BT_PORT.available() > 0) return BT_PORT.read();
+  }
+  return -1;
+}
+
+static void setServoManual(int servoIndex, int angle);
+
+// Called AFTER receiving the sync byte; reads the rest of the frame and applies it.
+static void readFrame() {
+  unsigned long start = millis();
+  int header = readFrameByte(start);
+  if (header < 0) return;
+  int seq = readFrameByte(start);
+  if (seq < 0) return;
+
+  uint8_t len = header & 0x0F;
+  uint8_t payload[15];
+  uint8_t crc = crc8Update(crc8Update(0, (uint8_t)header), (uint8_t)seq);
+  for (uint8_t i = 0; i < len; i++) {
+    int b = readFrameByte(start);
+    if (b < 0) return;
+    payload[i] = (uint8_t)b;
+    crc = crc8Update(crc, payload[i]);
+  }
+  int rxCrc = readFrameByte(start);
+  if (rxCrc < 0) return;
+  if ((uint8_t)rxCrc != crc) {
+    sendFrame(FRAME_NACK, (uint8_t)seq, NULL, 0);
+    return;
+  }
+
+  uint8_t type = (uint8_t)header >> 4;
+  if (type == FRAME_HELLO) {
+    uint8_t version = FRAME_VERSION;
+    sendFrame(FRAME_HELLO, (uint8_t)seq, &version, 1);
+    return;
+  }
+
+  // ACK on receipt: gaits block for seconds and the app only needs to know the frame arrived intact.
+  sendFrame(FRAME_ACK, (uint8_t)seq, NULL, 0);
+  if (type == FRAME_MOVE && len == 1) {
+    handleCommand((char)payload[0]);
+  } else if (type == FRAME_SERVO && len == 2) {
+    setServoManual(payload[0], payload[1]);
+  } else if (type == FRAME_POSE && len >= 1) {
+    uint8_t mask = payload[0];
+    uint8_t n = 1;
+    for (uint8_t i = 0; i < SERVO_COUNT && n < len; i++) {
+      if (mask & (1 << i)) servos[i].write(constrain(payload[n++], 0, 180));
+    }
+    BT_PORT.println("OK q");
+  }
+}
+
 static bool readServoSetCommand(int* outServoIndex, int* outAngle) {
   // Expected: p<servoIndex>:<angle>;
   // Example: p3:120;
@@ -294,10 +387,64 @@ static void setServoManual(int servoIndex, int angle) {
 #endif
 }
 
+static void readPoseCommand() {
+  // Expected: q<index>:<angle>,<index>:<angle>,...;
+  // Example: q1:90,3:45;  (only the listed servos move)
+  // We are called AFTER receiving 'q' and will read the rest until ';'.
+  int targets[SERVO_COUNT];
+  for (uint8_t i = 0; i < SERVO_COUNT; i++) targets[i] = -1;
+
+  unsigned long start = millis();
+  int servoIndex = -1;
+  bool seenColon = false;
+  String digits;
+
+  while (millis() - start < 400) {
+    while (BT_PORT.available() > 0) {
+      char ch = (char)BT_PORT.read();
+      if (ch == '\r' || ch == '\n' || ch == ' ') continue;
+      if (ch == ',' || ch == ';') {
+        int angle = digits.toInt();
+        if (!seenColon || servoIndex < 1 || servoIndex > SERVO_COUNT || angle < 0 || angle > 180) {
+          BT_PORT.println("ERR q (invalid)");
+          return;
+        }
+        targets[servoIndex - 1] = angle;
+        digits = "";
+        seenColon = false;
+        if (ch == ';') {
+          for (uint8_t i = 0; i < SERVO_COUNT; i++) {
+            if (targets[i] >= 0) servos[i].write(targets[i]);
+          }
+          BT_PORT.println("OK q");
+          return;
+        }
+        continue;
+      }
+      if (ch == ':' && !seenColon) {
+        servoIndex = digits.toInt();
+        digits = "";
+        seenColon = true;
+      } else if (ch >= '0' && ch <= '9') {
+        digits += ch;
+      } else {
+        BT_PORT.println("ERR q (invalid)");
+        return;
+      }
+    }
+    delay(1);
+  }
+  BT_PORT.println("ERR q (timeout)");
+}
+
 void loop() {
   // Read Bluetooth serial one character at a time (same as your Python script)
   while (BT_PORT.available() > 0) {
     char c = (char)BT_PORT.read();
+    if ((uint8_t)c == FRAME_SYNC) {
+      readFrame();
+      continue;
+    }
     if (c == '\r' || c == '\n' || c == ' ') continue;
     // normalize
     if (c >= 'A' && c <= 'Z') c = (char)(c - 'A' + 'a');
@@ -316,6 +463,12 @@ void loop() {
       continue;
     }
 
+    // Multi-servo pose: q<index>:<angle>,...;
+    if (c == 'q') {
+      readPoseCommand();
+      continue;
+    }
+
     handleCommand(c);
   }
 }
@@ -0,0 +1,19 @@
+// Plain JVM stand-in for the robot firmware, for load and latency tests without hardware.
+// Run it on its own with: ./gradlew :robot-emulator:run --args="--latency=20 --loss=0.01"
+plugins {
+    `java-library`
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    mainClass.set("com.example.robotcontrol.emulator.RobotEmulator")
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
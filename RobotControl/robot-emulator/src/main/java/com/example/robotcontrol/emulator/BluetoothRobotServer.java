@@ -0,0 +1,168 @@
+package com.example.robotcontrol.emulator;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Bluetooth robot's ASCII protocol (ServoRobot_BT_8Servos.ino) over a TCP socket standing in
+ * for the RFCOMM stream: single-letter commands a, b, s, l, w, t (any case), "p3:120;" for one
+ * servo and "q1:90,3:45;" for several, answered with the firmware's "OK ..." / "ERR ..." lines.
+ *
+ * Binary frames (sync byte 0xA5) are read and ignored, HELLO included, so the app's framing
+ * probe times out and it keeps talking ASCII, as with older firmware.
+ */
+public final class BluetoothRobotServer extends EmulatedServer {
+
+    private static final int FRAME_SYNC = 0xA5;
+
+    private final AtomicLong ignoredFrameCount = new AtomicLong();
+
+    BluetoothRobotServer(RobotState state, LinkConditions conditions, Random random) {
+        super(state, conditions, random);
+    }
+
+    /** Binary frames skipped because the emulator only speaks ASCII. */
+    public long getIgnoredFrameCount() {
+        return ignoredFrameCount.get();
+    }
+
+    @Override
+    protected void serve(Socket client) throws IOException, InterruptedException {
+        InputStream in = new BufferedInputStream(client.getInputStream());
+        OutputStream out = client.getOutputStream();
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (b == FRAME_SYNC) {
+                skipFrame(in);
+                continue;
+            }
+            char c = (char) b;
+            if (c == '\r' || c == '\n' || c == ' ') continue;
+            if (c >= 'A' && c <= 'Z') c = (char) (c - 'A' + 'a');
+
+            String reply;
+            boolean applied;
+            if (c == 'p' || c == 'q') {
+                // The whole "...;" arrives before the robot acts on it.
+                String body = readUntilSemicolon(in);
+                applied = arrive();
+                if (!applied) continue;
+                reply = c == 'p' ? setServo(body) : setPose(body);
+            } else {
+                applied = arrive();
+                if (!applied) continue;
+                reply = command(c);
+            }
+            depart();
+            out.write((reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+    }
+
+    private String command(char c) {
+        switch (c) {
+            case 'a':
+                state.setMotion(RobotState.Motion.FORWARD);
+                state.countCommand("forward");
+                return "OK a (forward)";
+            case 'b':
+                state.setMotion(RobotState.Motion.BACKWARD);
+                state.countCommand("backward");
+                return "OK b (backward)";
+            case 's':
+                state.setMotion(RobotState.Motion.STOPPED);
+                for (int i = 1; i <= RobotState.SERVO_COUNT; i++) state.setServo(i, RobotState.NEUTRAL_ANGLE);
+                state.countCommand("stop");
+                return "OK s (stop/neutral)";
+            case 'l':
+                state.setMotion(RobotState.Motion.LOW);
+                state.countCommand("low");
+                return "OK l (low)";
+            case 'w':
+                state.setMotion(RobotState.Motion.WALK);
+                state.countCommand("walk");
+                return "OK w (walk)";
+            case 't':
+                state.setMotion(RobotState.Motion.TEST);
+                state.countCommand("test");
+                return "OK t (test)";
+            default:
+                return "ERR unknown: " + c;
+        }
+    }
+
+    /** "3:120" */
+    private String setServo(String body) {
+        int colon = body.indexOf(':');
+        if (colon <= 0) return "ERR p (invalid)";
+        int servo = parse(body.substring(0, colon));
+        int angle = parse(body.substring(colon + 1));
+        if (servo < 0 || angle < 0) return "ERR p (invalid)";
+        // The firmware constrains rather than rejects the angle, and ignores bad servo numbers.
+        angle = Math.min(180, angle);
+        if (servo >= 1 && servo <= RobotState.SERVO_COUNT) {
+            state.setServo(servo, angle);
+            state.countCommand("servo");
+        }
+        return "OK p" + servo + " " + angle;
+    }
+
+    /** "1:90,3:45" */
+    private String setPose(String body) {
+        int[] targets = new int[RobotState.SERVO_COUNT];
+        java.util.Arrays.fill(targets, -1);
+        for (String pair : body.split(",")) {
+            int colon = pair.indexOf(':');
+            if (colon <= 0) return "ERR q (invalid)";
+            int servo = parse(pair.substring(0, colon));
+            int angle = parse(pair.substring(colon + 1));
+            if (servo < 1 || servo > RobotState.SERVO_COUNT || angle < 0 || angle > 180) {
+                return "ERR q (invalid)";
+            }
+            targets[servo - 1] = angle;
+        }
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] >= 0) state.setServo(i + 1, targets[i]);
+        }
+        state.countCommand("pose");
+        return "OK q";
+    }
+
+    private static int parse(String digits) {
+        if (digits.isEmpty() || digits.length() > 4) return -1;
+        for (int i = 0; i < digits.length(); i++) {
+            if (digits.charAt(i) < '0' || digits.charAt(i) > '9') return -1;
+        }
+        return Integer.parseInt(digits);
+    }
+
+    private static String readUntilSemicolon(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (b == ';') return sb.toString();
+            if (b == '\r' || b == '\n' || b == ' ') continue;
+            sb.append((char) b);
+            if (sb.length() > 64) return sb.toString();
+        }
+        throw new EOFException("Connection closed mid-command");
+    }
+
+    /** [type<<4 | len][seq][payload][crc] after the sync byte. */
+    private void skipFrame(InputStream in) throws IOException {
+        int typeLen = in.read();
+        if (typeLen < 0) throw new EOFException("Connection closed mid-frame");
+        int remaining = 1 + (typeLen & 0x0F) + 1;
+        for (int i = 0; i < remaining; i++) {
+            if (in.read() < 0) throw new EOFException("Connection closed mid-frame");
+        }
+        ignoredFrameCount.incrementAndGet();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.robotcontrol.emulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accept loop shared by the emulator's servers: one thread per client connection, like the
+ * firmware serving one app at a time, with the current {@link LinkConditions} applied to
+ * every command.
+ */
+abstract class EmulatedServer implements Closeable {
+
+    protected final RobotState state;
+    private final Random random;
+    private volatile LinkConditions conditions;
+
+    private ServerSocket server;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    EmulatedServer(RobotState state, LinkConditions conditions, Random random) {
+        this.state = state;
+        this.conditions = conditions;
+        this.random = random;
+    }
+
+    /** Listens on loopback; port 0 picks a free one. */
+    void start(int port, String name) throws IOException {
+        start(InetAddress.getLoopbackAddress(), port, name);
+    }
+
+    void start(InetAddress address, int port, String name) throws IOException {
+        server = new ServerSocket(port, 50, address);
+        Thread acceptor = new Thread(() -> acceptLoop(name), name + "-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void acceptLoop(String name) {
+        while (!server.isClosed()) {
+            Socket client;
+            try {
+                client = server.accept();
+            } catch (IOException e) {
+                return;
+            }
+            clients.add(client);
+            Thread t = new Thread(() -> {
+                try (Socket s = client) {
+                    s.setTcpNoDelay(true);
+                    serve(s);
+                } catch (IOException ignored) {
+                    // Client went away.
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    clients.remove(client);
+                }
+            }, name + "-client");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    /** Handles one client until it disconnects. */
+    protected abstract void serve(Socket client) throws IOException, InterruptedException;
+
+    /**
+     * Call when a command has arrived: counts it, waits out the inbound delay and decides
+     * whether it was lost on the way.
+     *
+     * @return false if the command must be ignored (no effect, no answer)
+     */
+    protected boolean arrive() throws InterruptedException {
+        receivedCount.incrementAndGet();
+        LinkConditions c = conditions;
+        sleep(c.oneWayDelayMs(random));
+        if (c.shouldDrop(random)) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        sleep(c.getProcessingMs());
+        return true;
+    }
+
+    /** Call before answering: the reply's trip back. */
+    protected void depart() throws InterruptedException {
+        sleep(conditions.oneWayDelayMs(random));
+    }
+
+    private static void sleep(long ms) throws InterruptedException {
+        if (ms > 0) Thread.sleep(ms);
+    }
+
+    void setConditions(LinkConditions conditions) {
+        this.conditions = conditions;
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /** Commands that reached the robot, dropped ones included. */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (server != null) server.close();
+        for (Socket s : clients) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
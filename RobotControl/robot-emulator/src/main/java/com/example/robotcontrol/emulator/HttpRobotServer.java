@@ -0,0 +1,150 @@
+package com.example.robotcontrol.emulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The ESP32 firmware's HTTP interface (ESP32_Robot_AppControl.ino): keep-alive GETs for
+ * /forward, /backward, /left, /right, /stop, /drive?l=&amp;r=, /set?servo=&amp;angle=,
+ * /pose?s1=&amp;s2=&amp;s3= and /status, each answered with the same JSON the firmware sends.
+ * A lost request gets no answer at all, which is what a client sees when the robot misses it.
+ */
+public final class HttpRobotServer extends EmulatedServer {
+
+    /** Servos the ESP32 board drives. */
+    static final int HTTP_SERVOS = 3;
+
+    static final String UNKNOWN_COMMAND = "{\"status\":\"error\",\"message\":\"Unknown command\"}";
+
+    HttpRobotServer(RobotState state, LinkConditions conditions, Random random) {
+        super(state, conditions, random);
+    }
+
+    @Override
+    protected void serve(Socket client) throws IOException, InterruptedException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+        OutputStream out = client.getOutputStream();
+        String requestLine;
+        while ((requestLine = in.readLine()) != null) {
+            if (requestLine.isEmpty()) continue;
+            boolean close = false;
+            String header;
+            while ((header = in.readLine()) != null && !header.isEmpty()) {
+                if (header.equalsIgnoreCase("Connection: close")) close = true;
+            }
+
+            if (!arrive()) continue;
+            String[] parts = requestLine.split(" ");
+            String path = parts.length >= 2 ? parts[1] : "";
+            String command = handle(path);
+            depart();
+            if (command != null) {
+                state.countCommand(command);
+                respond(out, 200, json(command));
+            } else {
+                respond(out, 404, UNKNOWN_COMMAND);
+            }
+            if (close) return;
+        }
+    }
+
+    /**
+     * Applies {@code path} to the state.
+     *
+     * @return the command name for the response, or null if the firmware would answer 404
+     */
+    String handle(String path) {
+        int q = path.indexOf('?');
+        String route = q >= 0 ? path.substring(0, q) : path;
+        String query = q >= 0 ? path.substring(q + 1) : "";
+        switch (route) {
+            case "/forward":
+                state.setMotion(RobotState.Motion.FORWARD);
+                return "forward";
+            case "/backward":
+                state.setMotion(RobotState.Motion.BACKWARD);
+                return "backward";
+            case "/left":
+                state.setMotion(RobotState.Motion.LEFT);
+                return "left";
+            case "/right":
+                state.setMotion(RobotState.Motion.RIGHT);
+                return "right";
+            case "/stop":
+                state.setMotion(RobotState.Motion.STOPPED);
+                return "stop";
+            case "/drive": {
+                Integer l = param(query, "l");
+                Integer r = param(query, "r");
+                if (l == null || r == null) return null;
+                state.drive(clamp(l, -100, 100), clamp(r, -100, 100));
+                return "drive";
+            }
+            case "/set": {
+                Integer servo = param(query, "servo");
+                Integer angle = param(query, "angle");
+                if (servo == null || angle == null || angle < 0 || angle > 180) return null;
+                // Like the firmware: other servo numbers are accepted but move nothing.
+                if (servo >= 1 && servo <= HTTP_SERVOS) state.setServo(servo, angle);
+                return "servo";
+            }
+            case "/pose": {
+                int[] targets = new int[HTTP_SERVOS];
+                for (int i = 0; i < HTTP_SERVOS; i++) {
+                    Integer angle = param(query, "s" + (i + 1));
+                    if (angle != null && (angle < 0 || angle > 180)) return null;
+                    targets[i] = angle != null ? angle : -1;
+                }
+                for (int i = 0; i < HTTP_SERVOS; i++) {
+                    if (targets[i] >= 0) state.setServo(i + 1, targets[i]);
+                }
+                return "pose";
+            }
+            case "/status":
+                return "status";
+            default:
+                return null;
+        }
+    }
+
+    private static Integer param(String query, String name) {
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                try {
+                    return Integer.parseInt(pair.substring(eq + 1));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    String json(String command) {
+        return String.format(Locale.US,
+                "{\"command\":\"%s\",\"status\":\"ok\",\"servo1\":%d,\"servo2\":%d,\"servo3\":%d}",
+                command, state.getServo(1), state.getServo(2), state.getServo(3));
+    }
+
+    private static void respond(OutputStream out, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        String head = "HTTP/1.1 " + code + (code == 200 ? " OK" : " Not Found") + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Connection: keep-alive\r\n"
+                + "Content-Length: " + bytes.length + "\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+}
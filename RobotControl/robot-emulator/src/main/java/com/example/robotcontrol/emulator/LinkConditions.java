@@ -0,0 +1,69 @@
+package com.example.robotcontrol.emulator;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * How bad the emulated link and robot are: one-way latency with uniform jitter, the chance a
+ * command is lost (neither applied nor answered), and how long the robot takes to act on one.
+ */
+public final class LinkConditions {
+
+    public static final LinkConditions IDEAL = new LinkConditions(0, 0, 0, 0);
+
+    private final int latencyMs;
+    private final int jitterMs;
+    private final double lossRate;
+    private final int processingMs;
+
+    /**
+     * @param latencyMs    one-way delay, each direction
+     * @param jitterMs     each one-way delay varies by up to this much either way
+     * @param lossRate     0..1, chance a command is dropped
+     * @param processingMs time the robot spends on each command before answering
+     */
+    public LinkConditions(int latencyMs, int jitterMs, double lossRate, int processingMs) {
+        if (latencyMs < 0 || jitterMs < 0 || processingMs < 0) {
+            throw new IllegalArgumentException("Delays cannot be negative");
+        }
+        if (lossRate < 0 || lossRate > 1) {
+            throw new IllegalArgumentException("lossRate must be between 0 and 1");
+        }
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.lossRate = lossRate;
+        this.processingMs = processingMs;
+    }
+
+    public int getLatencyMs() {
+        return latencyMs;
+    }
+
+    public int getJitterMs() {
+        return jitterMs;
+    }
+
+    public double getLossRate() {
+        return lossRate;
+    }
+
+    public int getProcessingMs() {
+        return processingMs;
+    }
+
+    /** One trip's delay: latency plus or minus jitter, never negative. */
+    public long oneWayDelayMs(Random random) {
+        int jitter = jitterMs > 0 ? random.nextInt(2 * jitterMs + 1) - jitterMs : 0;
+        return Math.max(0, latencyMs + jitter);
+    }
+
+    public boolean shouldDrop(Random random) {
+        return lossRate > 0 && random.nextDouble() < lossRate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "latency %d+/-%d ms, loss %.1f%%, processing %d ms",
+                latencyMs, jitterMs, lossRate * 100, processingMs);
+    }
+}
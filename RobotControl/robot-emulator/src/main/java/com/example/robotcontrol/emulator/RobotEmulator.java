@@ -0,0 +1,199 @@
+package com.example.robotcontrol.emulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Random;
+
+/**
+ * Stand-in robot for tests and manual runs: the ESP32 HTTP interface, its WebSocket endpoint,
+ * its UDP control listener and the Bluetooth ASCII protocol (over TCP) sharing one
+ * {@link RobotState}, all behind the same {@link LinkConditions}.
+ *
+ * <pre>
+ *   try (RobotEmulator robot = new RobotEmulator(LinkConditions.IDEAL, 1)) {
+ *       robot.start(0, 0);
+ *       RobotController c = new RobotController("127.0.0.1", robot.getHttpPort());
+ *       ...
+ *   }
+ * </pre>
+ *
+ * Run standalone with {@code ./gradlew :robot-emulator:run --args="--latency=40 --loss=0.05"}
+ * and point the app at this machine.
+ */
+public final class RobotEmulator implements Closeable {
+
+    private final RobotState state = new RobotState();
+    private final HttpRobotServer http;
+    private final BluetoothRobotServer bluetooth;
+    private final UdpRobotServer udp;
+    private final WebSocketRobotServer webSocket;
+    private volatile LinkConditions conditions;
+
+    /**
+     * @param seed seeds latency jitter and loss so a run can be repeated
+     */
+    public RobotEmulator(LinkConditions conditions, long seed) {
+        this.conditions = conditions;
+        http = new HttpRobotServer(state, conditions, new Random(seed));
+        bluetooth = new BluetoothRobotServer(state, conditions, new Random(seed + 1));
+        udp = new UdpRobotServer(state, conditions, new Random(seed + 2));
+        webSocket = new WebSocketRobotServer(state, conditions, new Random(seed + 3), http);
+    }
+
+    /** Listens on loopback; a port of 0 picks a free one. UDP and WebSocket get free ports. */
+    public RobotEmulator start(int httpPort, int bluetoothPort) throws IOException {
+        return start(InetAddress.getLoopbackAddress(), httpPort, bluetoothPort, 0, 0);
+    }
+
+    public RobotEmulator start(InetAddress address, int httpPort, int bluetoothPort, int udpPort,
+                               int webSocketPort) throws IOException {
+        http.start(address, httpPort, "EmulatorHttp");
+        try {
+            bluetooth.start(address, bluetoothPort, "EmulatorBt");
+            udp.start(address, udpPort, "EmulatorUdp");
+            webSocket.start(address, webSocketPort, "EmulatorWs");
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        return this;
+    }
+
+    public int getHttpPort() {
+        return http.getPort();
+    }
+
+    public int getBluetoothPort() {
+        return bluetooth.getPort();
+    }
+
+    public int getUdpPort() {
+        return udp.getPort();
+    }
+
+    public int getWebSocketPort() {
+        return webSocket.getPort();
+    }
+
+    public RobotState getState() {
+        return state;
+    }
+
+    public LinkConditions getConditions() {
+        return conditions;
+    }
+
+    /** Takes effect from the next command on either link. */
+    public void setConditions(LinkConditions conditions) {
+        this.conditions = conditions;
+        http.setConditions(conditions);
+        bluetooth.setConditions(conditions);
+        udp.setConditions(conditions);
+        webSocket.setConditions(conditions);
+    }
+
+    public HttpRobotServer getHttpServer() {
+        return http;
+    }
+
+    public BluetoothRobotServer getBluetoothServer() {
+        return bluetooth;
+    }
+
+    public UdpRobotServer getUdpServer() {
+        return udp;
+    }
+
+    public WebSocketRobotServer getWebSocketServer() {
+        return webSocket;
+    }
+
+    /** Commands received on every link, lost ones included. */
+    public long getReceivedCount() {
+        return http.getReceivedCount() + bluetooth.getReceivedCount() + udp.getReceivedCount()
+                + webSocket.getReceivedCount();
+    }
+
+    public long getDroppedCount() {
+        return http.getDroppedCount() + bluetooth.getDroppedCount() + udp.getDroppedCount()
+                + webSocket.getDroppedCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        udp.close();
+        webSocket.close();
+        try {
+            http.close();
+        } finally {
+            bluetooth.close();
+        }
+    }
+
+    /**
+     * Options: --host=0.0.0.0 --http-port=8080 --bt-port=8266 --udp-port=8889 --ws-port=8081
+     * --latency=ms --jitter=ms
+     * --loss=0..1 --processing=ms --seed=n
+     */
+    public static void main(String[] args) throws Exception {
+        String host = "0.0.0.0";
+        int httpPort = 8080;
+        int btPort = 8266;
+        int udpPort = 8889;
+        int wsPort = 8081;
+        int latency = 0;
+        int jitter = 0;
+        double loss = 0;
+        int processing = 0;
+        long seed = System.nanoTime();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq > 0 ? arg.substring(0, eq) : arg;
+            String value = eq > 0 ? arg.substring(eq + 1) : "";
+            switch (key) {
+                case "--host": host = value; break;
+                case "--http-port": httpPort = Integer.parseInt(value); break;
+                case "--bt-port": btPort = Integer.parseInt(value); break;
+                case "--udp-port": udpPort = Integer.parseInt(value); break;
+                case "--ws-port": wsPort = Integer.parseInt(value); break;
+                case "--latency": latency = Integer.parseInt(value); break;
+                case "--jitter": jitter = Integer.parseInt(value); break;
+                case "--loss": loss = Double.parseDouble(value); break;
+                case "--processing": processing = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                default:
+                    System.err.println("Unknown option " + arg);
+                    System.exit(2);
+                    return;
+            }
+        }
+
+        LinkConditions conditions = new LinkConditions(latency, jitter, loss, processing);
+        RobotEmulator emulator = new RobotEmulator(conditions, seed);
+        emulator.start(InetAddress.getByName(host), httpPort, btPort, udpPort, wsPort);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                emulator.close();
+            } catch (IOException ignored) {
+            }
+        }));
+        System.out.println("HTTP on " + host + ":" + emulator.getHttpPort()
+                + ", Bluetooth protocol on " + host + ":" + emulator.getBluetoothPort()
+                + ", UDP on " + host + ":" + emulator.getUdpPort()
+                + ", WebSocket on " + host + ":" + emulator.getWebSocketPort() + WebSocketRobotServer.PATH);
+        System.out.println(conditions);
+
+        long lastCount = -1;
+        while (true) {
+            Thread.sleep(1000);
+            RobotState s = emulator.getState();
+            long count = s.getCommandCount();
+            if (count == lastCount) continue;
+            lastCount = count;
+            System.out.println(s.getMotion() + " L" + s.getLeftPct() + " R" + s.getRightPct()
+                    + " servos " + java.util.Arrays.toString(s.getServos())
+                    + " | applied " + count + ", dropped " + emulator.getDroppedCount());
+        }
+    }
+}
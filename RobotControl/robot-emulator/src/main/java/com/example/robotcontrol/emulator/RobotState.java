@@ -0,0 +1,119 @@
+package com.example.robotcontrol.emulator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What the emulated robot is doing, updated by both servers and read by tests.
+ */
+public final class RobotState {
+
+    public enum Motion {
+        STOPPED, FORWARD, BACKWARD, LEFT, RIGHT, DRIVE, LOW, WALK, TEST
+    }
+
+    public static final int SERVO_COUNT = 8;
+    public static final int NEUTRAL_ANGLE = 90;
+
+    private Motion motion = Motion.STOPPED;
+    private int leftPct;
+    private int rightPct;
+    private final int[] servos = new int[SERVO_COUNT];
+    private final Map<String, Long> commandCounts = new HashMap<>();
+    private long commandCount;
+    private String lastCommand;
+
+    public RobotState() {
+        reset();
+    }
+
+    public synchronized void reset() {
+        motion = Motion.STOPPED;
+        leftPct = 0;
+        rightPct = 0;
+        for (int i = 0; i < SERVO_COUNT; i++) servos[i] = NEUTRAL_ANGLE;
+        commandCounts.clear();
+        commandCount = 0;
+        lastCommand = null;
+    }
+
+    synchronized void setMotion(Motion motion) {
+        this.motion = motion;
+        leftPct = 0;
+        rightPct = 0;
+    }
+
+    synchronized void drive(int leftPct, int rightPct) {
+        if (leftPct == 0 && rightPct == 0) {
+            setMotion(Motion.STOPPED);
+            return;
+        }
+        motion = Motion.DRIVE;
+        this.leftPct = leftPct;
+        this.rightPct = rightPct;
+    }
+
+    /** @param servo 1-based */
+    synchronized void setServo(int servo, int angle) {
+        servos[servo - 1] = angle;
+    }
+
+    /** Counts a command once it has been applied; wakes {@link #awaitCommandCount} waiters. */
+    synchronized void countCommand(String name) {
+        commandCount++;
+        lastCommand = name;
+        commandCounts.merge(name, 1L, Long::sum);
+        notifyAll();
+    }
+
+    public synchronized Motion getMotion() {
+        return motion;
+    }
+
+    public synchronized int getLeftPct() {
+        return leftPct;
+    }
+
+    public synchronized int getRightPct() {
+        return rightPct;
+    }
+
+    /** @param servo 1-based */
+    public synchronized int getServo(int servo) {
+        return servos[servo - 1];
+    }
+
+    public synchronized int[] getServos() {
+        return servos.clone();
+    }
+
+    /** Commands applied, over every link. */
+    public synchronized long getCommandCount() {
+        return commandCount;
+    }
+
+    /** Applied commands named {@code name}, e.g. "forward", "servo", "pose". */
+    public synchronized long getCommandCount(String name) {
+        Long n = commandCounts.get(name);
+        return n != null ? n : 0;
+    }
+
+    public synchronized String getLastCommand() {
+        return lastCommand;
+    }
+
+    /**
+     * Waits until at least {@code count} commands have been applied.
+     *
+     * @return false on timeout
+     */
+    public synchronized boolean awaitCommandCount(long count, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (commandCount < count) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            wait(left);
+        }
+        return true;
+    }
+}
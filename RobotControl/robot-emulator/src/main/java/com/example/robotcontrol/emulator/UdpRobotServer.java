@@ -0,0 +1,185 @@
+package com.example.robotcontrol.emulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The firmware's UDP control listener (port 8889 on the ESP32): 8-byte datagrams
+ * <pre>
+ *   [0] 0xA5  [1] opcode | 0x80 for "ACK me"  [2..5] sequence, big-endian  [6] arg0  [7] arg1
+ * </pre>
+ * with opcodes 1-5 forward/backward/left/right/stop, 6 servo (arg0 servo, arg1 angle) and
+ * 7 drive (wheel speeds + 100). A packet whose sequence is not newer than the last one from
+ * the same sender is ignored, and an ACK request is answered with opcode 0x7F and the same
+ * sequence. Lost packets get neither effect nor ACK.
+ */
+public final class UdpRobotServer implements Closeable {
+
+    static final int PACKET_SIZE = 8;
+    static final int MAGIC = 0xA5;
+    static final int FLAG_ACK_REQUESTED = 0x80;
+    static final int OP_FORWARD = 1;
+    static final int OP_BACKWARD = 2;
+    static final int OP_LEFT = 3;
+    static final int OP_RIGHT = 4;
+    static final int OP_STOP = 5;
+    static final int OP_SERVO = 6;
+    static final int OP_DRIVE = 7;
+    static final int OP_ACK = 0x7F;
+    static final int DRIVE_OFFSET = 100;
+
+    private final RobotState state;
+    private final Random random;
+    private volatile LinkConditions conditions;
+
+    private DatagramSocket socket;
+    // Receive thread only.
+    private final Map<SocketAddress, Integer> lastSeqBySender = new HashMap<>();
+
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong staleCount = new AtomicLong();
+
+    UdpRobotServer(RobotState state, LinkConditions conditions, Random random) {
+        this.state = state;
+        this.conditions = conditions;
+        this.random = random;
+    }
+
+    void start(InetAddress address, int port, String name) throws IOException {
+        socket = new DatagramSocket(new InetSocketAddress(address, port));
+        Thread t = new Thread(this::receiveLoop, name);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void receiveLoop() {
+        byte[] buf = new byte[64];
+        while (!socket.isClosed()) {
+            DatagramPacket in = new DatagramPacket(buf, buf.length);
+            try {
+                socket.receive(in);
+                handle(in);
+            } catch (IOException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void handle(DatagramPacket in) throws IOException, InterruptedException {
+        if (in.getLength() != PACKET_SIZE) return;
+        byte[] b = in.getData();
+        int o = in.getOffset();
+        if ((b[o] & 0xFF) != MAGIC) return;
+        int type = b[o + 1] & 0xFF;
+        int opcode = type & 0x7F;
+        int seq = ((b[o + 2] & 0xFF) << 24) | ((b[o + 3] & 0xFF) << 16)
+                | ((b[o + 4] & 0xFF) << 8) | (b[o + 5] & 0xFF);
+        int arg0 = b[o + 6] & 0xFF;
+        int arg1 = b[o + 7] & 0xFF;
+
+        receivedCount.incrementAndGet();
+        LinkConditions c = conditions;
+        sleep(c.oneWayDelayMs(random));
+        if (c.shouldDrop(random)) {
+            droppedCount.incrementAndGet();
+            return;
+        }
+        sleep(c.getProcessingMs());
+
+        SocketAddress sender = in.getSocketAddress();
+        Integer last = lastSeqBySender.get(sender);
+        if (last != null && seq - last <= 0) {
+            // Reordered or duplicated: a newer command has already been applied.
+            staleCount.incrementAndGet();
+        } else {
+            lastSeqBySender.put(sender, seq);
+            String command = apply(opcode, arg0, arg1);
+            if (command != null) state.countCommand(command);
+        }
+
+        if ((type & FLAG_ACK_REQUESTED) != 0) {
+            // ACK duplicates too, so a sender whose first ACK was lost stops resending.
+            sleep(conditions.oneWayDelayMs(random));
+            byte[] ack = {(byte) MAGIC, (byte) OP_ACK, b[o + 2], b[o + 3], b[o + 4], b[o + 5], 0, 0};
+            socket.send(new DatagramPacket(ack, ack.length, sender));
+        }
+    }
+
+    /** @return the command name, or null for an opcode the firmware ignores */
+    private String apply(int opcode, int arg0, int arg1) {
+        switch (opcode) {
+            case OP_FORWARD:
+                state.setMotion(RobotState.Motion.FORWARD);
+                return "forward";
+            case OP_BACKWARD:
+                state.setMotion(RobotState.Motion.BACKWARD);
+                return "backward";
+            case OP_LEFT:
+                state.setMotion(RobotState.Motion.LEFT);
+                return "left";
+            case OP_RIGHT:
+                state.setMotion(RobotState.Motion.RIGHT);
+                return "right";
+            case OP_STOP:
+                state.setMotion(RobotState.Motion.STOPPED);
+                return "stop";
+            case OP_SERVO:
+                if (arg1 > 180) return null;
+                if (arg0 >= 1 && arg0 <= HttpRobotServer.HTTP_SERVOS) state.setServo(arg0, arg1);
+                return "servo";
+            case OP_DRIVE:
+                state.drive(clamp(arg0 - DRIVE_OFFSET), clamp(arg1 - DRIVE_OFFSET));
+                return "drive";
+            default:
+                return null;
+        }
+    }
+
+    private static int clamp(int pct) {
+        return Math.max(-100, Math.min(100, pct));
+    }
+
+    private static void sleep(long ms) throws InterruptedException {
+        if (ms > 0) Thread.sleep(ms);
+    }
+
+    void setConditions(LinkConditions conditions) {
+        this.conditions = conditions;
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    /** Datagrams that reached the robot, dropped ones included. */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /** Datagrams ignored because a newer sequence had already been applied. */
+    public long getStaleCount() {
+        return staleCount.get();
+    }
+
+    @Override
+    public void close() {
+        if (socket != null) socket.close();
+    }
+}
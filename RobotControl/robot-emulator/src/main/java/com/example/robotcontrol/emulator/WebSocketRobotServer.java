@@ -0,0 +1,168 @@
+package com.example.robotcontrol.emulator;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The firmware's WebSocket endpoint (ws://robot:81/ws): each text frame carries an HTTP command
+ * path ("/forward", "/set?servo=2&amp;angle=90") and is answered, in order, with the JSON the
+ * HTTP interface would send. While a session is open the robot pushes a
+ * {@code {"type":"telemetry",...}} frame every {@link #TELEMETRY_INTERVAL_MS}. Pings get pongs.
+ * A lost command gets no reply, which is what the app's reply deadline is for.
+ */
+public final class WebSocketRobotServer extends EmulatedServer {
+
+    static final String PATH = "/ws";
+    static final long TELEMETRY_INTERVAL_MS = 1000;
+    static final int MAX_PAYLOAD = 256;
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private static final int OP_TEXT = 0x1;
+    private static final int OP_CLOSE = 0x8;
+    private static final int OP_PING = 0x9;
+    private static final int OP_PONG = 0xA;
+
+    // Commands are applied exactly as over HTTP.
+    private final HttpRobotServer commands;
+
+    WebSocketRobotServer(RobotState state, LinkConditions conditions, Random random, HttpRobotServer commands) {
+        super(state, conditions, random);
+        this.commands = commands;
+    }
+
+    @Override
+    protected void serve(Socket client) throws IOException, InterruptedException {
+        DataInputStream in = new DataInputStream(client.getInputStream());
+        OutputStream out = client.getOutputStream();
+        if (!handshake(in, out)) return;
+
+        Thread telemetry = new Thread(() -> pushTelemetry(out), "EmulatorWs-telemetry");
+        telemetry.setDaemon(true);
+        telemetry.start();
+        try {
+            while (true) {
+                int b0 = in.read();
+                if (b0 < 0) return;
+                int b1 = in.readUnsignedByte();
+                int opcode = b0 & 0x0F;
+                int len = b1 & 0x7F;
+                if (len == 126) len = in.readUnsignedShort();
+                // Client frames must be masked; the firmware has no room for big ones.
+                if ((b1 & 0x80) == 0 || len > MAX_PAYLOAD) return;
+                byte[] mask = new byte[4];
+                in.readFully(mask);
+                byte[] payload = new byte[len];
+                in.readFully(payload);
+                for (int i = 0; i < len; i++) payload[i] ^= mask[i & 3];
+
+                if (opcode == OP_CLOSE) {
+                    send(out, OP_CLOSE, new byte[0]);
+                    return;
+                }
+                if (opcode == OP_PING) {
+                    send(out, OP_PONG, payload);
+                    continue;
+                }
+                if (opcode != OP_TEXT) continue;
+
+                if (!arrive()) continue;
+                String command = commands.handle(new String(payload, StandardCharsets.US_ASCII));
+                depart();
+                String reply;
+                if (command != null) {
+                    state.countCommand(command);
+                    reply = commands.json(command);
+                } else {
+                    reply = HttpRobotServer.UNKNOWN_COMMAND;
+                }
+                send(out, OP_TEXT, reply.getBytes(StandardCharsets.US_ASCII));
+            }
+        } finally {
+            telemetry.interrupt();
+        }
+    }
+
+    private static boolean handshake(InputStream in, OutputStream out) throws IOException {
+        String requestLine = readLine(in);
+        String key = null;
+        String header;
+        while ((header = readLine(in)) != null && !header.isEmpty()) {
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                key = header.substring(colon + 1).trim();
+            }
+        }
+        if (requestLine == null || !requestLine.startsWith("GET " + PATH + " ") || key == null) {
+            out.write("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return false;
+        }
+        out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return true;
+    }
+
+    static String acceptKey(String key) {
+        try {
+            byte[] sha1 = MessageDigest.getInstance("SHA-1")
+                    .digest((key + GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(sha1);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private void pushTelemetry(OutputStream out) {
+        try {
+            while (true) {
+                Thread.sleep(TELEMETRY_INTERVAL_MS);
+                String json = String.format(Locale.US,
+                        "{\"type\":\"telemetry\",\"driving\":%b,\"servo1\":%d,\"servo2\":%d,\"servo3\":%d}",
+                        state.getMotion() != RobotState.Motion.STOPPED,
+                        state.getServo(1), state.getServo(2), state.getServo(3));
+                send(out, OP_TEXT, json.getBytes(StandardCharsets.US_ASCII));
+            }
+        } catch (InterruptedException | IOException e) {
+            // Session over.
+        }
+    }
+
+    /** Replies and telemetry come from two threads; one frame at a time. */
+    private static void send(OutputStream out, int opcode, byte[] payload) throws IOException {
+        synchronized (out) {
+            out.write(0x80 | opcode);
+            if (payload.length < 126) {
+                out.write(payload.length);
+            } else {
+                out.write(126);
+                out.write(payload.length >> 8);
+                out.write(payload.length & 0xFF);
+            }
+            out.write(payload);
+            out.flush();
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') return sb.toString();
+            if (c != '\r') sb.append((char) c);
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.robotcontrol.emulator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RobotEmulatorTest {
+
+    private RobotEmulator robot;
+
+    @Before
+    public void setUp() throws IOException {
+        robot = new RobotEmulator(LinkConditions.IDEAL, 7).start(0, 0);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        robot.close();
+    }
+
+    @Test
+    public void httpCommandsChangeStateAndAnswerLikeTheFirmware() throws IOException {
+        try (Socket s = connect(robot.getHttpPort())) {
+            BufferedReader in = reader(s);
+            assertEquals("{\"command\":\"forward\",\"status\":\"ok\",\"servo1\":90,\"servo2\":90,\"servo3\":90}",
+                    get(s, in, "/forward"));
+            assertEquals(RobotState.Motion.FORWARD, robot.getState().getMotion());
+
+            // Same connection: keep-alive.
+            get(s, in, "/drive?l=-40&r=250");
+            assertEquals(RobotState.Motion.DRIVE, robot.getState().getMotion());
+            assertEquals(-40, robot.getState().getLeftPct());
+            assertEquals(100, robot.getState().getRightPct());
+
+            assertTrue(get(s, in, "/pose?s1=10&s3=170").contains("\"servo1\":10,\"servo2\":90,\"servo3\":170"));
+            get(s, in, "/set?servo=2&angle=45");
+            assertEquals(45, robot.getState().getServo(2));
+
+            assertEquals("{\"status\":\"error\",\"message\":\"Unknown command\"}", get(s, in, "/jump"));
+            assertEquals("{\"status\":\"error\",\"message\":\"Unknown command\"}", get(s, in, "/set?servo=1&angle=200"));
+        }
+        assertEquals(4, robot.getState().getCommandCount());
+        assertEquals("servo", robot.getState().getLastCommand());
+    }
+
+    @Test
+    public void bluetoothAsciiProtocol() throws IOException {
+        try (Socket s = connect(robot.getBluetoothPort())) {
+            BufferedReader in = reader(s);
+            assertEquals("OK a (forward)", send(s, in, "A\r\n"));
+            assertEquals(RobotState.Motion.FORWARD, robot.getState().getMotion());
+            assertEquals("OK p3 120", send(s, in, "p3:120;"));
+            assertEquals(120, robot.getState().getServo(3));
+            assertEquals("OK p8 180", send(s, in, "p8:999;"));
+            assertEquals("OK q", send(s, in, "q1:10,7:20;"));
+            assertEquals(10, robot.getState().getServo(1));
+            assertEquals(20, robot.getState().getServo(7));
+            assertEquals("ERR q (invalid)", send(s, in, "q9:10;"));
+            assertEquals("ERR unknown: x", send(s, in, "x"));
+            assertEquals("OK s (stop/neutral)", send(s, in, "s"));
+            assertEquals(RobotState.Motion.STOPPED, robot.getState().getMotion());
+            assertEquals(RobotState.NEUTRAL_ANGLE, robot.getState().getServo(3));
+        }
+    }
+
+    @Test
+    public void binaryFramesAreIgnored() throws IOException {
+        try (Socket s = connect(robot.getBluetoothPort())) {
+            BufferedReader in = reader(s);
+            OutputStream out = s.getOutputStream();
+            // HELLO: sync, type 0xF with 1 byte payload, seq, version, crc. Nothing comes back,
+            // so the next line read is the answer to 'w'.
+            out.write(new byte[]{(byte) 0xA5, (byte) 0xF1, 0, 1, 0});
+            assertEquals("OK w (walk)", send(s, in, "w"));
+        }
+        assertEquals(1, robot.getBluetoothServer().getIgnoredFrameCount());
+    }
+
+    @Test
+    public void lostCommandsAreNeitherAppliedNorAnswered() throws Exception {
+        robot.setConditions(new LinkConditions(0, 0, 1.0, 0));
+        try (Socket s = connect(robot.getBluetoothPort())) {
+            s.setSoTimeout(200);
+            s.getOutputStream().write('a');
+            try {
+                assertNull(reader(s).readLine());
+            } catch (java.net.SocketTimeoutException expected) {
+                // No answer.
+            }
+        }
+        assertEquals(RobotState.Motion.STOPPED, robot.getState().getMotion());
+        assertEquals(1, robot.getDroppedCount());
+    }
+
+    @Test
+    public void latencyAndProcessingDelayTheAnswer() throws IOException {
+        robot.setConditions(new LinkConditions(30, 0, 0, 20));
+        try (Socket s = connect(robot.getBluetoothPort())) {
+            BufferedReader in = reader(s);
+            long start = System.nanoTime();
+            assertEquals("OK l (low)", send(s, in, "l"));
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            assertTrue("round trip " + ms + " ms", ms >= 80);
+        }
+    }
+
+    @Test
+    public void udpDatagramsAreAppliedInOrderAndAcked() throws IOException {
+        try (DatagramSocket s = new DatagramSocket()) {
+            s.setSoTimeout(2000);
+            s.connect(InetAddress.getLoopbackAddress(), robot.getUdpPort());
+            // drive 60/-20, then an older sequence that must not override it
+            s.send(datagram(7, 0x07, 160, 80));
+            s.send(datagram(6, 0x01, 0, 0));
+            // servo 2 to 45, ACK requested
+            s.send(datagram(8, 0x86, 2, 45));
+
+            byte[] ack = new byte[8];
+            s.receive(new DatagramPacket(ack, ack.length));
+            assertEquals(0x7F, ack[1] & 0xFF);
+            assertEquals(8, ack[5]);
+        }
+        assertEquals(RobotState.Motion.DRIVE, robot.getState().getMotion());
+        assertEquals(60, robot.getState().getLeftPct());
+        assertEquals(-20, robot.getState().getRightPct());
+        assertEquals(45, robot.getState().getServo(2));
+        assertEquals(1, robot.getUdpServer().getStaleCount());
+        assertEquals(2, robot.getState().getCommandCount());
+    }
+
+    @Test
+    public void webSocketCommandsAreAnsweredInOrderAndTelemetryIsPushed() throws IOException {
+        try (Socket s = connect(robot.getWebSocketPort())) {
+            s.getOutputStream().write(("GET /ws HTTP/1.1\r\nHost: robot\r\nUpgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\nSec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+                    + "Sec-WebSocket-Version: 13\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            DataInputStream in = new DataInputStream(s.getInputStream());
+            assertEquals("HTTP/1.1 101 Switching Protocols", readLine(in));
+            String header;
+            String accept = null;
+            while (!(header = readLine(in)).isEmpty()) {
+                if (header.startsWith("Sec-WebSocket-Accept: ")) accept = header.substring(22);
+            }
+            // RFC 6455's worked example.
+            assertEquals("s3pPLMBiTxaQ9kYGzzhZRbK+xOo=", accept);
+
+            sendText(s, "/forward");
+            sendText(s, "/jump");
+            assertEquals("{\"command\":\"forward\",\"status\":\"ok\",\"servo1\":90,\"servo2\":90,\"servo3\":90}",
+                    readText(in));
+            assertEquals("{\"status\":\"error\",\"message\":\"Unknown command\"}", readText(in));
+            assertEquals(RobotState.Motion.FORWARD, robot.getState().getMotion());
+
+            s.setSoTimeout((int) WebSocketRobotServer.TELEMETRY_INTERVAL_MS * 3);
+            assertEquals("{\"type\":\"telemetry\",\"driving\":true,\"servo1\":90,\"servo2\":90,\"servo3\":90}",
+                    readText(in));
+        }
+        assertEquals(2, robot.getWebSocketServer().getReceivedCount());
+    }
+
+    private static void sendText(Socket s, String text) throws IOException {
+        byte[] payload = text.getBytes(StandardCharsets.US_ASCII);
+        byte[] mask = {1, 2, 3, 4};
+        OutputStream out = s.getOutputStream();
+        out.write(0x81);
+        out.write(0x80 | payload.length);
+        out.write(mask);
+        for (int i = 0; i < payload.length; i++) out.write(payload[i] ^ mask[i & 3]);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        assertEquals(0x81, in.readUnsignedByte());
+        byte[] payload = new byte[in.readUnsignedByte()];
+        in.readFully(payload);
+        return new String(payload, StandardCharsets.US_ASCII);
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) throw new java.io.EOFException();
+            if (c != '\r') sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    private DatagramPacket datagram(int seq, int type, int arg0, int arg1) {
+        byte[] b = {(byte) 0xA5, (byte) type, 0, 0, 0, (byte) seq, (byte) arg0, (byte) arg1};
+        return new DatagramPacket(b, b.length, InetAddress.getLoopbackAddress(), robot.getUdpPort());
+    }
+
+    private static Socket connect(int port) throws IOException {
+        Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+        s.setSoTimeout(2000);
+        return s;
+    }
+
+    private static BufferedReader reader(Socket s) throws IOException {
+        return new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+    }
+
+    private static String send(Socket s, BufferedReader in, String command) throws IOException {
+        s.getOutputStream().write(command.getBytes(StandardCharsets.US_ASCII));
+        return in.readLine();
+    }
+
+    /** Sends a keep-alive GET and returns the body. */
+    private static String get(Socket s, BufferedReader in, String path) throws IOException {
+        s.getOutputStream().write(("GET " + path + " HTTP/1.1\r\nHost: robot\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        int length = 0;
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            if (line.startsWith("Content-Length: ")) length = Integer.parseInt(line.substring(16));
+        }
+        char[] body = new char[length];
+        int read = 0;
+        while (read < length) read += in.read(body, read, length - read);
+        return new String(body);
+    }
+}
@@ -21,3 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "Robot Control"
 include(":app")
+include(":robot-emulator")